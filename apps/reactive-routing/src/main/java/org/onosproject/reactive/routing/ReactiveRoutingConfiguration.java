@@ -17,11 +17,6 @@
 package org.onosproject.reactive.routing;
 
 import com.google.common.collect.ImmutableSet;
-import com.googlecode.concurrenttrees.radix.node.concrete.DefaultByteArrayNodeFactory;
-import com.googlecode.concurrenttrees.radixinverted.ConcurrentInvertedRadixTree;
-import com.googlecode.concurrenttrees.radixinverted.InvertedRadixTree;
-import org.onlab.packet.Ip4Address;
-import org.onlab.packet.Ip6Address;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpPrefix;
 import org.onlab.packet.MacAddress;
@@ -36,6 +31,7 @@ import org.onosproject.net.config.NetworkConfigService;
 import org.onosproject.net.config.basics.SubjectFactories;
 import org.onosproject.net.intf.Interface;
 import org.onosproject.net.intf.InterfaceService;
+import org.onosproject.routeservice.PrefixTrie;
 import org.onosproject.routing.RoutingService;
 import org.onosproject.routing.config.BgpConfig;
 import org.osgi.service.component.annotations.Activate;
@@ -51,8 +47,6 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import static org.onosproject.routeservice.RouteTools.createBinaryString;
-
 /**
  * Reactive routing configuration manager.
  */
@@ -77,12 +71,10 @@ public class ReactiveRoutingConfiguration implements
     private Set<IpAddress> gatewayIpAddresses = new HashSet<>();
     private Set<ConnectPoint> bgpPeerConnectPoints = new HashSet<>();
 
-    private InvertedRadixTree<LocalIpPrefixEntry>
-            localPrefixTable4 = new ConcurrentInvertedRadixTree<>(
-                    new DefaultByteArrayNodeFactory());
-    private InvertedRadixTree<LocalIpPrefixEntry>
-            localPrefixTable6 = new ConcurrentInvertedRadixTree<>(
-                    new DefaultByteArrayNodeFactory());
+    private PrefixTrie<LocalIpPrefixEntry>
+            localPrefixTable4 = new PrefixTrie<>(IpAddress.Version.INET);
+    private PrefixTrie<LocalIpPrefixEntry>
+            localPrefixTable6 = new PrefixTrie<>(IpAddress.Version.INET6);
 
     private MacAddress virtualGatewayMacAddress;
     private final InternalNetworkConfigListener configListener =
@@ -127,12 +119,12 @@ public class ReactiveRoutingConfiguration implements
             return;
         }
         for (LocalIpPrefixEntry entry : config.localIp4PrefixEntries()) {
-            localPrefixTable4.put(createBinaryString(entry.ipPrefix()), entry);
+            localPrefixTable4.put(entry.ipPrefix(), entry);
             gatewayIpAddresses.add(entry.getGatewayIpAddress());
             log.info("adding local IPv4 entry: {} {}", entry.ipPrefix(), entry.getGatewayIpAddress());
         }
         for (LocalIpPrefixEntry entry : config.localIp6PrefixEntries()) {
-            localPrefixTable6.put(createBinaryString(entry.ipPrefix()), entry);
+            localPrefixTable6.put(entry.ipPrefix(), entry);
             gatewayIpAddresses.add(entry.getGatewayIpAddress());
             log.info("adding local IPv6 entry: {} {}", entry.ipPrefix(), entry.getGatewayIpAddress());
         }
@@ -166,24 +158,19 @@ public class ReactiveRoutingConfiguration implements
     @Override
     public boolean isIpAddressLocal(IpAddress ipAddress) {
         if (ipAddress.isIp4()) {
-            return localPrefixTable4.getValuesForKeysPrefixing(
-                    createBinaryString(
-                    IpPrefix.valueOf(ipAddress, Ip4Address.BIT_LENGTH)))
-                    .iterator().hasNext();
+            return localPrefixTable4.matches(ipAddress);
         } else {
-            return localPrefixTable6.getValuesForKeysPrefixing(
-                    createBinaryString(
-                    IpPrefix.valueOf(ipAddress, Ip6Address.BIT_LENGTH)))
-                    .iterator().hasNext();
+            return localPrefixTable6.matches(ipAddress);
         }
     }
 
     @Override
     public boolean isIpPrefixLocal(IpPrefix ipPrefix) {
-        return (localPrefixTable4.getValueForExactKey(
-                createBinaryString(ipPrefix)) != null ||
-                localPrefixTable6.getValueForExactKey(
-                createBinaryString(ipPrefix)) != null);
+        if (ipPrefix.isIp4()) {
+            return localPrefixTable4.get(ipPrefix) != null;
+        } else {
+            return localPrefixTable6.get(ipPrefix) != null;
+        }
     }
 
     @Override
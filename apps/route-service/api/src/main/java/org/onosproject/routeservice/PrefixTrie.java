@@ -0,0 +1,328 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.routeservice;
+
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Path-compressed binary trie of the IP prefixes of one address family,
+ * supporting longest prefix match.
+ * <p>
+ * Prefixes are keyed on their raw address bits held in two longs, rather
+ * than on strings of bits, and each node holds one prefix or branching
+ * point. Reads are lock-free and may run concurrently with
+ * an update; updates are serialized on the trie.
+ *
+ * @param <V> type of the values
+ */
+public final class PrefixTrie<V> {
+
+    private final IpAddress.Version version;
+    private final int width;
+    private final Node<V> root = new Node<>(0, 0, 0, null);
+    private volatile int size;
+
+    /**
+     * Creates an empty trie for the prefixes of the given address family.
+     *
+     * @param version address family
+     */
+    public PrefixTrie(IpAddress.Version version) {
+        this.version = checkNotNull(version);
+        this.width = version == IpAddress.Version.INET ?
+                IpAddress.INET_BIT_LENGTH : IpAddress.INET6_BIT_LENGTH;
+    }
+
+    /**
+     * Returns the number of prefixes in the trie.
+     *
+     * @return number of prefixes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Associates the given value with the given prefix.
+     *
+     * @param prefix IP prefix
+     * @param value  value
+     * @return value previously associated with the prefix, or null
+     */
+    public synchronized V put(IpPrefix prefix, V value) {
+        checkNotNull(value);
+        int length = prefix.prefixLength();
+        long hi = high(prefix.address());
+        long lo = low(prefix.address());
+
+        Node<V> node = root;
+        while (node.length != length) {
+            int bit = bit(hi, lo, node.length);
+            Node<V> child = node.child(bit);
+            if (child == null) {
+                node.setChild(bit, new Node<>(hi, lo, length, value));
+                size++;
+                return null;
+            }
+            int common = commonLength(child.hi, child.lo, hi, lo,
+                                      Math.min(child.length, length));
+            if (common == child.length) {
+                node = child;
+                continue;
+            }
+            // The new node, or an intermediate one, goes between node and
+            // child; it is complete before being linked, for readers.
+            Node<V> inserted;
+            if (common == length) {
+                inserted = new Node<>(hi, lo, length, value);
+                inserted.setChild(bit(child.hi, child.lo, length), child);
+            } else {
+                inserted = new Node<>(mask(hi, common), common > 64 ? mask(lo, common - 64) : 0,
+                                      common, null);
+                inserted.setChild(bit(hi, lo, common), new Node<>(hi, lo, length, value));
+                inserted.setChild(bit(child.hi, child.lo, common), child);
+            }
+            node.setChild(bit, inserted);
+            size++;
+            return null;
+        }
+        V previous = node.value;
+        node.value = value;
+        if (previous == null) {
+            size++;
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the value associated with the given prefix.
+     *
+     * @param prefix IP prefix
+     * @return removed value, or null if there was none
+     */
+    public synchronized V remove(IpPrefix prefix) {
+        int length = prefix.prefixLength();
+        long hi = high(prefix.address());
+        long lo = low(prefix.address());
+
+        Node<V> grandParent = null;
+        Node<V> parent = null;
+        Node<V> node = root;
+        while (node != null && node.length < length) {
+            grandParent = parent;
+            parent = node;
+            node = node.child(bit(hi, lo, node.length));
+            if (node != null && commonLength(node.hi, node.lo, hi, lo,
+                                             Math.min(node.length, length)) < node.length) {
+                node = null;
+            }
+        }
+        if (node == null || node.length != length || node.value == null) {
+            return null;
+        }
+
+        V previous = node.value;
+        node.value = null;
+        size--;
+        if (parent != null) {
+            prune(parent, node);
+            if (grandParent != null && parent.value == null
+                    && (parent.child(0) == null || parent.child(1) == null)) {
+                prune(grandParent, parent);
+            }
+        }
+        return previous;
+    }
+
+    // Unlinks the given valueless node if it has less than two children;
+    // readers still on it see its unchanged children.
+    private void prune(Node<V> parent, Node<V> node) {
+        Node<V> left = node.child(0);
+        Node<V> right = node.child(1);
+        if (left != null && right != null) {
+            return;
+        }
+        int bit = parent.child(0) == node ? 0 : 1;
+        parent.setChild(bit, left != null ? left : right);
+    }
+
+    /**
+     * Returns the value associated with exactly the given prefix.
+     *
+     * @param prefix IP prefix
+     * @return value, or null if there is none
+     */
+    public V get(IpPrefix prefix) {
+        int length = prefix.prefixLength();
+        long hi = high(prefix.address());
+        long lo = low(prefix.address());
+
+        Node<V> node = root;
+        while (node.length < length) {
+            node = node.child(bit(hi, lo, node.length));
+            if (node == null || commonLength(node.hi, node.lo, hi, lo,
+                                             Math.min(node.length, length)) < node.length) {
+                return null;
+            }
+        }
+        return node.length == length ? node.value : null;
+    }
+
+    /**
+     * Returns the value of the longest prefix containing the given address.
+     *
+     * @param address IP address
+     * @return value of the longest matching prefix, or null if there is none
+     */
+    public V longestPrefixMatch(IpAddress address) {
+        checkArgument(address.version() == version, "Address family mismatch: %s", address);
+        long hi = high(address);
+        long lo = low(address);
+
+        Node<V> node = root;
+        V match = node.value;
+        while (node.length < width) {
+            node = node.child(bit(hi, lo, node.length));
+            if (node == null || commonLength(node.hi, node.lo, hi, lo, node.length) < node.length) {
+                break;
+            }
+            V value = node.value;
+            if (value != null) {
+                match = value;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Returns whether a prefix of the trie contains the given address.
+     *
+     * @param address IP address
+     * @return true if the address matches a prefix
+     */
+    public boolean matches(IpAddress address) {
+        return longestPrefixMatch(address) != null;
+    }
+
+    /**
+     * Returns the values of the trie, ordered by prefix. Updates made while
+     * collecting the values may or may not be reflected.
+     *
+     * @return values
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        Deque<Node<V>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<V> node = stack.pop();
+            V value = node.value;
+            if (value != null) {
+                values.add(value);
+            }
+            Node<V> right = node.child(1);
+            if (right != null) {
+                stack.push(right);
+            }
+            Node<V> left = node.child(0);
+            if (left != null) {
+                stack.push(left);
+            }
+        }
+        return values;
+    }
+
+    private long high(IpAddress address) {
+        checkArgument(address.version() == version, "Address family mismatch: %s", address);
+        byte[] octets = address.toOctets();
+        long bits = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            bits <<= Byte.SIZE;
+            bits |= i < octets.length ? octets[i] & 0xff : 0;
+        }
+        return bits;
+    }
+
+    private static long low(IpAddress address) {
+        byte[] octets = address.toOctets();
+        long bits = 0;
+        for (int i = Long.BYTES; i < 2 * Long.BYTES; i++) {
+            bits <<= Byte.SIZE;
+            bits |= i < octets.length ? octets[i] & 0xff : 0;
+        }
+        return bits;
+    }
+
+    // Returns the given bit of a 128-bit key, 0 being the most significant.
+    private static int bit(long hi, long lo, int index) {
+        return index < Long.SIZE ?
+                (int) (hi >>> (Long.SIZE - 1 - index)) & 1 :
+                (int) (lo >>> (2 * Long.SIZE - 1 - index)) & 1;
+    }
+
+    // Returns the number of leading bits, up to max, the two keys share.
+    private static int commonLength(long hi1, long lo1, long hi2, long lo2, int max) {
+        long diff = hi1 ^ hi2;
+        int common = diff != 0 ? Long.numberOfLeadingZeros(diff) :
+                Long.SIZE + Long.numberOfLeadingZeros(lo1 ^ lo2);
+        return Math.min(common, max);
+    }
+
+    // Keeps the given number of leading bits of a 64-bit word.
+    private static long mask(long bits, int length) {
+        return length <= 0 ? 0 : length >= Long.SIZE ? bits : bits & -(1L << (Long.SIZE - length));
+    }
+
+    // Node of the trie, holding the prefix made of the first length bits of
+    // hi and lo, and the value of the prefix if it was put in the trie.
+    private static final class Node<V> {
+        private final long hi;
+        private final long lo;
+        private final int length;
+        private volatile V value;
+        private volatile Node<V> left;
+        private volatile Node<V> right;
+
+        private Node(long hi, long lo, int length, V value) {
+            this.hi = hi;
+            this.lo = lo;
+            this.length = length;
+            this.value = value;
+        }
+
+        private Node<V> child(int bit) {
+            return bit == 0 ? left : right;
+        }
+
+        private void setChild(int bit, Node<V> child) {
+            if (bit == 0) {
+                left = child;
+            } else {
+                right = child;
+            }
+        }
+    }
+}
@@ -17,9 +17,32 @@
 package org.onosproject.routeservice;
 
 import org.onosproject.event.EventListener;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
 
 /**
  * Listener for route events.
  */
 public interface RouteListener extends EventListener<RouteEvent> {
+
+    /**
+     * Reacts to a batch of route events, in the order they occurred.
+     * <p>
+     * Route events are delivered in batches when many routes change at once,
+     * e.g. when a BGP session resets. By default, each event is handled in
+     * turn, so that a failure on one event does not prevent the delivery of
+     * the others; listeners able to process changes in bulk may override this.
+     *
+     * @param events route events
+     */
+    default void events(List<RouteEvent> events) {
+        for (RouteEvent event : events) {
+            try {
+                event(event);
+            } catch (Exception e) {
+                LoggerFactory.getLogger(getClass()).warn("Exception caught processing route event {}", event, e);
+            }
+        }
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.routeservice;
+
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.IpPrefix;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the prefix trie.
+ */
+public class PrefixTrieTest {
+
+    private static IpPrefix prefix(String prefix) {
+        return IpPrefix.valueOf(prefix);
+    }
+
+    private static IpAddress ip(String ip) {
+        return IpAddress.valueOf(ip);
+    }
+
+    @Test
+    public void ipv4() {
+        PrefixTrie<String> trie = new PrefixTrie<>(IpAddress.Version.INET);
+        assertNull(trie.longestPrefixMatch(ip("10.0.0.1")));
+
+        trie.put(prefix("10.0.0.0/8"), "a");
+        trie.put(prefix("10.1.0.0/16"), "b");
+        trie.put(prefix("10.1.2.0/24"), "c");
+        trie.put(prefix("10.2.0.0/16"), "d");
+        assertEquals(4, trie.size());
+
+        assertEquals("c", trie.longestPrefixMatch(ip("10.1.2.3")));
+        assertEquals("b", trie.longestPrefixMatch(ip("10.1.3.3")));
+        assertEquals("d", trie.longestPrefixMatch(ip("10.2.3.3")));
+        assertEquals("a", trie.longestPrefixMatch(ip("10.3.3.3")));
+        assertNull(trie.longestPrefixMatch(ip("11.0.0.1")));
+
+        assertEquals("b", trie.get(prefix("10.1.0.0/16")));
+        assertNull(trie.get(prefix("10.0.0.0/16")));
+        assertNull(trie.get(prefix("10.0.0.0/7")));
+
+        trie.put(prefix("0.0.0.0/0"), "default");
+        assertEquals("default", trie.longestPrefixMatch(ip("11.0.0.1")));
+        assertEquals("b", trie.put(prefix("10.1.0.0/16"), "e"));
+        assertEquals(5, trie.size());
+
+        assertEquals("e", trie.remove(prefix("10.1.0.0/16")));
+        assertNull(trie.remove(prefix("10.1.0.0/16")));
+        assertEquals("a", trie.longestPrefixMatch(ip("10.1.3.3")));
+        assertEquals("c", trie.longestPrefixMatch(ip("10.1.2.3")));
+        assertEquals(4, trie.size());
+        assertEquals(4, trie.values().size());
+    }
+
+    @Test
+    public void ipv6() {
+        PrefixTrie<String> trie = new PrefixTrie<>(IpAddress.Version.INET6);
+        trie.put(prefix("2001:db8::/32"), "a");
+        trie.put(prefix("2001:db8:0:0:8000::/65"), "b");
+        trie.put(prefix("2001:db8::1/128"), "c");
+
+        assertEquals("c", trie.longestPrefixMatch(ip("2001:db8::1")));
+        assertEquals("a", trie.longestPrefixMatch(ip("2001:db8::2")));
+        assertEquals("b", trie.longestPrefixMatch(ip("2001:db8::8000:0:0:1")));
+        assertNull(trie.longestPrefixMatch(ip("2001:db9::1")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void familyMismatch() {
+        new PrefixTrie<String>(IpAddress.Version.INET).put(prefix("2001:db8::/32"), "a");
+    }
+
+    @Test
+    public void random() {
+        Random random = new Random(0);
+        PrefixTrie<IpPrefix> trie = new PrefixTrie<>(IpAddress.Version.INET);
+        Map<IpPrefix, IpPrefix> prefixes = new HashMap<>();
+        List<IpPrefix> added = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            IpPrefix prefix = IpPrefix.valueOf(random.nextInt(), random.nextInt(33));
+            trie.put(prefix, prefix);
+            prefixes.put(prefix, prefix);
+            added.add(prefix);
+        }
+        for (int i = 0; i < 500; i++) {
+            IpPrefix prefix = added.get(random.nextInt(added.size()));
+            assertEquals(prefixes.remove(prefix), trie.remove(prefix));
+        }
+        assertEquals(prefixes.size(), trie.size());
+        assertEquals(prefixes.size(), trie.values().size());
+
+        for (int i = 0; i < 5000; i++) {
+            IpAddress address = IpAddress.valueOf(random.nextInt());
+            IpPrefix expected = null;
+            for (IpPrefix prefix : prefixes.keySet()) {
+                if (prefix.contains(address) &&
+                        (expected == null || prefix.prefixLength() > expected.prefixLength())) {
+                    expected = prefix;
+                }
+            }
+            assertEquals(expected, trie.longestPrefixMatch(address));
+        }
+    }
+}
@@ -16,7 +16,13 @@
 
 package org.onosproject.routeservice.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpPrefix;
 import org.onosproject.cluster.ClusterService;
@@ -46,9 +52,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.concurrent.GuardedBy;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -57,7 +67,10 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
@@ -71,6 +84,13 @@ public class RouteManager implements RouteService, RouteAdminService {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    // Maximum number of route sets resolved, and of events delivered to a
+    // listener, at once
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    private static final String METRICS_COMPONENT = "RouteService";
+    private static final String METRICS_FEATURE = "resolution";
+
     private RouteStoreDelegate delegate = new InternalRouteStoreDelegate();
     private InternalHostListener hostListener = new InternalHostListener();
 
@@ -86,6 +106,9 @@ public class RouteManager implements RouteService, RouteAdminService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected StorageService storageService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
     private ResolvedRouteStore resolvedRouteStore;
 
     private RouteMonitor routeMonitor;
@@ -98,19 +121,38 @@ public class RouteManager implements RouteService, RouteAdminService {
     protected Executor hostEventExecutor = newSingleThreadExecutor(
         groupedThreads("rm-event-host", "%d", log));
 
+    private ExecutorService routeResolverExecutor;
+
+    // Route sets changed in the store and not resolved yet, by prefix, in
+    // the order they first changed
+    @GuardedBy(value = "pendingRoutes")
+    private final Map<IpPrefix, PendingRouteSet> pendingRoutes = new LinkedHashMap<>();
+    private final AtomicBoolean resolutionScheduled = new AtomicBoolean();
+
+    private Meter resolvedRoutesMeter;
+    private Timer batchTimer;
+    private Timer convergenceTimer;
+
     @Activate
     protected void activate() {
         routeMonitor = new RouteMonitor(this, clusterService, storageService);
         threadFactory = groupedThreads("onos/route", "listener-%d", log);
+        routeResolverExecutor = newSingleThreadExecutor(
+                groupedThreads("rm-route-resolver", "%d", log));
 
         resolvedRouteStore = new DefaultResolvedRouteStore();
 
+        registerMetrics();
+
         routeStore.setDelegate(delegate);
         hostService.addListener(hostListener);
 
-        routeStore.getRouteTables().stream()
-                .flatMap(id -> routeStore.getRoutes(id).stream())
-                .forEach(this::resolve);
+        synchronized (this) {
+            routeStore.getRouteTables().stream()
+                    .flatMap(id -> routeStore.getRoutes(id).stream())
+                    .forEach(this::enqueue);
+            resolvePending();
+        }
     }
 
     @Deactivate
@@ -122,6 +164,37 @@ public class RouteManager implements RouteService, RouteAdminService {
 
         routeStore.unsetDelegate(delegate);
         hostService.removeListener(hostListener);
+        routeResolverExecutor.shutdownNow();
+        synchronized (pendingRoutes) {
+            pendingRoutes.clear();
+        }
+        unregisterMetrics();
+    }
+
+    private void registerMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            resolvedRoutesMeter = metricsService.createMeter(component, feature, "resolvedRoutes");
+            batchTimer = metricsService.createTimer(component, feature, "batch");
+            convergenceTimer = metricsService.createTimer(component, feature, "convergence");
+            metricsService.registerMetric(component, feature, "pendingRoutes",
+                                          (Gauge<Integer>) this::pendingRouteCount);
+        }
+    }
+
+    private void unregisterMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            metricsService.removeMetric(component, component.registerFeature(METRICS_FEATURE),
+                                        "pendingRoutes");
+        }
+    }
+
+    private int pendingRouteCount() {
+        synchronized (pendingRoutes) {
+            return pendingRoutes.size();
+        }
     }
 
     /**
@@ -164,15 +237,15 @@ public class RouteManager implements RouteService, RouteAdminService {
     }
 
     /**
-     * Posts an event to all listeners.
+     * Posts events to all listeners.
      *
-     * @param event event
+     * @param events events
      */
-    private void post(RouteEvent event) {
-        if (event != null) {
-            log.debug("Sending event {}", event);
+    private void post(List<RouteEvent> events) {
+        if (!events.isEmpty()) {
+            log.debug("Sending {} events", events.size());
             synchronized (this) {
-                listeners.values().forEach(l -> l.post(event));
+                listeners.values().forEach(l -> events.forEach(l::post));
             }
         }
     }
@@ -223,6 +296,14 @@ public class RouteManager implements RouteService, RouteAdminService {
         return ImmutableList.copyOf(resolvedRouteStore.getAllRoutes(prefix));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The routes are resolved as one batch: each distinct next hop is looked
+     * up once, and listeners receive the resulting events together.
+     *
+     * @param routes collection of routes to update
+     */
     @Override
     public void update(Collection<Route> routes) {
         synchronized (this) {
@@ -230,6 +311,7 @@ public class RouteManager implements RouteService, RouteAdminService {
                 log.debug("Received update {}", route);
                 routeStore.updateRoute(route);
             });
+            resolvePending();
         }
     }
 
@@ -240,6 +322,7 @@ public class RouteManager implements RouteService, RouteAdminService {
                 log.debug("Received withdraw {}", route);
                 routeStore.removeRoute(route);
             });
+            resolvePending();
         }
     }
 
@@ -251,45 +334,134 @@ public class RouteManager implements RouteService, RouteAdminService {
     }
 
     private ResolvedRoute resolve(Route route) {
-        hostService.startMonitoringIp(route.nextHop());
-        Set<Host> hosts = hostService.getHostsByIp(route.nextHop());
+        return resolve(route, new HashMap<>());
+    }
 
-        return hosts.stream().findFirst()
+    /**
+     * Resolves a route, looking up its next hop unless already in the given
+     * next hop cache.
+     *
+     * @param route    route
+     * @param nextHops hosts of the next hops already looked up
+     * @return resolved route, or null if the next hop is unknown
+     */
+    private ResolvedRoute resolve(Route route, Map<IpAddress, Optional<Host>> nextHops) {
+        return nextHops.computeIfAbsent(route.nextHop(), this::lookupNextHop)
                 .map(host -> new ResolvedRoute(route, host.mac(), host.vlan()))
                 .orElse(null);
     }
 
+    private Optional<Host> lookupNextHop(IpAddress nextHop) {
+        hostService.startMonitoringIp(nextHop);
+        Set<Host> hosts = hostService.getHostsByIp(nextHop);
+        return hosts.stream().findFirst();
+    }
+
     private ResolvedRoute decide(ResolvedRoute route1, ResolvedRoute route2) {
         return Comparator.comparing(ResolvedRoute::nextHop)
                        .compare(route1, route2) <= 0 ? route1 : route2;
     }
 
-    private void store(ResolvedRoute route, Set<ResolvedRoute> alternatives) {
-        post(resolvedRouteStore.updateRoute(route, alternatives));
+    /**
+     * Queues the given route set for resolution, replacing any route set of
+     * the same prefix not resolved yet.
+     *
+     * @param routes route set
+     */
+    private void enqueue(RouteSet routes) {
+        synchronized (pendingRoutes) {
+            PendingRouteSet previous = pendingRoutes.get(routes.prefix());
+            pendingRoutes.put(routes.prefix(), new PendingRouteSet(
+                    routes, previous != null ? previous.since : System.nanoTime()));
+        }
     }
 
-    private void remove(IpPrefix prefix) {
-        post(resolvedRouteStore.removeRoute(prefix));
+    /**
+     * Resolves the pending route sets on the resolver thread, unless already
+     * scheduled.
+     */
+    private void scheduleResolution() {
+        if (resolutionScheduled.compareAndSet(false, true)) {
+            try {
+                routeResolverExecutor.execute(() -> {
+                    resolutionScheduled.set(false);
+                    synchronized (this) {
+                        resolvePending();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Deactivated, the pending routes are discarded
+                resolutionScheduled.set(false);
+                log.debug("Route resolution rejected", e);
+            }
+        }
     }
 
-    private void resolve(RouteSet routes) {
-        if (routes.routes() == null) {
-            // The routes were removed before we got to them, nothing to do
-            return;
+    /**
+     * Resolves the pending route sets, in batches.
+     */
+    @GuardedBy(value = "this")
+    private void resolvePending() {
+        while (true) {
+            List<PendingRouteSet> batch = new ArrayList<>();
+            synchronized (pendingRoutes) {
+                Iterator<PendingRouteSet> it = pendingRoutes.values().iterator();
+                while (it.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+                    batch.add(it.next());
+                    it.remove();
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            resolve(batch);
         }
-        Set<ResolvedRoute> resolvedRoutes = routes.routes().stream()
-                .map(this::resolve)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+    }
 
-        Optional<ResolvedRoute> bestRoute = resolvedRoutes.stream()
+    /**
+     * Resolves a batch of route sets, updates the resolved route store and
+     * posts the resulting events. Each distinct next hop is looked up once.
+     *
+     * @param batch route sets to resolve
+     */
+    private void resolve(List<PendingRouteSet> batch) {
+        long start = System.nanoTime();
+        Map<IpAddress, Optional<Host>> nextHops = new HashMap<>();
+        List<RouteEvent> events = new ArrayList<>(batch.size());
+        long oldest = start;
+
+        for (PendingRouteSet pending : batch) {
+            oldest = Math.min(oldest, pending.since);
+            RouteSet routes = pending.routes;
+            if (routes.routes() == null) {
+                // The routes were removed before we got to them, nothing to do
+                continue;
+            }
+            Set<ResolvedRoute> resolvedRoutes = routes.routes().stream()
+                    .map(route -> resolve(route, nextHops))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+
+            Optional<ResolvedRoute> bestRoute = resolvedRoutes.stream()
                     .reduce(this::decide);
 
-        if (bestRoute.isPresent()) {
-            store(bestRoute.get(), resolvedRoutes);
-        } else {
-            remove(routes.prefix());
+            RouteEvent event = bestRoute.isPresent() ?
+                    resolvedRouteStore.updateRoute(bestRoute.get(), resolvedRoutes) :
+                    resolvedRouteStore.removeRoute(routes.prefix());
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        post(events);
+
+        long end = System.nanoTime();
+        if (resolvedRoutesMeter != null) {
+            resolvedRoutesMeter.mark(batch.size());
+            batchTimer.update(end - start, TimeUnit.NANOSECONDS);
+            convergenceTimer.update(end - oldest, TimeUnit.NANOSECONDS);
         }
+        log.debug("Resolved {} route sets with {} next hops in {} us", batch.size(),
+                  nextHops.size(), TimeUnit.NANOSECONDS.toMicros(end - start));
     }
 
     private void hostUpdated(Host host) {
@@ -305,7 +477,9 @@ public class RouteManager implements RouteService, RouteAdminService {
             host.ipAddresses().stream()
                     .flatMap(ip -> routeStore.getRoutesForNextHop(ip).stream())
                     .map(route -> routeStore.getRoutes(route.prefix()))
-                    .forEach(this::resolve);
+                    .filter(Objects::nonNull)
+                    .forEach(this::enqueue);
+            resolvePending();
         }
     }
 
@@ -357,7 +531,10 @@ public class RouteManager implements RouteService, RouteAdminService {
         private void poll() {
             while (true) {
                 try {
-                    listener.event(queue.take());
+                    List<RouteEvent> events = new ArrayList<>();
+                    events.add(queue.take());
+                    queue.drainTo(events, MAX_BATCH_SIZE - 1);
+                    listener.events(events);
                 } catch (InterruptedException e) {
                     log.info("Route listener event thread shutting down: {}", e.getMessage());
                     Thread.currentThread().interrupt();
@@ -369,6 +546,20 @@ public class RouteManager implements RouteService, RouteAdminService {
         }
     }
 
+    /**
+     * Route set waiting for resolution, with the time its prefix first
+     * changed since last resolved.
+     */
+    private static final class PendingRouteSet {
+        private final RouteSet routes;
+        private final long since;
+
+        private PendingRouteSet(RouteSet routes, long since) {
+            this.routes = routes;
+            this.since = since;
+        }
+    }
+
     /**
      * Delegate to receive events from the route store.
      */
@@ -377,10 +568,9 @@ public class RouteManager implements RouteService, RouteAdminService {
         public void notify(InternalRouteEvent event) {
             switch (event.type()) {
             case ROUTE_ADDED:
-                resolve(event.subject());
-                break;
             case ROUTE_REMOVED:
-                resolve(event.subject());
+                enqueue(event.subject());
+                scheduleResolution();
                 break;
             default:
                 break;
@@ -54,6 +54,7 @@ import org.onosproject.store.service.DistributedLockBuilder;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.WorkQueue;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import static org.easymock.EasyMock.anyObject;
@@ -336,6 +337,37 @@ public class RouteManagerTest {
         verify(routeListener);
     }
 
+    /**
+     * Tests that routes updated together are resolved as one batch, looking up
+     * their common next hop only once.
+     */
+    @Test
+    public void testBatchRouteAdd() {
+        Route route1 = new Route(Route.Source.STATIC, V4_PREFIX1, V4_NEXT_HOP1);
+        Route route2 = new Route(Route.Source.STATIC, V4_PREFIX2, V4_NEXT_HOP1);
+        ResolvedRoute resolvedRoute1 = new ResolvedRoute(route1, MAC1);
+        ResolvedRoute resolvedRoute2 = new ResolvedRoute(route2, MAC1);
+
+        reset(hostService);
+        expect(hostService.getHostsByIp(V4_NEXT_HOP1))
+                .andReturn(Sets.newHashSet(createHost(MAC1, V4_NEXT_HOP1))).once();
+        hostService.startMonitoringIp(V4_NEXT_HOP1);
+        expectLastCall().once();
+        replay(hostService);
+
+        reset(routeListener);
+        routeListener.event(event(RouteEvent.Type.ROUTE_ADDED, resolvedRoute1, null,
+                Sets.newHashSet(resolvedRoute1), null));
+        routeListener.event(event(RouteEvent.Type.ROUTE_ADDED, resolvedRoute2, null,
+                Sets.newHashSet(resolvedRoute2), null));
+        replay(routeListener);
+
+        routeManager.update(Lists.newArrayList(route1, route2));
+
+        verify(routeListener);
+        verify(hostService);
+    }
+
     /**
      * Tests adding a route entry where the HostService does not immediately
      * know the MAC address of the next hop, but this is learnt later.
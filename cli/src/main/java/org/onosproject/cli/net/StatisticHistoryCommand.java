@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.cli.net;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.apache.karaf.shell.api.action.Argument;
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Completion;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.onosproject.cli.AbstractShellCommand;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.statistic.RateSample;
+import org.onosproject.net.statistic.StatisticHistoryService;
+import org.onosproject.net.statistic.StatisticHistoryService.Resolution;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.onosproject.net.DeviceId.deviceId;
+
+/**
+ * Lists the rate history of a port or of a flow.
+ */
+@Service
+@Command(scope = "onos", name = "stats-history",
+        description = "Lists the rate history of a port or of a flow")
+public class StatisticHistoryCommand extends AbstractShellCommand {
+
+    private static final String FORMAT = "   time=%d, bytesSentRate=%.1f, packetsSentRate=%.1f, " +
+            "bytesReceivedRate=%.1f, packetsReceivedRate=%.1f";
+
+    @Option(name = "-r", aliases = "--resolution",
+            description = "Resolution of the samples: raw, minute or ten_minutes",
+            required = false, multiValued = false)
+    private String resolution = "raw";
+
+    @Option(name = "-f", aliases = "--flow",
+            description = "Flow ID, in hexadecimal, instead of a port",
+            required = false, multiValued = false)
+    private String flowId = null;
+
+    @Argument(index = 0, name = "uri", description = "Device ID",
+            required = true, multiValued = false)
+    @Completion(DeviceIdCompleter.class)
+    private String uri = null;
+
+    @Argument(index = 1, name = "portNumber", description = "Port Number",
+            required = false, multiValued = false)
+    @Completion(PortNumberCompleter.class)
+    private String portNumberStr = null;
+
+    @Override
+    protected void doExecute() {
+        StatisticHistoryService service = get(StatisticHistoryService.class);
+        Resolution res;
+        try {
+            res = Resolution.valueOf(resolution.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            error("Unknown resolution %s", resolution);
+            return;
+        }
+
+        DeviceId deviceId = deviceId(uri);
+        List<RateSample> samples;
+        if (flowId != null) {
+            samples = service.flowHistory(deviceId, FlowId.valueOf(Long.parseUnsignedLong(
+                    flowId.replaceFirst("^0[xX]", ""), 16)), res);
+        } else if (portNumberStr != null) {
+            ConnectPoint cp = new ConnectPoint(deviceId, PortNumber.fromString(portNumberStr));
+            samples = service.portHistory(cp, res);
+        } else {
+            error("Either a port number or a flow ID is required");
+            return;
+        }
+
+        if (outputJson()) {
+            ArrayNode result = mapper().createArrayNode();
+            samples.forEach(s -> result.addObject()
+                    .put("time", s.time())
+                    .put("bytesSentRate", s.bytesSentRate())
+                    .put("packetsSentRate", s.packetsSentRate())
+                    .put("bytesReceivedRate", s.bytesReceivedRate())
+                    .put("packetsReceivedRate", s.packetsReceivedRate()));
+            print("%s", result);
+        } else {
+            print("deviceId=%s, %s, resolution=%s, memory=%d",
+                  deviceId, flowId != null ? "flowId=" + flowId : "port=" + portNumberStr,
+                  res, service.memoryUsage(deviceId));
+            samples.forEach(s -> print(FORMAT, s.time(), s.bytesSentRate(), s.packetsSentRate(),
+                                       s.bytesReceivedRate(), s.packetsReceivedRate()));
+        }
+    }
+}
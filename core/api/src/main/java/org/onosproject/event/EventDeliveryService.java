@@ -35,4 +35,46 @@ public interface EventDeliveryService extends EventDispatcher, EventSinkRegistry
      */
     long getDispatchTimeLimit();
 
+    /**
+     * Sets the number of dispatch loops used by each dispatcher group.
+     * <p>
+     * When more than one loop is used, events are distributed across the loops
+     * by subject, so that events for the same subject are still delivered in
+     * order while events for different subjects may be delivered concurrently.
+     *
+     * @param shards number of dispatch loops per dispatcher group
+     */
+    default void setDispatchShards(int shards) {
+    }
+
+    /**
+     * Returns the number of dispatch loops used by each dispatcher group.
+     *
+     * @return number of dispatch loops per dispatcher group
+     */
+    default int getDispatchShards() {
+        return 1;
+    }
+
+    /**
+     * Sets the maximum number of events queued for each dispatch loop.
+     * <p>
+     * Once a queue is full, posting an event blocks for a bounded amount of
+     * time before the event is rejected. Events posted by a sink to the loop
+     * which runs it are queued beyond the capacity instead.
+     *
+     * @param capacity maximum number of queued events per dispatch loop; 0 for unbounded
+     */
+    default void setDispatchQueueCapacity(int capacity) {
+    }
+
+    /**
+     * Returns the maximum number of events queued for each dispatch loop.
+     *
+     * @return maximum number of queued events per dispatch loop; 0 for unbounded
+     */
+    default int getDispatchQueueCapacity() {
+        return 0;
+    }
+
 }
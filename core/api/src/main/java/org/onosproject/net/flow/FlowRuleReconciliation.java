@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.flow;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.net.DeviceId;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Result of reconciling the flow entries reported by a device against the
+ * flow entries stored for that device.
+ * <p>
+ * Reported entries are classified as reconciled (the store holds an exactly
+ * matching entry), mismatched (the store holds an equal entry which does not
+ * match exactly) or extraneous (the store holds no equal entry). Stored
+ * entries which were not reported by the device are classified as missing.
+ */
+public final class FlowRuleReconciliation {
+
+    private final DeviceId deviceId;
+    private final Map<FlowEntry, FlowEntry> reconciled;
+    private final Map<FlowEntry, FlowEntry> mismatched;
+    private final List<FlowEntry> extraneous;
+    private final List<FlowEntry> missing;
+
+    private FlowRuleReconciliation(DeviceId deviceId,
+                                   Map<FlowEntry, FlowEntry> reconciled,
+                                   Map<FlowEntry, FlowEntry> mismatched,
+                                   List<FlowEntry> extraneous,
+                                   List<FlowEntry> missing) {
+        this.deviceId = deviceId;
+        this.reconciled = Collections.unmodifiableMap(reconciled);
+        this.mismatched = Collections.unmodifiableMap(mismatched);
+        this.extraneous = Collections.unmodifiableList(extraneous);
+        this.missing = Collections.unmodifiableList(missing);
+    }
+
+    /**
+     * Reconciles the given reported entries against the stored entries in a
+     * single pass over each.
+     * <p>
+     * The lookup function must return the stored entry equal to a given rule
+     * and the stored entries must yield the same entry instances as the lookup
+     * function, as stored entries are matched by identity.
+     *
+     * @param deviceId the device identifier
+     * @param reported the entries reported by the device
+     * @param lookup   function returning the stored entry equal to a rule, or null
+     * @param stored   all entries stored for the device
+     * @return reconciliation result
+     */
+    public static FlowRuleReconciliation reconcile(DeviceId deviceId,
+                                                   Iterable<FlowEntry> reported,
+                                                   Function<FlowRule, ? extends FlowEntry> lookup,
+                                                   Iterable<? extends FlowEntry> stored) {
+        return reconcile(deviceId, reported, lookup, stored::forEach);
+    }
+
+    /**
+     * Reconciles the given reported entries against the stored entries in a
+     * single pass over each, visiting the stored entries with the given
+     * function rather than iterating over a collection of them.
+     * <p>
+     * The lookup function must return the stored entry equal to a given rule
+     * and the stored entries must yield the same entry instances as the lookup
+     * function, as stored entries are matched by identity.
+     *
+     * @param deviceId      the device identifier
+     * @param reported      the entries reported by the device
+     * @param lookup        function returning the stored entry equal to a rule, or null
+     * @param forEachStored function applying an action to each entry stored for the device
+     * @return reconciliation result
+     */
+    public static FlowRuleReconciliation reconcile(DeviceId deviceId,
+                                                   Iterable<FlowEntry> reported,
+                                                   Function<FlowRule, ? extends FlowEntry> lookup,
+                                                   Consumer<Consumer<? super FlowEntry>> forEachStored) {
+        checkNotNull(deviceId);
+        Map<FlowEntry, FlowEntry> reconciled = Maps.newIdentityHashMap();
+        Map<FlowEntry, FlowEntry> mismatched = Maps.newIdentityHashMap();
+        List<FlowEntry> extraneous = Lists.newArrayList();
+        List<FlowEntry> missing = Lists.newArrayList();
+        Set<FlowEntry> seen = Sets.newIdentityHashSet();
+
+        for (FlowEntry rule : reported) {
+            FlowEntry storedRule = lookup.apply(rule);
+            // A stored entry is matched by at most one reported entry.
+            if (storedRule == null || !seen.add(storedRule)) {
+                extraneous.add(rule);
+            } else if (storedRule.exactMatch(rule)) {
+                reconciled.put(rule, storedRule);
+            } else {
+                mismatched.put(rule, storedRule);
+            }
+        }
+
+        forEachStored.accept(storedRule -> {
+            if (!seen.contains(storedRule)) {
+                missing.add(storedRule);
+            }
+        });
+        return new FlowRuleReconciliation(deviceId, reconciled, mismatched, extraneous, missing);
+    }
+
+    /**
+     * Returns the device identifier.
+     *
+     * @return device identifier
+     */
+    public DeviceId deviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Returns the reported entries which exactly match a stored entry, mapped
+     * to the matching stored entry.
+     *
+     * @return map of reported entries to stored entries, keyed by identity
+     */
+    public Map<FlowEntry, FlowEntry> reconciled() {
+        return reconciled;
+    }
+
+    /**
+     * Returns the reported entries which are equal to, but do not exactly
+     * match, a stored entry, mapped to the stored entry.
+     *
+     * @return map of reported entries to stored entries, keyed by identity
+     */
+    public Map<FlowEntry, FlowEntry> mismatched() {
+        return mismatched;
+    }
+
+    /**
+     * Returns the reported entries for which no entry is stored.
+     *
+     * @return list of reported entries
+     */
+    public List<FlowEntry> extraneous() {
+        return extraneous;
+    }
+
+    /**
+     * Returns the stored entries which were not reported by the device.
+     *
+     * @return list of stored entries
+     */
+    public List<FlowEntry> missing() {
+        return missing;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("deviceId", deviceId)
+                .add("reconciled", reconciled.size())
+                .add("mismatched", mismatched.size())
+                .add("extraneous", extraneous.size())
+                .add("missing", missing.size())
+                .toString();
+    }
+}
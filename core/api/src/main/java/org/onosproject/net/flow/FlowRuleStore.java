@@ -15,12 +15,19 @@
  */
 package org.onosproject.net.flow;
 
+import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchEvent;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchOperation;
 import org.onosproject.store.Store;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Manages inventory of flow rules; not intended for direct use.
@@ -71,6 +78,59 @@ public interface FlowRuleStore extends Store<FlowRuleBatchEvent, FlowRuleStoreDe
      */
     Iterable<FlowEntry> getFlowEntries(DeviceId deviceId);
 
+    /**
+     * Returns the flow entries of the given application on a device.
+     *
+     * @param deviceId the device ID
+     * @param appId    the application ID
+     * @return the flow entries of the given application
+     */
+    default Iterable<FlowEntry> getFlowEntriesByAppId(DeviceId deviceId, ApplicationId appId) {
+        return Lists.newArrayList(Iterables.filter(getFlowEntries(deviceId),
+                                                   f -> f.appId() == appId.id()));
+    }
+
+    /**
+     * Returns the flow entries of the given application on the given devices.
+     *
+     * @param deviceIds the device IDs
+     * @param appId     the application ID
+     * @return the flow entries of the given application
+     */
+    default Iterable<FlowEntry> getFlowEntriesByAppId(Iterable<DeviceId> deviceIds, ApplicationId appId) {
+        List<FlowEntry> flowEntries = Lists.newArrayList();
+        deviceIds.forEach(deviceId -> Iterables.addAll(flowEntries, getFlowEntriesByAppId(deviceId, appId)));
+        return flowEntries;
+    }
+
+    /**
+     * Returns the flow entries of the given application and group on a
+     * device. Flows are matched by the application and group IDs carried
+     * in the upper 32 bits of their flow ID.
+     *
+     * @param deviceId the device ID
+     * @param appId    the application ID
+     * @param groupId  the group ID
+     * @return the flow entries of the given application and group
+     */
+    default Iterable<FlowEntry> getFlowEntriesByGroupId(DeviceId deviceId, ApplicationId appId, short groupId) {
+        long groupKey = ((long) (appId.id() & 0xffff) << 16) | (groupId & 0xffff);
+        return Lists.newArrayList(Iterables.filter(getFlowEntries(deviceId),
+                                                   f -> (f.id().value() >>> 32) == groupKey));
+    }
+
+    /**
+     * Returns the flow entries in the given table of a device.
+     *
+     * @param deviceId the device ID
+     * @param tableId  the table ID
+     * @return the flow entries in the given table
+     */
+    default Iterable<FlowEntry> getFlowEntries(DeviceId deviceId, TableId tableId) {
+        return Lists.newArrayList(Iterables.filter(getFlowEntries(deviceId),
+                                                   f -> tableId.equals(f.table())));
+    }
+
     /**
      * // TODO: Better description of method behavior.
      * Stores a new flow rule without generating events.
@@ -113,6 +173,39 @@ public interface FlowRuleStore extends Store<FlowRuleBatchEvent, FlowRuleStoreDe
      */
     FlowRuleEvent addOrUpdateFlowRule(FlowEntry rule);
 
+    /**
+     * Stores new flow rules, or updates existing entries, for a single device
+     * as one batch.
+     *
+     * @param deviceId the device identifier
+     * @param rules    the flow rules to add or update
+     * @return list of flow_added and flow_updated events
+     */
+    default List<FlowRuleEvent> addOrUpdateFlowRules(DeviceId deviceId, Collection<FlowEntry> rules) {
+        List<FlowRuleEvent> events = Lists.newArrayListWithCapacity(rules.size());
+        for (FlowEntry rule : rules) {
+            FlowRuleEvent event = addOrUpdateFlowRule(rule);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Reconciles the flow entries reported by a device against the flow
+     * entries stored for the device.
+     *
+     * @param deviceId the device identifier
+     * @param reported the flow entries reported by the device
+     * @return reconciliation result
+     */
+    default FlowRuleReconciliation reconcileFlowEntries(DeviceId deviceId, Iterable<FlowEntry> reported) {
+        Map<FlowRule, FlowEntry> stored = Maps.newHashMap();
+        getFlowEntries(deviceId).forEach(f -> stored.put(f, f));
+        return FlowRuleReconciliation.reconcile(deviceId, reported, stored::get, stored.values());
+    }
+
     /**
      * @param rule the flow entry to remove
      * @return flow_removed event, or null if nothing removed
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.net.statistic;
+
+import com.google.common.annotations.Beta;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Traffic rates of a port or flow at a given time, in each direction.
+ * <p>
+ * Flow counters cover the traffic matched by the flow only; it is reported
+ * as received traffic, and the sent rates of flows are always zero.
+ */
+@Beta
+public final class RateSample {
+
+    private final long time;
+    private final double bytesSentRate;
+    private final double packetsSentRate;
+    private final double bytesReceivedRate;
+    private final double packetsReceivedRate;
+
+    /**
+     * Creates a new rate sample.
+     *
+     * @param time                time of the sample, in milliseconds since the epoch
+     * @param bytesSentRate       sent bytes per second
+     * @param packetsSentRate     sent packets per second
+     * @param bytesReceivedRate   received bytes per second
+     * @param packetsReceivedRate received packets per second
+     */
+    public RateSample(long time, double bytesSentRate, double packetsSentRate,
+                      double bytesReceivedRate, double packetsReceivedRate) {
+        this.time = time;
+        this.bytesSentRate = bytesSentRate;
+        this.packetsSentRate = packetsSentRate;
+        this.bytesReceivedRate = bytesReceivedRate;
+        this.packetsReceivedRate = packetsReceivedRate;
+    }
+
+    /**
+     * Returns the time of the sample, in milliseconds since the epoch. For
+     * downsampled histories, this is the start of the sample period.
+     *
+     * @return time in milliseconds
+     */
+    public long time() {
+        return time;
+    }
+
+    /**
+     * Returns the rate of sent bytes per second.
+     *
+     * @return sent bytes per second
+     */
+    public double bytesSentRate() {
+        return bytesSentRate;
+    }
+
+    /**
+     * Returns the rate of sent packets per second.
+     *
+     * @return sent packets per second
+     */
+    public double packetsSentRate() {
+        return packetsSentRate;
+    }
+
+    /**
+     * Returns the rate of received bytes per second.
+     *
+     * @return received bytes per second
+     */
+    public double bytesReceivedRate() {
+        return bytesReceivedRate;
+    }
+
+    /**
+     * Returns the rate of received packets per second.
+     *
+     * @return received packets per second
+     */
+    public double packetsReceivedRate() {
+        return packetsReceivedRate;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(time, bytesSentRate, packetsSentRate,
+                            bytesReceivedRate, packetsReceivedRate);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof RateSample)) {
+            return false;
+        }
+        RateSample that = (RateSample) obj;
+        return time == that.time &&
+                Double.compare(bytesSentRate, that.bytesSentRate) == 0 &&
+                Double.compare(packetsSentRate, that.packetsSentRate) == 0 &&
+                Double.compare(bytesReceivedRate, that.bytesReceivedRate) == 0 &&
+                Double.compare(packetsReceivedRate, that.packetsReceivedRate) == 0;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("time", time)
+                .add("bytesSentRate", bytesSentRate)
+                .add("packetsSentRate", packetsSentRate)
+                .add("bytesReceivedRate", bytesReceivedRate)
+                .add("packetsReceivedRate", packetsReceivedRate)
+                .toString();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.net.statistic;
+
+import com.google.common.annotations.Beta;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.FlowId;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for obtaining the recent history of the traffic rates of device
+ * ports and flows, as recorded by this controller instance. Sent and received
+ * rates are kept separately.
+ * <p>
+ * Rates are kept at several resolutions, each covering a fixed number of
+ * samples; coarser resolutions cover longer periods of time.
+ */
+@Beta
+public interface StatisticHistoryService {
+
+    /** Resolution of a rate history. */
+    enum Resolution {
+        /** One sample per statistics poll. */
+        RAW(0),
+
+        /** One sample per minute, averaging the raw samples. */
+        MINUTE(TimeUnit.MINUTES.toMillis(1)),
+
+        /** One sample per ten minutes, averaging the raw samples. */
+        TEN_MINUTES(TimeUnit.MINUTES.toMillis(10));
+
+        private final long periodMillis;
+
+        Resolution(long periodMillis) {
+            this.periodMillis = periodMillis;
+        }
+
+        /**
+         * Returns the period covered by a sample, in milliseconds; 0 for raw
+         * samples.
+         *
+         * @return sample period in milliseconds
+         */
+        public long periodMillis() {
+            return periodMillis;
+        }
+    }
+
+    /**
+     * Returns the rate history of the given port, oldest sample first.
+     *
+     * @param connectPoint port
+     * @param resolution   resolution
+     * @return rate samples; empty if the port has no history
+     */
+    List<RateSample> portHistory(ConnectPoint connectPoint, Resolution resolution);
+
+    /**
+     * Returns the rate history of the given flow, oldest sample first.
+     *
+     * @param deviceId   device of the flow
+     * @param flowId     flow
+     * @param resolution resolution
+     * @return rate samples; empty if the flow has no history
+     */
+    List<RateSample> flowHistory(DeviceId deviceId, FlowId flowId, Resolution resolution);
+
+    /**
+     * Returns the memory used by the histories of the given device, in bytes.
+     *
+     * @param deviceId device
+     * @return memory usage in bytes
+     */
+    long memoryUsage(DeviceId deviceId);
+}
@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSetMultimap.Builder;
+import org.onlab.graph.CompactGraph;
 import org.onlab.graph.DefaultEdgeWeigher;
 import org.onlab.graph.DijkstraGraphSearch;
 import org.onlab.graph.DisjointPathPair;
@@ -30,6 +31,7 @@ import org.onlab.graph.GraphPathSearch.Result;
 import org.onlab.graph.KShortestPathsSearch;
 import org.onlab.graph.LazyKShortestPathsSearch;
 import org.onlab.graph.ScalarWeight;
+import org.onlab.graph.ShortestPathTree;
 import org.onlab.graph.SrlgGraphSearch;
 import org.onlab.graph.SuurballeGraphSearch;
 import org.onlab.graph.TarjanGraphSearch;
@@ -63,6 +65,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -110,6 +114,13 @@ public class DefaultTopology extends AbstractModel implements Topology {
     private final Supplier<ImmutableSetMultimap<ClusterId, ConnectPoint>> broadcastSets;
     private final Function<ConnectPoint, Boolean> broadcastFunction;
     private final Supplier<ClusterIndexes> clusterIndexes;
+    private final AtomicReference<ShortestPathCache> shortestPathCache = new AtomicReference<>();
+
+    // Differences from the previous topology, if any, and the shortest path
+    // trees which may be carried forward from it, if any.
+    private final TopologyGraphDelta delta;
+    private final AtomicReferenceArray<ShortestPathTree<TopologyVertex, TopologyEdge>> previousTrees;
+    private final CompactGraph<TopologyVertex, TopologyEdge> previousGraph;
 
     /**
      * Sets the default link-weight to be used when computing paths. If null is
@@ -145,6 +156,26 @@ public class DefaultTopology extends AbstractModel implements Topology {
      */
     public DefaultTopology(ProviderId providerId, GraphDescription description,
                            Function<ConnectPoint, Boolean> broadcastFunction) {
+        this(providerId, description, broadcastFunction, null);
+    }
+
+    /**
+     * Creates a topology descriptor attributed to the specified provider,
+     * incrementally derived from the given previous topology.
+     * <p>
+     * Clusters, broadcast sets and shortest paths of the previous topology
+     * which cannot have been affected by the differences between the two
+     * graphs are carried forward rather than computed again.
+     * </p>
+     *
+     * @param providerId        identity of the provider
+     * @param description       data describing the new topology
+     * @param broadcastFunction broadcast point function
+     * @param previous          previous topology; null to compute everything
+     */
+    public DefaultTopology(ProviderId providerId, GraphDescription description,
+                           Function<ConnectPoint, Boolean> broadcastFunction,
+                           DefaultTopology previous) {
         super(providerId);
         this.broadcastFunction = broadcastFunction;
         this.time = description.timestamp();
@@ -153,14 +184,37 @@ public class DefaultTopology extends AbstractModel implements Topology {
         // Build the graph
         this.graph = new DefaultTopologyGraph(description.vertexes(),
                 description.edges());
+        this.hopCountWeigher = new HopCountLinkWeigher(graph.getVertexes().size());
+        this.delta = previous != null ? new TopologyGraphDelta(previous.graph, graph) : null;
+
+        if (delta != null && preservesClusters(previous)) {
+            // Neither the clusters nor their broadcast sets can differ.
+            this.clusterResults = Suppliers.ofInstance(previous.clusterResults.get());
+            this.clusters = Suppliers.ofInstance(previous.clusters.get());
+            this.clusterIndexes = Suppliers.ofInstance(previous.clusterIndexes.get());
+            this.broadcastSets = Suppliers.ofInstance(previous.broadcastSets.get());
+        } else {
+            this.clusterResults = Suppliers.memoize(this::searchForClusters);
+            this.clusters = Suppliers.memoize(this::buildTopologyClusters);
+            this.clusterIndexes = Suppliers.memoize(this::buildIndexes);
+            if (delta != null) {
+                ClusterIndexes previousIndexes = previous.clusterIndexes.get();
+                ImmutableSetMultimap<ClusterId, ConnectPoint> previousSets =
+                        previous.broadcastSets.get();
+                this.broadcastSets = Suppliers.memoize(
+                        () -> buildBroadcastSets(previousIndexes, previousSets));
+            } else {
+                this.broadcastSets = Suppliers.memoize(() -> buildBroadcastSets(null, null));
+            }
+        }
 
-        this.clusterResults = Suppliers.memoize(this::searchForClusters);
-        this.clusters = Suppliers.memoize(this::buildTopologyClusters);
-
-        this.clusterIndexes = Suppliers.memoize(this::buildIndexes);
+        // Shortest path trees can be carried forward only among the same
+        // vertexes, as the vertex count affects the hop-count weights.
+        ShortestPathCache previousCache = previous != null && !delta.vertexesChanged() ?
+                previous.shortestPathCache.get() : null;
+        this.previousTrees = previousCache != null ? previousCache.trees : null;
+        this.previousGraph = previousCache != null ? previousCache.compactGraph : null;
 
-        this.hopCountWeigher = new HopCountLinkWeigher(graph.getVertexes().size());
-        this.broadcastSets = Suppliers.memoize(this::buildBroadcastSets);
         this.infrastructurePoints = Suppliers.memoize(this::findInfrastructurePoints);
         this.computeCost = Math.max(0, System.nanoTime() - time);
     }
@@ -384,6 +438,12 @@ public class DefaultTopology extends AbstractModel implements Topology {
             return ImmutableSet.of();
         }
 
+        // Searches with the builtin weigher and algorithm are answered from
+        // the cached shortest path trees.
+        if (weigher == hopCountWeigher && defaultGraphPathSearch == null) {
+            return shortestPathCache().paths(srcV, dstV, maxPaths);
+        }
+
         GraphPathSearch.Result<TopologyVertex, TopologyEdge> result =
                 graphPathSearch().search(graph, srcV, dstV, weigher, maxPaths);
         ImmutableSet.Builder<Path> builder = ImmutableSet.builder();
@@ -672,15 +732,69 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return minVertex;
     }
 
-    // Processes a map of broadcast sets for each cluster.
-    private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets() {
+    // Processes a map of broadcast sets for each cluster, reusing those of
+    // the unchanged clusters of the previous topology, if given.
+    private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets(
+            ClusterIndexes previousIndexes,
+            ImmutableSetMultimap<ClusterId, ConnectPoint> previousSets) {
         Builder<ClusterId, ConnectPoint> builder = ImmutableSetMultimap.builder();
         for (TopologyCluster cluster : clusters.get().values()) {
-            addClusterBroadcastSet(cluster, builder);
+            TopologyCluster previous = previousIndexes != null ?
+                    previousIndexes.clustersByDevice.get(cluster.root().deviceId()) : null;
+            if (previous != null && isUnchanged(cluster, previous, previousIndexes)) {
+                builder.putAll(cluster.id(), previousSets.get(previous.id()));
+            } else {
+                addClusterBroadcastSet(cluster, builder);
+            }
         }
         return builder.build();
     }
 
+    // Indicates whether the cluster has the same devices and links as the
+    // given cluster of the previous topology, with none of the links changed.
+    // The shortest paths between devices of a cluster never leave it, so its
+    // broadcast set depends on nothing else.
+    private boolean isUnchanged(TopologyCluster cluster, TopologyCluster previous,
+                                ClusterIndexes previousIndexes) {
+        Set<Link> links = getClusterLinks(cluster);
+        if (!getClusterDevices(cluster).equals(previousIndexes.devicesByCluster.get(previous)) ||
+                !links.equals(previousIndexes.linksByCluster.get(previous))) {
+            return false;
+        }
+        return delta.addedEdges().stream().noneMatch(edge -> links.contains(edge.link()));
+    }
+
+    // Indicates whether the differences from the previous topology leave its
+    // clusters, including their links, intact. That is the case if only
+    // links between different clusters were removed or added, and none of
+    // the added ones can be traversed when searching for clusters. Any link
+    // change within a cluster, even one that cannot split or merge it, falls
+    // back to searching for all clusters again.
+    private boolean preservesClusters(DefaultTopology previous) {
+        if (delta.vertexesChanged()) {
+            return false;
+        }
+        ImmutableMap<DeviceId, TopologyCluster> previousClusters =
+                previous.clusterIndexes.get().clustersByDevice;
+        NoIndirectLinksWeigher weigher = new NoIndirectLinksWeigher();
+        for (TopologyEdge edge : delta.removedEdges()) {
+            if (isIntraCluster(edge, previousClusters)) {
+                return false;
+            }
+        }
+        for (TopologyEdge edge : delta.addedEdges()) {
+            if (isIntraCluster(edge, previousClusters) || weigher.weight(edge).isViable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIntraCluster(TopologyEdge edge,
+                                          Map<DeviceId, TopologyCluster> clusters) {
+        return clusters.get(edge.src().deviceId()) == clusters.get(edge.dst().deviceId());
+    }
+
     // Finds all broadcast points for the cluster. These are those connection
     // points which lie along the shortest paths between the cluster root and
     // all other devices within the cluster.
@@ -780,6 +894,99 @@ public class DefaultTopology extends AbstractModel implements Topology {
         }
     }
 
+    private ShortestPathCache shortestPathCache() {
+        ShortestPathCache cache = shortestPathCache.get();
+        if (cache == null) {
+            shortestPathCache.compareAndSet(null, new ShortestPathCache());
+            cache = shortestPathCache.get();
+        }
+        return cache;
+    }
+
+    // Returns the weight of the edge for the builtin hop-count weigher.
+    private double hopCount(TopologyEdge edge) {
+        Weight weight = hopCountWeigher.weight(edge);
+        return weight.isViable() ? ((ScalarWeight) weight).value() : Double.POSITIVE_INFINITY;
+    }
+
+    // Compact form of the topology graph with the lazily computed shortest
+    // path trees for the builtin hop-count weigher, one per source device.
+    private final class ShortestPathCache {
+        private final CompactGraph<TopologyVertex, TopologyEdge> compactGraph;
+        private final double[] weights;
+        private final AtomicReferenceArray<ShortestPathTree<TopologyVertex, TopologyEdge>> trees;
+
+        private ShortestPathCache() {
+            compactGraph = new CompactGraph<>(graph);
+            weights = compactGraph.weights(DefaultTopology.this::hopCount);
+            trees = new AtomicReferenceArray<>(compactGraph.vertexCount());
+        }
+
+        private Set<Path> paths(TopologyVertex src, TopologyVertex dst, int maxPaths) {
+            int srcIndex = compactGraph.index(src);
+            ShortestPathTree<TopologyVertex, TopologyEdge> tree = trees.get(srcIndex);
+            if (tree == null) {
+                tree = previousTree(src);
+                if (tree == null) {
+                    tree = compactGraph.shortestPaths(srcIndex, weights);
+                }
+                // Concurrent computations of the same tree yield equal
+                // results, so the first one to be stored wins.
+                if (!trees.compareAndSet(srcIndex, null, tree)) {
+                    tree = trees.get(srcIndex);
+                }
+            }
+
+            // A tree carried forward refers to the indexes of its own graph.
+            int dstIndex = tree.graph().index(dst);
+            ScalarWeight cost = new ScalarWeight(tree.cost(dstIndex));
+            ImmutableSet.Builder<Path> builder = ImmutableSet.builder();
+            for (List<TopologyEdge> edges : tree.paths(dstIndex, maxPaths)) {
+                List<Link> links = edges.stream().map(TopologyEdge::link)
+                        .collect(Collectors.toList());
+                builder.add(new DefaultPath(CORE_PROVIDER_ID, links, cost));
+            }
+            return builder.build();
+        }
+
+        // Returns the tree of the previous topology for the given source,
+        // provided that it is not affected by the differences between the
+        // topologies; null otherwise.
+        private ShortestPathTree<TopologyVertex, TopologyEdge> previousTree(TopologyVertex src) {
+            if (previousTrees == null) {
+                return null;
+            }
+            ShortestPathTree<TopologyVertex, TopologyEdge> tree =
+                    previousTrees.get(previousGraph.index(src));
+            if (tree == null) {
+                return null;
+            }
+            CompactGraph<TopologyVertex, TopologyEdge> treeGraph = tree.graph();
+
+            // Removing an edge matters only if it lies on a shortest path.
+            for (TopologyEdge edge : delta.removedEdges()) {
+                int u = treeGraph.index(edge.src());
+                int v = treeGraph.index(edge.dst());
+                double weight = hopCount(edge);
+                if (weight != Double.POSITIVE_INFINITY && v != tree.src() &&
+                        tree.isReachable(u) && tree.cost(u) + weight == tree.cost(v)) {
+                    return null;
+                }
+            }
+            // Adding an edge matters only if it yields an equal or shorter path.
+            for (TopologyEdge edge : delta.addedEdges()) {
+                int u = treeGraph.index(edge.src());
+                int v = treeGraph.index(edge.dst());
+                double weight = hopCount(edge);
+                if (weight != Double.POSITIVE_INFINITY && v != tree.src() &&
+                        tree.isReachable(u) && tree.cost(u) + weight <= tree.cost(v)) {
+                    return null;
+                }
+            }
+            return tree;
+        }
+    }
+
     static final class ClusterIndexes {
         final ImmutableMap<DeviceId, TopologyCluster> clustersByDevice;
         final ImmutableSetMultimap<TopologyCluster, DeviceId> devicesByCluster;
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.net.Link;
+import org.onosproject.net.topology.TopologyEdge;
+import org.onosproject.net.topology.TopologyGraph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Differences between two consecutive topology graphs.
+ * <p>
+ * An edge whose link changed its state or annotations is reported both as
+ * removed, in its previous version, and as added, in its current version.
+ * </p>
+ */
+final class TopologyGraphDelta {
+
+    private final boolean vertexesChanged;
+    private final Set<TopologyEdge> removedEdges;
+    private final Set<TopologyEdge> addedEdges;
+
+    /**
+     * Computes the differences between the specified graphs.
+     *
+     * @param previous previous topology graph
+     * @param current  current topology graph
+     */
+    TopologyGraphDelta(TopologyGraph previous, TopologyGraph current) {
+        this.vertexesChanged = !previous.getVertexes().equals(current.getVertexes());
+
+        Map<TopologyEdge, TopologyEdge> previousEdges = new HashMap<>();
+        previous.getEdges().forEach(edge -> previousEdges.put(edge, edge));
+
+        ImmutableSet.Builder<TopologyEdge> removed = ImmutableSet.builder();
+        ImmutableSet.Builder<TopologyEdge> added = ImmutableSet.builder();
+        for (TopologyEdge edge : current.getEdges()) {
+            TopologyEdge previousEdge = previousEdges.remove(edge);
+            if (previousEdge == null) {
+                added.add(edge);
+            } else if (!isSameVersion(previousEdge.link(), edge.link())) {
+                removed.add(previousEdge);
+                added.add(edge);
+            }
+        }
+        removed.addAll(previousEdges.keySet());
+
+        this.removedEdges = removed.build();
+        this.addedEdges = added.build();
+    }
+
+    // Links are equal regardless of their state and annotations.
+    private static boolean isSameVersion(Link previous, Link current) {
+        return previous.state() == current.state() &&
+                Objects.equals(previous.annotations(), current.annotations());
+    }
+
+    /**
+     * Indicates whether any vertexes were added or removed.
+     *
+     * @return true if the vertexes changed
+     */
+    boolean vertexesChanged() {
+        return vertexesChanged;
+    }
+
+    /**
+     * Returns the edges removed from the previous graph, in their previous
+     * version.
+     *
+     * @return removed edges
+     */
+    Set<TopologyEdge> removedEdges() {
+        return removedEdges;
+    }
+
+    /**
+     * Returns the edges added to the current graph, in their current version.
+     *
+     * @return added edges
+     */
+    Set<TopologyEdge> addedEdges() {
+        return addedEdges;
+    }
+
+    /**
+     * Indicates whether the graphs are the same.
+     *
+     * @return true if there are no differences
+     */
+    boolean isEmpty() {
+        return !vertexesChanged && removedEdges.isEmpty() && addedEdges.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("vertexesChanged", vertexesChanged)
+                .add("removedEdges", removedEdges.size())
+                .add("addedEdges", addedEdges.size())
+                .toString();
+    }
+}
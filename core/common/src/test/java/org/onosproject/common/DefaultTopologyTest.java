@@ -39,7 +39,9 @@ import org.onosproject.net.topology.TopologyCluster;
 import org.onosproject.net.topology.TopologyEdge;
 import org.onosproject.net.topology.TopologyVertex;
 
+import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
 import static com.google.common.collect.ImmutableSet.of;
 import static org.junit.Assert.*;
 import static org.onosproject.net.DeviceId.deviceId;
@@ -148,6 +150,61 @@ public class DefaultTopologyTest {
         assertFalse("cluster should not contain D5", devs.contains(D5));
     }
 
+    @Test
+    public void incrementalUpdate() {
+        // Populate the shortest paths to be carried forward.
+        assertEquals("incorrect path count", 2, dt.getPaths(D1, D3).size());
+        assertEquals("incorrect path count", 1, dt.getPaths(D2, D3).size());
+
+        Set<Device> devices = of(device("1"), device("2"),
+                                 device("3"), device("4"),
+                                 device("5"));
+
+        // Remove the links between D1 and D2.
+        Set<Link> fewerLinks = dt.getGraph().getEdges().stream()
+                .map(TopologyEdge::link)
+                .filter(l -> !(l.src().deviceId().equals(D1) && l.dst().deviceId().equals(D2)) &&
+                        !(l.src().deviceId().equals(D2) && l.dst().deviceId().equals(D1)))
+                .collect(Collectors.toSet());
+        DefaultTopology next = update(dt, devices, fewerLinks);
+        DefaultTopology full = update(null, devices, fewerLinks);
+
+        assertEquals("incorrect cluster count", full.clusterCount(), next.clusterCount());
+        assertEquals("incorrect broadcast set size",
+                     full.broadcastSetSize(full.getCluster(D1).id()),
+                     next.broadcastSetSize(next.getCluster(D1).id()));
+        assertEquals("incorrect paths", full.getPaths(D1, D3), next.getPaths(D1, D3));
+        assertEquals("incorrect paths", full.getPaths(D2, D3), next.getPaths(D2, D3));
+        assertEquals("incorrect paths", full.getPaths(D1, D2), next.getPaths(D1, D2));
+        assertEquals("incorrect path count", 1, next.getPaths(D1, D3).size());
+
+        // Add an indirect link from D4 to D5, which leaves the clusters intact.
+        Set<Link> moreLinks = new HashSet<>(fewerLinks);
+        moreLinks.add(DefaultLink.builder().providerId(PID)
+                              .src(new ConnectPoint(D4, portNumber(5)))
+                              .dst(new ConnectPoint(D5, portNumber(5)))
+                              .type(Link.Type.INDIRECT)
+                              .build());
+        DefaultTopology last = update(next, devices, moreLinks);
+
+        assertEquals("incorrect cluster count", 2, last.clusterCount());
+        assertEquals("incorrect broadcast set size",
+                     next.broadcastSetSize(next.getCluster(D1).id()),
+                     last.broadcastSetSize(last.getCluster(D1).id()));
+        assertEquals("incorrect paths", next.getPaths(D1, D3), last.getPaths(D1, D3));
+        assertEquals("incorrect path count", 1, last.getPaths(D1, D5).size());
+        assertTrue("no paths expected", last.getPaths(D5, D1).isEmpty());
+    }
+
+    // Creates a new topology with the given devices and links.
+    private static DefaultTopology update(DefaultTopology previous,
+                                          Set<Device> devices, Set<Link> links) {
+        long now = System.currentTimeMillis();
+        GraphDescription graphDescription =
+                new DefaultGraphDescription(now, now, devices, links);
+        return new DefaultTopology(PID, graphDescription, null, previous);
+    }
+
     // Short-hand for creating a link.
     public static Link link(String src, int sp, String dst, int dp) {
         return DefaultLink.builder().providerId(PID)
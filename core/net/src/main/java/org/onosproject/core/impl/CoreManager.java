@@ -45,6 +45,10 @@ import java.util.Set;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onosproject.net.OsgiPropertyConstants.CALCULATE_PERFORMANCE_CHECK;
 import static org.onosproject.net.OsgiPropertyConstants.CALCULATE_PERFORMANCE_CHECK_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_DISPATCH_SHARDS;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_DISPATCH_SHARDS_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_QUEUE_CAPACITY;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_QUEUE_CAPACITY_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.MAX_EVENT_TIME_LIMIT;
 import static org.onosproject.net.OsgiPropertyConstants.MAX_EVENT_TIME_LIMIT_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.SHARED_THREAD_POOL_SIZE;
@@ -62,6 +66,8 @@ import static org.onosproject.security.AppPermission.Type.APP_WRITE;
         property = {
                 SHARED_THREAD_POOL_SIZE + ":Integer=" + SHARED_THREAD_POOL_SIZE_DEFAULT,
                 MAX_EVENT_TIME_LIMIT + ":Integer=" + MAX_EVENT_TIME_LIMIT_DEFAULT,
+                EVENT_DISPATCH_SHARDS + ":Integer=" + EVENT_DISPATCH_SHARDS_DEFAULT,
+                EVENT_QUEUE_CAPACITY + ":Integer=" + EVENT_QUEUE_CAPACITY_DEFAULT,
                 CALCULATE_PERFORMANCE_CHECK + ":Boolean=" + CALCULATE_PERFORMANCE_CHECK_DEFAULT
         }
 )
@@ -96,6 +102,12 @@ public class CoreManager implements CoreService {
     /** Maximum number of millis an event sink has to process an event. */
     private int maxEventTimeLimit = MAX_EVENT_TIME_LIMIT_DEFAULT;
 
+    /** Number of dispatch loops per event dispatcher group; events are sharded by subject. */
+    private int eventDispatchShards = EVENT_DISPATCH_SHARDS_DEFAULT;
+
+    /** Maximum number of events queued per dispatch loop; 0 for unbounded. */
+    private int eventQueueCapacity = EVENT_QUEUE_CAPACITY_DEFAULT;
+
     /** Enable queue performance check on shared pool. */
     private boolean sharedThreadPerformanceCheck = CALCULATE_PERFORMANCE_CHECK_DEFAULT;
 
@@ -182,13 +194,31 @@ public class CoreManager implements CoreService {
             log.warn("maxEventTimeLimit must be greater than or equal to 0");
         }
 
+        Integer shards = Tools.getIntegerProperty(properties, EVENT_DISPATCH_SHARDS);
+        if (shards != null && shards > 0) {
+            eventDispatchShards = shards;
+            eventDeliveryService.setDispatchShards(eventDispatchShards);
+        } else if (shards != null) {
+            log.warn("eventDispatchShards must be greater than 0");
+        }
+
+        Integer queueCapacity = Tools.getIntegerProperty(properties, EVENT_QUEUE_CAPACITY);
+        if (queueCapacity != null && queueCapacity >= 0) {
+            eventQueueCapacity = queueCapacity;
+            eventDeliveryService.setDispatchQueueCapacity(eventQueueCapacity);
+        } else if (queueCapacity != null) {
+            log.warn("eventQueueCapacity must be greater than or equal to 0");
+        }
+
         Boolean performanceCheck = Tools.isPropertyEnabled(properties, CALCULATE_PERFORMANCE_CHECK);
         if (performanceCheck != null) {
             sharedThreadPerformanceCheck = performanceCheck;
             SharedExecutors.setMetricsService(sharedThreadPerformanceCheck ? metricsService : null);
         }
 
-        log.info("Settings: sharedThreadPoolSize={}, maxEventTimeLimit={}, sharedThreadPerformanceCheck={}",
-                 sharedThreadPoolSize, maxEventTimeLimit, sharedThreadPerformanceCheck);
+        log.info("Settings: sharedThreadPoolSize={}, maxEventTimeLimit={}, eventDispatchShards={}, " +
+                         "eventQueueCapacity={}, sharedThreadPerformanceCheck={}",
+                 sharedThreadPoolSize, maxEventTimeLimit, eventDispatchShards,
+                 eventQueueCapacity, sharedThreadPerformanceCheck);
     }
 }
@@ -15,9 +15,16 @@
  */
 package org.onosproject.event.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.SharedExecutors;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.DefaultEventSinkRegistry;
@@ -33,9 +40,12 @@ import org.onosproject.net.topology.TopologyEvent;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
@@ -46,6 +56,8 @@ import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.EVENT_READ;
@@ -53,6 +65,13 @@ import static org.onosproject.security.AppPermission.Type.EVENT_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Simple implementation of an event dispatching service.
+ * <p>
+ * Events are dispatched by a few dispatcher groups, each of which runs one or
+ * more dispatch loops. When a group runs several loops, events are sharded
+ * across the loops by subject, preserving the delivery order of events for
+ * the same subject. Device and link events are sharded by device, so that
+ * the events of a device and of the links leaving it stay in order; topology
+ * events all go to the same loop.
  */
 @Component(immediate = true, service = EventDeliveryService.class)
 public class CoreEventDispatcher extends DefaultEventSinkRegistry
@@ -60,13 +79,17 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
     private final Logger log = getLogger(getClass());
 
+    private static final String METRICS_COMPONENT = "EventDispatcher";
 
-    private DispatchLoop topologyDispatcher = new DispatchLoop("topology");
-    private DispatchLoop programmingDispatcher = new DispatchLoop("programming");
-    private DispatchLoop defaultDispatcher = new DispatchLoop("default");
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
 
-    private Map<Class, DispatchLoop> dispatcherMap =
-            new ImmutableMap.Builder<Class, DispatchLoop>()
+    private DispatchGroup topologyDispatcher = new DispatchGroup("topology");
+    private DispatchGroup programmingDispatcher = new DispatchGroup("programming");
+    private DispatchGroup defaultDispatcher = new DispatchGroup("default");
+
+    private Map<Class, DispatchGroup> dispatcherMap =
+            new ImmutableMap.Builder<Class, DispatchGroup>()
                 .put(TopologyEvent.class, topologyDispatcher)
                 .put(DeviceEvent.class, topologyDispatcher)
                 .put(LinkEvent.class, topologyDispatcher)
@@ -75,8 +98,8 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                 .put(IntentEvent.class, programmingDispatcher)
                 .build();
 
-    private Set<DispatchLoop> dispatchers =
-            new ImmutableSet.Builder<DispatchLoop>()
+    private Set<DispatchGroup> dispatchers =
+            new ImmutableSet.Builder<DispatchGroup>()
                 .addAll(dispatcherMap.values())
                 .add(defaultDispatcher)
                 .build();
@@ -85,41 +108,73 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
     private static final long DEFAULT_EXECUTE_MS = 5_000; // ms
     private static final long WATCHDOG_MS = 250; // ms
 
+    // Number of millis a poster waits for space in a full dispatch queue.
+    private static final long BACKPRESSURE_MS = 1_000; // ms
+
     @SuppressWarnings("unchecked")
     private static final Event KILL_PILL = new AbstractEvent(null, 0) {
     };
 
     private long maxProcessMillis = DEFAULT_EXECUTE_MS;
+    private int dispatchShards = 1;
+    private int dispatchQueueCapacity = 0;
+    private volatile boolean active;
+
+    private final Map<EventSink, Timer> sinkTimers = Maps.newConcurrentMap();
 
-    private DispatchLoop getDispatcher(Event event) {
-        DispatchLoop dispatcher = dispatcherMap.get(event.getClass());
+    private DispatchGroup getDispatcher(Event event) {
+        DispatchGroup dispatcher = dispatcherMap.get(event.getClass());
         if (dispatcher == null) {
             dispatcher = defaultDispatcher;
         }
         return dispatcher;
     }
 
+    // Returns the key used to shard the given event across dispatch loops.
+    private static Object shardKey(Event event) {
+        if (event instanceof TopologyEvent) {
+            // Topology events describe the whole network and are kept in order.
+            return TopologyEvent.class;
+        } else if (event instanceof DeviceEvent) {
+            return ((DeviceEvent) event).subject().id();
+        } else if (event instanceof LinkEvent) {
+            // Keeps e.g. a link removal after the removal of its source device.
+            return ((LinkEvent) event).subject().src().deviceId();
+        } else if (event instanceof HostEvent) {
+            return ((HostEvent) event).subject().id();
+        } else if (event instanceof FlowRuleEvent) {
+            return ((FlowRuleEvent) event).subject().deviceId();
+        } else if (event instanceof IntentEvent) {
+            return ((IntentEvent) event).subject().key();
+        }
+        return event.subject();
+    }
+
     @Override
     public void post(Event event) {
 
         if (!getDispatcher(event).add(event)) {
-            log.error("Unable to post event {}", event);
+            log.error("Dispatch queue full; dropped event {}", event);
         }
     }
 
     @Activate
     public void activate() {
+        dispatchers.forEach(DispatchGroup::registerMetrics);
 
         if (maxProcessMillis != 0) {
-            dispatchers.forEach(DispatchLoop::start);
+            dispatchers.forEach(DispatchGroup::start);
         }
+        active = maxProcessMillis != 0;
 
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
-        dispatchers.forEach(DispatchLoop::stop);
+        active = false;
+        dispatchers.forEach(DispatchGroup::stop);
+        dispatchers.forEach(DispatchGroup::unregisterMetrics);
 
         log.info("Stopped");
     }
@@ -133,9 +188,9 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         maxProcessMillis = millis;
 
         if (millis == 0 && oldMillis != 0) {
-            dispatchers.forEach(DispatchLoop::stopWatchdog);
+            dispatchers.forEach(DispatchGroup::stopWatchdog);
         } else if (millis != 0 && oldMillis == 0) {
-            dispatchers.forEach(DispatchLoop::startWatchdog);
+            dispatchers.forEach(DispatchGroup::startWatchdog);
         }
     }
 
@@ -145,39 +200,258 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return maxProcessMillis;
     }
 
+    @Override
+    public synchronized void setDispatchShards(int shards) {
+        checkPermission(EVENT_WRITE);
+        checkArgument(shards > 0, "Number of shards must be greater than 0");
+        if (shards != dispatchShards) {
+            dispatchShards = shards;
+            dispatchers.forEach(DispatchGroup::reconfigure);
+        }
+    }
+
+    @Override
+    public int getDispatchShards() {
+        checkPermission(EVENT_READ);
+        return dispatchShards;
+    }
+
+    @Override
+    public synchronized void setDispatchQueueCapacity(int capacity) {
+        checkPermission(EVENT_WRITE);
+        checkArgument(capacity >= 0, "Queue capacity must not be negative");
+        if (capacity != dispatchQueueCapacity) {
+            dispatchQueueCapacity = capacity;
+            dispatchers.forEach(DispatchGroup::reconfigure);
+        }
+    }
+
+    @Override
+    public int getDispatchQueueCapacity() {
+        checkPermission(EVENT_READ);
+        return dispatchQueueCapacity;
+    }
+
+    @Override
+    public <E extends Event> void removeSink(Class<E> eventClass) {
+        EventSink<E> sink = getSink(eventClass);
+        super.removeSink(eventClass);
+        MetricsService metricsService = this.metricsService;
+        if (sink != null && sinkTimers.remove(sink) != null && metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            metricsService.removeMetric(component, component.registerFeature("sink"), eventClass.getName());
+        }
+    }
+
+    // Returns the timer which records processing latency of the given sink,
+    // registered for the given event class.
+    private Timer sinkTimer(EventSink sink, Class eventClass) {
+        MetricsService metricsService = this.metricsService;
+        if (metricsService == null) {
+            return null;
+        }
+        return sinkTimers.computeIfAbsent(sink, s -> {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature("sink");
+            return metricsService.createTimer(component, feature, eventClass.getName());
+        });
+    }
+
+    // Group of dispatch loops that share the dispatching of a set of event classes.
+    private class DispatchGroup {
+        private final String name;
+        private volatile DispatchLoop[] loops;
+        private Meter stalledMeter;
+        private Meter rejectedMeter;
+
+        DispatchGroup(String name) {
+            this.name = name;
+            this.loops = new DispatchLoop[]{new DispatchLoop(name, 0, this)};
+        }
+
+        boolean add(Event event) {
+            DispatchLoop[] loops = this.loops;
+            DispatchLoop loop = loops.length == 1 ? loops[0] : loops[shard(event, loops.length)];
+            boolean added = loop.add(event);
+            if (!added && rejectedMeter != null) {
+                rejectedMeter.mark();
+            }
+            return added;
+        }
+
+        private int shard(Event event, int shards) {
+            int hash = Objects.hashCode(shardKey(event));
+            return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % shards;
+        }
+
+        void start() {
+            for (DispatchLoop loop : loops) {
+                loop.start();
+            }
+        }
+
+        void stop() {
+            for (DispatchLoop loop : loops) {
+                loop.stop();
+            }
+        }
+
+        void startWatchdog() {
+            for (DispatchLoop loop : loops) {
+                loop.startWatchdog();
+            }
+        }
+
+        void stopWatchdog() {
+            for (DispatchLoop loop : loops) {
+                loop.stopWatchdog();
+            }
+        }
+
+        // Replaces the dispatch loops according to the current configuration.
+        // The replaced loops finish dispatching their queued events before
+        // terminating; events for a subject which are queued on a replaced
+        // loop may therefore race with new events for that subject.
+        synchronized void reconfigure() {
+            int shards = dispatchShards;
+            DispatchLoop[] newLoops = new DispatchLoop[shards];
+            for (int i = 0; i < shards; i++) {
+                newLoops[i] = new DispatchLoop(shards == 1 ? name : name + "-" + i,
+                                               dispatchQueueCapacity, this);
+                if (active) {
+                    newLoops[i].start();
+                }
+            }
+            DispatchLoop[] oldLoops = loops;
+            loops = newLoops;
+            for (DispatchLoop loop : oldLoops) {
+                loop.drain();
+            }
+            log.info("Dispatcher {} using {} loop(s) with queue capacity {}",
+                     name, shards, dispatchQueueCapacity);
+        }
+
+        int queueDepth() {
+            int depth = 0;
+            for (DispatchLoop loop : loops) {
+                depth += loop.eventsQueue.size();
+            }
+            return depth;
+        }
+
+        void stalled() {
+            if (stalledMeter != null) {
+                stalledMeter.mark();
+            }
+        }
+
+        void registerMetrics() {
+            MetricsService metricsService = CoreEventDispatcher.this.metricsService;
+            if (metricsService != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                MetricsFeature feature = component.registerFeature(name);
+                stalledMeter = metricsService.createMeter(component, feature, "stalledPosts");
+                rejectedMeter = metricsService.createMeter(component, feature, "rejectedPosts");
+                metricsService.registerMetric(component, feature, "queueDepth",
+                                              (Gauge<Integer>) this::queueDepth);
+            }
+        }
+
+        void unregisterMetrics() {
+            MetricsService metricsService = CoreEventDispatcher.this.metricsService;
+            if (metricsService != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                MetricsFeature feature = component.registerFeature(name);
+                metricsService.removeMetric(component, feature, "stalledPosts");
+                metricsService.removeMetric(component, feature, "rejectedPosts");
+                metricsService.removeMetric(component, feature, "queueDepth");
+            }
+        }
+    }
+
     // Auxiliary event dispatching loop that feeds off the events queue.
     private class DispatchLoop implements Runnable {
         private final String name;
+        private final DispatchGroup group;
         private volatile boolean stopped;
+        private volatile boolean draining;
         private volatile EventSink lastSink;
         // Means to detect long-running sinks
         private final Stopwatch stopwatch = Stopwatch.createUnstarted();
         private TimerTask watchdog;
         private volatile Future<?> dispatchFuture;
-        private final BlockingQueue<Event> eventsQueue;
+        private final BlockingQueue<Event> eventsQueue = new LinkedBlockingQueue<>();
+        private final int capacity;
+        // Posters waiting for the loop to make room in the queue.
+        private final Object space = new Object();
+        private volatile int waiters;
+        private volatile Thread thread;
         private final ExecutorService executor;
 
-        DispatchLoop(String name) {
+        DispatchLoop(String name, int capacity, DispatchGroup group) {
             this.name = name;
+            this.capacity = capacity;
+            this.group = group;
             executor = newSingleThreadExecutor(
                     groupedThreads("onos/event",
                     "dispatch-" + name + "%d", log));
-            eventsQueue = new LinkedBlockingQueue<>();
         }
 
         public boolean add(Event event) {
-            return eventsQueue.add(event);
+            // A sink posting to its own loop cannot wait for the loop to make
+            // room, so its events are queued beyond the capacity.
+            if (capacity == 0 || eventsQueue.size() < capacity
+                    || Thread.currentThread() == thread) {
+                eventsQueue.add(event);
+                return true;
+            }
+
+            // Apply backpressure to the poster while the queue is full.
+            group.stalled();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BACKPRESSURE_MS);
+            synchronized (space) {
+                waiters++;
+                try {
+                    while (eventsQueue.size() >= capacity) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            return false;
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(space, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                } finally {
+                    waiters--;
+                }
+            }
+            eventsQueue.add(event);
+            return true;
+        }
+
+        // Wakes up the posters waiting for room in the queue, if any.
+        private void signalSpace() {
+            if (waiters > 0) {
+                synchronized (space) {
+                    space.notifyAll();
+                }
+            }
         }
 
         @Override
         public void run() {
             log.info("Dispatch loop({}) initiated", name);
+            thread = Thread.currentThread();
             while (!stopped) {
                 try {
                     // Fetch the next event and if it is the kill-pill, bail
                     Event event = eventsQueue.take();
+                    signalSpace();
                     if (event != KILL_PILL) {
                         process(event);
+                    } else if (draining) {
+                        break;
                     }
                 } catch (InterruptedException e) {
                     log.warn("Dispatch loop interrupted");
@@ -185,6 +459,10 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                     log.warn("Error encountered while dispatching event:", e);
                 }
             }
+            if (draining) {
+                stopWatchdog();
+                executor.shutdown();
+            }
             log.info("Dispatch loop({}) terminated", name);
         }
 
@@ -194,22 +472,38 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             EventSink sink = getSink(event.getClass());
             if (sink != null) {
                 lastSink = sink;
+                Timer.Context context = startTimer(sinkTimer(sink, event.getClass()));
                 stopwatch.start();
                 sink.process(event);
                 stopwatch.reset();
+                stopTimer(context);
             } else {
                 log.warn("No sink registered for event class {}",
                          event.getClass().getName());
             }
         }
 
+        // Stops the loop, discarding the queued events.
         void stop() {
             stopped = true;
-            add(KILL_PILL);
+            eventsQueue.clear();
+            eventsQueue.add(KILL_PILL);
+            signalSpace();
+            if (null != dispatchFuture) {
+                dispatchFuture.cancel(true);
+            }
+            stopWatchdog();
+        }
+
+        // Cancels the dispatch loop stuck in a sink and submits a new one,
+        // which goes on with the queued events.
+        void restart() {
+            stopped = true;
             if (null != dispatchFuture) {
                 dispatchFuture.cancel(true);
             }
             stopWatchdog();
+            start();
         }
 
         void start() {
@@ -218,6 +512,16 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             startWatchdog();
         }
 
+        // Dispatches all queued events and then terminates the loop.
+        void drain() {
+            draining = true;
+            if (dispatchFuture == null) {
+                executor.shutdown();
+                return;
+            }
+            eventsQueue.add(KILL_PILL);
+        }
+
         // Monitors event sinks to make sure none take too long to execute.
         private class Watchdog extends TimerTask {
             @Override
@@ -233,9 +537,7 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                     lastSink.onProcessLimit();
 
                     // Cancel the old dispatch loop and submit a new one.
-
-                    stop();
-                    start();
+                    restart();
                 }
             }
         }
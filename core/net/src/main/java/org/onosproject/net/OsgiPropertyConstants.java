@@ -32,6 +32,12 @@ public final class OsgiPropertyConstants {
     public static final String MAX_EVENT_TIME_LIMIT = "maxEventTimeLimit";
     public static final int MAX_EVENT_TIME_LIMIT_DEFAULT = 2000;
 
+    public static final String EVENT_DISPATCH_SHARDS = "eventDispatchShards";
+    public static final int EVENT_DISPATCH_SHARDS_DEFAULT = 1;
+
+    public static final String EVENT_QUEUE_CAPACITY = "eventQueueCapacity";
+    public static final int EVENT_QUEUE_CAPACITY_DEFAULT = 0;
+
     public static final String CALCULATE_PERFORMANCE_CHECK = "sharedThreadPerformanceCheck";
     public static final boolean CALCULATE_PERFORMANCE_CHECK_DEFAULT = false;
 
@@ -116,6 +122,12 @@ public final class OsgiPropertyConstants {
     public static final String IM_NUM_THREADS = "numThreads";
     public static final int IM_NUM_THREADS_DEFAULT = 12;
 
+    public static final String IM_MAX_BATCHES_IN_FLIGHT = "maxBatchesInFlight";
+    public static final int IM_MAX_BATCHES_IN_FLIGHT_DEFAULT = 1;
+
+    public static final String IM_COMPILATION_CACHE = "compilationCache";
+    public static final boolean IM_COMPILATION_CACHE_DEFAULT = false;
+
     public static final String MM_NUM_THREADS = "numThreads";
     public static final int MM_NUM_THREADS_DEFAULT = 12;
 
@@ -161,4 +173,16 @@ public final class OsgiPropertyConstants {
     public static final String FOM_ACCUMULATOR_MAX_BATCH_MILLIS = "accumulatorMaxBatchMillis";
     public static final int FOM_ACCUMULATOR_MAX_BATCH_MILLIS_DEFAULT = 500;
 
+    public static final String PM_PIPELINE_WORKERS = "pipelineWorkers";
+    public static final int PM_PIPELINE_WORKERS_DEFAULT = 0;
+
+    public static final String PM_PIPELINE_QUEUE_SIZE = "pipelineQueueSize";
+    public static final int PM_PIPELINE_QUEUE_SIZE_DEFAULT = 4096;
+
+    public static final String SHM_HISTORY_SIZE = "historySize";
+    public static final int SHM_HISTORY_SIZE_DEFAULT = 120;
+
+    public static final String SHM_DEVICE_MEMORY_BUDGET = "deviceMemoryBudget";
+    public static final int SHM_DEVICE_MEMORY_BUDGET_DEFAULT = 4 * 1024 * 1024;
+
 }
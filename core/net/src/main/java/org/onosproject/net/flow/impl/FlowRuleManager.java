@@ -15,12 +15,16 @@
  */
 package org.onosproject.net.flow.impl;
 
+import com.codahale.metrics.Histogram;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
@@ -45,6 +49,7 @@ import org.onosproject.net.flow.FlowRuleProgrammable;
 import org.onosproject.net.flow.FlowRuleProvider;
 import org.onosproject.net.flow.FlowRuleProviderRegistry;
 import org.onosproject.net.flow.FlowRuleProviderService;
+import org.onosproject.net.flow.FlowRuleReconciliation;
 import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.net.flow.FlowRuleStore;
 import org.onosproject.net.flow.FlowRuleStoreDelegate;
@@ -148,6 +153,10 @@ public class FlowRuleManager
 
     private final Map<Long, FlowOperationsProcessor> pendingFlowOperations = new ConcurrentHashMap<>();
 
+    private Histogram reconciledFlows;
+    private Histogram missingFlows;
+    private Histogram extraneousFlows;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected FlowRuleStore store;
 
@@ -166,6 +175,9 @@ public class FlowRuleManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected DriverService driverService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
     @Activate
     public void activate(ComponentContext context) {
         store.setDelegate(delegate);
@@ -174,6 +186,7 @@ public class FlowRuleManager
         cfgService.registerProperties(getClass());
         modified(context);
         idGenerator = coreService.getIdGenerator(FLOW_OP_TOPIC);
+        registerMetrics();
         log.info("Started");
     }
 
@@ -198,6 +211,27 @@ public class FlowRuleManager
                             deviceService, mastershipService, fallbackFlowPollFrequency);
     }
 
+    // Registers the per-poll flow statistics reconciliation metrics.
+    private void registerMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent("FlowRuleManager");
+            MetricsFeature feature = component.registerFeature("statsReconciliation");
+            reconciledFlows = metricsService.createHistogram(component, feature, "reconciled");
+            missingFlows = metricsService.createHistogram(component, feature, "missing");
+            extraneousFlows = metricsService.createHistogram(component, feature, "extraneous");
+        }
+    }
+
+    // Records the outcome of a single flow statistics reconciliation.
+    private void recordReconciliation(FlowRuleReconciliation reconciliation) {
+        log.trace("Reconciled flow statistics: {}", reconciliation);
+        if (reconciledFlows != null) {
+            reconciledFlows.update(reconciliation.reconciled().size());
+            missingFlows.update(reconciliation.missing().size());
+            extraneousFlows.update(reconciliation.extraneous().size() + reconciliation.mismatched().size());
+        }
+    }
+
     @Override
     protected FlowRuleProvider defaultProvider() {
         return driverProvider;
@@ -320,14 +354,7 @@ public class FlowRuleManager
     public void removeFlowRulesById(ApplicationId id) {
         checkPermission(FLOWRULE_WRITE);
 
-        Set<FlowRule> flowEntries = Sets.newHashSet();
-        for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if (flowEntry.appId() == id.id()) {
-                    flowEntries.add(flowEntry);
-                }
-            }
-        }
+        Set<FlowRule> flowEntries = Sets.newHashSet(store.getFlowEntriesByAppId(deviceIds(), id));
         removeFlowRules(Iterables.toArray(flowEntries, FlowRule.class));
     }
 
@@ -335,15 +362,11 @@ public class FlowRuleManager
     public Iterable<FlowEntry> getFlowEntriesById(ApplicationId id) {
         checkPermission(FLOWRULE_READ);
 
-        Set<FlowEntry> flowEntries = Sets.newHashSet();
-        for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if (flowEntry.appId() == id.id()) {
-                    flowEntries.add(flowEntry);
-                }
-            }
-        }
-        return flowEntries;
+        return Sets.newHashSet(store.getFlowEntriesByAppId(deviceIds(), id));
+    }
+
+    private Iterable<DeviceId> deviceIds() {
+        return Iterables.transform(deviceService.getDevices(), Device::id);
     }
 
     @Override
@@ -351,13 +374,8 @@ public class FlowRuleManager
         checkPermission(FLOWRULE_READ);
 
         Set<FlowRule> matches = Sets.newHashSet();
-        long toLookUp = ((long) appId.id() << 16) | groupId;
         for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if ((flowEntry.id().value() >>> 32) == toLookUp) {
-                    matches.add(flowEntry);
-                }
-            }
+            Iterables.addAll(matches, store.getFlowEntriesByGroupId(d.id(), appId, groupId));
         }
         return matches;
     }
@@ -492,11 +510,24 @@ public class FlowRuleManager
             log.debug("Flow {} is on switch but not in store.", flowRule);
         }
 
-        private void flowAdded(FlowEntry flowEntry) {
-            checkNotNull(flowEntry, FLOW_RULE_NULL);
-            checkValidity();
+        private void flowsAdded(DeviceId deviceId, List<FlowEntry> flowEntries) {
+            List<FlowRuleEvent> events;
+            try {
+                events = store.addOrUpdateFlowRules(deviceId, flowEntries);
+            } catch (Exception e) {
+                log.warn("Can't update {} rules for device {} as a batch, updating them one by one: {}",
+                         flowEntries.size(), deviceId, e.getMessage());
+                flowEntries.forEach(this::flowAdded);
+                return;
+            }
+            events.forEach(event -> {
+                log.trace("Flow {} {}", event.subject(), event.type());
+                post(event);
+            });
+        }
 
-            if (checkRuleLiveness(flowEntry, store.getFlowEntry(flowEntry))) {
+        private void flowAdded(FlowEntry flowEntry) {
+            try {
                 FlowRuleEvent event = store.addOrUpdateFlowRule(flowEntry);
                 if (event == null) {
                     log.debug("No flow store event generated.");
@@ -504,9 +535,8 @@ public class FlowRuleManager
                     log.trace("Flow {} {}", flowEntry, event.type());
                     post(event);
                 }
-            } else {
-                log.debug("Removing flow rules....");
-                removeFlowRules(flowEntry);
+            } catch (Exception e) {
+                log.warn("Can't process added rule {} for device {}:{}", flowEntry, flowEntry.deviceId(), e);
             }
         }
 
@@ -563,48 +593,72 @@ public class FlowRuleManager
 
         private void pushFlowMetricsInternal(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
                                              boolean useMissingFlow) {
-            Map<FlowEntry, FlowEntry> storedRules = Maps.newHashMap();
-            store.getFlowEntries(deviceId).forEach(f -> storedRules.put(f, f));
+            checkValidity();
+
+            // Diff the reported entries against the store's index in a single pass.
+            FlowRuleReconciliation reconciliation = store.reconcileFlowEntries(deviceId, flowEntries);
 
-            for (FlowEntry rule : flowEntries) {
+            // we both have the rule, let's update some info then.
+            List<FlowEntry> liveRules = Lists.newArrayListWithCapacity(reconciliation.reconciled().size());
+            reconciliation.reconciled().forEach((rule, storedRule) -> {
                 try {
-                    FlowEntry storedRule = storedRules.remove(rule);
-                    if (storedRule != null) {
-                        if (storedRule.exactMatch(rule)) {
-                            // we both have the rule, let's update some info then.
-                            flowAdded(rule);
-                        } else {
-                            // the two rules are not an exact match - remove the
-                            // switch's rule and install our rule
-                            extraneousFlow(rule);
-                            flowMissing(storedRule, false);
-                        }
+                    if (checkRuleLiveness(rule, storedRule)) {
+                        liveRules.add(rule);
                     } else {
-                        // the device has a rule the store does not have
-                        if (!allowExtraneousRules) {
-                            extraneousFlow(rule);
-                        } else if (importExtraneousRules) { // Stores the rule, if so is indicated
-                            store.addOrUpdateFlowRule(rule);
-                        }
+                        log.debug("Removing flow rules....");
+                        removeFlowRules(rule);
                     }
                 } catch (Exception e) {
-                    log.warn("Can't process added or extra rule {} for device {}:{}",
-                             rule, deviceId, e);
+                    log.warn("Can't process added rule {} for device {}:{}", rule, deviceId, e);
+                }
+            });
+            if (!liveRules.isEmpty()) {
+                flowsAdded(deviceId, liveRules);
+            }
+
+            // the two rules are not an exact match - remove the
+            // switch's rule and install our rule
+            reconciliation.mismatched().forEach((rule, storedRule) -> {
+                try {
+                    extraneousFlow(rule);
+                    flowMissing(storedRule, false);
+                } catch (Exception e) {
+                    log.warn("Can't process mismatched rule {} for device {}:{}", rule, deviceId, e);
+                }
+            });
+
+            // the device has a rule the store does not have
+            for (FlowEntry rule : reconciliation.extraneous()) {
+                try {
+                    if (!allowExtraneousRules) {
+                        extraneousFlow(rule);
+                    } else if (importExtraneousRules) { // Stores the rule, if so is indicated
+                        store.addOrUpdateFlowRule(rule);
+                    }
+                } catch (Exception e) {
+                    log.warn("Can't process extra rule {} for device {}:{}", rule, deviceId, e);
                 }
             }
 
             // DO NOT reinstall
             if (useMissingFlow) {
-                for (FlowEntry rule : storedRules.keySet()) {
+                for (FlowEntry rule : reconciliation.missing()) {
                     try {
+                        // the rule may have been removed or replaced since the reconciliation
+                        FlowEntry storedRule = store.getFlowEntry(rule);
+                        if (storedRule == null) {
+                            continue;
+                        }
                         // there are rules in the store that aren't on the switch
-                        log.debug("Adding the rule that is present in store but not on switch : {}", rule);
-                        flowMissing(rule, true);
+                        log.debug("Adding the rule that is present in store but not on switch : {}", storedRule);
+                        flowMissing(storedRule, true);
                     } catch (Exception e) {
                         log.warn("Can't add missing flow rule:", e);
                     }
                 }
             }
+
+            recordReconciliation(reconciliation);
         }
 
         @Override
@@ -20,9 +20,8 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalListeners;
-import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Multimaps;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.Tools;
 import org.onlab.util.Tools.LogLevel;
 import org.onosproject.net.DeviceId;
@@ -42,6 +41,8 @@ import org.onosproject.net.flowobjective.ObjectiveQueueKey;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,6 +69,12 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
     static final int DEFAULT_OBJ_TIMEOUT = 15000;
     int objTimeoutMs = DEFAULT_OBJ_TIMEOUT;
 
+    // Number of lock stripes of each objective queue
+    private static final int QUEUE_STRIPES = 64;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
     private Cache<FilteringObjQueueKey, Objective> filtObjQueueHead;
     private Cache<ForwardingObjQueueKey, Objective> fwdObjQueueHead;
     private Cache<NextObjQueueKey, Objective> nextObjQueueHead;
@@ -76,12 +83,10 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
     private ExecutorService fwdCacheEventExecutor;
     private ExecutorService nextCacheEventExecutor;
 
-    private ListMultimap<FilteringObjQueueKey, Objective> filtObjQueue =
-            Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
-    private ListMultimap<ForwardingObjQueueKey, Objective> fwdObjQueue =
-            Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
-    private ListMultimap<NextObjQueueKey, Objective> nextObjQueue =
-            Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
+    // Queues are striped by key, so that objectives on distinct keys do not contend
+    private ObjectiveQueue<FilteringObjQueueKey> filtObjQueue;
+    private ObjectiveQueue<ForwardingObjQueueKey> fwdObjQueue;
+    private ObjectiveQueue<NextObjQueueKey> nextObjQueue;
 
     final FlowObjectiveStoreDelegate delegate = new InternalStoreDelegate();
 
@@ -89,6 +94,10 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
     protected void activate(ComponentContext context) {
         super.activate(context);
 
+        filtObjQueue = new ObjectiveQueue<>(QUEUE_STRIPES, "filtering", metricsService);
+        fwdObjQueue = new ObjectiveQueue<>(QUEUE_STRIPES, "forwarding", metricsService);
+        nextObjQueue = new ObjectiveQueue<>(QUEUE_STRIPES, "next", metricsService);
+
         filtCacheEventExecutor = newSingleThreadExecutor(groupedThreads("onos/flowobj", "cache-event-filt", log));
         fwdCacheEventExecutor = newSingleThreadExecutor(groupedThreads("onos/flowobj", "cache-event-fwd", log));
         nextCacheEventExecutor = newSingleThreadExecutor(groupedThreads("onos/flowobj", "cache-event-next", log));
@@ -142,6 +151,10 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
         fwdCacheEventExecutor.shutdown();
         nextCacheEventExecutor.shutdown();
 
+        filtObjQueue.removeMetrics();
+        fwdObjQueue.removeMetrics();
+        nextObjQueue.removeMetrics();
+
         super.deactivate();
     }
 
@@ -204,17 +217,17 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
 
     @Override
     public ListMultimap<FilteringObjQueueKey, Objective> getFilteringObjQueue() {
-        return filtObjQueue;
+        return filtObjQueue.snapshot();
     }
 
     @Override
     public ListMultimap<ForwardingObjQueueKey, Objective> getForwardingObjQueue() {
-        return fwdObjQueue;
+        return fwdObjQueue.snapshot();
     }
 
     @Override
     public ListMultimap<NextObjQueueKey, Objective> getNextObjQueue() {
-        return nextObjQueue;
+        return nextObjQueue.snapshot();
     }
 
     @Override
@@ -253,8 +266,8 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
      * @param deviceId Device ID
      * @param obj Flow objective
      */
-    private synchronized void enqueue(DeviceId deviceId, Objective obj) {
-        int queueSize;
+    private void enqueue(DeviceId deviceId, Objective obj) {
+        boolean head;
         int priority = obj.priority();
 
         LogLevel logLevel = (obj.op() == Objective.Operation.VERIFY) ? LogLevel.TRACE : LogLevel.DEBUG;
@@ -262,25 +275,23 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
 
         if (obj instanceof FilteringObjective) {
             FilteringObjQueueKey k = new FilteringObjQueueKey(deviceId, priority, ((FilteringObjective) obj).key());
-            filtObjQueue.put(k, obj);
-            queueSize = filtObjQueue.get(k).size();
+            head = filtObjQueue.enqueue(k, obj);
         } else if (obj instanceof ForwardingObjective) {
             ForwardingObjQueueKey k =
                     new ForwardingObjQueueKey(deviceId, priority, ((ForwardingObjective) obj).selector());
-            fwdObjQueue.put(k, obj);
-            queueSize = fwdObjQueue.get(k).size();
+            head = fwdObjQueue.enqueue(k, obj);
         } else if (obj instanceof NextObjective) {
             NextObjQueueKey k = new NextObjQueueKey(deviceId, obj.id());
-            nextObjQueue.put(k, obj);
-            queueSize = nextObjQueue.get(k).size();
+            head = nextObjQueue.enqueue(k, obj);
         } else {
             log.error("Unknown flow objective instance: {}", obj.getClass().getName());
             return;
         }
-        log.trace("{} queue size {}", obj.getClass().getSimpleName(), queueSize);
+        log.trace("{} at head of queue {}", obj.getClass().getSimpleName(), head);
 
-        // Execute immediately if there is no pending obj ahead
-        if (queueSize == 1) {
+        // Execute immediately if there is no pending obj ahead. The objectives queued
+        // behind it are executed by dequeue, so this need not hold the queue lock.
+        if (head) {
             execute(deviceId, obj);
         }
     }
@@ -292,8 +303,8 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
      * @param obj Flow objective
      * @param error ObjectiveError that triggers this dequeue. Null if this is not triggered by an error.
      */
-    private synchronized void dequeue(DeviceId deviceId, Objective obj, ObjectiveError error) {
-        List<Objective> remaining;
+    private void dequeue(DeviceId deviceId, Objective obj, ObjectiveError error) {
+        Objective next;
         int priority = obj.priority();
 
         LogLevel logLevel = (obj.op() == Objective.Operation.VERIFY) ? LogLevel.TRACE : LogLevel.DEBUG;
@@ -304,16 +315,14 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
             if (!Objects.equals(ObjectiveError.INSTALLATIONTIMEOUT, error)) {
                 filtObjQueueHead.invalidate(k);
             }
-            filtObjQueue.remove(k, obj);
-            remaining = filtObjQueue.get(k);
+            next = filtObjQueue.dequeue(k, obj);
         } else if (obj instanceof ForwardingObjective) {
             ForwardingObjQueueKey k =
                     new ForwardingObjQueueKey(deviceId, priority, ((ForwardingObjective) obj).selector());
             if (!Objects.equals(ObjectiveError.INSTALLATIONTIMEOUT, error)) {
                 fwdObjQueueHead.invalidate(k);
             }
-            fwdObjQueue.remove(k, obj);
-            remaining = fwdObjQueue.get(k);
+            next = fwdObjQueue.dequeue(k, obj);
         } else if (obj instanceof NextObjective) {
             if (error != null) {
                 // Remove pendingForwards and pendingNexts if next objective failed
@@ -335,17 +344,15 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
             if (!Objects.equals(ObjectiveError.INSTALLATIONTIMEOUT, error)) {
                 nextObjQueueHead.invalidate(k);
             }
-            nextObjQueue.remove(k, obj);
-            remaining = nextObjQueue.get(k);
+            next = nextObjQueue.dequeue(k, obj);
         } else {
             log.error("Unknown flow objective instance: {}", obj.getClass().getName());
             return;
         }
-        log.trace("{} queue size {}", obj.getClass().getSimpleName(), remaining.size());
 
         // Submit the next one in the queue, if any
-        if (remaining.size() > 0) {
-            execute(deviceId, remaining.get(0));
+        if (next != null) {
+            execute(deviceId, next);
         }
     }
 
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.net.flowobjective.impl;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Striped;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.net.flowobjective.Objective;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * FIFO queues of flow objectives, one per queue key.
+ * <p>
+ * Each queue is modified while holding the lock of its stripe, so that objectives of distinct keys, and
+ * in particular of distinct devices, are queued and dequeued concurrently. The queues themselves may be
+ * read without locking. The queue depth and the time spent by objectives waiting to reach the head of
+ * their queue are reported as metrics, if a metrics service is given.
+ *
+ * @param <K> type of the queue keys
+ */
+final class ObjectiveQueue<K> {
+    static final String METRICS_COMPONENT = "InOrderFlowObjectiveManager";
+    private static final String QUEUE_DEPTH = "queueDepth";
+    private static final String WAIT_TIME = "waitTime";
+
+    private final Striped<Lock> locks;
+    private final Map<K, Deque<QueuedObjective>> queues = Maps.newConcurrentMap();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final MetricsService metricsService;
+    private final String feature;
+    private final Timer waitTimer;
+
+    /**
+     * Creates a new set of queues.
+     *
+     * @param stripes        number of lock stripes
+     * @param feature        metrics feature, typically the objective type
+     * @param metricsService metrics service; may be null
+     */
+    ObjectiveQueue(int stripes, String feature, MetricsService metricsService) {
+        this.locks = Striped.lock(stripes);
+        this.feature = feature;
+        this.metricsService = metricsService;
+        if (metricsService != null) {
+            MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature f = c.registerFeature(feature);
+            waitTimer = metricsService.createTimer(c, f, WAIT_TIME);
+            metricsService.registerMetric(c, f, QUEUE_DEPTH, (Gauge<Integer>) depth::get);
+        } else {
+            waitTimer = null;
+        }
+    }
+
+    /**
+     * Appends the given objective to the queue of the given key.
+     *
+     * @param key queue key
+     * @param obj flow objective
+     * @return true if the objective is at the head of its queue and must be executed by the caller
+     */
+    boolean enqueue(K key, Objective obj) {
+        Lock lock = locks.get(key);
+        lock.lock();
+        try {
+            Deque<QueuedObjective> queue = queues.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+            boolean head = queue.isEmpty();
+            queue.addLast(new QueuedObjective(obj));
+            depth.incrementAndGet();
+            if (head) {
+                recordWait(queue.peekFirst());
+            }
+            return head;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the given objective from the queue of the given key.
+     *
+     * @param key queue key
+     * @param obj flow objective
+     * @return next objective at the head of the queue, to be executed by the caller; null if the queue is
+     *         empty, or if the head did not change
+     */
+    Objective dequeue(K key, Objective obj) {
+        Lock lock = locks.get(key);
+        lock.lock();
+        try {
+            Deque<QueuedObjective> queue = queues.get(key);
+            if (queue == null) {
+                return null;
+            }
+            boolean head = false;
+            Iterator<QueuedObjective> it = queue.iterator();
+            for (boolean first = true; it.hasNext(); first = false) {
+                if (it.next().objective.equals(obj)) {
+                    it.remove();
+                    depth.decrementAndGet();
+                    head = first;
+                    break;
+                }
+            }
+            QueuedObjective next = queue.peekFirst();
+            if (next == null) {
+                queues.remove(key);
+                return null;
+            }
+            if (head) {
+                recordWait(next);
+                return next.objective;
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of queued objectives, over all keys.
+     *
+     * @return queue depth
+     */
+    int depth() {
+        return depth.get();
+    }
+
+    /**
+     * Returns a snapshot of the queues.
+     *
+     * @return queued objectives by key
+     */
+    ListMultimap<K, Objective> snapshot() {
+        ListMultimap<K, Objective> snapshot = ArrayListMultimap.create();
+        queues.forEach((key, queue) -> queue.forEach(q -> snapshot.put(key, q.objective)));
+        return snapshot;
+    }
+
+    /**
+     * Removes all queued objectives.
+     */
+    void clear() {
+        for (K key : queues.keySet()) {
+            Lock lock = locks.get(key);
+            lock.lock();
+            try {
+                Deque<QueuedObjective> queue = queues.remove(key);
+                if (queue != null) {
+                    depth.addAndGet(-queue.size());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Unregisters the metrics of the queues.
+     */
+    void removeMetrics() {
+        if (metricsService != null) {
+            MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature f = c.registerFeature(feature);
+            metricsService.removeMetric(c, f, QUEUE_DEPTH);
+            metricsService.removeMetric(c, f, WAIT_TIME);
+        }
+    }
+
+    private void recordWait(QueuedObjective queued) {
+        if (waitTimer != null) {
+            waitTimer.update(System.nanoTime() - queued.enqueued, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static final class QueuedObjective {
+        private final Objective objective;
+        private final long enqueued = System.nanoTime();
+
+        private QueuedObjective(Objective objective) {
+            this.objective = objective;
+        }
+    }
+}
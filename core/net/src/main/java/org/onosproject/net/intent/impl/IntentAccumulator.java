@@ -25,10 +25,12 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * An accumulator for building batches of intent operations. Only one batch should
- * be in process per instance at a time.
+ * An accumulator for building batches of intent operations. By default only one
+ * batch is in process per instance at a time; the limit on the batches in
+ * process may be raised when the delegate orders conflicting operations itself.
  */
 public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
@@ -42,7 +44,8 @@ public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
     private final IntentBatchDelegate delegate;
 
-    private volatile boolean ready;
+    private final AtomicInteger inProcess = new AtomicInteger();
+    private volatile int maxInProcess = 1;
 
     /**
      * Creates an intent operation accumulator.
@@ -52,31 +55,46 @@ public class IntentAccumulator extends AbstractAccumulator<IntentData> {
     protected IntentAccumulator(IntentBatchDelegate delegate) {
         super(TIMER, DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
         this.delegate = delegate;
-        // Assume that the delegate is ready for work at the start
-        ready = true; //TODO validate the assumption that delegate is ready
+    }
+
+    /**
+     * Sets the maximum number of batches in process at a time.
+     *
+     * @param maxInProcess maximum number of batches in process
+     */
+    public void setMaxInProcess(int maxInProcess) {
+        this.maxInProcess = maxInProcess;
     }
 
     @Override
     public void processItems(List<IntentData> items) {
-        ready = false;
+        inProcess.incrementAndGet();
         delegate.execute(reduce(items));
     }
 
     private Collection<IntentData> reduce(List<IntentData> ops) {
         Map<Key, IntentData> map = Maps.newHashMap();
         for (IntentData op : ops) {
-            map.put(op.key(), op);
+            // Deferred operations may be accumulated again after newer ones
+            map.merge(op.key(), op, (previous, next) -> isNewer(previous, next) ? previous : next);
         }
-        //TODO check the version... or maybe store will handle this.
         return map.values();
     }
 
+    private static boolean isNewer(IntentData data, IntentData other) {
+        return data.version() != null && other.version() != null &&
+                data.version().isNewerThan(other.version());
+    }
+
     @Override
     public boolean isReady() {
-        return ready;
+        return inProcess.get() < maxInProcess;
     }
 
+    /**
+     * Signals that a batch has completed processing.
+     */
     public void ready() {
-        ready = true;
+        inProcess.updateAndGet(n -> n > 0 ? n - 1 : 0);
     }
 }
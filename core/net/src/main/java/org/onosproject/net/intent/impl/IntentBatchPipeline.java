@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.NetworkResource;
+import org.onosproject.net.intent.FlowRuleIntent;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentData;
+import org.onosproject.net.intent.Key;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Admission control for intent batches processed concurrently.
+ * <p>
+ * An operation is admitted to a new batch only if neither its intent key nor
+ * any of the devices it touches is used by a batch still in flight. Other
+ * operations are deferred until the conflicting batches complete, so that
+ * the operations on an intent, and the installations on a device, are still
+ * applied in the order in which they were requested.
+ * </p>
+ */
+final class IntentBatchPipeline {
+
+    private final Function<IntentData, Set<DeviceId>> devicesOf;
+
+    private final Set<Key> keys = Sets.newHashSet();
+    private final Multiset<DeviceId> devices = HashMultiset.create();
+    private final Map<Key, IntentData> deferred = Maps.newLinkedHashMap();
+
+    /**
+     * Creates a new pipeline.
+     *
+     * @param devicesOf function returning the devices touched by an operation
+     */
+    IntentBatchPipeline(Function<IntentData, Set<DeviceId>> devicesOf) {
+        this.devicesOf = devicesOf;
+    }
+
+    /**
+     * Admits the operations which do not conflict with the batches in
+     * flight as a new batch, and defers the others.
+     *
+     * @param operations operations to admit
+     * @return new batch, possibly without operations
+     */
+    Batch admit(Collection<IntentData> operations) {
+        // Resolve the devices before locking, as this may query the store
+        List<IntentData> candidates = ImmutableList.copyOf(operations);
+        List<Set<DeviceId>> candidateDevices = Lists.newArrayListWithCapacity(candidates.size());
+        candidates.forEach(data -> candidateDevices.add(devicesOf.apply(data)));
+
+        synchronized (this) {
+            List<IntentData> admitted = Lists.newArrayListWithCapacity(candidates.size());
+            Multiset<DeviceId> batchDevices = HashMultiset.create();
+            for (int i = 0; i < candidates.size(); i++) {
+                IntentData data = candidates.get(i);
+                Set<DeviceId> dataDevices = candidateDevices.get(i);
+                if (keys.contains(data.key()) || deferred.containsKey(data.key()) ||
+                        !Collections.disjoint(dataDevices, devices.elementSet())) {
+                    // Later operations on the same key supersede the deferred one
+                    deferred.put(data.key(), data);
+                } else {
+                    admitted.add(data);
+                    batchDevices.addAll(dataDevices);
+                }
+            }
+            admitted.forEach(data -> keys.add(data.key()));
+            devices.addAll(batchDevices);
+            return new Batch(admitted, batchDevices);
+        }
+    }
+
+    /**
+     * Completes the given batch, releasing its intent keys and devices.
+     *
+     * @param batch batch to complete
+     * @return operations deferred so far, to be submitted again
+     */
+    synchronized List<IntentData> complete(Batch batch) {
+        batch.operations.forEach(data -> keys.remove(data.key()));
+        batch.devices.forEach(devices::remove);
+        List<IntentData> retry = ImmutableList.copyOf(deferred.values());
+        deferred.clear();
+        return retry;
+    }
+
+    /**
+     * Returns the number of deferred operations.
+     *
+     * @return deferred operations count
+     */
+    synchronized int deferredCount() {
+        return deferred.size();
+    }
+
+    /**
+     * Returns the devices touched by the given intent, as found in its
+     * network resources and, for flow rule intents, in its flow rules.
+     *
+     * @param intent intent
+     * @return set of device identifiers
+     */
+    static Set<DeviceId> devices(Intent intent) {
+        Set<DeviceId> devices = Sets.newHashSet();
+        for (NetworkResource resource : intent.resources()) {
+            if (resource instanceof DeviceId) {
+                devices.add((DeviceId) resource);
+            } else if (resource instanceof Link) {
+                addDevice(((Link) resource).src(), devices);
+                addDevice(((Link) resource).dst(), devices);
+            }
+        }
+        if (intent instanceof FlowRuleIntent) {
+            ((FlowRuleIntent) intent).flowRules().forEach(rule -> devices.add(rule.deviceId()));
+        }
+        return devices;
+    }
+
+    private static void addDevice(ConnectPoint point, Set<DeviceId> devices) {
+        if (point.elementId() instanceof DeviceId) {
+            devices.add(point.deviceId());
+        }
+    }
+
+    /**
+     * Batch of operations admitted for processing.
+     */
+    static final class Batch {
+        private final List<IntentData> operations;
+        private final Multiset<DeviceId> devices;
+
+        private Batch(List<IntentData> operations, Multiset<DeviceId> devices) {
+            this.operations = operations;
+            this.devices = devices;
+        }
+
+        /**
+         * Returns the operations of the batch.
+         *
+         * @return list of operations
+         */
+        List<IntentData> operations() {
+            return operations;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.intent.Key;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Cache of the installables compiled for intents, used to skip the
+ * recompilation of intents whose inputs did not change.
+ * <p>
+ * An entry is used only for the very intent it was compiled from, and only
+ * while the installables stored for the intent are the cached ones. Entries
+ * are invalidated when the network resources used by their intent change, as
+ * reported by the objective tracker from its link and device to intent index,
+ * when their intent fails or is withdrawn, and when their intent is
+ * resubmitted along with all failed intents, as intents which allow partial
+ * failure are. A compilation which overlaps with an invalidation is not cached.
+ * </p>
+ */
+final class IntentCompilationCache {
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Returns the current generation of the cache, to be passed to
+     * {@link #put} once the compilation started now completes.
+     *
+     * @return cache generation
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the cached installables of the given intent.
+     *
+     * @param intent               intent to compile
+     * @param previousInstallables installables currently stored for the intent
+     * @return cached installables; null if they must be compiled anew
+     */
+    List<Intent> get(Intent intent, List<Intent> previousInstallables) {
+        if (previousInstallables == null || previousInstallables.isEmpty()) {
+            return null;
+        }
+        Entry entry = entries.get(intent.key());
+        if (entry != null && entry.intentId.equals(intent.id()) &&
+                entry.installables.equals(previousInstallables)) {
+            return entry.installables;
+        }
+        return null;
+    }
+
+    /**
+     * Caches the installables compiled from the given intent, unless any
+     * entry was invalidated since the compilation started.
+     *
+     * @param intent       compiled intent
+     * @param installables result of the compilation
+     * @param generation   cache generation when the compilation started
+     */
+    void put(Intent intent, List<Intent> installables, long generation) {
+        Entry entry = new Entry(intent.id(), installables);
+        entries.put(intent.key(), entry);
+        if (this.generation.get() != generation) {
+            entries.remove(intent.key(), entry);
+        }
+    }
+
+    /**
+     * Invalidates the entry of the given intent.
+     *
+     * @param key intent key
+     */
+    void invalidate(Key key) {
+        generation.incrementAndGet();
+        entries.remove(key);
+    }
+
+    /**
+     * Invalidates the entries of the given intents.
+     *
+     * @param keys intent keys
+     */
+    void invalidate(Iterable<Key> keys) {
+        generation.incrementAndGet();
+        keys.forEach(entries::remove);
+    }
+
+    /**
+     * Invalidates all entries.
+     */
+    void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return entry count
+     */
+    int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("entries", entries.size())
+                .add("generation", generation.get())
+                .toString();
+    }
+
+    private static final class Entry {
+        private final IntentId intentId;
+        private final List<Intent> installables;
+
+        private Entry(IntentId intentId, List<Intent> installables) {
+            this.intentId = intentId;
+            this.installables = ImmutableList.copyOf(installables);
+        }
+    }
+}
@@ -15,10 +15,13 @@
  */
 package org.onosproject.net.intent.impl;
 
+import com.codahale.metrics.Timer;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.IdGenerator;
+import org.onosproject.core.MetricsHelper;
 import org.onosproject.event.AbstractListenerManager;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.config.NetworkConfigService;
@@ -66,6 +69,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
@@ -73,8 +77,13 @@ import java.util.stream.Collectors;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newFixedThreadPool;
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.OsgiPropertyConstants.IM_COMPILATION_CACHE;
+import static org.onosproject.net.OsgiPropertyConstants.IM_COMPILATION_CACHE_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.IM_MAX_BATCHES_IN_FLIGHT;
+import static org.onosproject.net.OsgiPropertyConstants.IM_MAX_BATCHES_IN_FLIGHT_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_THREADS;
 import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_THREADS_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL;
@@ -103,12 +112,14 @@ import static org.slf4j.LoggerFactory.getLogger;
     },
     property = {
         IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL + ":Boolean=" + IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL_DEFAULT,
-        IM_NUM_THREADS + ":Integer=" + IM_NUM_THREADS_DEFAULT
+        IM_NUM_THREADS + ":Integer=" + IM_NUM_THREADS_DEFAULT,
+        IM_MAX_BATCHES_IN_FLIGHT + ":Integer=" + IM_MAX_BATCHES_IN_FLIGHT_DEFAULT,
+        IM_COMPILATION_CACHE + ":Boolean=" + IM_COMPILATION_CACHE_DEFAULT
     }
 )
 public class IntentManager
         extends AbstractListenerManager<IntentEvent, IntentListener>
-        implements IntentService, IntentExtensionService, IntentInstallCoordinator {
+        implements IntentService, IntentExtensionService, IntentInstallCoordinator, MetricsHelper {
 
     private static final Logger log = getLogger(IntentManager.class);
 
@@ -126,6 +137,12 @@ public class IntentManager
     /** Number of worker threads. */
     private int numThreads = IM_NUM_THREADS_DEFAULT;
 
+    /** Maximum number of intent batches in flight; conflicting operations are still processed in order. */
+    private int maxBatchesInFlight = IM_MAX_BATCHES_IN_FLIGHT_DEFAULT;
+
+    /** Indicates whether unchanged intents reuse their installables instead of being recompiled. */
+    private boolean compilationCache = IM_COMPILATION_CACHE_DEFAULT;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected CoreService coreService;
 
@@ -156,10 +173,20 @@ public class IntentManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     private NetworkConfigService networkConfigService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
     private ExecutorService batchExecutor;
     private ExecutorService workerExecutor;
+    private volatile IntentBatchPipeline batchPipeline;
+
+    private Timer batchTimer;
+    private Timer compileTimer;
+    private Timer installTimer;
+    private Timer storeWriteTimer;
 
     private final CompilerRegistry compilerRegistry = new CompilerRegistry();
+    private final IntentCompilationCache compiledIntents = new IntentCompilationCache();
     private final InstallerRegistry installerRegistry = new InstallerRegistry();
     private final InternalIntentProcessor processor = new InternalIntentProcessor();
     private final IntentStoreDelegate delegate = new InternalStoreDelegate();
@@ -181,12 +208,16 @@ public class IntentManager
         }
         trackerService.setDelegate(topoDelegate);
         eventDispatcher.addSink(IntentEvent.class, listenerRegistry);
-        batchExecutor = newSingleThreadExecutor(groupedThreads("onos/intent", "batch", log));
+        batchExecutor = newBatchExecutor(maxBatchesInFlight);
         workerExecutor = newFixedThreadPool(numThreads, groupedThreads("onos/intent", "worker-%d", log));
         idGenerator = coreService.getIdGenerator("intent-ids");
         Intent.unbindIdGenerator(idGenerator);
         Intent.bindIdGenerator(idGenerator);
         installCoordinator = new InstallCoordinator(installerRegistry, store);
+        batchTimer = createTimer("IntentManager", "batch", "batchTime");
+        compileTimer = createTimer("IntentManager", "batch", "compileTime");
+        installTimer = createTimer("IntentManager", "batch", "installTime");
+        storeWriteTimer = createTimer("IntentManager", "batch", "storeWriteTime");
         log.info("Started");
     }
 
@@ -239,10 +270,50 @@ public class IntentManager
             }
             logConfig("Reconfigured number of worker threads");
         }
+
+        s = Tools.get(context.getProperties(), IM_COMPILATION_CACHE);
+        boolean newCompilationCache = isNullOrEmpty(s) ? compilationCache : Boolean.parseBoolean(s.trim());
+        if (newCompilationCache != compilationCache) {
+            compilationCache = newCompilationCache;
+            compiledIntents.invalidateAll();
+            logConfig("Reconfigured compilation cache");
+        }
+
+        s = Tools.get(context.getProperties(), IM_MAX_BATCHES_IN_FLIGHT);
+        int newMaxBatchesInFlight = isNullOrEmpty(s) ? maxBatchesInFlight : Integer.parseInt(s.trim());
+        if (newMaxBatchesInFlight != maxBatchesInFlight && newMaxBatchesInFlight > 0) {
+            maxBatchesInFlight = newMaxBatchesInFlight;
+            ExecutorService oldBatchExecutor = batchExecutor;
+            batchExecutor = newBatchExecutor(maxBatchesInFlight);
+            if (oldBatchExecutor != null) {
+                oldBatchExecutor.shutdown();
+            }
+            logConfig("Reconfigured maximum number of batches in flight");
+        }
+    }
+
+    // Creates the executor for the batches and sets up the admission of
+    // conflicting operations when more than one batch may be in flight
+    private ExecutorService newBatchExecutor(int maxBatches) {
+        batchPipeline = maxBatches > 1 ? new IntentBatchPipeline(this::devices) : null;
+        accumulator.setMaxInProcess(maxBatches);
+        return newFixedThreadPool(maxBatches, groupedThreads("onos/intent", "batch-%d", log));
+    }
+
+    // Returns the devices touched by the requested and the current version of an intent
+    private Set<DeviceId> devices(IntentData data) {
+        Set<DeviceId> devices = IntentBatchPipeline.devices(data.intent());
+        IntentData current = store.getIntentData(data.key());
+        if (current != null) {
+            devices.addAll(IntentBatchPipeline.devices(current.intent()));
+            current.installables().forEach(installable -> devices.addAll(IntentBatchPipeline.devices(installable)));
+        }
+        return devices;
     }
 
     private void logConfig(String prefix) {
-        log.info("{} with skipReleaseResourcesOnWithdrawal = {}", prefix, skipReleaseResourcesOnWithdrawal);
+        log.info("{} with skipReleaseResourcesOnWithdrawal = {}, maxBatchesInFlight = {}, compilationCache = {}",
+                 prefix, skipReleaseResourcesOnWithdrawal, maxBatchesInFlight, compilationCache);
     }
 
     @Override
@@ -390,6 +461,7 @@ public class IntentManager
         @Override
         public void notify(IntentEvent event) {
             post(event);
+            invalidateCompilation(event);
             switch (event.type()) {
                 case WITHDRAWN:
                     if (!skipReleaseResourcesOnWithdrawal) {
@@ -465,6 +537,21 @@ public class IntentManager
         @Override
         public void notify(IntentEvent event) {
             post(event);
+            invalidateCompilation(event);
+        }
+    }
+
+    // Drops the cached compilation of intents which are no longer installed
+    private void invalidateCompilation(IntentEvent event) {
+        switch (event.type()) {
+            case FAILED:
+            case CORRUPT:
+            case WITHDRAWN:
+            case PURGED:
+                compiledIntents.invalidate(event.subject().key());
+                break;
+            default:
+                break;
         }
     }
 
@@ -496,6 +583,9 @@ public class IntentManager
                 }
                 IntentState state = getIntentState(intent.key());
                 if (RECOMPILE.contains(state) || intentAllowsPartialFailure(intent)) {
+                    // Failed and partially installed intents may now compile
+                    // to better installables, whatever resources changed
+                    compiledIntents.invalidate(intent.key());
                     if (WITHDRAW.contains(state)) {
                         withdraw(intent);
                     } else {
@@ -513,6 +603,12 @@ public class IntentManager
                                    boolean compileAllFailed) {
             // TODO figure out who is making excessive calls?
             log.trace("submitting {} + all?:{} for compilation", intentKeys, compileAllFailed);
+            if (compileAllFailed && !intentKeys.iterator().hasNext()) {
+                // The changed resources are unknown
+                compiledIntents.invalidateAll();
+            } else {
+                compiledIntents.invalidate(intentKeys);
+            }
             buildAndSubmitBatches(intentKeys, compileAllFailed);
         }
     }
@@ -523,44 +619,18 @@ public class IntentManager
             log.debug("Execute {} operation(s).", operations.size());
             log.trace("Execute operations: {}", operations);
 
-            // batchExecutor is single-threaded, so only one batch is in flight at a time
-            CompletableFuture.runAsync(() -> {
-                // process intent until the phase reaches one of the final phases
-                List<CompletableFuture<IntentData>> futures = operations.stream()
-                        .map(data -> {
-                            log.debug("Start processing of {} {}@{}", data.request(), data.key(), data.version());
-                            return data;
-                        })
-                        .map(x -> CompletableFuture.completedFuture(x)
-                                .thenApply(IntentManager.this::createInitialPhase)
-                                .thenApplyAsync(IntentProcessPhase::process, workerExecutor)
-                                .thenApply(FinalIntentProcessPhase::data)
-                                .exceptionally(e -> {
-                                    // When the future fails, we update the Intent to simulate the failure of
-                                    // the installation/withdrawal phase and we save in the current map. In
-                                    // the next round the CleanUp Thread will pick this Intent again.
-                                    log.warn("Future failed", e);
-                                    log.warn("Intent {} - state {} - request {}",
-                                             x.key(), x.state(), x.request());
-                                    switch (x.state()) {
-                                        case INSTALL_REQ:
-                                        case INSTALLING:
-                                        case WITHDRAW_REQ:
-                                        case WITHDRAWING:
-                                            // TODO should we swtich based on current
-                                            IntentData current = store.getIntentData(x.key());
-                                            return IntentData.nextState(current, FAILED);
-                                        default:
-                                            return null;
-                                    }
-                                }))
-                        .collect(Collectors.toList());
-
-                // write multiple data to store in order
-                store.batchWrite(Tools.allOf(futures).join().stream()
-                                         .filter(Objects::nonNull)
-                                         .collect(Collectors.toList()));
-            }, batchExecutor).exceptionally(e -> {
+            // Without a pipeline batchExecutor is single-threaded, so only one batch is in flight at a time;
+            // otherwise only the operations not conflicting with the batches in flight are processed now
+            IntentBatchPipeline pipeline = batchPipeline;
+            IntentBatchPipeline.Batch batch = pipeline != null ? pipeline.admit(operations) : null;
+            Collection<IntentData> admitted = batch != null ? batch.operations() : operations;
+            if (admitted.isEmpty()) {
+                log.debug("Deferred {} operation(s) conflicting with batches in flight", operations.size());
+                accumulator.ready();
+                return;
+            }
+
+            CompletableFuture.runAsync(() -> processBatch(admitted), batchExecutor).exceptionally(e -> {
                 log.error("Error submitting batches:", e);
                 // FIXME incomplete Intents should be cleaned up
                 //       (transition to FAILED, etc.)
@@ -569,11 +639,64 @@ public class IntentManager
                 // TODO: maybe we should do more?
                 log.error("Walk the plank, matey...");
                 return null;
-            }).thenRun(accumulator::ready);
+            }).thenRun(() -> {
+                if (batch != null) {
+                    pipeline.complete(batch).forEach(accumulator::add);
+                }
+                accumulator.ready();
+            });
+        }
 
+        private void processBatch(Collection<IntentData> operations) {
+            Timer.Context batchContext = startTimer(batchTimer);
+
+            // process intent until the phase reaches one of the final phases
+            List<CompletableFuture<IntentData>> futures = operations.stream()
+                    .map(data -> {
+                        log.debug("Start processing of {} {}@{}", data.request(), data.key(), data.version());
+                        return data;
+                    })
+                    .map(x -> CompletableFuture.completedFuture(x)
+                            .thenApply(IntentManager.this::createInitialPhase)
+                            .thenApplyAsync(IntentProcessPhase::process, workerExecutor)
+                            .thenApply(FinalIntentProcessPhase::data)
+                            .exceptionally(e -> {
+                                // When the future fails, we update the Intent to simulate the failure of
+                                // the installation/withdrawal phase and we save in the current map. In
+                                // the next round the CleanUp Thread will pick this Intent again.
+                                log.warn("Future failed", e);
+                                log.warn("Intent {} - state {} - request {}",
+                                         x.key(), x.state(), x.request());
+                                switch (x.state()) {
+                                    case INSTALL_REQ:
+                                    case INSTALLING:
+                                    case WITHDRAW_REQ:
+                                    case WITHDRAWING:
+                                        // TODO should we swtich based on current
+                                        IntentData current = store.getIntentData(x.key());
+                                        return IntentData.nextState(current, FAILED);
+                                    default:
+                                        return null;
+                                }
+                            }))
+                    .collect(Collectors.toList());
+
+            // write multiple data to store in order
+            List<IntentData> results = Tools.allOf(futures).join().stream()
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            Timer.Context storeWriteContext = startTimer(storeWriteTimer);
+            store.batchWrite(results);
+            stopTimer(storeWriteContext);
+            stopTimer(batchContext);
         }
     }
 
+    @Override
+    public MetricsService metricsService() {
+        return metricsService;
+    }
+
     private IntentProcessPhase createInitialPhase(IntentData data) {
         IntentData pending = store.getPendingData(data.key());
         if (pending == null || pending.version().isNewerThan(data.version())) {
@@ -592,12 +715,35 @@ public class IntentManager
     private class InternalIntentProcessor implements IntentProcessor {
         @Override
         public List<Intent> compile(Intent intent, List<Intent> previousInstallables) {
-            return compilerRegistry.compile(intent, previousInstallables);
+            if (compilationCache) {
+                List<Intent> cached = compiledIntents.get(intent, previousInstallables);
+                if (cached != null) {
+                    log.debug("Reusing installables of unchanged intent {}", intent.key());
+                    return cached;
+                }
+            }
+
+            Timer.Context compileContext = startTimer(compileTimer);
+            try {
+                long generation = compiledIntents.generation();
+                List<Intent> installables = compilerRegistry.compile(intent, previousInstallables);
+                if (compilationCache) {
+                    compiledIntents.put(intent, installables, generation);
+                }
+                return installables;
+            } finally {
+                stopTimer(compileContext);
+            }
         }
 
         @Override
         public void apply(Optional<IntentData> toUninstall, Optional<IntentData> toInstall) {
-            installCoordinator.installIntents(toUninstall, toInstall);
+            Timer.Context installContext = startTimer(installTimer);
+            try {
+                installCoordinator.installIntents(toUninstall, toInstall);
+            } finally {
+                stopTimer(installContext);
+            }
         }
     }
 
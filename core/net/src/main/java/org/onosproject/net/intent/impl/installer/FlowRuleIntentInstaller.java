@@ -17,6 +17,8 @@
 package org.onosproject.net.intent.impl.installer;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.DefaultApplicationId;
@@ -51,6 +53,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -194,26 +197,38 @@ public class FlowRuleIntentInstaller implements IntentInstaller<FlowRuleIntent>
             flowRulesToInstall = Collections.emptyList();
         }
 
-        List<FlowRule> flowRuleToModify;
-        List<FlowRule> dontTouch;
-
-        // If both uninstall/install list contained equal (=match conditions are equal) FlowRules,
-        // omit it from remove list, since it will/should be overwritten by install
-        flowRuleToModify = flowRulesToInstall.stream()
-                .filter(flowRule -> flowRulesToUninstall.stream().anyMatch(flowRule::equals))
-                .collect(Collectors.toList());
-
-        // If both contained exactMatch-ing FlowRules, remove from both list,
-        // since it will result in no-op.
-        dontTouch = flowRulesToInstall.stream()
-                .filter(flowRule -> flowRulesToUninstall.stream().anyMatch(flowRule::exactMatch))
-                .collect(Collectors.toList());
-
-        flowRulesToUninstall.removeAll(flowRuleToModify);
-        flowRulesToUninstall.removeAll(dontTouch);
-        flowRulesToInstall.removeAll(flowRuleToModify);
-        flowRulesToInstall.removeAll(dontTouch);
-        flowRuleToModify.removeAll(dontTouch);
+        List<FlowRule> flowRuleToModify = Lists.newArrayList();
+        List<FlowRule> dontTouch = Lists.newArrayList();
+
+        // Index the rules to uninstall by match conditions, so that the rules of large
+        // intents are diffed in linear time; exactMatch-ing rules are equal as well
+        Map<FlowRule, List<FlowRule>> uninstallIndex = Maps.newHashMap();
+        flowRulesToUninstall.forEach(flowRule -> uninstallIndex
+                .computeIfAbsent(flowRule, k -> Lists.newArrayList()).add(flowRule));
+
+        for (FlowRule flowRule : flowRulesToInstall) {
+            List<FlowRule> equalRules = uninstallIndex.get(flowRule);
+            if (equalRules == null) {
+                continue;
+            }
+            // If both uninstall/install list contained equal (=match conditions are equal) FlowRules,
+            // omit it from remove list, since it will/should be overwritten by install
+            flowRuleToModify.add(flowRule);
+
+            // If both contained exactMatch-ing FlowRules, remove from both list,
+            // since it will result in no-op.
+            if (equalRules.stream().anyMatch(flowRule::exactMatch)) {
+                dontTouch.add(flowRule);
+            }
+        }
+
+        Set<FlowRule> modified = Sets.newHashSet(flowRuleToModify);
+        Set<FlowRule> untouched = Sets.newHashSet(dontTouch);
+        flowRulesToUninstall.removeAll(modified);
+        flowRulesToUninstall.removeAll(untouched);
+        flowRulesToInstall.removeAll(modified);
+        flowRulesToInstall.removeAll(untouched);
+        flowRuleToModify.removeAll(untouched);
 
         if (flowRulesToInstall.isEmpty() && flowRulesToUninstall.isEmpty() && flowRuleToModify.isEmpty()) {
             // There is no flow rules to install/uninstall
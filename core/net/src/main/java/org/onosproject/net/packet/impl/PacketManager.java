@@ -15,9 +15,14 @@
  */
 package org.onosproject.net.packet.impl;
 
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.ItemNotFoundException;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.core.ApplicationId;
@@ -54,25 +59,36 @@ import org.onosproject.net.packet.PacketStore;
 import org.onosproject.net.packet.PacketStoreDelegate;
 import org.onosproject.net.provider.AbstractProviderRegistry;
 import org.onosproject.net.provider.AbstractProviderService;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.onosproject.net.packet.PacketInFilter;
 import org.onosproject.net.packet.PacketInFilter.FilterAction;
 import org.slf4j.Logger;
 
+import java.util.Dictionary;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.util.Tools.getIntegerProperty;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.OsgiPropertyConstants.PM_PIPELINE_QUEUE_SIZE;
+import static org.onosproject.net.OsgiPropertyConstants.PM_PIPELINE_QUEUE_SIZE_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.PM_PIPELINE_WORKERS;
+import static org.onosproject.net.OsgiPropertyConstants.PM_PIPELINE_WORKERS_DEFAULT;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.PACKET_EVENT;
 import static org.onosproject.security.AppPermission.Type.PACKET_READ;
@@ -82,7 +98,17 @@ import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Provides a basic implementation of the packet SB &amp; NB APIs.
  */
-@Component(immediate = true, service = { PacketService.class, PacketProviderRegistry.class })
+@Component(
+    immediate = true,
+    service = {
+        PacketService.class,
+        PacketProviderRegistry.class
+    },
+    property = {
+        PM_PIPELINE_WORKERS + ":Integer=" + PM_PIPELINE_WORKERS_DEFAULT,
+        PM_PIPELINE_QUEUE_SIZE + ":Integer=" + PM_PIPELINE_QUEUE_SIZE_DEFAULT
+    }
+)
 public class PacketManager
         extends AbstractProviderRegistry<PacketProvider, PacketProviderService>
         implements PacketService, PacketProviderRegistry {
@@ -94,6 +120,7 @@ public class PacketManager
     private static final String ERROR_NULL_APP_ID = "Application ID cannot be null";
     private static final String ERROR_NULL_DEVICE_ID = "Device ID cannot be null";
     private static final String SUPPORT_PACKET_REQUEST_PROPERTY = "supportPacketRequest";
+    private static final String PROCESSORS_FEATURE = "processors";
 
     private final PacketStoreDelegate delegate = new InternalStoreDelegate();
 
@@ -115,12 +142,29 @@ public class PacketManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected FlowObjectiveService objectiveService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
+    /** Number of packet processing workers; 0 to process packets on the provider threads. */
+    private int pipelineWorkers = PM_PIPELINE_WORKERS_DEFAULT;
+
+    /** Capacity of the packet queue of each packet processing worker. */
+    private int pipelineQueueSize = PM_PIPELINE_QUEUE_SIZE_DEFAULT;
+
+    private volatile PacketPipeline pipeline;
+
     private ExecutorService eventHandlingExecutor;
 
     private final DeviceListener deviceListener = new InternalDeviceListener();
 
     private final List<ProcessorEntry> processors = Lists.newCopyOnWriteArrayList();
 
+    // Distinguishes the metrics of processors of the same class and priority
+    private final AtomicInteger processorIds = new AtomicInteger();
+
     private final PacketDriverProvider defaultProvider = new PacketDriverProvider();
 
     private ApplicationId appId;
@@ -128,8 +172,14 @@ public class PacketManager
 
     private List<PacketInFilter> filters = new CopyOnWriteArrayList<>();
 
-    @Activate
     public void activate() {
+        activate(null);
+    }
+
+    @Activate
+    public void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        modified(context);
         eventHandlingExecutor = Executors.newSingleThreadExecutor(
                 groupedThreads("onos/net/packet", "event-handler", log));
         localNodeId = clusterService.getLocalNode().id();
@@ -154,12 +204,50 @@ public class PacketManager
 
     @Deactivate
     public void deactivate() {
+        cfgService.unregisterProperties(getClass(), false);
         store.unsetDelegate(delegate);
         deviceService.removeListener(deviceListener);
         eventHandlingExecutor.shutdown();
+        if (pipeline != null) {
+            pipeline.shutdown();
+            pipeline = null;
+        }
+        processors.forEach(ProcessorEntry::removeMetrics);
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+        int newWorkers = getIntegerProperty(properties, PM_PIPELINE_WORKERS, pipelineWorkers);
+        int newQueueSize = getIntegerProperty(properties, PM_PIPELINE_QUEUE_SIZE, pipelineQueueSize);
+        if (newWorkers < 0 || newQueueSize <= 0) {
+            log.warn("Invalid packet pipeline settings: {}={}, {}={}",
+                     PM_PIPELINE_WORKERS, newWorkers, PM_PIPELINE_QUEUE_SIZE, newQueueSize);
+            return;
+        }
+        if (newWorkers == pipelineWorkers && newQueueSize == pipelineQueueSize) {
+            return;
+        }
+        pipelineWorkers = newWorkers;
+        pipelineQueueSize = newQueueSize;
+
+        // Packets already queued by the previous pipeline are still processed
+        // by it, possibly concurrently with later packets of the same flows.
+        PacketPipeline oldPipeline = pipeline;
+        pipeline = pipelineWorkers > 0 ?
+                new PacketPipeline(pipelineWorkers, pipelineQueueSize,
+                                   this::processPacketInternal, metricsService) : null;
+        if (oldPipeline != null) {
+            oldPipeline.shutdown();
+        }
+        log.info("Settings: {}={}, {}={}", PM_PIPELINE_WORKERS, pipelineWorkers,
+                 PM_PIPELINE_QUEUE_SIZE, pipelineQueueSize);
+    }
+
     @Override
     protected PacketProvider defaultProvider() {
         return defaultProvider;
@@ -169,7 +257,8 @@ public class PacketManager
     public void addProcessor(PacketProcessor processor, int priority) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
-        ProcessorEntry entry = new ProcessorEntry(processor, priority);
+        ProcessorEntry entry = new ProcessorEntry(processor, priority, processorIds.incrementAndGet(),
+                                                  metricsService);
 
         // Insert the new processor according to its priority.
         int i = 0;
@@ -189,7 +278,7 @@ public class PacketManager
         // Remove the processor entry.
         for (int i = 0; i < processors.size(); i++) {
             if (processors.get(i).processor() == processor) {
-                processors.remove(i);
+                processors.remove(i).removeMetrics();
                 break;
             }
         }
@@ -476,28 +565,38 @@ public class PacketManager
                 }
                 return;
             }
-            // TODO filter packets sent to processors based on registrations
-            for (ProcessorEntry entry : processors) {
-                try {
-                    if (log.isTraceEnabled()) {
-                        log.trace("Starting packet processing by {}",
-                                entry.processor().getClass().getName());
-                    }
+            PacketPipeline currentPipeline = pipeline;
+            if (currentPipeline != null) {
+                currentPipeline.dispatch(context);
+            } else {
+                processPacketInternal(context);
+            }
+        }
 
-                    long start = System.nanoTime();
-                    entry.processor().process(context);
-                    entry.addNanos(System.nanoTime() - start);
+    }
 
-                    if (log.isTraceEnabled()) {
-                        log.trace("Finished packet processing by {}",
-                                entry.processor().getClass().getName());
-                    }
-                } catch (Exception e) {
-                    log.warn("Packet processor {} threw an exception", entry.processor(), e);
+    // Passes the packet to all processors in the order of their priority.
+    private void processPacketInternal(PacketContext context) {
+        // TODO filter packets sent to processors based on registrations
+        for (ProcessorEntry entry : processors) {
+            try {
+                if (log.isTraceEnabled()) {
+                    log.trace("Starting packet processing by {}",
+                            entry.processor().getClass().getName());
                 }
+
+                long start = System.nanoTime();
+                entry.processor().process(context);
+                entry.addNanos(System.nanoTime() - start);
+
+                if (log.isTraceEnabled()) {
+                    log.trace("Finished packet processing by {}",
+                            entry.processor().getClass().getName());
+                }
+            } catch (Exception e) {
+                log.warn("Packet processor {} threw an exception", entry.processor(), e);
             }
         }
-
     }
 
 
@@ -585,12 +684,26 @@ public class PacketManager
     private class ProcessorEntry implements PacketProcessorEntry {
         private final PacketProcessor processor;
         private final int priority;
-        private long invocations = 0;
-        private long nanos = 0;
-
-        public ProcessorEntry(PacketProcessor processor, int priority) {
+        private final MetricsService metricsService;
+        private final String metricName;
+        private final Timer latencyTimer;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        public ProcessorEntry(PacketProcessor processor, int priority, int id,
+                              MetricsService metricsService) {
             this.processor = processor;
             this.priority = priority;
+            this.metricsService = metricsService;
+            this.metricName = processor.getClass().getName() + "-" + priority + "-" + id;
+            if (metricsService != null) {
+                MetricsComponent component =
+                        metricsService.registerComponent(PacketPipeline.METRICS_COMPONENT);
+                MetricsFeature feature = component.registerFeature(PROCESSORS_FEATURE);
+                this.latencyTimer = metricsService.createTimer(component, feature, metricName);
+            } else {
+                this.latencyTimer = null;
+            }
         }
 
         @Override
@@ -605,22 +718,35 @@ public class PacketManager
 
         @Override
         public long invocations() {
-            return invocations;
+            return invocations.sum();
         }
 
         @Override
         public long totalNanos() {
-            return nanos;
+            return nanos.sum();
         }
 
         @Override
         public long averageNanos() {
-            return invocations > 0 ? nanos / invocations : 0;
+            long count = invocations.sum();
+            return count > 0 ? nanos.sum() / count : 0;
         }
 
         void addNanos(long nanos) {
-            this.nanos += nanos;
-            this.invocations++;
+            this.nanos.add(nanos);
+            this.invocations.increment();
+            if (latencyTimer != null) {
+                latencyTimer.update(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        void removeMetrics() {
+            if (metricsService != null) {
+                MetricsComponent component =
+                        metricsService.registerComponent(PacketPipeline.METRICS_COMPONENT);
+                metricsService.removeMetric(component, component.registerFeature(PROCESSORS_FEATURE),
+                                            metricName);
+            }
         }
     }
 }
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPacket;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.IPv6;
+import org.onlab.packet.TCP;
+import org.onlab.packet.UDP;
+import org.onosproject.net.packet.InboundPacket;
+import org.onosproject.net.packet.PacketContext;
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Pool of packet processing workers, each with its own bounded queue.
+ * <p>
+ * Packets are assigned to the workers by the hash of their ingress connect
+ * point and, for TCP and UDP over IP, of their 5-tuple. Packets of the same
+ * flow are therefore processed by the same worker, in the order in which
+ * they were received. Packets arriving while the queue of their worker is
+ * full are dropped.
+ * </p>
+ */
+final class PacketPipeline {
+
+    private final Logger log = getLogger(getClass());
+
+    static final String METRICS_COMPONENT = "PacketManager";
+    static final String METRICS_FEATURE = "pipeline";
+    private static final String QUEUE_DEPTH = "queueDepth";
+
+    private final ThreadPoolExecutor[] workers;
+    private final Consumer<PacketContext> processor;
+    private final MetricsService metricsService;
+    private final Meter dropMeter;
+
+    /**
+     * Creates and starts a new packet pipeline.
+     *
+     * @param numWorkers     number of workers
+     * @param queueSize      capacity of the queue of each worker
+     * @param processor      packet processing function, invoked on the workers
+     * @param metricsService metrics service; may be null
+     */
+    PacketPipeline(int numWorkers, int queueSize, Consumer<PacketContext> processor,
+                   MetricsService metricsService) {
+        checkArgument(numWorkers > 0, "Number of workers must be positive");
+        checkArgument(queueSize > 0, "Queue size must be positive");
+        this.processor = processor;
+        this.metricsService = metricsService;
+        this.workers = new ThreadPoolExecutor[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            workers[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                                new LinkedBlockingQueue<>(queueSize),
+                                                groupedThreads("onos/net/packet", "pipeline-" + i, log));
+        }
+
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            dropMeter = metricsService.createMeter(component, feature, "drops");
+            metricsService.registerMetric(component, feature, QUEUE_DEPTH, (Gauge<Integer>) this::queueDepth);
+        } else {
+            dropMeter = null;
+        }
+    }
+
+    /**
+     * Queues the given packet for processing by the worker of its flow.
+     *
+     * @param context packet context
+     * @return true if the packet was queued, false if it was dropped
+     */
+    boolean dispatch(PacketContext context) {
+        ExecutorService worker = workers[Math.floorMod(flowHash(context), workers.length)];
+        try {
+            worker.execute(() -> processor.accept(context));
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (dropMeter != null) {
+                dropMeter.mark();
+            }
+            log.debug("Dropping packet received from {}; pipeline is full",
+                      context.inPacket().receivedFrom());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of packets waiting to be processed.
+     *
+     * @return total depth of the worker queues
+     */
+    int queueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor worker : workers) {
+            depth += worker.getQueue().size();
+        }
+        return depth;
+    }
+
+    /**
+     * Stops accepting packets; the packets already queued are still processed.
+     */
+    void shutdown() {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            metricsService.removeMetric(component, component.registerFeature(METRICS_FEATURE), QUEUE_DEPTH);
+        }
+    }
+
+    /**
+     * Returns the hash of the flow to which the packet belongs.
+     *
+     * @param context packet context
+     * @return flow hash
+     */
+    static int flowHash(PacketContext context) {
+        InboundPacket inPacket = context.inPacket();
+        int hash = inPacket.receivedFrom().hashCode();
+        Ethernet ethernet = inPacket.parsed();
+        if (ethernet == null) {
+            return hash;
+        }
+
+        IPacket payload = ethernet.getPayload();
+        IPacket transport;
+        if (payload instanceof IPv4) {
+            IPv4 ip = (IPv4) payload;
+            hash = 31 * hash + ip.getSourceAddress();
+            hash = 31 * hash + ip.getDestinationAddress();
+            hash = 31 * hash + ip.getProtocol();
+            transport = ip.getPayload();
+        } else if (payload instanceof IPv6) {
+            IPv6 ip = (IPv6) payload;
+            hash = 31 * hash + Arrays.hashCode(ip.getSourceAddress());
+            hash = 31 * hash + Arrays.hashCode(ip.getDestinationAddress());
+            hash = 31 * hash + ip.getNextHeader();
+            transport = ip.getPayload();
+        } else {
+            return hash;
+        }
+
+        if (transport instanceof TCP) {
+            hash = 31 * hash + ((TCP) transport).getSourcePort();
+            hash = 31 * hash + ((TCP) transport).getDestinationPort();
+        } else if (transport instanceof UDP) {
+            hash = 31 * hash + ((UDP) transport).getSourcePort();
+            hash = 31 * hash + ((UDP) transport).getDestinationPort();
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.net.pi.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.TableId;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.pi.model.PiMatchFieldId;
+import org.onosproject.net.pi.model.PiMatchType;
+import org.onosproject.net.pi.model.PiPipeconf;
+import org.onosproject.net.pi.model.PiPipeconfId;
+import org.onosproject.net.pi.model.PiPipelineInterpreter;
+import org.onosproject.net.pi.model.PiTableId;
+import org.onosproject.net.pi.model.PiTableModel;
+import org.onosproject.net.pi.service.PiTranslationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static org.onosproject.net.flow.criteria.Criterion.Type.PROTOCOL_INDEPENDENT;
+import static org.onosproject.net.pi.impl.PiUtils.translateTableId;
+
+/**
+ * Cache of the pipeline interpretation decisions taken when translating flow
+ * rules, per rule shape. The shape of a rule is given by its table ID and by
+ * the types of the criteria of its selector; rules with the same shape are
+ * mapped to the same PI table and match fields, and differ only in values.
+ * <p>
+ * Shapes are cached per pipeconf and interpreter class, and must be
+ * invalidated when the pipeconf is registered again or unregistered.
+ */
+final class PiFlowRuleShapeCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PiFlowRuleShapeCache.class);
+
+    // Maximum number of shapes cached per pipeconf. Rules of other shapes
+    // are still translated, without being cached.
+    static final int MAX_SHAPES = 10000;
+
+    private final Map<PiPipeconfId, Map<ShapeKey, RuleShape>> shapes = Maps.newConcurrentMap();
+
+    /**
+     * Returns the shape of the given flow rule for the given pipeconf and
+     * interpreter.
+     *
+     * @param rule        flow rule
+     * @param pipeconf    pipeconf
+     * @param interpreter interpreter, or null
+     * @return rule shape
+     * @throws PiTranslationException if the rule shape cannot be mapped
+     */
+    RuleShape get(FlowRule rule, PiPipeconf pipeconf, PiPipelineInterpreter interpreter)
+            throws PiTranslationException {
+        ShapeKey key = new ShapeKey(rule, interpreter);
+        Map<ShapeKey, RuleShape> pipeconfShapes =
+                shapes.computeIfAbsent(pipeconf.id(), id -> Maps.newConcurrentMap());
+        RuleShape shape = pipeconfShapes.get(key);
+        if (shape == null) {
+            // Failed mappings are not cached, the exception is thrown again
+            // for each rule of the same shape.
+            shape = RuleShape.of(key.tableId, key.criterionTypes, pipeconf, interpreter);
+            if (pipeconfShapes.size() < MAX_SHAPES) {
+                pipeconfShapes.putIfAbsent(key, shape);
+            }
+        }
+        return shape;
+    }
+
+    /**
+     * Invalidates the shapes cached for the given pipeconf.
+     *
+     * @param pipeconfId pipeconf ID
+     */
+    void invalidate(PiPipeconfId pipeconfId) {
+        shapes.remove(pipeconfId);
+    }
+
+    /**
+     * Returns the number of shapes cached for the given pipeconf.
+     *
+     * @param pipeconfId pipeconf ID
+     * @return number of shapes
+     */
+    int size(PiPipeconfId pipeconfId) {
+        Map<ShapeKey, RuleShape> pipeconfShapes = shapes.get(pipeconfId);
+        return pipeconfShapes == null ? 0 : pipeconfShapes.size();
+    }
+
+    /**
+     * Pipeline interpretation decisions for flow rules of a given shape.
+     */
+    static final class RuleShape {
+        private final PiTableId piTableId;
+        private final PiTableModel tableModel;
+        private final boolean needPriority;
+        private final Map<PiMatchFieldId, Criterion.Type> criterionMapping;
+
+        private RuleShape(PiTableId piTableId, PiTableModel tableModel, boolean needPriority,
+                          Map<PiMatchFieldId, Criterion.Type> criterionMapping) {
+            this.piTableId = piTableId;
+            this.tableModel = tableModel;
+            this.needPriority = needPriority;
+            this.criterionMapping = criterionMapping;
+        }
+
+        /**
+         * Maps the given rule shape, without using the cache.
+         *
+         * @param tableId        table ID of the rule
+         * @param criterionTypes types of the criteria of the rule selector
+         * @param pipeconf       pipeconf
+         * @param interpreter    interpreter, or null
+         * @return rule shape
+         * @throws PiTranslationException if the rule shape cannot be mapped
+         */
+        static RuleShape of(TableId tableId, Set<Criterion.Type> criterionTypes,
+                            PiPipeconf pipeconf, PiPipelineInterpreter interpreter)
+                throws PiTranslationException {
+            PiTableId piTableId = translateTableId(tableId, interpreter);
+            PiTableModel tableModel = pipeconf.pipelineModel().table(piTableId)
+                    .orElseThrow(() -> new PiTranslationException(format(
+                            "Not such a table in pipeline model: %s", piTableId)));
+
+            // FIXME: P4Runtime limit
+            // Need to ignore priority if no TCAM lookup match field
+            boolean needPriority = !criterionTypes.isEmpty() &&
+                    tableModel.matchFields().stream()
+                            .anyMatch(match -> match.matchType() == PiMatchType.TERNARY ||
+                                    match.matchType() == PiMatchType.RANGE);
+
+            ImmutableMap.Builder<PiMatchFieldId, Criterion.Type> mapping = ImmutableMap.builder();
+            if (interpreter != null) {
+                // NOTE: if two criterion types map to the same match field ID, and
+                //  those two criterion types are present in the selector, this won't
+                //  work. This is unlikely to happen since those cases should be
+                //  mutually exclusive:
+                //  e.g. ICMPV6_TYPE ->  metadata.my_normalized_icmp_type
+                //       ICMPV4_TYPE ->  metadata.my_normalized_icmp_type
+                //  A packet can be either ICMPv6 or ICMPv4 but not both.
+                Map<PiMatchFieldId, Criterion.Type> types = Maps.newHashMap();
+                for (Criterion.Type type : criterionTypes) {
+                    if (type == PROTOCOL_INDEPENDENT) {
+                        continue;
+                    }
+                    PiMatchFieldId mfid = interpreter.mapCriterionType(type).orElse(null);
+                    if (mfid != null) {
+                        if (types.containsKey(mfid)) {
+                            log.warn("Detected criterion mapping conflict for PiMatchFieldId {}", mfid);
+                        }
+                        types.put(mfid, type);
+                    }
+                }
+                mapping.putAll(types);
+            }
+            return new RuleShape(piTableId, tableModel, needPriority, mapping.build());
+        }
+
+        PiTableId piTableId() {
+            return piTableId;
+        }
+
+        PiTableModel tableModel() {
+            return tableModel;
+        }
+
+        boolean needPriority() {
+            return needPriority;
+        }
+
+        /**
+         * Returns the criterion types of the rule mapped to match fields by
+         * the interpreter.
+         *
+         * @return criterion type by match field ID
+         */
+        Map<PiMatchFieldId, Criterion.Type> criterionMapping() {
+            return criterionMapping;
+        }
+    }
+
+    private static final class ShapeKey {
+        private final TableId tableId;
+        private final Set<Criterion.Type> criterionTypes;
+        private final Class<?> interpreterClass;
+
+        private ShapeKey(FlowRule rule, PiPipelineInterpreter interpreter) {
+            this.tableId = rule.table();
+            this.criterionTypes = criterionTypes(rule);
+            this.interpreterClass = interpreter == null ? null : interpreter.getClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tableId, criterionTypes, interpreterClass);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ShapeKey)) {
+                return false;
+            }
+            ShapeKey that = (ShapeKey) obj;
+            return Objects.equals(tableId, that.tableId) &&
+                    Objects.equals(criterionTypes, that.criterionTypes) &&
+                    Objects.equals(interpreterClass, that.interpreterClass);
+        }
+    }
+
+    /**
+     * Returns the types of the criteria of the selector of the given rule.
+     *
+     * @param rule flow rule
+     * @return set of criterion types
+     */
+    static Set<Criterion.Type> criterionTypes(FlowRule rule) {
+        Set<Criterion.Type> types = EnumSet.noneOf(Criterion.Type.class);
+        rule.selector().criteria().forEach(c -> types.add(c.type()));
+        return types;
+    }
+}
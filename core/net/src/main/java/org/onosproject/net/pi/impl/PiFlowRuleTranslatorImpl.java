@@ -27,11 +27,11 @@ import org.onosproject.net.flow.criteria.Criterion;
 import org.onosproject.net.flow.criteria.PiCriterion;
 import org.onosproject.net.flow.instructions.Instruction;
 import org.onosproject.net.flow.instructions.PiInstruction;
+import org.onosproject.net.pi.impl.PiFlowRuleShapeCache.RuleShape;
 import org.onosproject.net.pi.model.PiActionModel;
 import org.onosproject.net.pi.model.PiActionParamModel;
 import org.onosproject.net.pi.model.PiMatchFieldId;
 import org.onosproject.net.pi.model.PiMatchFieldModel;
-import org.onosproject.net.pi.model.PiMatchType;
 import org.onosproject.net.pi.model.PiPipeconf;
 import org.onosproject.net.pi.model.PiPipelineInterpreter;
 import org.onosproject.net.pi.model.PiPipelineModel;
@@ -63,7 +63,6 @@ import static org.onlab.util.ImmutableByteSequence.prefixOnes;
 import static org.onosproject.net.flow.criteria.Criterion.Type.PROTOCOL_INDEPENDENT;
 import static org.onosproject.net.pi.impl.CriterionTranslatorHelper.translateCriterion;
 import static org.onosproject.net.pi.impl.PiUtils.getInterpreterOrNull;
-import static org.onosproject.net.pi.impl.PiUtils.translateTableId;
 
 /**
  * Implementation of flow rule translation logic.
@@ -90,31 +89,46 @@ final class PiFlowRuleTranslatorImpl {
      */
     static PiTableEntry translate(FlowRule rule, PiPipeconf pipeconf, Device device)
             throws PiTranslationException {
+        return translate(rule, pipeconf, device, null);
+    }
+
+    /**
+     * Returns a PI table entry equivalent to the given flow rule, for the given
+     * pipeconf and device, reusing the pipeline interpretation decisions
+     * cached for rules of the same shape.
+     *
+     * @param rule       flow rule
+     * @param pipeconf   pipeconf
+     * @param device     device
+     * @param shapeCache rule shape cache, or null to not use a cache
+     * @return PI table entry
+     * @throws PiTranslationException if the flow rule cannot be translated
+     */
+    static PiTableEntry translate(FlowRule rule, PiPipeconf pipeconf, Device device,
+                                  PiFlowRuleShapeCache shapeCache)
+            throws PiTranslationException {
 
         PiPipelineModel pipelineModel = pipeconf.pipelineModel();
 
         // Retrieve interpreter, if any.
         final PiPipelineInterpreter interpreter = getInterpreterOrNull(device, pipeconf);
-        // Get table model.
-        final PiTableId piTableId = translateTableId(rule.table(), interpreter);
-        final PiTableModel tableModel = getTableModel(piTableId, pipelineModel);
+        // Get table model and match field mapping.
+        final RuleShape shape = shapeCache != null
+                ? shapeCache.get(rule, pipeconf, interpreter)
+                : RuleShape.of(rule.table(), PiFlowRuleShapeCache.criterionTypes(rule), pipeconf, interpreter);
+        final PiTableId piTableId = shape.piTableId();
+        final PiTableModel tableModel = shape.tableModel();
         // Translate selector.
         final PiMatchKey piMatchKey;
-        final boolean needPriority;
+        final boolean needPriority = shape.needPriority();
         if (rule.selector().criteria().isEmpty()) {
             piMatchKey = PiMatchKey.EMPTY;
-            needPriority = false;
         } else {
             final Collection<PiFieldMatch> fieldMatches = translateFieldMatches(
-                    interpreter, rule.selector(), tableModel);
+                    shape, rule.selector(), tableModel);
             piMatchKey = PiMatchKey.builder()
                     .addFieldMatches(fieldMatches)
                     .build();
-            // FIXME: P4Runtime limit
-            // Need to ignore priority if no TCAM lookup match field
-            needPriority = tableModel.matchFields().stream()
-                    .anyMatch(match -> match.matchType() == PiMatchType.TERNARY ||
-                            match.matchType() == PiMatchType.RANGE);
         }
         // Translate treatment.
         final PiTableAction piTableAction = translateTreatment(rule.treatment(), interpreter, piTableId, pipelineModel);
@@ -293,7 +307,7 @@ final class PiFlowRuleTranslatorImpl {
      * optionally using the given interpreter. The field matches returned are
      * guaranteed to be compatible for the given table model.
      */
-    private static Collection<PiFieldMatch> translateFieldMatches(PiPipelineInterpreter interpreter,
+    private static Collection<PiFieldMatch> translateFieldMatches(RuleShape shape,
                                                                   TrafficSelector selector, PiTableModel tableModel)
             throws PiTranslationException {
 
@@ -318,32 +332,9 @@ final class PiFlowRuleTranslatorImpl {
         Set<PiMatchFieldId> ignoredPiCriterionFields = Sets.newHashSet();
 
 
+        // Criterion types were mapped to match fields once per rule shape.
         Map<PiMatchFieldId, Criterion> criterionMap = Maps.newHashMap();
-        if (interpreter != null) {
-            // NOTE: if two criterion types map to the same match field ID, and
-            //  those two criterion types are present in the selector, this won't
-            //  work. This is unlikely to happen since those cases should be
-            //  mutually exclusive:
-            //  e.g. ICMPV6_TYPE ->  metadata.my_normalized_icmp_type
-            //       ICMPV4_TYPE ->  metadata.my_normalized_icmp_type
-            //  A packet can be either ICMPv6 or ICMPv4 but not both.
-            selector.criteria()
-                    .stream()
-                    .map(Criterion::type)
-                    .filter(t -> t != PROTOCOL_INDEPENDENT)
-                    .forEach(t -> {
-                        PiMatchFieldId mfid = interpreter.mapCriterionType(t)
-                                .orElse(null);
-                        if (mfid != null) {
-                            if (criterionMap.containsKey(mfid)) {
-                                log.warn("Detected criterion mapping " +
-                                                 "conflict for PiMatchFieldId {}",
-                                         mfid);
-                            }
-                            criterionMap.put(mfid, selector.getCriterion(t));
-                        }
-                    });
-        }
+        shape.criterionMapping().forEach((mfid, t) -> criterionMap.put(mfid, selector.getCriterion(t)));
 
         for (PiMatchFieldModel fieldModel : tableModel.matchFields()) {
 
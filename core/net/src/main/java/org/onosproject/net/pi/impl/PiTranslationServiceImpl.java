@@ -33,6 +33,9 @@ import org.onosproject.net.pi.service.PiGroupTranslationStore;
 import org.onosproject.net.pi.service.PiGroupTranslator;
 import org.onosproject.net.pi.service.PiMeterTranslationStore;
 import org.onosproject.net.pi.service.PiMeterTranslator;
+import org.onosproject.net.pi.service.PiPipeconfEvent;
+import org.onosproject.net.pi.service.PiPipeconfListener;
+import org.onosproject.net.pi.service.PiPipeconfService;
 import org.onosproject.net.pi.service.PiReplicationGroupTranslationStore;
 import org.onosproject.net.pi.service.PiReplicationGroupTranslator;
 import org.onosproject.net.pi.service.PiTranslationException;
@@ -55,11 +58,12 @@ public class PiTranslationServiceImpl implements PiTranslationService {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
-    // TODO: implement cache to speed up translation.
-
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected DeviceService deviceService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected PiPipeconfService pipeconfService;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     private PiFlowRuleTranslationStore flowRuleTranslationStore;
 
@@ -77,8 +81,13 @@ public class PiTranslationServiceImpl implements PiTranslationService {
     private PiReplicationGroupTranslator repGroupTranslator;
     private PiMeterTranslator meterTranslator;
 
+    // Speeds up the translation of flow rules differing only in values.
+    private final PiFlowRuleShapeCache flowRuleShapeCache = new PiFlowRuleShapeCache();
+    private final PiPipeconfListener pipeconfListener = new InternalPipeconfListener();
+
     @Activate
     public void activate() {
+        pipeconfService.addListener(pipeconfListener);
         flowRuleTranslator = new InternalFlowRuleTranslator(flowRuleTranslationStore);
         groupTranslator = new InternalGroupTranslator(groupTranslationStore);
         repGroupTranslator = new InternalReplicationGroupTranslator(repGroupTranslationStore);
@@ -88,6 +97,7 @@ public class PiTranslationServiceImpl implements PiTranslationService {
 
     @Deactivate
     public void deactivate() {
+        pipeconfService.removeListener(pipeconfListener);
         flowRuleTranslator = null;
         groupTranslator = null;
         meterTranslator = null;
@@ -136,7 +146,8 @@ public class PiTranslationServiceImpl implements PiTranslationService {
             checkNotNull(original);
             checkNotNull(pipeconf);
             return PiFlowRuleTranslatorImpl
-                    .translate(original, pipeconf, getDevice(original.deviceId()));
+                    .translate(original, pipeconf, getDevice(original.deviceId()),
+                               flowRuleShapeCache);
         }
     }
 
@@ -193,5 +204,13 @@ public class PiTranslationServiceImpl implements PiTranslationService {
                     .translate(original, pipeconf, getDevice(original.deviceId()));
         }
     }
-}
 
+    private final class InternalPipeconfListener implements PiPipeconfListener {
+        @Override
+        public void event(PiPipeconfEvent event) {
+            // A pipeconf registered again might have a different pipeline
+            // model or interpreter.
+            flowRuleShapeCache.invalidate(event.subject());
+        }
+    }
+}
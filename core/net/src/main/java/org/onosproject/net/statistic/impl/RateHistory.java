@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.net.statistic.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.net.statistic.RateSample;
+import org.onosproject.net.statistic.StatisticHistoryService.Resolution;
+
+import java.util.List;
+
+/**
+ * Rate history of a port or flow, at all resolutions.
+ * <p>
+ * Each resolution is kept in a fixed-size ring of primitive arrays, hence the
+ * memory used by a history is fixed when it is created. Downsampled
+ * resolutions average the raw samples falling in each of their periods; a
+ * period is recorded once a sample of the next period is added.
+ */
+final class RateHistory {
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    // Sent bytes and packets, then received bytes and packets
+    private static final int NUM_RATES = 4;
+
+    // Estimated memory used by the object headers and fields of a history.
+    private static final int OVERHEAD = 256;
+    private static final int SAMPLE_SIZE = Long.BYTES + NUM_RATES * Double.BYTES;
+
+    private final Ring[] rings = new Ring[RESOLUTIONS.length];
+
+    // Period being averaged, per resolution; unused for raw samples.
+    private final long[] periodStart = new long[RESOLUTIONS.length];
+    private final double[][] periodRates = new double[RESOLUTIONS.length][NUM_RATES];
+    private final int[] periodSamples = new int[RESOLUTIONS.length];
+
+    // Last counters, for each direction, to derive rates from.
+    private long lastTime = -1;
+    private final long[] lastCounters = new long[NUM_RATES];
+
+    /**
+     * Creates a new history.
+     *
+     * @param capacity number of samples kept per resolution
+     */
+    RateHistory(int capacity) {
+        for (int i = 0; i < rings.length; i++) {
+            rings[i] = new Ring(capacity);
+        }
+    }
+
+    /**
+     * Returns the memory used by a history of the given capacity, in bytes.
+     *
+     * @param capacity number of samples kept per resolution
+     * @return memory footprint in bytes
+     */
+    static long footprint(int capacity) {
+        return OVERHEAD + (long) RESOLUTIONS.length * capacity * SAMPLE_SIZE;
+    }
+
+    /**
+     * Adds a sample derived from the given cumulative counters and from the
+     * last ones. Nothing is added for the first counters, or if counters
+     * went backwards, e.g. after a device reboot; in both cases the given
+     * counters are the base of the next sample.
+     *
+     * @param time            time of the counters, in milliseconds
+     * @param bytesSent       sent bytes
+     * @param packetsSent     sent packets
+     * @param bytesReceived   received bytes
+     * @param packetsReceived received packets
+     */
+    synchronized void addCounters(long time, long bytesSent, long packetsSent,
+                                  long bytesReceived, long packetsReceived) {
+        long[] counters = {bytesSent, packetsSent, bytesReceived, packetsReceived};
+        boolean valid = lastTime >= 0 && time > lastTime;
+        for (int i = 0; valid && i < NUM_RATES; i++) {
+            valid = counters[i] >= lastCounters[i];
+        }
+        if (valid) {
+            double seconds = (time - lastTime) / 1000.0;
+            addRate(time,
+                    (bytesSent - lastCounters[0]) / seconds,
+                    (packetsSent - lastCounters[1]) / seconds,
+                    (bytesReceived - lastCounters[2]) / seconds,
+                    (packetsReceived - lastCounters[3]) / seconds);
+        }
+        lastTime = time;
+        System.arraycopy(counters, 0, lastCounters, 0, NUM_RATES);
+    }
+
+    /**
+     * Adds a raw sample, and updates the downsampled resolutions.
+     *
+     * @param time                time of the sample, in milliseconds
+     * @param bytesSentRate       sent bytes per second
+     * @param packetsSentRate     sent packets per second
+     * @param bytesReceivedRate   received bytes per second
+     * @param packetsReceivedRate received packets per second
+     */
+    synchronized void addRate(long time, double bytesSentRate, double packetsSentRate,
+                              double bytesReceivedRate, double packetsReceivedRate) {
+        double[] rates = {bytesSentRate, packetsSentRate, bytesReceivedRate, packetsReceivedRate};
+        rings[0].add(time, rates);
+        for (int i = 1; i < RESOLUTIONS.length; i++) {
+            long period = RESOLUTIONS[i].periodMillis();
+            long start = time - time % period;
+            double[] sums = periodRates[i];
+            if (periodSamples[i] > 0 && start != periodStart[i]) {
+                double[] averages = new double[NUM_RATES];
+                for (int j = 0; j < NUM_RATES; j++) {
+                    averages[j] = sums[j] / periodSamples[i];
+                    sums[j] = 0;
+                }
+                rings[i].add(periodStart[i], averages);
+                periodSamples[i] = 0;
+            }
+            periodStart[i] = start;
+            for (int j = 0; j < NUM_RATES; j++) {
+                sums[j] += rates[j];
+            }
+            periodSamples[i]++;
+        }
+    }
+
+    /**
+     * Returns the samples at the given resolution, oldest first.
+     *
+     * @param resolution resolution
+     * @return rate samples
+     */
+    synchronized List<RateSample> samples(Resolution resolution) {
+        return rings[resolution.ordinal()].samples();
+    }
+
+    // Fixed-size ring of samples, overwriting the oldest when full.
+    private static final class Ring {
+        private final long[] times;
+        private final double[][] rates;
+        private int next;
+        private int size;
+
+        private Ring(int capacity) {
+            times = new long[capacity];
+            rates = new double[NUM_RATES][capacity];
+        }
+
+        private void add(long time, double[] sample) {
+            times[next] = time;
+            for (int i = 0; i < NUM_RATES; i++) {
+                rates[i][next] = sample[i];
+            }
+            next = (next + 1) % times.length;
+            size = Math.min(size + 1, times.length);
+        }
+
+        private List<RateSample> samples() {
+            ImmutableList.Builder<RateSample> samples = ImmutableList.builder();
+            int first = (next - size + times.length) % times.length;
+            for (int i = 0; i < size; i++) {
+                int j = (first + i) % times.length;
+                samples.add(new RateSample(times[j], rates[0][j], rates[1][j],
+                                           rates[2][j], rates[3][j]));
+            }
+            return samples.build();
+        }
+    }
+}
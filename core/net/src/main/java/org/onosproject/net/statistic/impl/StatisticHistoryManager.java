@@ -0,0 +1,269 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.net.statistic.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.onosproject.cfg.ComponentConfigService;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
+import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.device.PortStatistics;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleEvent;
+import org.onosproject.net.flow.FlowRuleListener;
+import org.onosproject.net.flow.FlowRuleService;
+import org.onosproject.net.statistic.RateSample;
+import org.onosproject.net.statistic.StatisticHistoryService;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.slf4j.Logger;
+
+import java.util.Dictionary;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.util.Tools.getIntegerProperty;
+import static org.onosproject.net.OsgiPropertyConstants.SHM_DEVICE_MEMORY_BUDGET;
+import static org.onosproject.net.OsgiPropertyConstants.SHM_DEVICE_MEMORY_BUDGET_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.SHM_HISTORY_SIZE;
+import static org.onosproject.net.OsgiPropertyConstants.SHM_HISTORY_SIZE_DEFAULT;
+import static org.onosproject.net.device.DeviceEvent.Type.DEVICE_AVAILABILITY_CHANGED;
+import static org.onosproject.net.device.DeviceEvent.Type.DEVICE_REMOVED;
+import static org.onosproject.net.device.DeviceEvent.Type.PORT_REMOVED;
+import static org.onosproject.net.device.DeviceEvent.Type.PORT_STATS_UPDATED;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Implementation of the statistic history service, recording the rates of
+ * the ports and flows whose statistics are received by this instance.
+ * <p>
+ * Histories are fixed-size, and created only while the memory used by the
+ * histories of their device stays within the configured budget.
+ */
+@Component(
+    immediate = true,
+    service = StatisticHistoryService.class,
+    property = {
+        SHM_HISTORY_SIZE + ":Integer=" + SHM_HISTORY_SIZE_DEFAULT,
+        SHM_DEVICE_MEMORY_BUDGET + ":Integer=" + SHM_DEVICE_MEMORY_BUDGET_DEFAULT
+    }
+)
+public class StatisticHistoryManager implements StatisticHistoryService {
+
+    private final Logger log = getLogger(getClass());
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected DeviceService deviceService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected FlowRuleService flowRuleService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected ComponentConfigService cfgService;
+
+    /** Number of samples kept per port or flow, at each resolution. */
+    private int historySize = SHM_HISTORY_SIZE_DEFAULT;
+
+    /** Maximum memory used by the histories of a device, in bytes. */
+    private int deviceMemoryBudget = SHM_DEVICE_MEMORY_BUDGET_DEFAULT;
+
+    private final DeviceListener deviceListener = new InternalDeviceListener();
+    private final FlowRuleListener flowRuleListener = new InternalFlowRuleListener();
+
+    private final Map<DeviceId, DeviceHistory> histories = Maps.newConcurrentMap();
+
+    @Activate
+    public void activate() {
+        cfgService.registerProperties(getClass());
+        deviceService.addListener(deviceListener);
+        flowRuleService.addListener(flowRuleListener);
+        log.info("Started");
+    }
+
+    @Deactivate
+    public void deactivate() {
+        cfgService.unregisterProperties(getClass(), false);
+        deviceService.removeListener(deviceListener);
+        flowRuleService.removeListener(flowRuleListener);
+        histories.clear();
+        log.info("Stopped");
+    }
+
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+        int newSize = getIntegerProperty(properties, SHM_HISTORY_SIZE, historySize);
+        int newBudget = getIntegerProperty(properties, SHM_DEVICE_MEMORY_BUDGET, deviceMemoryBudget);
+        if (newSize <= 0 || newBudget < 0) {
+            log.warn("Invalid statistic history settings: {}={}, {}={}",
+                     SHM_HISTORY_SIZE, newSize, SHM_DEVICE_MEMORY_BUDGET, newBudget);
+            return;
+        }
+        if (newSize != historySize || newBudget < deviceMemoryBudget) {
+            // Histories have a fixed size; start over.
+            histories.clear();
+        }
+        historySize = newSize;
+        deviceMemoryBudget = newBudget;
+        log.info("Settings: {}={}, {}={}", SHM_HISTORY_SIZE, historySize,
+                 SHM_DEVICE_MEMORY_BUDGET, deviceMemoryBudget);
+    }
+
+    @Override
+    public List<RateSample> portHistory(ConnectPoint connectPoint, Resolution resolution) {
+        checkNotNull(connectPoint);
+        checkNotNull(resolution);
+        DeviceHistory device = histories.get(connectPoint.deviceId());
+        RateHistory history = device == null ? null : device.ports.get(connectPoint.port());
+        return history == null ? ImmutableList.of() : history.samples(resolution);
+    }
+
+    @Override
+    public List<RateSample> flowHistory(DeviceId deviceId, FlowId flowId, Resolution resolution) {
+        checkNotNull(deviceId);
+        checkNotNull(flowId);
+        checkNotNull(resolution);
+        DeviceHistory device = histories.get(deviceId);
+        RateHistory history = device == null ? null : device.flows.get(flowId);
+        return history == null ? ImmutableList.of() : history.samples(resolution);
+    }
+
+    @Override
+    public long memoryUsage(DeviceId deviceId) {
+        DeviceHistory device = histories.get(checkNotNull(deviceId));
+        return device == null ? 0 : device.memory.get();
+    }
+
+    // Records the port statistics of the given device.
+    private void updatePorts(DeviceId deviceId) {
+        long now = System.currentTimeMillis();
+        DeviceHistory device = histories.computeIfAbsent(deviceId, id -> new DeviceHistory());
+        for (PortStatistics stats : deviceService.getPortStatistics(deviceId)) {
+            RateHistory history = device.history(device.ports, stats.portNumber());
+            if (history != null) {
+                history.addCounters(now, stats.bytesSent(), stats.packetsSent(),
+                                    stats.bytesReceived(), stats.packetsReceived());
+            }
+        }
+    }
+
+    // Records the statistics of the given flow entry.
+    private void updateFlow(FlowEntry entry) {
+        long now = System.currentTimeMillis();
+        DeviceHistory device = histories.computeIfAbsent(entry.deviceId(), id -> new DeviceHistory());
+        RateHistory history = device.history(device.flows, entry.id());
+        if (history != null) {
+            history.addCounters(now, 0, 0, entry.bytes(), entry.packets());
+        }
+    }
+
+    // Histories of the ports and flows of a device.
+    private final class DeviceHistory {
+        private final Map<PortNumber, RateHistory> ports = Maps.newConcurrentMap();
+        private final Map<FlowId, RateHistory> flows = Maps.newConcurrentMap();
+        private final AtomicLong memory = new AtomicLong();
+        private final int size = historySize;
+
+        // Returns the history of the given key, creating it if the budget
+        // allows; returns null otherwise.
+        private <K> RateHistory history(Map<K, RateHistory> map, K key) {
+            RateHistory history = map.get(key);
+            if (history != null) {
+                return history;
+            }
+            long footprint = RateHistory.footprint(size);
+            long used = memory.addAndGet(footprint);
+            if (used > deviceMemoryBudget) {
+                memory.addAndGet(-footprint);
+                log.debug("Statistic history memory budget exhausted, not recording {}", key);
+                return null;
+            }
+            history = new RateHistory(size);
+            RateHistory existing = map.putIfAbsent(key, history);
+            if (existing != null) {
+                memory.addAndGet(-footprint);
+                return existing;
+            }
+            return history;
+        }
+
+        private <K> void remove(Map<K, RateHistory> map, K key) {
+            if (map.remove(key) != null) {
+                memory.addAndGet(-RateHistory.footprint(size));
+            }
+        }
+    }
+
+    private class InternalDeviceListener implements DeviceListener {
+        @Override
+        public void event(DeviceEvent event) {
+            DeviceEvent.Type type = event.type();
+            DeviceId deviceId = event.subject().id();
+            if (type == PORT_STATS_UPDATED) {
+                updatePorts(deviceId);
+            } else if (type == PORT_REMOVED && event.port() != null) {
+                DeviceHistory device = histories.get(deviceId);
+                if (device != null) {
+                    device.remove(device.ports, event.port().number());
+                }
+            } else if (type == DEVICE_REMOVED ||
+                    (type == DEVICE_AVAILABILITY_CHANGED &&
+                            !deviceService.isAvailable(deviceId))) {
+                histories.remove(deviceId);
+            }
+        }
+    }
+
+    private class InternalFlowRuleListener implements FlowRuleListener {
+        @Override
+        public void event(FlowRuleEvent event) {
+            FlowRule rule = event.subject();
+            switch (event.type()) {
+                case RULE_ADDED:
+                case RULE_UPDATED:
+                    if (rule instanceof FlowEntry) {
+                        updateFlow((FlowEntry) rule);
+                    }
+                    break;
+                case RULE_REMOVED:
+                    DeviceHistory device = histories.get(rule.deviceId());
+                    if (device != null) {
+                        device.remove(device.flows, rule.id());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
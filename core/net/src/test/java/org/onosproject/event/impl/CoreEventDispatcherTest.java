@@ -19,15 +19,23 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onosproject.event.AbstractEvent;
+import org.onosproject.event.Event;
 import org.onosproject.event.EventSink;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.link.LinkEvent;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.device;
+import static org.onosproject.net.NetTestTools.link;
 
 /**
  * Test of the event dispatcher mechanism.
@@ -88,6 +96,78 @@ public class CoreEventDispatcherTest {
         assertTrue(takesTooLong.interrupted);
     }
 
+    @Test
+    public void postShardedPreservesSubjectOrder() throws Exception {
+        dispatcher.setDispatchShards(4);
+        dispatcher.setDispatchQueueCapacity(16);
+        assertEquals(4, dispatcher.getDispatchShards());
+
+        OrderSink orderSink = new OrderSink();
+        dispatcher.addSink(Counted.class, orderSink);
+        orderSink.latch = new CountDownLatch(400);
+        for (int i = 0; i < 100; i++) {
+            for (String subject : new String[]{"a", "b", "c", "d"}) {
+                dispatcher.post(new Counted(subject, i));
+            }
+        }
+        assertTrue(orderSink.latch.await(5, TimeUnit.SECONDS));
+        assertTrue("events delivered out of order", orderSink.ordered);
+        dispatcher.removeSink(Counted.class);
+    }
+
+    @Test
+    public void postShardedPreservesDeviceOrder() throws Exception {
+        dispatcher.setDispatchShards(4);
+
+        List<Event> posted = new ArrayList<>();
+        List<Event> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(200);
+        dispatcher.addSink(DeviceEvent.class, event -> {
+            delivered.add(event);
+            latch.countDown();
+        });
+        dispatcher.addSink(LinkEvent.class, event -> {
+            delivered.add(event);
+            latch.countDown();
+        });
+        for (int i = 0; i < 100; i++) {
+            posted.add(new DeviceEvent(DeviceEvent.Type.DEVICE_ADDED, device("d" + i)));
+            posted.add(new LinkEvent(LinkEvent.Type.LINK_ADDED, link("d" + i, 1, "e" + i, 1)));
+        }
+        posted.forEach(dispatcher::post);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < posted.size(); i += 2) {
+            assertTrue("link event delivered before its device event",
+                       delivered.indexOf(posted.get(i)) < delivered.indexOf(posted.get(i + 1)));
+        }
+        dispatcher.removeSink(LinkEvent.class);
+        dispatcher.removeSink(DeviceEvent.class);
+    }
+
+    @Test
+    public void postFromSinkToFullQueue() throws Exception {
+        dispatcher.setDispatchQueueCapacity(1);
+
+        OrderSink orderSink = new OrderSink();
+        orderSink.latch = new CountDownLatch(11);
+        dispatcher.addSink(Counted.class, event -> {
+            if (event.sequence == 0) {
+                // Overflows the queue of the loop running this sink.
+                for (int i = 1; i <= 10; i++) {
+                    dispatcher.post(new Counted(event.subject(), i));
+                }
+            }
+            orderSink.process(event);
+        });
+        long start = System.currentTimeMillis();
+        dispatcher.post(new Counted("a", 0));
+        assertTrue(orderSink.latch.await(5, TimeUnit.SECONDS));
+        assertTrue("sink blocked posting to its own loop",
+                   System.currentTimeMillis() - start < 1000);
+        assertTrue("events delivered out of order", orderSink.ordered);
+        dispatcher.removeSink(Counted.class);
+    }
+
     private void validate(Sink sink, String... strings) {
         int i = 0;
         assertEquals("incorrect event count", strings.length, sink.subjects.size());
@@ -141,6 +221,30 @@ public class CoreEventDispatcherTest {
         }
     }
 
+    private static class Counted extends Thing {
+        final int sequence;
+
+        protected Counted(String subject, int sequence) {
+            super(subject);
+            this.sequence = sequence;
+        }
+    }
+
+    private static class OrderSink implements EventSink<Counted> {
+        final Map<String, Integer> last = new ConcurrentHashMap<>();
+        volatile boolean ordered = true;
+        CountDownLatch latch;
+
+        @Override
+        public void process(Counted event) {
+            Integer previous = last.put(event.subject(), event.sequence);
+            if (previous != null && previous >= event.sequence) {
+                ordered = false;
+            }
+            latch.countDown();
+        }
+    }
+
     private static class TooLongEvent extends AbstractEvent<Type, String> {
         protected TooLongEvent(String subject) {
             super(Type.FOO, subject);
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.net.flowobjective.impl;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flowobjective.DefaultNextObjective;
+import org.onosproject.net.flowobjective.NextObjective;
+import org.onosproject.net.flowobjective.Objective;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.junit.TestTools.assertAfter;
+import static org.onlab.util.Tools.groupedThreads;
+
+/**
+ * Unit tests for the striped flow objective queues.
+ */
+public class ObjectiveQueueTest {
+    private static final ApplicationId APP_ID = new DefaultApplicationId(1, "org.onosproject.test");
+    private static final int KEYS = 100;
+    private static final int OBJECTIVES_PER_KEY = 1000;
+
+    private final ObjectiveQueue<Integer> queue = new ObjectiveQueue<>(16, "test", null);
+
+    private static NextObjective next(int id) {
+        return DefaultNextObjective.builder().withId(id)
+                .withType(NextObjective.Type.SIMPLE).fromApp(APP_ID)
+                .addTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .add();
+    }
+
+    /**
+     * Tests that only the head of a queue is executed.
+     */
+    @Test
+    public void fifo() {
+        NextObjective first = next(1);
+        NextObjective second = next(2);
+        NextObjective other = next(3);
+
+        assertTrue(queue.enqueue(1, first));
+        assertFalse(queue.enqueue(1, second));
+        assertTrue(queue.enqueue(2, other));
+        assertEquals(3, queue.depth());
+        assertEquals(Lists.newArrayList(first, second), queue.snapshot().get(1));
+
+        assertSame(second, queue.dequeue(1, first));
+        assertNull(queue.dequeue(1, second));
+        assertNull(queue.dequeue(2, other));
+        assertEquals(0, queue.depth());
+        assertTrue(queue.snapshot().isEmpty());
+    }
+
+    /**
+     * Tests that objectives complete in order per key while keys are driven concurrently,
+     * as by a pipeliner completing every objective as soon as it is executed.
+     */
+    @Test
+    public void concurrentKeys() throws InterruptedException {
+        Map<Integer, List<Objective>> executed = new ConcurrentHashMap<>();
+        ExecutorService pipeliner = newFixedThreadPool(4, groupedThreads("onos/test", "pipeliner-%d"));
+        ExecutorService producers = newFixedThreadPool(4, groupedThreads("onos/test", "producer-%d"));
+
+        for (int key = 0; key < KEYS; key++) {
+            int k = key;
+            executed.put(k, Lists.newCopyOnWriteArrayList());
+            producers.execute(() -> {
+                for (int i = 0; i < OBJECTIVES_PER_KEY; i++) {
+                    NextObjective obj = next(k * OBJECTIVES_PER_KEY + i);
+                    if (queue.enqueue(k, obj)) {
+                        pipeliner.execute(new Completion(k, obj, executed, pipeliner));
+                    }
+                }
+            });
+        }
+        producers.shutdown();
+        assertTrue(producers.awaitTermination(30, TimeUnit.SECONDS));
+
+        for (int key = 0; key < KEYS; key++) {
+            List<Objective> objectives = executed.get(key);
+            int k = key;
+            assertAfter(10000, () ->
+                    assertEquals(OBJECTIVES_PER_KEY, executed.get(k).size()));
+            for (int i = 0; i < OBJECTIVES_PER_KEY; i++) {
+                assertEquals(k * OBJECTIVES_PER_KEY + i, objectives.get(i).id());
+            }
+        }
+        assertAfter(1000, () -> assertEquals(0, queue.depth()));
+        pipeliner.shutdown();
+    }
+
+    private final class Completion implements Runnable {
+        private final int key;
+        private final Objective obj;
+        private final Map<Integer, List<Objective>> executed;
+        private final ExecutorService pipeliner;
+
+        private Completion(int key, Objective obj, Map<Integer, List<Objective>> executed,
+                           ExecutorService pipeliner) {
+            this.key = key;
+            this.obj = obj;
+            this.executed = executed;
+            this.pipeliner = pipeliner;
+        }
+
+        @Override
+        public void run() {
+            executed.get(key).add(obj);
+            Objective next = queue.dequeue(key, obj);
+            if (next != null) {
+                pipeliner.execute(new Completion(key, next, executed, pipeliner));
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.NetworkResource;
+import org.onosproject.net.intent.AbstractIntentTest;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentData;
+import org.onosproject.net.intent.IntentState;
+import org.onosproject.net.intent.IntentTestsMocks.MockIntent;
+import org.onosproject.net.intent.IntentTestsMocks.MockTimestamp;
+import org.onosproject.net.intent.Key;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for the admission of concurrent intent batches.
+ */
+public class IntentBatchPipelineTest extends AbstractIntentTest {
+
+    private static final DeviceId D1 = did("d1");
+    private static final DeviceId D2 = did("d2");
+
+    private Intent intent1;
+    private Intent intent2;
+    private Intent intent3;
+    private IntentBatchPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        intent1 = new MockIntent(1L, ImmutableList.<NetworkResource>of(D1));
+        intent2 = new MockIntent(2L, ImmutableList.<NetworkResource>of(D2));
+        intent3 = new MockIntent(3L, ImmutableList.<NetworkResource>of(D1, D2));
+        pipeline = new IntentBatchPipeline(data -> IntentBatchPipeline.devices(data.intent()));
+    }
+
+    private static IntentData data(Intent intent, int version) {
+        return new IntentData(intent, IntentState.INSTALL_REQ, new MockTimestamp(version));
+    }
+
+    /**
+     * Tests that operations sharing intent keys or devices with batches in
+     * flight are deferred until these complete.
+     */
+    @Test
+    public void conflictingOperations() {
+        IntentBatchPipeline.Batch first = pipeline.admit(ImmutableList.of(data(intent1, 1)));
+        assertEquals(1, first.operations().size());
+
+        // intent2 is independent; intent3 shares D1 with the first batch
+        IntentBatchPipeline.Batch second = pipeline.admit(ImmutableList.of(data(intent2, 1), data(intent3, 1)));
+        assertEquals(ImmutableList.of(intent2.key()), keys(second.operations()));
+        assertEquals(1, pipeline.deferredCount());
+
+        // An operation on an intent in flight is deferred as well
+        IntentBatchPipeline.Batch third = pipeline.admit(ImmutableList.of(data(intent1, 2)));
+        assertTrue(third.operations().isEmpty());
+        assertEquals(2, pipeline.deferredCount());
+
+        List<IntentData> retry = pipeline.complete(first);
+        assertEquals(ImmutableSet.of(intent1.key(), intent3.key()), ImmutableSet.copyOf(keys(retry)));
+        assertEquals(0, pipeline.deferredCount());
+
+        // D2 is still used by the second batch
+        IntentBatchPipeline.Batch fourth = pipeline.admit(retry);
+        assertEquals(ImmutableList.of(intent1.key()), keys(fourth.operations()));
+        assertEquals(1, pipeline.deferredCount());
+
+        pipeline.complete(second);
+        pipeline.complete(fourth);
+        assertEquals(1, pipeline.admit(ImmutableList.of(data(intent3, 2))).operations().size());
+    }
+
+    private static List<Key> keys(List<IntentData> operations) {
+        ImmutableList.Builder<Key> keys = ImmutableList.builder();
+        operations.forEach(data -> keys.add(data.key()));
+        return keys.build();
+    }
+}
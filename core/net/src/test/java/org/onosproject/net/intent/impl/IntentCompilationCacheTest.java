@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.intent.AbstractIntentTest;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentTestsMocks.MockIntent;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the intent compilation cache.
+ */
+public class IntentCompilationCacheTest extends AbstractIntentTest {
+
+    private Intent intent;
+    private List<Intent> installables;
+    private IntentCompilationCache cache;
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        intent = new MockIntent(1L);
+        installables = ImmutableList.of(new MockIntent(2L));
+        cache = new IntentCompilationCache();
+    }
+
+    /**
+     * Tests that installables are reused only while they are installed.
+     */
+    @Test
+    public void reuse() {
+        cache.put(intent, installables, cache.generation());
+        assertEquals(installables, cache.get(intent, installables));
+
+        // Not yet installed, or replaced by other installables
+        assertNull(cache.get(intent, ImmutableList.of()));
+        assertNull(cache.get(intent, ImmutableList.of(new MockIntent(3L))));
+
+        // Other intents are never served from the entry
+        assertNull(cache.get(new MockIntent(4L), installables));
+    }
+
+    /**
+     * Tests invalidation, including while a compilation is in progress.
+     */
+    @Test
+    public void invalidation() {
+        cache.put(intent, installables, cache.generation());
+        cache.invalidate(ImmutableList.of(intent.key()));
+        assertNull(cache.get(intent, installables));
+
+        long generation = cache.generation();
+        cache.invalidateAll();
+        cache.put(intent, installables, generation);
+        assertNull(cache.get(intent, installables));
+        assertEquals(0, cache.size());
+    }
+}
@@ -26,12 +26,15 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.onlab.osgi.ComponentContextAdapter;
 import org.onosproject.TestApplicationId;
 import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.common.event.impl.TestEventDispatcher;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.impl.TestCoreManager;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.FilteredConnectPoint;
 import org.onosproject.net.NetworkResource;
 import org.onosproject.net.flow.FlowRuleOperations;
 import org.onosproject.net.flow.FlowRuleOperationsContext;
@@ -54,16 +57,21 @@ import org.onosproject.net.intent.IntentState;
 import org.onosproject.net.intent.Key;
 import org.onosproject.net.intent.ObjectiveTrackerService;
 import org.onosproject.net.intent.PathIntent;
+import org.onosproject.net.intent.PointToPointIntent;
 import org.onosproject.net.intent.TopologyChangeDelegate;
+import org.onosproject.net.intent.constraint.PartialFailureConstraint;
 import org.onosproject.store.trivial.SimpleIntentStore;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -183,6 +191,16 @@ public class IntentManagerTest {
         }
     }
 
+    private static class CountingIntentCompiler implements IntentCompiler<PointToPointIntent> {
+        private final AtomicInteger compilations = new AtomicInteger();
+
+        @Override
+        public List<Intent> compile(PointToPointIntent intent, List<Intent> installable) {
+            compilations.incrementAndGet();
+            return Lists.newArrayList(new MockInstallableIntent());
+        }
+    }
+
     private static class TestIntentCompilerMultipleFlows implements IntentCompiler<MockIntent> {
         @Override
         public List<Intent> compile(MockIntent intent, List<Intent> installable) {
@@ -740,4 +758,50 @@ public class IntentManagerTest {
         // in this test, there will still be flows abandoned on the data plane
         //assertThat(flowRuleService.getFlowRuleCount(), is(0));
     }
+
+    /**
+     * Tests that the compilation cache serves unchanged intents, and that
+     * intents allowing partial failure are recompiled whenever all failed
+     * intents are, even when none of the resources they use changed.
+     */
+    @Test
+    public void compilationCache() {
+        manager.modified(new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, String> props = new Hashtable<>();
+                props.put("compilationCache", "true");
+                return props;
+            }
+        });
+        CountingIntentCompiler countingCompiler = new CountingIntentCompiler();
+        extensionService.registerCompiler(PointToPointIntent.class, countingCompiler);
+        flowRuleService.setFuture(true);
+
+        PointToPointIntent intent = PointToPointIntent.builder()
+                .appId(APPID)
+                .filteredIngressPoint(new FilteredConnectPoint(ConnectPoint.deviceConnectPoint("s1/1")))
+                .filteredEgressPoint(new FilteredConnectPoint(ConnectPoint.deviceConnectPoint("s1/2")))
+                .constraints(Collections.singletonList(new PartialFailureConstraint()))
+                .build();
+
+        listener.setLatch(1, Type.INSTALLED);
+        service.submit(intent);
+        listener.await(Type.INSTALLED);
+        assertEquals(1, countingCompiler.compilations.get());
+
+        // Resubmitting the unchanged intent reuses its installables
+        listener.setLatch(1, Type.INSTALLED);
+        service.submit(intent);
+        listener.await(Type.INSTALLED);
+        assertEquals(1, countingCompiler.compilations.get());
+
+        // Links of other intents changed, and failed intents are recompiled
+        listener.setLatch(1, Type.INSTALLED);
+        trackerService.delegate.triggerCompile(Collections.singleton(Key.of("other", APPID)), true);
+        listener.await(Type.INSTALLED);
+        assertEquals(2, countingCompiler.compilations.get());
+
+        extensionService.unregisterCompiler(PointToPointIntent.class);
+    }
 }
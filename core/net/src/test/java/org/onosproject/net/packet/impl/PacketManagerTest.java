@@ -20,16 +20,20 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.osgi.ComponentContextAdapter;
+import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.cluster.ClusterServiceAdapter;
 import org.onosproject.common.event.impl.TestEventDispatcher;
 import org.onosproject.core.CoreServiceAdapter;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.event.TestListener;
 import org.onosproject.net.AnnotationKeys;
+import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultAnnotations;
 import org.onosproject.net.DefaultDevice;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
 import org.onosproject.net.config.NetworkConfigServiceAdapter;
 import org.onosproject.net.device.DeviceServiceAdapter;
 import org.onosproject.net.driver.AbstractHandlerBehaviour;
@@ -38,19 +42,39 @@ import org.onosproject.net.driver.DriverRegistry;
 import org.onosproject.net.driver.impl.DriverManager;
 import org.onosproject.net.driver.impl.DriverRegistryManager;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.packet.DefaultInboundPacket;
 import org.onosproject.net.packet.DefaultOutboundPacket;
+import org.onosproject.net.packet.DefaultPacketContext;
 import org.onosproject.net.packet.OutboundPacket;
+import org.onosproject.net.packet.PacketProcessor;
 import org.onosproject.net.packet.PacketProgrammable;
+import org.onosproject.net.packet.PacketProvider;
 import org.onosproject.net.packet.PacketProviderRegistry;
+import org.onosproject.net.packet.PacketProviderService;
 import org.onosproject.net.pi.PiPipeconfServiceAdapter;
+import org.onosproject.net.provider.AbstractProvider;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.net.provider.TestProvider;
 import org.onosproject.store.trivial.SimplePacketStore;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.onosproject.net.NetTestTools.injectEventDispatcher;
 
 /**
@@ -86,6 +110,7 @@ public class PacketManagerTest {
         mgr.deviceService = new TestDeviceService();
         mgr.deviceService = new TestDeviceService();
         mgr.coreService = new TestCoreService();
+        mgr.cfgService = new ComponentConfigAdapter();
         providerRegistry = mgr;
         mgr.activate();
 
@@ -108,6 +133,70 @@ public class PacketManagerTest {
         assertEquals("Packet not emitted correctly", packet, emittedPacket);
     }
 
+    /**
+     * Tests that the pipelined mode processes packets on the workers while
+     * preserving the order of the packets of each flow.
+     */
+    @Test
+    public void pipelinedProcessing() throws InterruptedException {
+        mgr.modified(new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, String> props = new Hashtable<>();
+                props.put("pipelineWorkers", "4");
+                return props;
+            }
+        });
+
+        int count = 100;
+        CountDownLatch latch = new CountDownLatch(2 * count);
+        Map<ConnectPoint, List<Long>> received = new ConcurrentHashMap<>();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        mgr.addProcessor(context -> {
+            threads.add(Thread.currentThread());
+            received.computeIfAbsent(context.inPacket().receivedFrom(),
+                                     k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(context.time());
+            latch.countDown();
+        }, PacketProcessor.director(1));
+
+        PacketProviderService providerService = providerRegistry.register(new TestPacketProvider());
+        ConnectPoint cp1 = new ConnectPoint(FOO_DID, PortNumber.portNumber(1));
+        ConnectPoint cp2 = new ConnectPoint(FOO_DID, PortNumber.portNumber(2));
+        for (long i = 0; i < count; i++) {
+            providerService.processPacket(new TestPacketContext(i, cp1));
+            providerService.processPacket(new TestPacketContext(i, cp2));
+        }
+
+        assertTrue("packets not processed", latch.await(5, TimeUnit.SECONDS));
+        assertFalse("packets processed on the provider thread", threads.contains(Thread.currentThread()));
+        List<Long> expected = LongStream.range(0, count).boxed().collect(Collectors.toList());
+        assertEquals("incorrect order", expected, received.get(cp1));
+        assertEquals("incorrect order", expected, received.get(cp2));
+        mgr.deactivate();
+    }
+
+    private static class TestPacketProvider extends AbstractProvider implements PacketProvider {
+        TestPacketProvider() {
+            super(FOO_PID);
+        }
+
+        @Override
+        public void emit(OutboundPacket packet) {
+        }
+    }
+
+    private static class TestPacketContext extends DefaultPacketContext {
+        TestPacketContext(long time, ConnectPoint receivedFrom) {
+            super(time, new DefaultInboundPacket(receivedFrom, null, ByteBuffer.allocate(0)),
+                  null, false);
+        }
+
+        @Override
+        public void send() {
+        }
+    }
+
     private static class TestDeviceService extends DeviceServiceAdapter {
         @Override
         public int getDeviceCount() {
@@ -173,4 +173,40 @@ public class PiFlowRuleTranslatorImplTest {
                    defActionEntry.matchKey(), is(equalTo(PiMatchKey.EMPTY)));
         assertThat("Priority should not be set", !defActionEntry.priority().isPresent());
     }
+
+    @Test
+    public void testTranslateWithShapeCache() throws Exception {
+        ApplicationId appId = new DefaultApplicationId(1, "test");
+        PiFlowRuleShapeCache shapeCache = new PiFlowRuleShapeCache();
+
+        for (int i = 0; i < 10; i++) {
+            TrafficSelector selector = DefaultTrafficSelector.builder()
+                    .matchInPort(PortNumber.portNumber(random.nextInt(65)))
+                    .matchEthDst(MacAddress.valueOf(random.nextLong()))
+                    .build();
+            TrafficTreatment treatment = DefaultTrafficTreatment.builder()
+                    .setOutput(PortNumber.portNumber(random.nextInt(65)))
+                    .build();
+            FlowRule rule = DefaultFlowRule.builder()
+                    .forDevice(DEVICE_ID)
+                    .forTable(INGRESS_TABLE0_CONTROL_TABLE0)
+                    .fromApp(appId)
+                    .withSelector(selector)
+                    .withTreatment(treatment)
+                    .makePermanent()
+                    .withPriority(random.nextInt(100))
+                    .build();
+
+            // Rules differing only in values must be translated as without cache
+            assertThat("Cached translation differs from uncached one",
+                       PiFlowRuleTranslatorImpl.translate(rule, pipeconf, null, shapeCache),
+                       is(equalTo(PiFlowRuleTranslatorImpl.translate(rule, pipeconf, null))));
+        }
+        assertThat("Rules of the same shape should share a cache entry",
+                   shapeCache.size(pipeconf.id()), is(equalTo(1)));
+
+        shapeCache.invalidate(pipeconf.id());
+        assertThat("Cache should be empty after invalidation",
+                   shapeCache.size(pipeconf.id()), is(equalTo(0)));
+    }
 }
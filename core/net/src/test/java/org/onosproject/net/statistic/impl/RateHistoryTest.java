@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.net.statistic.impl;
+
+import org.junit.Test;
+import org.onosproject.net.statistic.RateSample;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.statistic.StatisticHistoryService.Resolution.MINUTE;
+import static org.onosproject.net.statistic.StatisticHistoryService.Resolution.RAW;
+
+/**
+ * Test of the rate history of a port or flow.
+ */
+public class RateHistoryTest {
+
+    private static final long MINUTE_MILLIS = MINUTE.periodMillis();
+
+    @Test
+    public void counters() {
+        RateHistory history = new RateHistory(4);
+        history.addCounters(0, 0, 0, 0, 0);
+        assertTrue(history.samples(RAW).isEmpty());
+
+        history.addCounters(1000, 1000, 10, 3000, 30);
+        history.addCounters(2000, 1500, 15, 3000, 30);
+        // Counters reset, e.g. on device reboot
+        history.addCounters(3000, 100, 1, 0, 0);
+        history.addCounters(5000, 300, 3, 0, 0);
+
+        List<RateSample> samples = history.samples(RAW);
+        assertEquals(3, samples.size());
+        assertEquals(new RateSample(1000, 1000, 10, 3000, 30), samples.get(0));
+        assertEquals(new RateSample(2000, 500, 5, 0, 0), samples.get(1));
+        assertEquals(new RateSample(5000, 100, 1, 0, 0), samples.get(2));
+    }
+
+    @Test
+    public void ring() {
+        RateHistory history = new RateHistory(3);
+        for (int i = 1; i <= 5; i++) {
+            history.addRate(i * 1000, i, i, i, i);
+        }
+        List<RateSample> samples = history.samples(RAW);
+        assertEquals(3, samples.size());
+        assertEquals(3000, samples.get(0).time());
+        assertEquals(5000, samples.get(2).time());
+    }
+
+    @Test
+    public void downsampling() {
+        RateHistory history = new RateHistory(10);
+        history.addRate(0, 10, 1, 40, 4);
+        history.addRate(MINUTE_MILLIS / 2, 30, 3, 0, 0);
+        assertTrue(history.samples(MINUTE).isEmpty());
+
+        history.addRate(MINUTE_MILLIS, 100, 10, 200, 20);
+        history.addRate(2 * MINUTE_MILLIS + 1, 0, 0, 0, 0);
+
+        List<RateSample> samples = history.samples(MINUTE);
+        assertEquals(2, samples.size());
+        assertEquals(new RateSample(0, 20, 2, 20, 2), samples.get(0));
+        assertEquals(new RateSample(MINUTE_MILLIS, 100, 10, 200, 20), samples.get(1));
+    }
+
+    @Test
+    public void footprint() {
+        assertTrue(RateHistory.footprint(200) > 2 * RateHistory.footprint(100) - 1024);
+        assertTrue(RateHistory.footprint(100) > RateHistory.footprint(10));
+    }
+}
@@ -64,4 +64,7 @@ public final class OsgiPropertyConstants {
 
     public static final String LINK_WEIGHT_FUNCTION = "linkWeightFunction";
     public static final String LINK_WEIGHT_FUNCTION_DEFAULT = "hopCount";
+
+    public static final String INCREMENTAL_TOPOLOGY = "incrementalTopology";
+    public static final boolean INCREMENTAL_TOPOLOGY_DEFAULT = false; //full recompute on intra-cluster link changes
 }
@@ -27,6 +27,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -41,6 +42,7 @@ import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.net.flow.TableId;
 import org.onosproject.store.LogicalTimestamp;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.MessageSubject;
@@ -68,6 +70,7 @@ public class DeviceFlowTable {
         .register(BucketId.class)
         .register(FlowBucket.class)
         .register(FlowBucketDigest.class)
+        .register(FlowBucketDelta.class)
         .register(LogicalTimestamp.class)
         .register(Timestamped.class)
         .build());
@@ -103,6 +106,7 @@ public class DeviceFlowTable {
 
     private final Map<Integer, Queue<Runnable>> flowTasks = Maps.newConcurrentMap();
     private final Map<Integer, FlowBucket> flowBuckets = Maps.newConcurrentMap();
+    private final FlowEntryIndex index = new FlowEntryIndex();
 
     private final Map<BackupOperation, LogicalTimestamp> lastBackupTimes = Maps.newConcurrentMap();
     private final Set<BackupOperation> inFlightUpdates = Sets.newConcurrentHashSet();
@@ -125,7 +129,7 @@ public class DeviceFlowTable {
         this.replicaInfo = lifecycleManager.getReplicaInfo();
 
         for (int i = 0; i < NUM_BUCKETS; i++) {
-            flowBuckets.put(i, new FlowBucket(new BucketId(deviceId, i)));
+            flowBuckets.put(i, new FlowBucket(new BucketId(deviceId, i), index));
         }
 
         getDigestsSubject = new MessageSubject(String.format("flow-store-%s-digests", deviceId));
@@ -187,9 +191,7 @@ public class DeviceFlowTable {
      * @return the flow entry for the given rule
      */
     public StoredFlowEntry getFlowEntry(FlowRule rule) {
-        return getBucket(rule.id())
-            .getFlowEntries(rule.id())
-            .get(rule);
+        return getBucket(rule.id()).getFlowEntry(rule);
     }
 
     /**
@@ -198,10 +200,55 @@ public class DeviceFlowTable {
      * @return the set of flow entries in the table
      */
     public Set<FlowEntry> getFlowEntries() {
-        return flowBuckets.values().stream()
-            .flatMap(bucket -> bucket.getFlowBucket().values().stream())
-            .flatMap(entries -> entries.values().stream())
-            .collect(Collectors.toSet());
+        Set<FlowEntry> flowEntries = Sets.newHashSetWithExpectedSize(count());
+        flowBuckets.values().forEach(bucket -> flowEntries.addAll(bucket.getFlowEntries()));
+        return flowEntries;
+    }
+
+    /**
+     * Returns the set of flow entries of the given application in the table.
+     *
+     * @param appId the application identifier
+     * @return the set of flow entries of the given application
+     */
+    public Set<FlowEntry> getFlowEntriesByAppId(short appId) {
+        return index.getByAppId(appId);
+    }
+
+    /**
+     * Returns the set of flow entries of the given application and group in the table.
+     *
+     * @param appId   the application identifier
+     * @param groupId the group identifier
+     * @return the set of flow entries of the given application and group
+     */
+    public Set<FlowEntry> getFlowEntriesByGroupId(short appId, short groupId) {
+        return index.getByGroupKey(FlowEntryIndex.groupKey(appId, groupId));
+    }
+
+    /**
+     * Returns the set of flow entries in the given table.
+     *
+     * @param tableId the table identifier
+     * @return the set of flow entries in the given table
+     */
+    public Set<FlowEntry> getFlowEntries(TableId tableId) {
+        Set<FlowEntry> flowEntries = Sets.newHashSet();
+        forEachFlowEntry(entry -> {
+            if (tableId.equals(entry.table())) {
+                flowEntries.add(entry);
+            }
+        });
+        return flowEntries;
+    }
+
+    /**
+     * Performs the given action for each flow entry in the table.
+     *
+     * @param action the action to perform
+     */
+    public void forEachFlowEntry(Consumer<? super StoredFlowEntry> action) {
+        flowBuckets.values().forEach(bucket -> bucket.getFlowEntries().forEach(action));
     }
 
     /**
@@ -294,6 +341,42 @@ public class DeviceFlowTable {
         return runInTerm(rule.id(), (bucket, term) -> bucket.update(rule, function, term, clock));
     }
 
+    /**
+     * Applies the given update function to each of the given rules.
+     * <p>
+     * Rules are grouped by bucket and each bucket is updated as a single batch.
+     *
+     * @param rules    the rules to update
+     * @param function the update function to apply to each rule and its stored entry
+     * @param <R>      the rule type
+     * @param <T>      the result type
+     * @return a future to be completed with the non-null update results, keyed by rule
+     */
+    public <R extends FlowRule, T> CompletableFuture<Map<R, T>> update(
+        Collection<R> rules, BiFunction<R, StoredFlowEntry, T> function) {
+        Map<Integer, List<R>> bucketRules = Maps.newHashMap();
+        rules.forEach(rule -> bucketRules.computeIfAbsent(bucket(rule.id()), b -> new LinkedList<>()).add(rule));
+
+        List<CompletableFuture<Map<R, T>>> futures = bucketRules.entrySet()
+            .stream()
+            .map(entry -> this.<Map<R, T>>runInTerm(entry.getKey(), (bucket, term) -> {
+                Map<R, T> results = Maps.newHashMap();
+                for (R rule : entry.getValue()) {
+                    T result = bucket.update(rule, stored -> function.apply(rule, stored), term, clock);
+                    if (result != null) {
+                        results.put(rule, result);
+                    }
+                }
+                return results;
+            }))
+            .collect(Collectors.toList());
+        return Tools.allOf(futures).thenApply(results -> {
+            Map<R, T> merged = Maps.newHashMap();
+            results.forEach(merged::putAll);
+            return merged;
+        });
+    }
+
     /**
      * Removes an entry from the table.
      *
@@ -313,12 +396,24 @@ public class DeviceFlowTable {
      * @return a future to be completed with the function result once it has been run
      */
     private <T> CompletableFuture<T> runInTerm(FlowId flowId, BiFunction<FlowBucket, Long, T> function) {
+        return runInTerm(bucket(flowId), function);
+    }
+
+    /**
+     * Runs the given function in the current term.
+     *
+     * @param bucketNumber the bucket in which to run the function
+     * @param function     the function to execute in the current term
+     * @param <T>          the future result type
+     * @return a future to be completed with the function result once it has been run
+     */
+    private <T> CompletableFuture<T> runInTerm(int bucketNumber, BiFunction<FlowBucket, Long, T> function) {
         DeviceReplicaInfo replicaInfo = lifecycleManager.getReplicaInfo();
         if (!replicaInfo.isMaster(localNodeId)) {
             return Tools.exceptionalFuture(new IllegalStateException());
         }
 
-        FlowBucket bucket = getBucket(flowId);
+        FlowBucket bucket = getBucket(bucketNumber);
 
         // If the master's term is not currently active (has not been synchronized with prior replicas), enqueue
         // the change to be executed once the master has been synchronized.
@@ -418,7 +513,7 @@ public class DeviceFlowTable {
         BackupOperation operation = new BackupOperation(nodeId, bucket.bucketId().bucket());
         if (startBackup(operation, timestamp)) {
             CompletableFuture<Void> future = new CompletableFuture<>();
-            backup(bucket, nodeId).whenCompleteAsync((succeeded, error) -> {
+            backup(bucket, nodeId, lastBackupTimes.get(operation)).whenCompleteAsync((succeeded, error) -> {
                 if (error != null) {
                     log.debug("Backup operation {} failed", operation, error);
                     failBackup(operation);
@@ -486,43 +581,56 @@ public class DeviceFlowTable {
 
     /**
      * Performs the given backup operation.
+     * <p>
+     * Only the hash ranges of the bucket which changed since the last successful backup to the node are sent.
+     * If the bucket has never been backed up to the node, all ranges are sent.
      *
      * @param bucket the bucket to backup
      * @param nodeId the node to which to backup the bucket
+     * @param since  the timestamp of the last successful backup to the node or {@code null}
      * @return a future to be completed with a boolean indicating whether the backup operation was successful
      */
-    private CompletableFuture<Boolean> backup(FlowBucket bucket, NodeId nodeId) {
+    private CompletableFuture<Boolean> backup(FlowBucket bucket, NodeId nodeId, LogicalTimestamp since) {
+        return backup(bucket.getDelta(since), nodeId);
+    }
+
+    /**
+     * Sends the given bucket delta to the given node.
+     *
+     * @param delta  the bucket delta to send
+     * @param nodeId the node to which to send the delta
+     * @return a future to be completed with a boolean indicating whether the backup operation was successful
+     */
+    private CompletableFuture<Boolean> backup(FlowBucketDelta delta, NodeId nodeId) {
         if (log.isDebugEnabled()) {
-            log.debug("Backing up {} flow entries in bucket {} to {}", bucket.count(), bucket.bucketId(), nodeId);
-        }
-        synchronized (bucket) {
-            return sendWithTimestamp(bucket, backupSubject, nodeId);
+            log.debug("Backing up {} flow entries in bucket {} to {}",
+                delta.entries().size(), delta.bucketId(), nodeId);
         }
+        return sendWithTimestamp(delta, backupSubject, nodeId);
     }
 
     /**
      * Handles a flow bucket backup from a remote peer.
      *
-     * @param flowBucket the flow bucket to back up
-     * @return the set of flows that could not be backed up
+     * @param delta the flow bucket delta to back up
+     * @return indicates whether the backup was accepted
      */
-    private boolean onBackup(FlowBucket flowBucket) {
+    private boolean onBackup(FlowBucketDelta delta) {
         if (log.isDebugEnabled()) {
             log.debug("{} - Received {} flow entries in bucket {} to backup",
-                deviceId, flowBucket.count(), flowBucket.bucketId());
+                deviceId, delta.entries().size(), delta.bucketId());
         }
 
         try {
             DeviceReplicaInfo replicaInfo = lifecycleManager.getReplicaInfo();
 
             // If the backup is for a different term, reject the request until we learn about the new term.
-            if (flowBucket.term() != replicaInfo.term()) {
-                log.debug("Term mismatch for device {}: {} != {}", deviceId, flowBucket.term(), replicaInfo);
+            if (delta.term() != replicaInfo.term()) {
+                log.debug("Term mismatch for device {}: {} != {}", deviceId, delta.term(), replicaInfo);
                 return false;
             }
 
-            flowBuckets.compute(flowBucket.bucketId().bucket(),
-                (id, bucket) -> flowBucket.getDigest().isNewerThan(bucket.getDigest()) ? flowBucket : bucket);
+            applyDelta(delta);
             return true;
         } catch (Exception e) {
             log.warn("Failure processing backup request", e);
@@ -530,6 +638,20 @@ public class DeviceFlowTable {
         }
     }
 
+    /**
+     * Applies the given delta to the local bucket if the local bucket is not more recent than the delta.
+     *
+     * @param delta the delta to apply
+     */
+    private void applyDelta(FlowBucketDelta delta) {
+        FlowBucket bucket = getBucket(delta.bucketId().bucket());
+        synchronized (bucket) {
+            if (delta.term() > bucket.term() || !bucket.timestamp().isNewerThan(delta.timestamp())) {
+                bucket.applyDelta(delta);
+            }
+        }
+    }
+
     /**
      * Runs the anti-entropy protocol.
      */
@@ -552,19 +674,50 @@ public class DeviceFlowTable {
     private void runAntiEntropy(NodeId nodeId) {
         backupAll().whenCompleteAsync((result, error) -> {
             requestDigests(nodeId).thenAcceptAsync((digests) -> {
-                // Compute a set of missing BucketIds based on digest times and send them back to the master.
+                // Compare the remote digests' range hashes with the local buckets and repair only the ranges
+                // in which the backup differs from the master.
                 for (FlowBucketDigest remoteDigest : digests) {
                     FlowBucket localBucket = getBucket(remoteDigest.bucket());
-                    if (localBucket.getDigest().isNewerThan(remoteDigest)) {
+                    FlowBucketDigest localDigest = localBucket.getDigest();
+                    if (localDigest.isNewerThan(remoteDigest) || localDigest.hash() != remoteDigest.hash()) {
                         log.debug("Detected missing flow entries on node {} in bucket {}/{}",
                                 nodeId, deviceId, remoteDigest.bucket());
-                        resetBackup(new BackupOperation(nodeId, remoteDigest.bucket()));
+                        repairBucket(localBucket, remoteDigest, nodeId);
                     }
                 }
             }, executor);
         }, executor);
     }
 
+    /**
+     * Repairs the hash ranges of the given bucket which differ on the given node.
+     *
+     * @param bucket       the local bucket to repair on the remote node
+     * @param remoteDigest the remote node's digest for the bucket
+     * @param nodeId       the node on which to repair the bucket
+     */
+    private void repairBucket(FlowBucket bucket, FlowBucketDigest remoteDigest, NodeId nodeId) {
+        DeviceReplicaInfo replicaInfo = lifecycleManager.getReplicaInfo();
+        if (bucket.term() != replicaInfo.term() || !replicaInfo.isMaster(localNodeId)) {
+            return;
+        }
+
+        BackupOperation operation = new BackupOperation(nodeId, remoteDigest.bucket());
+        LogicalTimestamp timestamp = bucket.timestamp();
+        if (!inFlightUpdates.add(operation)) {
+            return;
+        }
+        backup(bucket.getDelta(remoteDigest), nodeId).whenCompleteAsync((succeeded, error) -> {
+            if (error == null && succeeded) {
+                succeedBackup(operation, timestamp);
+            } else {
+                // Reset the backup to ensure the complete bucket is sent on the next backup.
+                failBackup(operation);
+                resetBackup(operation);
+            }
+        }, executor);
+    }
+
     /**
      * Sends a digest request to the given node.
      *
@@ -661,39 +814,39 @@ public class DeviceFlowTable {
 
     /**
      * Synchronizes the given bucket on the given node.
+     * <p>
+     * The local digest is sent with the request, and only the hash ranges in which the remote bucket differs from
+     * the local bucket are returned.
      *
      * @param nodeId       the node on which to synchronize the bucket
      * @param bucketNumber the bucket to synchronize
      * @return a future to be completed once the bucket has been synchronizes
      */
     private CompletableFuture<Void> syncBucketOn(NodeId nodeId, int bucketNumber) {
-        return requestBucket(nodeId, bucketNumber)
-            .thenAcceptAsync(flowBucket -> {
-                flowBuckets.compute(flowBucket.bucketId().bucket(),
-                    (id, bucket) -> flowBucket.getDigest().isNewerThan(bucket.getDigest()) ? flowBucket : bucket);
-            }, executor);
+        return requestBucket(nodeId, getDigest(bucketNumber))
+            .thenAcceptAsync(this::applyDelta, executor);
     }
 
     /**
-     * Requests the given bucket from the given node.
+     * Requests the ranges of the given bucket which differ from the given digest from the given node.
      *
      * @param nodeId the node from which to request the bucket
-     * @param bucket the bucket to request
-     * @return a future to be completed with the bucket
+     * @param digest the local digest for the bucket to request
+     * @return a future to be completed with the bucket delta
      */
-    private CompletableFuture<FlowBucket> requestBucket(NodeId nodeId, int bucket) {
-        log.debug("Requesting flow bucket {} from {}", bucket, nodeId);
-        return sendWithTimestamp(bucket, getBucketSubject, nodeId);
+    private CompletableFuture<FlowBucketDelta> requestBucket(NodeId nodeId, FlowBucketDigest digest) {
+        log.debug("Requesting flow bucket {} from {}", digest.bucket(), nodeId);
+        return sendWithTimestamp(digest, getBucketSubject, nodeId);
     }
 
     /**
      * Handles a flow bucket request.
      *
-     * @param bucketId the bucket number
-     * @return the flow bucket
+     * @param digest the requesting node's digest for the bucket
+     * @return the ranges of the flow bucket which differ from the given digest
      */
-    private FlowBucket onGetBucket(int bucketId) {
-        return flowBuckets.get(bucketId).copy();
+    private FlowBucketDelta onGetBucket(FlowBucketDigest digest) {
+        return flowBuckets.get(digest.bucket()).getDelta(digest);
     }
 
     /**
@@ -704,6 +857,8 @@ public class DeviceFlowTable {
     private void activateMaster(DeviceReplicaInfo replicaInfo) {
         if (replicaInfo.isMaster(localNodeId)) {
             log.debug("Activating term {} for device {}", replicaInfo.term(), deviceId);
+            // Backups from a prior term may have diverged, so send complete buckets on the first backup of the term.
+            lastBackupTimes.clear();
             for (int i = 0; i < NUM_BUCKETS; i++) {
                 activateBucket(i);
             }
@@ -16,6 +16,7 @@
 package org.onosproject.store.flow.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -26,6 +27,7 @@ import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.NodeId;
+import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.event.AbstractListenerManager;
@@ -41,10 +43,12 @@ import org.onosproject.net.flow.FlowEntry.FlowEntryState;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleEvent;
 import org.onosproject.net.flow.FlowRuleEvent.Type;
+import org.onosproject.net.flow.FlowRuleReconciliation;
 import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.net.flow.FlowRuleStore;
 import org.onosproject.net.flow.FlowRuleStoreDelegate;
 import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.net.flow.TableId;
 import org.onosproject.net.flow.TableStatisticsEntry;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry.FlowRuleOperation;
@@ -56,6 +60,7 @@ import org.onosproject.store.AbstractStore;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.ClusterMessage;
 import org.onosproject.store.cluster.messaging.ClusterMessageHandler;
+import org.onosproject.store.cluster.messaging.MessageSubject;
 import org.onosproject.store.flow.ReplicaInfo;
 import org.onosproject.store.flow.ReplicaInfoEvent;
 import org.onosproject.store.flow.ReplicaInfoEventListener;
@@ -69,6 +74,7 @@ import org.onosproject.store.service.EventuallyConsistentMapListener;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.StorageException;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.WallClockTimestamp;
 import org.osgi.service.component.ComponentContext;
@@ -80,6 +86,7 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashSet;
@@ -88,11 +95,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -105,6 +115,10 @@ import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.APP
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.FLOW_TABLE_BACKUP;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_DEVICE_FLOW_COUNT;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_DEVICE_FLOW_ENTRIES;
+import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_DEVICE_FLOW_ENTRIES_BY_APP;
+import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_DEVICE_FLOW_ENTRIES_BY_GROUP;
+import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_DEVICE_FLOW_ENTRIES_BY_TABLE;
+import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_FLOW_ENTRIES_BY_APP;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_FLOW_ENTRY;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.REMOTE_APPLY_COMPLETED;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.REMOVE_FLOW_ENTRY;
@@ -330,6 +344,26 @@ public class ECFlowRuleStore
             GET_FLOW_ENTRY, serializer::decode, flowTable::getFlowEntry, serializer::encode, executor);
         clusterCommunicator.addSubscriber(
             GET_DEVICE_FLOW_ENTRIES, serializer::decode, flowTable::getFlowEntries, serializer::encode, executor);
+        clusterCommunicator.<Pair<DeviceId, Short>, Set<FlowEntry>>addSubscriber(
+            GET_DEVICE_FLOW_ENTRIES_BY_APP,
+            serializer::decode,
+            p -> flowTable.getFlowEntriesByAppId(p.getLeft(), p.getRight()),
+            serializer::encode, executor);
+        clusterCommunicator.<Pair<List<DeviceId>, Short>, Set<FlowEntry>>addSubscriber(
+            GET_FLOW_ENTRIES_BY_APP,
+            serializer::decode,
+            p -> flowTable.getFlowEntriesByAppId(p.getLeft(), p.getRight()),
+            serializer::encode, executor);
+        clusterCommunicator.<Pair<DeviceId, Pair<Short, Short>>, Set<FlowEntry>>addSubscriber(
+            GET_DEVICE_FLOW_ENTRIES_BY_GROUP,
+            serializer::decode,
+            p -> flowTable.getFlowEntriesByGroupId(p.getLeft(), p.getRight().getLeft(), p.getRight().getRight()),
+            serializer::encode, executor);
+        clusterCommunicator.<Pair<DeviceId, TableId>, Set<FlowEntry>>addSubscriber(
+            GET_DEVICE_FLOW_ENTRIES_BY_TABLE,
+            serializer::decode,
+            p -> flowTable.getFlowEntries(p.getLeft(), p.getRight()),
+            serializer::encode, executor);
         clusterCommunicator.<Pair<DeviceId, FlowEntryState>, Integer>addSubscriber(
             GET_DEVICE_FLOW_COUNT,
             serializer::decode,
@@ -342,6 +376,10 @@ public class ECFlowRuleStore
     private void unregisterMessageHandlers() {
         clusterCommunicator.removeSubscriber(REMOVE_FLOW_ENTRY);
         clusterCommunicator.removeSubscriber(GET_DEVICE_FLOW_ENTRIES);
+        clusterCommunicator.removeSubscriber(GET_DEVICE_FLOW_ENTRIES_BY_APP);
+        clusterCommunicator.removeSubscriber(GET_FLOW_ENTRIES_BY_APP);
+        clusterCommunicator.removeSubscriber(GET_DEVICE_FLOW_ENTRIES_BY_GROUP);
+        clusterCommunicator.removeSubscriber(GET_DEVICE_FLOW_ENTRIES_BY_TABLE);
         clusterCommunicator.removeSubscriber(GET_DEVICE_FLOW_COUNT);
         clusterCommunicator.removeSubscriber(GET_FLOW_ENTRY);
         clusterCommunicator.removeSubscriber(APPLY_BATCH_FLOWS);
@@ -442,6 +480,101 @@ public class ECFlowRuleStore
             Collections.emptyList());
     }
 
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByAppId(DeviceId deviceId, ApplicationId appId) {
+        return queryFlowEntries(deviceId,
+            () -> flowTable.getFlowEntriesByAppId(deviceId, appId.id()),
+            ImmutablePair.of(deviceId, appId.id()),
+            GET_DEVICE_FLOW_ENTRIES_BY_APP);
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByAppId(Iterable<DeviceId> deviceIds, ApplicationId appId) {
+        Map<NodeId, List<DeviceId>> devicesByMaster = Maps.newHashMap();
+        for (DeviceId deviceId : deviceIds) {
+            NodeId master = mastershipService.getMasterFor(deviceId);
+            if (master == null) {
+                log.debug("Failed to query flow entries: No master for {}", deviceId);
+            } else {
+                devicesByMaster.computeIfAbsent(master, n -> Lists.newArrayList()).add(deviceId);
+            }
+        }
+
+        // Sends a single query to each remote master for all of its devices.
+        List<DeviceId> localDevices = devicesByMaster.remove(local);
+        List<CompletableFuture<Set<FlowEntry>>> futures = devicesByMaster.entrySet().stream()
+            .map(entry -> clusterCommunicator.<Pair<List<DeviceId>, Short>, Set<FlowEntry>>sendAndReceive(
+                ImmutablePair.of(entry.getValue(), appId.id()),
+                GET_FLOW_ENTRIES_BY_APP,
+                serializer::encode,
+                serializer::decode,
+                entry.getKey()))
+            .collect(Collectors.toList());
+
+        List<FlowEntry> flowEntries = Lists.newArrayList();
+        if (localDevices != null) {
+            flowEntries.addAll(flowTable.getFlowEntriesByAppId(localDevices, appId.id()));
+        }
+        futures.forEach(future -> flowEntries.addAll(Tools.futureGetOrElse(future,
+            FLOW_RULE_STORE_TIMEOUT_MILLIS,
+            TimeUnit.MILLISECONDS,
+            Collections.emptySet())));
+        return flowEntries;
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByGroupId(DeviceId deviceId, ApplicationId appId, short groupId) {
+        return queryFlowEntries(deviceId,
+            () -> flowTable.getFlowEntriesByGroupId(deviceId, appId.id(), groupId),
+            ImmutablePair.of(deviceId, ImmutablePair.of(appId.id(), groupId)),
+            GET_DEVICE_FLOW_ENTRIES_BY_GROUP);
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntries(DeviceId deviceId, TableId tableId) {
+        return queryFlowEntries(deviceId,
+            () -> flowTable.getFlowEntries(deviceId, tableId),
+            ImmutablePair.of(deviceId, tableId),
+            GET_DEVICE_FLOW_ENTRIES_BY_TABLE);
+    }
+
+    /**
+     * Queries the flow entries of the given device on the device master.
+     * <p>
+     * Only the matching entries are transferred when the master is a remote node.
+     *
+     * @param deviceId the device for which to query flow entries
+     * @param localQuery the query to run when this node is the master
+     * @param query the query to forward when another node is the master
+     * @param subject the message subject for the forwarded query
+     * @return the matching flow entries
+     */
+    private Iterable<FlowEntry> queryFlowEntries(
+        DeviceId deviceId, Supplier<Set<FlowEntry>> localQuery, Object query, MessageSubject subject) {
+        NodeId master = mastershipService.getMasterFor(deviceId);
+
+        if (master == null) {
+            log.debug("Failed to query flow entries: No master for {}", deviceId);
+            return Collections.emptyList();
+        }
+
+        if (Objects.equals(local, master)) {
+            return localQuery.get();
+        }
+
+        log.trace("Forwarding flow entries query to {}, which is the primary (master) for device {}",
+            master, deviceId);
+
+        return Tools.futureGetOrElse(clusterCommunicator.sendAndReceive(query,
+            subject,
+            serializer::encode,
+            serializer::decode,
+            master),
+            FLOW_RULE_STORE_TIMEOUT_MILLIS,
+            TimeUnit.MILLISECONDS,
+            Collections.emptyList());
+    }
+
     @Override
     public void storeFlowRule(FlowRule rule) {
         storeBatch(new FlowRuleBatchOperation(
@@ -585,18 +718,7 @@ public class ECFlowRuleStore
     }
 
     private FlowRuleEvent addOrUpdateFlowRuleInternal(FlowEntry rule) {
-        FlowRuleEvent event = flowTable.update(rule, stored -> {
-            stored.setBytes(rule.bytes());
-            stored.setLife(rule.life(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
-            stored.setLiveType(rule.liveType());
-            stored.setPackets(rule.packets());
-            stored.setLastSeen();
-            if (stored.state() == FlowEntryState.PENDING_ADD) {
-                stored.setState(FlowEntryState.ADDED);
-                return new FlowRuleEvent(Type.RULE_ADDED, rule);
-            }
-            return new FlowRuleEvent(Type.RULE_UPDATED, rule);
-        });
+        FlowRuleEvent event = flowTable.update(rule, stored -> updateStoredFlowEntry(rule, stored));
         if (event != null) {
             return event;
         }
@@ -607,6 +729,58 @@ public class ECFlowRuleStore
         return null;
     }
 
+    /**
+     * Updates the given stored entry with the statistics of the given rule.
+     *
+     * @param rule   the rule reported by the device
+     * @param stored the stored entry to update
+     * @return the resulting flow rule event
+     */
+    private FlowRuleEvent updateStoredFlowEntry(FlowEntry rule, StoredFlowEntry stored) {
+        stored.setBytes(rule.bytes());
+        stored.setLife(rule.life(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        stored.setLiveType(rule.liveType());
+        stored.setPackets(rule.packets());
+        stored.setLastSeen();
+        if (stored.state() == FlowEntryState.PENDING_ADD) {
+            stored.setState(FlowEntryState.ADDED);
+            return new FlowRuleEvent(Type.RULE_ADDED, rule);
+        }
+        return new FlowRuleEvent(Type.RULE_UPDATED, rule);
+    }
+
+    @Override
+    public List<FlowRuleEvent> addOrUpdateFlowRules(DeviceId deviceId, Collection<FlowEntry> rules) {
+        NodeId master = mastershipService.getMasterFor(deviceId);
+        if (!Objects.equals(local, master)) {
+            log.warn("Tried to update {} FlowRules state for {},"
+                + " while the Node was not the master.", rules.size(), deviceId);
+            return Collections.emptyList();
+        }
+
+        Map<FlowEntry, FlowRuleEvent> events = flowTable.update(deviceId, rules, this::updateStoredFlowEntry);
+        if (events == null) {
+            // The batch may still be applied: do not add the rules again, let the caller retry them.
+            throw new StorageException.Timeout();
+        }
+        if (events.size() < rules.size()) {
+            // Add any rules which were concurrently removed from the store, as a single update would.
+            rules.stream()
+                .filter(rule -> !events.containsKey(rule))
+                .forEach(flowTable::add);
+        }
+        return Lists.newArrayList(events.values());
+    }
+
+    @Override
+    public FlowRuleReconciliation reconcileFlowEntries(DeviceId deviceId, Iterable<FlowEntry> reported) {
+        NodeId master = mastershipService.getMasterFor(deviceId);
+        if (!Objects.equals(local, master)) {
+            return FlowRuleStore.super.reconcileFlowEntries(deviceId, reported);
+        }
+        return flowTable.reconcile(deviceId, reported);
+    }
+
     @Override
     public FlowRuleEvent removeFlowRule(FlowEntry rule) {
         final DeviceId deviceId = rule.deviceId();
@@ -807,6 +981,84 @@ public class ECFlowRuleStore
             return getFlowTable(deviceId).getFlowEntries();
         }
 
+        /**
+         * Returns the set of flow entries of the given application for the given device.
+         *
+         * @param deviceId the device for which to lookup flow entries
+         * @param appId the application identifier
+         * @return the set of flow entries of the given application
+         */
+        public Set<FlowEntry> getFlowEntriesByAppId(DeviceId deviceId, short appId) {
+            return getFlowTable(deviceId).getFlowEntriesByAppId(appId);
+        }
+
+        /**
+         * Returns the set of flow entries of the given application for the given devices.
+         *
+         * @param deviceIds the devices for which to lookup flow entries
+         * @param appId the application identifier
+         * @return the set of flow entries of the given application
+         */
+        public Set<FlowEntry> getFlowEntriesByAppId(Collection<DeviceId> deviceIds, short appId) {
+            Set<FlowEntry> flowEntries = new HashSet<>();
+            deviceIds.forEach(deviceId -> flowEntries.addAll(getFlowTable(deviceId).getFlowEntriesByAppId(appId)));
+            return flowEntries;
+        }
+
+        /**
+         * Returns the set of flow entries of the given application and group for the given device.
+         *
+         * @param deviceId the device for which to lookup flow entries
+         * @param appId the application identifier
+         * @param groupId the group identifier
+         * @return the set of flow entries of the given application and group
+         */
+        public Set<FlowEntry> getFlowEntriesByGroupId(DeviceId deviceId, short appId, short groupId) {
+            return getFlowTable(deviceId).getFlowEntriesByGroupId(appId, groupId);
+        }
+
+        /**
+         * Returns the set of flow entries in the given table of the given device.
+         *
+         * @param deviceId the device for which to lookup flow entries
+         * @param tableId the table identifier
+         * @return the set of flow entries in the given table
+         */
+        public Set<FlowEntry> getFlowEntries(DeviceId deviceId, TableId tableId) {
+            return getFlowTable(deviceId).getFlowEntries(tableId);
+        }
+
+        /**
+         * Reconciles the given reported entries against the local flow table for the given device.
+         *
+         * @param deviceId the device for which to reconcile flow entries
+         * @param reported the flow entries reported by the device
+         * @return the reconciliation result
+         */
+        public FlowRuleReconciliation reconcile(DeviceId deviceId, Iterable<FlowEntry> reported) {
+            DeviceFlowTable flowTable = getFlowTable(deviceId);
+            return FlowRuleReconciliation.reconcile(deviceId, reported, flowTable::getFlowEntry,
+                                                    flowTable::forEachFlowEntry);
+        }
+
+        /**
+         * Applies the given update function to each of the given rules as a batch.
+         *
+         * @param deviceId the device for which to update the rules
+         * @param rules    the rules to update
+         * @param function the update function to apply
+         * @return the update results for the rules which were updated, or {@code null} if the batch did not
+         * complete in time
+         */
+        public <T> Map<FlowEntry, T> update(
+            DeviceId deviceId, Collection<FlowEntry> rules, BiFunction<FlowEntry, StoredFlowEntry, T> function) {
+            return Tools.futureGetOrElse(
+                getFlowTable(deviceId).update(rules, function),
+                FLOW_RULE_STORE_TIMEOUT_MILLIS,
+                TimeUnit.MILLISECONDS,
+                null);
+        }
+
         /**
          * Adds the given flow rule.
          *
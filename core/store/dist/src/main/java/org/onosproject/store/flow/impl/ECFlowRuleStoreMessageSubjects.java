@@ -32,6 +32,18 @@ public final class ECFlowRuleStoreMessageSubjects {
     public static final MessageSubject GET_DEVICE_FLOW_ENTRIES
         = new MessageSubject("peer-forward-get-device-flow-entries");
 
+    public static final MessageSubject GET_DEVICE_FLOW_ENTRIES_BY_APP
+        = new MessageSubject("peer-forward-get-device-flow-entries-by-app");
+
+    public static final MessageSubject GET_FLOW_ENTRIES_BY_APP
+        = new MessageSubject("peer-forward-get-flow-entries-by-app");
+
+    public static final MessageSubject GET_DEVICE_FLOW_ENTRIES_BY_GROUP
+        = new MessageSubject("peer-forward-get-device-flow-entries-by-group");
+
+    public static final MessageSubject GET_DEVICE_FLOW_ENTRIES_BY_TABLE
+        = new MessageSubject("peer-forward-get-device-flow-entries-by-table");
+
     public static final MessageSubject GET_DEVICE_FLOW_COUNT
         = new MessageSubject("peer-forward-get-flow-count");
 
@@ -15,12 +15,14 @@
  */
 package org.onosproject.store.flow.impl;
 
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
-import com.google.common.collect.Maps;
+import com.google.common.collect.Lists;
+
 import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.FlowId;
@@ -35,27 +37,92 @@ import org.slf4j.LoggerFactory;
  * <p>
  * The bucket is mutable. When changes are made to the bucket, the term and timestamp in which the change
  * occurred is recorded for ordering changes.
+ * <p>
+ * Flows are held in a {@link FlowEntryTable} keyed by the primitive flow identifier. Mutations are serialized on
+ * the bucket monitor while reads proceed without locking.
+ * <p>
+ * Flows are further partitioned into a fixed number of hash ranges. For each range the bucket incrementally
+ * maintains a content hash and the logical time of the last change, which allows replicas to exchange only
+ * the ranges that changed since the last backup or that differ between them. Flow statistics are not part of
+ * the content hash and do not mark a range as changed: they are replicated lazily, along with the next change
+ * of their range or the next full backup.
+ * <p>
+ * Buckets owned by a device flow table share a {@link FlowEntryIndex} which is kept up to date by every mutation of
+ * the bucket. Buckets received from peers are not indexed.
  */
 public class FlowBucket {
     private static final Logger LOGGER = LoggerFactory.getLogger(FlowBucket.class);
+    static final int NUM_RANGES = 16;
+    private static final int RANGE_BITS = Integer.numberOfTrailingZeros(NUM_RANGES);
     private final BucketId bucketId;
     private volatile long term;
     private volatile LogicalTimestamp timestamp;
-    private final Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBucket;
+    private final FlowEntryTable flowBucket;
+    private final long[] rangeHashes;
+    private final long[] rangeTimes;
+    private final transient FlowEntryIndex index;
 
     FlowBucket(BucketId bucketId) {
-        this(bucketId, 0, new LogicalTimestamp(0), Maps.newConcurrentMap());
+        this(bucketId, null);
+    }
+
+    FlowBucket(BucketId bucketId, FlowEntryIndex index) {
+        this(bucketId, 0, new LogicalTimestamp(0), new FlowEntryTable(), new long[NUM_RANGES], new long[NUM_RANGES],
+            index);
     }
 
     private FlowBucket(
         BucketId bucketId,
         long term,
         LogicalTimestamp timestamp,
-        Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBucket) {
+        FlowEntryTable flowBucket,
+        long[] rangeHashes,
+        long[] rangeTimes,
+        FlowEntryIndex index) {
         this.bucketId = bucketId;
         this.term = term;
         this.timestamp = timestamp;
         this.flowBucket = flowBucket;
+        this.rangeHashes = rangeHashes;
+        this.rangeTimes = rangeTimes;
+        this.index = index;
+    }
+
+    /**
+     * Mixes the bits of the given value.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Returns the hash range for the given flow identifier.
+     *
+     * @param flowId the flow identifier
+     * @return the hash range for the given flow identifier
+     */
+    static int range(FlowId flowId) {
+        return (int) (mix(flowId.value()) >>> (Long.SIZE - RANGE_BITS));
+    }
+
+    /**
+     * Returns the content hash of the given entry.
+     * <p>
+     * The hash covers the flow identifier and state only, not the flow statistics which change on every poll.
+     * It is computed only from primitive values to ensure all nodes compute the same hash for the same entry.
+     *
+     * @param entry the entry for which to compute the hash
+     * @return the content hash of the entry
+     */
+    static long hash(FlowEntry entry) {
+        long hash = entry.id().value();
+        hash = hash * 31 + entry.state().ordinal();
+        return mix(hash);
     }
 
     /**
@@ -90,28 +157,29 @@ public class FlowBucket {
      *
      * @return the digest for the bucket
      */
-    public FlowBucketDigest getDigest() {
-        return new FlowBucketDigest(bucketId().bucket(), term(), timestamp());
+    public synchronized FlowBucketDigest getDigest() {
+        return new FlowBucketDigest(bucketId().bucket(), term(), timestamp(), rangeHashes.clone());
     }
 
     /**
      * Returns the flow entries in the bucket.
+     * <p>
+     * The returned collection is an unmodifiable, weakly consistent view of the bucket.
      *
      * @return the flow entries in the bucket
      */
-    public Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> getFlowBucket() {
-        return flowBucket;
+    public Collection<StoredFlowEntry> getFlowEntries() {
+        return Collections.unmodifiableCollection(flowBucket);
     }
 
     /**
-     * Returns the flow entries for the given flow.
+     * Returns the stored flow entry for the given rule.
      *
-     * @param flowId the flow identifier
-     * @return the flows for the given flow ID
+     * @param rule the rule for which to return the flow entry
+     * @return the stored flow entry or {@code null} if the rule is not stored in the bucket
      */
-    public Map<StoredFlowEntry, StoredFlowEntry> getFlowEntries(FlowId flowId) {
-        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(flowId);
-        return flowEntries != null ? flowEntries : flowBucket.computeIfAbsent(flowId, id -> Maps.newConcurrentMap());
+    public StoredFlowEntry getFlowEntry(FlowRule rule) {
+        return flowBucket.get(rule);
     }
 
     /**
@@ -120,26 +188,97 @@ public class FlowBucket {
      * @return the number of flows in the bucket
      */
     public int count() {
-        return flowBucket.values()
-            .stream()
-            .mapToInt(entry -> entry.values().size())
-            .sum();
+        return flowBucket.size();
+    }
+
+    /**
+     * Returns a delta containing the hash ranges changed after the given timestamp.
+     *
+     * @param since the timestamp after which to return changes, or {@code null} to return all ranges
+     * @return a delta containing the ranges changed after the given timestamp
+     */
+    synchronized FlowBucketDelta getDelta(LogicalTimestamp since) {
+        int ranges = 0;
+        for (int i = 0; i < NUM_RANGES; i++) {
+            if (since == null || rangeTimes[i] > since.value()) {
+                ranges |= 1 << i;
+            }
+        }
+        return getDelta(ranges);
+    }
+
+    /**
+     * Returns a delta containing the hash ranges which differ from the given digest.
+     *
+     * @param digest the digest against which to compare the bucket, or {@code null} to return all ranges
+     * @return a delta containing the ranges which differ from the given digest
+     */
+    synchronized FlowBucketDelta getDelta(FlowBucketDigest digest) {
+        return getDelta(getDigest().differingRanges(digest));
+    }
+
+    /**
+     * Returns a delta containing the given hash ranges.
+     */
+    private FlowBucketDelta getDelta(int ranges) {
+        List<StoredFlowEntry> entries = Lists.newArrayList();
+        if (ranges != 0) {
+            for (StoredFlowEntry entry : flowBucket) {
+                if ((ranges & (1 << range(entry.id()))) != 0) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return new FlowBucketDelta(bucketId, term, timestamp, ranges, entries);
     }
 
     /**
-     * Returns a new copy of the flow bucket.
+     * Applies the given delta to the bucket, replacing the contents of the delta's hash ranges.
      *
-     * @return a new copy of the flow bucket
+     * @param delta the delta to apply
      */
-    FlowBucket copy() {
-        return new FlowBucket(
-            bucketId,
-            term,
-            timestamp,
-            flowBucket.entrySet()
-                .stream()
-                .map(e -> Maps.immutableEntry(e.getKey(), Maps.newHashMap(e.getValue())))
-                .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue())));
+    synchronized void applyDelta(FlowBucketDelta delta) {
+        int ranges = delta.ranges();
+        if (ranges != 0) {
+            List<StoredFlowEntry> removed = Lists.newArrayList();
+            for (StoredFlowEntry entry : flowBucket) {
+                if ((ranges & (1 << range(entry.id()))) != 0) {
+                    removed.add(entry);
+                }
+            }
+            removed.forEach(flowBucket::remove);
+            removed.forEach(this::unindex);
+            for (int i = 0; i < NUM_RANGES; i++) {
+                if ((ranges & (1 << i)) != 0) {
+                    rangeHashes[i] = 0;
+                    rangeTimes[i] = delta.timestamp().value();
+                }
+            }
+            for (StoredFlowEntry entry : delta.entries()) {
+                index(flowBucket.put(entry), entry);
+                rangeHashes[range(entry.id())] ^= hash(entry);
+            }
+        }
+        this.term = delta.term();
+        this.timestamp = delta.timestamp();
+    }
+
+    /**
+     * Records the replacement of the given previous entry, if any, in the index.
+     */
+    private void index(StoredFlowEntry previous, StoredFlowEntry entry) {
+        if (index != null) {
+            index.replace(previous, entry);
+        }
+    }
+
+    /**
+     * Records the removal of the given entry in the index.
+     */
+    private void unindex(StoredFlowEntry entry) {
+        if (index != null) {
+            index.remove(entry);
+        }
     }
 
     /**
@@ -150,6 +289,31 @@ public class FlowBucket {
         this.timestamp = timestamp;
     }
 
+    /**
+     * Records an update to the given hash range of the bucket.
+     */
+    private void recordUpdate(int range, long term, LogicalTimestamp timestamp) {
+        rangeTimes[range] = timestamp.value();
+        recordUpdate(term, timestamp);
+    }
+
+    /**
+     * Records a change to the content hash of the given range.
+     */
+    private void updateHash(int range, long oldHash, long newHash) {
+        rangeHashes[range] ^= oldHash ^ newHash;
+    }
+
+    /**
+     * Records the replacement of an entry of the given range, unless only its statistics changed.
+     */
+    private void recordChange(int range, long oldHash, long newHash, long term, LogicalClock clock) {
+        if (oldHash != newHash) {
+            updateHash(range, oldHash, newHash);
+            recordUpdate(range, term, clock.getTimestamp());
+        }
+    }
+
     /**
      * Adds the given flow rule to the bucket.
      *
@@ -157,13 +321,12 @@ public class FlowBucket {
      * @param term  the term in which the change occurred
      * @param clock the logical clock
      */
-    public void add(FlowEntry rule, long term, LogicalClock clock) {
-        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(rule.id());
-        if (flowEntries == null) {
-            flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
-        }
-        flowEntries.put((StoredFlowEntry) rule, (StoredFlowEntry) rule);
-        recordUpdate(term, clock.getTimestamp());
+    public synchronized void add(FlowEntry rule, long term, LogicalClock clock) {
+        int range = range(rule.id());
+        StoredFlowEntry previous = flowBucket.put((StoredFlowEntry) rule);
+        index(previous, (StoredFlowEntry) rule);
+        updateHash(range, previous != null ? hash(previous) : 0, hash(rule));
+        recordUpdate(range, term, clock.getTimestamp());
     }
 
     /**
@@ -173,27 +336,22 @@ public class FlowBucket {
      * @param term  the term in which the change occurred
      * @param clock the logical clock
      */
-    public void update(FlowEntry rule, long term, LogicalClock clock) {
-        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(rule.id());
-        if (flowEntries == null) {
-            flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
+    public synchronized void update(FlowEntry rule, long term, LogicalClock clock) {
+        StoredFlowEntry stored = flowBucket.get(rule);
+        if (stored == null) {
+            return;
         }
-        flowEntries.computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
-            if (rule instanceof DefaultFlowEntry) {
-                DefaultFlowEntry updated = (DefaultFlowEntry) rule;
-                if (stored instanceof DefaultFlowEntry) {
-                    DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
-                    if (updated.created() >= storedEntry.created()) {
-                        recordUpdate(term, clock.getTimestamp());
-                        return updated;
-                    } else {
-                        LOGGER.debug("Trying to update more recent flow entry {} (stored: {})", updated, stored);
-                        return stored;
-                    }
-                }
+        if (rule instanceof DefaultFlowEntry && stored instanceof DefaultFlowEntry) {
+            DefaultFlowEntry updated = (DefaultFlowEntry) rule;
+            DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
+            if (updated.created() >= storedEntry.created()) {
+                int range = range(rule.id());
+                index(flowBucket.put(updated), updated);
+                recordChange(range, hash(stored), hash(updated), term, clock);
+            } else {
+                LOGGER.debug("Trying to update more recent flow entry {} (stored: {})", updated, stored);
             }
-            return stored;
-        });
+        }
     }
 
     /**
@@ -206,24 +364,21 @@ public class FlowBucket {
      * @param <T>      the result type
      * @return the update result or {@code null} if the rule was not updated
      */
-    public <T> T update(FlowRule rule, Function<StoredFlowEntry, T> function, long term, LogicalClock clock) {
-        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(rule.id());
-        if (flowEntries == null) {
-            flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
-        }
-
-        AtomicReference<T> resultRef = new AtomicReference<>();
-        flowEntries.computeIfPresent(new DefaultFlowEntry(rule), (k, stored) -> {
-            if (stored != null) {
-                T result = function.apply(stored);
-                if (result != null) {
-                    recordUpdate(term, clock.getTimestamp());
-                    resultRef.set(result);
-                }
+    public synchronized <T> T update(FlowRule rule, Function<StoredFlowEntry, T> function, long term,
+                                     LogicalClock clock) {
+        StoredFlowEntry stored = flowBucket.get(rule);
+        if (stored != null) {
+            // The function may mutate the stored entry in place, so rehash it after applying the function.
+            int range = range(rule.id());
+            long oldHash = hash(stored);
+            T result = function.apply(stored);
+            if (result != null) {
+                recordChange(range, oldHash, hash(stored), term, clock);
+                return result;
             }
-            return stored;
-        });
-        return resultRef.get();
+            updateHash(range, oldHash, hash(stored));
+        }
+        return null;
     }
 
     /**
@@ -234,48 +389,46 @@ public class FlowBucket {
      * @param clock the logical clock
      * @return the removed flow entry
      */
-    public FlowEntry remove(FlowEntry rule, long term, LogicalClock clock) {
-        final AtomicReference<FlowEntry> removedRule = new AtomicReference<>();
-        flowBucket.computeIfPresent(rule.id(), (flowId, flowEntries) -> {
-            flowEntries.computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
-                if (rule instanceof DefaultFlowEntry) {
-                    DefaultFlowEntry toRemove = (DefaultFlowEntry) rule;
-                    if (stored instanceof DefaultFlowEntry) {
-                        DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
-                        if (toRemove.created() < storedEntry.created()) {
-                            LOGGER.debug("Trying to remove more recent flow entry {} (stored: {})", toRemove, stored);
-                            // the key is not updated, removedRule remains null
-                            return stored;
-                        }
-                    }
-                }
-                removedRule.set(stored);
-                return null;
-            });
-            return flowEntries.isEmpty() ? null : flowEntries;
-        });
-
-        if (removedRule.get() != null) {
-            recordUpdate(term, clock.getTimestamp());
-            return removedRule.get();
-        } else {
+    public synchronized FlowEntry remove(FlowEntry rule, long term, LogicalClock clock) {
+        StoredFlowEntry stored = flowBucket.get(rule);
+        if (stored == null) {
             return null;
         }
+        if (rule instanceof DefaultFlowEntry && stored instanceof DefaultFlowEntry) {
+            DefaultFlowEntry toRemove = (DefaultFlowEntry) rule;
+            DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
+            if (toRemove.created() < storedEntry.created()) {
+                LOGGER.debug("Trying to remove more recent flow entry {} (stored: {})", toRemove, stored);
+                return null;
+            }
+        }
+        int range = range(rule.id());
+        flowBucket.remove(stored);
+        unindex(stored);
+        updateHash(range, hash(stored), 0);
+        recordUpdate(range, term, clock.getTimestamp());
+        return stored;
     }
 
     /**
      * Purges the bucket.
      */
-    public void purge() {
+    public synchronized void purge() {
+        flowBucket.forEach(this::unindex);
         flowBucket.clear();
+        Arrays.fill(rangeHashes, 0);
+        Arrays.fill(rangeTimes, 0);
     }
 
     /**
      * Clears the bucket.
      */
-    public void clear() {
+    public synchronized void clear() {
         term = 0;
         timestamp = new LogicalTimestamp(0);
+        flowBucket.forEach(this::unindex);
         flowBucket.clear();
+        Arrays.fill(rangeHashes, 0);
+        Arrays.fill(rangeTimes, 0);
     }
 }
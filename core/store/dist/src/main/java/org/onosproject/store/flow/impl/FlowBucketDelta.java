@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.store.LogicalTimestamp;
+
+/**
+ * Partial contents of a flow bucket.
+ * <p>
+ * A delta carries the complete contents of a subset of the bucket's hash ranges. Applying the delta to a replica
+ * replaces the contents of those ranges, leaving all other ranges untouched.
+ */
+public class FlowBucketDelta {
+    private final BucketId bucketId;
+    private final long term;
+    private final LogicalTimestamp timestamp;
+    private final int ranges;
+    private final List<StoredFlowEntry> entries;
+
+    FlowBucketDelta(
+        BucketId bucketId,
+        long term,
+        LogicalTimestamp timestamp,
+        int ranges,
+        List<StoredFlowEntry> entries) {
+        this.bucketId = bucketId;
+        this.term = term;
+        this.timestamp = timestamp;
+        this.ranges = ranges;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the flow bucket identifier.
+     *
+     * @return the flow bucket identifier
+     */
+    public BucketId bucketId() {
+        return bucketId;
+    }
+
+    /**
+     * Returns the term of the bucket from which the delta was taken.
+     *
+     * @return the bucket term
+     */
+    public long term() {
+        return term;
+    }
+
+    /**
+     * Returns the timestamp of the bucket from which the delta was taken.
+     *
+     * @return the bucket timestamp
+     */
+    public LogicalTimestamp timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the bit mask of hash ranges carried by the delta.
+     *
+     * @return the bit mask of hash ranges carried by the delta
+     */
+    public int ranges() {
+        return ranges;
+    }
+
+    /**
+     * Returns the flow entries in the delta's hash ranges.
+     *
+     * @return the flow entries in the delta's hash ranges
+     */
+    public List<StoredFlowEntry> entries() {
+        return entries;
+    }
+
+    /**
+     * Returns a boolean indicating whether the delta carries no hash ranges.
+     *
+     * @return indicates whether the delta is empty
+     */
+    public boolean isEmpty() {
+        return ranges == 0;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("bucketId", bucketId)
+            .add("term", term)
+            .add("timestamp", timestamp)
+            .add("ranges", Integer.toBinaryString(ranges))
+            .add("entries", entries.size())
+            .toString();
+    }
+}
@@ -21,16 +21,22 @@ import org.onosproject.store.LogicalTimestamp;
 
 /**
  * Flow bucket digest.
+ * <p>
+ * In addition to the bucket's term and timestamp, the digest carries a content hash for each of the bucket's hash
+ * ranges. The range hashes form a shallow hash tree which allows replicas to identify the ranges in which their
+ * contents differ without exchanging the flow entries themselves.
  */
 public class FlowBucketDigest {
     private final int bucket;
     private final long term;
     private final LogicalTimestamp timestamp;
+    private final long[] rangeHashes;
 
-    FlowBucketDigest(int bucket, long term, LogicalTimestamp timestamp) {
+    FlowBucketDigest(int bucket, long term, LogicalTimestamp timestamp, long[] rangeHashes) {
         this.bucket = bucket;
         this.term = term;
         this.timestamp = timestamp;
+        this.rangeHashes = rangeHashes;
     }
 
     /**
@@ -60,6 +66,44 @@ public class FlowBucketDigest {
         return timestamp;
     }
 
+    /**
+     * Returns the content hashes for each of the bucket's hash ranges.
+     *
+     * @return the content hashes for each of the bucket's hash ranges
+     */
+    public long[] rangeHashes() {
+        return rangeHashes;
+    }
+
+    /**
+     * Returns the content hash of the bucket.
+     *
+     * @return the content hash of the bucket
+     */
+    public long hash() {
+        long hash = 0;
+        for (long rangeHash : rangeHashes) {
+            hash ^= rangeHash;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns a bit mask of the hash ranges in which this digest differs from the given digest.
+     *
+     * @param digest the digest to compare
+     * @return a bit mask of the ranges in which the digests differ
+     */
+    public int differingRanges(FlowBucketDigest digest) {
+        int ranges = 0;
+        for (int i = 0; i < rangeHashes.length; i++) {
+            if (digest == null || digest.rangeHashes[i] != rangeHashes[i]) {
+                ranges |= 1 << i;
+            }
+        }
+        return ranges;
+    }
+
     /**
      * Returns a boolean indicating whether this digest is newer than the given digest.
      *
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+/**
+ * Secondary index over the flow entries of a device flow table.
+ * <p>
+ * Entries are indexed by application identifier only, with a single set of entries per application; lookups by
+ * group key filter the entries of the application. The group key is the upper half of the flow identifier, which
+ * holds the application and group identifiers of flows built from an application. The index is updated by the {@link FlowBucket}s of the table while holding the bucket monitor, so the index of an
+ * entry always reflects the latest version of the entry stored in its bucket. Since the indexed attributes of an
+ * entry are immutable, in-place updates of stored entries need not be recorded.
+ */
+class FlowEntryIndex {
+    private final Map<Short, Set<StoredFlowEntry>> appIndex = Maps.newConcurrentMap();
+
+    /**
+     * Returns the group key of the given application and group identifiers.
+     *
+     * @param appId   the application identifier
+     * @param groupId the group identifier
+     * @return the group key
+     */
+    static long groupKey(short appId, short groupId) {
+        return ((long) (appId & 0xffff) << 16) | (groupId & 0xffff);
+    }
+
+    /**
+     * Returns the group key of the given flow identifier.
+     *
+     * @param flowId the flow identifier
+     * @return the group key
+     */
+    static long groupKey(FlowId flowId) {
+        return flowId.value() >>> 32;
+    }
+
+    /**
+     * Adds the given entry to the index.
+     *
+     * @param entry the entry to add
+     */
+    void add(StoredFlowEntry entry) {
+        appIndex.compute(entry.appId(), (k, entries) -> {
+            Set<StoredFlowEntry> set = entries != null ? entries : Sets.newConcurrentHashSet();
+            set.add(entry);
+            return set;
+        });
+    }
+
+    /**
+     * Removes the given entry from the index.
+     *
+     * @param entry the entry to remove
+     */
+    void remove(StoredFlowEntry entry) {
+        appIndex.computeIfPresent(entry.appId(), (k, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    /**
+     * Replaces the given entry in the index.
+     *
+     * @param previous the previous version of the entry, or {@code null} if the entry is new
+     * @param entry    the entry with which to replace the previous version
+     */
+    void replace(StoredFlowEntry previous, StoredFlowEntry entry) {
+        if (previous != null) {
+            remove(previous);
+        }
+        add(entry);
+    }
+
+    /**
+     * Returns the entries of the given application.
+     *
+     * @param appId the application identifier
+     * @return the entries of the given application
+     */
+    Set<FlowEntry> getByAppId(short appId) {
+        Set<StoredFlowEntry> entries = appIndex.get(appId);
+        return entries != null ? ImmutableSet.copyOf(entries) : ImmutableSet.of();
+    }
+
+    /**
+     * Returns the entries with the given group key.
+     *
+     * @param groupKey the group key
+     * @return the entries with the given group key
+     */
+    Set<FlowEntry> getByGroupKey(long groupKey) {
+        Set<StoredFlowEntry> entries = appIndex.get((short) (groupKey >>> 16));
+        if (entries == null) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<FlowEntry> matches = ImmutableSet.builder();
+        entries.forEach(entry -> {
+            if (groupKey(entry.id()) == groupKey) {
+                matches.add(entry);
+            }
+        });
+        return matches.build();
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+/**
+ * Compact flow entry table keyed by the primitive {@code long} value of the flow identifier.
+ * <p>
+ * Entries are stored in an open-addressing table using linear probing over parallel {@code long} key and
+ * {@code Object} value arrays. The rare flow entries which share a flow identifier are kept in a small immutable
+ * array stored in a single slot. Removed entries leave a tombstone behind which is reclaimed on the next rehash,
+ * so entries never move while readers probe the table.
+ * <p>
+ * The table supports a single writer and any number of concurrent readers. Writers must be externally
+ * synchronized; in the flow store all mutations happen under the owning {@link FlowBucket} monitor. Readers
+ * never block and iteration is weakly consistent: it reflects the table at some point at or since the creation
+ * of the iterator and never copies the table contents.
+ */
+final class FlowEntryTable extends AbstractCollection<StoredFlowEntry> {
+    private static final int MIN_CAPACITY = 8;
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final Object TOMBSTONE = new Object();
+
+    private volatile Slots slots;
+    private volatile int size;
+    private int used;
+
+    /**
+     * Creates a new empty flow entry table.
+     */
+    FlowEntryTable() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates a new flow entry table able to hold the given number of entries without rehashing.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    FlowEntryTable(int expectedSize) {
+        this.slots = new Slots(capacityFor(expectedSize));
+    }
+
+    /**
+     * Returns the table capacity required to hold the given number of entries.
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR <= expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Mixes the bits of the given flow identifier.
+     * <p>
+     * Flows are assigned to buckets using the low-order bits of the identifier, so all keys in a single bucket
+     * share those bits and must be mixed before indexing the table.
+     */
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * Returns the primitive key for the given flow rule.
+     */
+    private static long key(FlowRule rule) {
+        return rule.id().value();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return object instanceof FlowRule && get((FlowRule) object) != null;
+    }
+
+    /**
+     * Returns the stored entry equal to the given rule.
+     *
+     * @param rule the rule for which to return the stored entry
+     * @return the stored entry or {@code null} if no entry equal to the rule is stored
+     */
+    StoredFlowEntry get(FlowRule rule) {
+        if (size == 0) {
+            return null;
+        }
+        Slots slots = this.slots;
+        int index = slots.indexOf(key(rule));
+        return index < 0 ? null : find(slots.values[index], rule);
+    }
+
+    /**
+     * Finds the entry equal to the given rule in the given slot value.
+     */
+    private static StoredFlowEntry find(Object value, FlowRule rule) {
+        if (value instanceof StoredFlowEntry) {
+            return value.equals(rule) ? (StoredFlowEntry) value : null;
+        } else if (value instanceof StoredFlowEntry[]) {
+            for (StoredFlowEntry entry : (StoredFlowEntry[]) value) {
+                if (entry.equals(rule)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the given entry, replacing any stored entry equal to it.
+     *
+     * @param entry the entry to store
+     * @return the replaced entry or {@code null} if no equal entry was stored
+     */
+    StoredFlowEntry put(StoredFlowEntry entry) {
+        long key = key(entry);
+        Slots slots = this.slots;
+        int index = slots.indexOf(key);
+        if (index >= 0) {
+            Object value = slots.values[index];
+            StoredFlowEntry previous = find(value, entry);
+            slots.values[index] = previous != null ? replace(value, previous, entry) : append(value, entry);
+            // Always write the volatile size to publish the slot update to readers.
+            size = previous != null ? size : size + 1;
+            return previous;
+        }
+
+        if (used + 1 > slots.capacity() * LOAD_FACTOR) {
+            slots = rehash(capacityFor(size + 1));
+        }
+        index = slots.freeIndexOf(key);
+        if (slots.values[index] == null) {
+            used++;
+        }
+        slots.keys[index] = key;
+        slots.values[index] = entry;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the stored entry equal to the given rule.
+     *
+     * @param rule the rule to remove
+     * @return the removed entry or {@code null} if no equal entry was stored
+     */
+    StoredFlowEntry remove(FlowRule rule) {
+        Slots slots = this.slots;
+        int index = slots.indexOf(key(rule));
+        if (index < 0) {
+            return null;
+        }
+        Object value = slots.values[index];
+        StoredFlowEntry removed = find(value, rule);
+        if (removed != null) {
+            slots.values[index] = without(value, removed);
+            size--;
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        this.slots = new Slots(MIN_CAPACITY);
+        this.used = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Rehashes the table into a new table with the given capacity, dropping tombstones.
+     */
+    private Slots rehash(int capacity) {
+        Slots oldSlots = this.slots;
+        Slots newSlots = new Slots(Math.max(capacity, MIN_CAPACITY));
+        int newUsed = 0;
+        for (int i = 0; i < oldSlots.keys.length; i++) {
+            Object value = oldSlots.values[i];
+            if (value != null && value != TOMBSTONE) {
+                int index = newSlots.freeIndexOf(oldSlots.keys[i]);
+                newSlots.keys[index] = oldSlots.keys[i];
+                newSlots.values[index] = value;
+                newUsed++;
+            }
+        }
+        this.used = newUsed;
+        this.slots = newSlots;
+        return newSlots;
+    }
+
+    /**
+     * Returns a new slot value with the given entry appended to the given value.
+     */
+    private static Object append(Object value, StoredFlowEntry entry) {
+        if (value instanceof StoredFlowEntry) {
+            return new StoredFlowEntry[]{(StoredFlowEntry) value, entry};
+        }
+        StoredFlowEntry[] entries = (StoredFlowEntry[]) value;
+        StoredFlowEntry[] appended = Arrays.copyOf(entries, entries.length + 1);
+        appended[entries.length] = entry;
+        return appended;
+    }
+
+    /**
+     * Returns a new slot value with the given previous entry replaced by the given entry.
+     */
+    private static Object replace(Object value, StoredFlowEntry previous, StoredFlowEntry entry) {
+        if (value instanceof StoredFlowEntry) {
+            return entry;
+        }
+        StoredFlowEntry[] replaced = ((StoredFlowEntry[]) value).clone();
+        for (int i = 0; i < replaced.length; i++) {
+            if (replaced[i] == previous) {
+                replaced[i] = entry;
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * Returns a new slot value without the given entry, or a tombstone if no entries remain.
+     */
+    private static Object without(Object value, StoredFlowEntry removed) {
+        if (value instanceof StoredFlowEntry) {
+            return TOMBSTONE;
+        }
+        StoredFlowEntry[] entries = (StoredFlowEntry[]) value;
+        if (entries.length == 2) {
+            return entries[0] == removed ? entries[1] : entries[0];
+        }
+        StoredFlowEntry[] remaining = new StoredFlowEntry[entries.length - 1];
+        int i = 0;
+        for (StoredFlowEntry entry : entries) {
+            if (entry != removed) {
+                remaining[i++] = entry;
+            }
+        }
+        return remaining;
+    }
+
+    @Override
+    public Iterator<StoredFlowEntry> iterator() {
+        // Reading the volatile size first ensures all slot updates published by the writer are visible.
+        return isEmpty() ? Collections.emptyIterator() : new TableIterator(slots);
+    }
+
+    /**
+     * Open-addressing slot arrays.
+     */
+    private static final class Slots {
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+
+        private Slots(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private int capacity() {
+            return keys.length;
+        }
+
+        /**
+         * Returns the index of the live slot for the given key or {@code -1} if the key is not present.
+         */
+        private int indexOf(long key) {
+            int index = hash(key) & mask;
+            for (int i = 0; i <= mask; i++) {
+                Object value = values[index];
+                if (value == null) {
+                    return -1;
+                } else if (value != TOMBSTONE && keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the index of the first empty or deleted slot for the given key.
+         */
+        private int freeIndexOf(long key) {
+            int index = hash(key) & mask;
+            while (values[index] != null && values[index] != TOMBSTONE) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Weakly consistent iterator over a set of slots.
+     */
+    private static final class TableIterator implements Iterator<StoredFlowEntry> {
+        private final Object[] values;
+        private int slot;
+        private StoredFlowEntry[] entries;
+        private int entry;
+        private StoredFlowEntry next;
+
+        private TableIterator(Slots slots) {
+            this.values = slots.values;
+            advance();
+        }
+
+        private void advance() {
+            if (entries != null && entry < entries.length) {
+                next = entries[entry++];
+                return;
+            }
+            entries = null;
+            while (slot < values.length) {
+                Object value = values[slot++];
+                if (value instanceof StoredFlowEntry) {
+                    next = (StoredFlowEntry) value;
+                    return;
+                } else if (value instanceof StoredFlowEntry[]) {
+                    entries = (StoredFlowEntry[]) value;
+                    entry = 1;
+                    next = entries[0];
+                    return;
+                }
+            }
+            next = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public StoredFlowEntry next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            StoredFlowEntry current = next;
+            advance();
+            return current;
+        }
+    }
+}
@@ -50,8 +50,6 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
-import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
@@ -59,7 +57,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -84,7 +81,11 @@ public class DistributedHostStore
 
     private ConsistentMap<HostId, DefaultHost> hostsConsistentMap;
     private Map<HostId, DefaultHost> hosts;
-    private Map<IpAddress, Set<Host>> hostsByIp;
+    private Map<IpAddress, Map<HostId, Host>> hostsByIp;
+    private Map<MacAddress, Map<HostId, Host>> hostsByMac;
+    private Map<VlanId, Map<HostId, Host>> hostsByVlan;
+    private Map<ConnectPoint, Map<HostId, Host>> hostsByLocation;
+    private Map<DeviceId, Map<HostId, Host>> hostsByDevice;
     MapEventListener<HostId, DefaultHost> hostLocationTracker =
             new HostLocationTracker();
 
@@ -107,11 +108,11 @@ public class DistributedHostStore
         executor = newSingleThreadScheduledExecutor(groupedThreads("onos/hosts", "status-listener", log));
         statusChangeListener = status -> {
             if (status == Status.ACTIVE) {
-                executor.execute(this::loadHostsByIp);
+                executor.execute(this::loadIndexes);
             }
         };
         hostsConsistentMap.addStatusChangeListener(statusChangeListener);
-        loadHostsByIp();
+        loadIndexes();
         log.info("Started");
     }
 
@@ -123,18 +124,24 @@ public class DistributedHostStore
         log.info("Stopped");
     }
 
-    private void loadHostsByIp() {
-        hostsByIp = new ConcurrentHashMap<IpAddress, Set<Host>>();
+    private void loadIndexes() {
+        Map<IpAddress, Map<HostId, Host>> byIp = new ConcurrentHashMap<>();
+        Map<MacAddress, Map<HostId, Host>> byMac = new ConcurrentHashMap<>();
+        Map<VlanId, Map<HostId, Host>> byVlan = new ConcurrentHashMap<>();
+        Map<ConnectPoint, Map<HostId, Host>> byLocation = new ConcurrentHashMap<>();
+        Map<DeviceId, Map<HostId, Host>> byDevice = new ConcurrentHashMap<>();
         hostsConsistentMap.asJavaMap().values().forEach(host -> {
-            host.ipAddresses().forEach(ip -> {
-                Set<Host> existingHosts = hostsByIp.get(ip);
-                if (existingHosts == null) {
-                    hostsByIp.put(ip, addHosts(host));
-                } else {
-                    existingHosts.add(host);
-                }
-            });
+            addToIndex(byIp, host.ipAddresses(), host);
+            addToIndex(byMac, ImmutableSet.of(host.mac()), host);
+            addToIndex(byVlan, ImmutableSet.of(host.vlan()), host);
+            addToIndex(byLocation, connectPoints(host), host);
+            addToIndex(byDevice, deviceIds(host), host);
         });
+        hostsByIp = byIp;
+        hostsByMac = byMac;
+        hostsByVlan = byVlan;
+        hostsByLocation = byLocation;
+        hostsByDevice = byDevice;
     }
 
     private boolean shouldUpdate(DefaultHost existingHost,
@@ -334,37 +341,30 @@ public class DistributedHostStore
 
     @Override
     public Set<Host> getHosts(VlanId vlanId) {
-        return filter(hosts.values(), host -> Objects.equals(host.vlan(), vlanId));
+        return lookup(hostsByVlan, vlanId);
     }
 
     @Override
     public Set<Host> getHosts(MacAddress mac) {
-        return filter(hosts.values(), host -> Objects.equals(host.mac(), mac));
+        return lookup(hostsByMac, mac);
     }
 
     @Override
     public Set<Host> getHosts(IpAddress ip) {
-        Set<Host> hosts = hostsByIp.get(ip);
-        return hosts != null ? ImmutableSet.copyOf(hosts) : ImmutableSet.of();
+        return lookup(hostsByIp, ip);
     }
 
     @Override
     public Set<Host> getConnectedHosts(ConnectPoint connectPoint) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().locations().contains(connectPoint))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        if (connectPoint == null) {
+            return ImmutableSet.of();
+        }
+        return lookup(hostsByLocation, new ConnectPoint(connectPoint.elementId(), connectPoint.port()));
     }
 
     @Override
     public Set<Host> getConnectedHosts(DeviceId deviceId) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().locations().stream()
-                        .map(HostLocation::deviceId).anyMatch(dpid -> dpid.equals(deviceId)))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return lookup(hostsByDevice, deviceId);
     }
 
     @Override
@@ -415,47 +415,76 @@ public class DistributedHostStore
         });
     }
 
-    private Set<Host> filter(Collection<DefaultHost> collection, Predicate<DefaultHost> predicate) {
-        return collection.stream().filter(predicate).collect(Collectors.toSet());
+    private <K> Set<Host> lookup(Map<K, Map<HostId, Host>> index, K key) {
+        Map<HostId, Host> hosts = key != null ? index.get(key) : null;
+        return hosts != null ? ImmutableSet.copyOf(hosts.values()) : ImmutableSet.of();
     }
 
-    private Set<Host> addHosts(Host host) {
-        Set<Host> hosts = Sets.newConcurrentHashSet();
-        hosts.add(host);
+    private Map<HostId, Host> addHosts(Host host) {
+        Map<HostId, Host> hosts = new ConcurrentHashMap<>();
+        hosts.put(host.id(), host);
         return hosts;
     }
 
-    private Set<Host> updateHosts(Set<Host> existingHosts, Host host) {
-        existingHosts.removeIf(existingHost -> existingHost.id().equals(host.id()));
-        existingHosts.add(host);
+    private Map<HostId, Host> updateHosts(Map<HostId, Host> existingHosts, Host host) {
+        existingHosts.put(host.id(), host);
         return existingHosts;
     }
 
-    private Set<Host> removeHosts(Set<Host> existingHosts, Host host) {
+    private Map<HostId, Host> removeHosts(Map<HostId, Host> existingHosts, Host host) {
+        existingHosts.remove(host.id());
+        return existingHosts.isEmpty() ? null : existingHosts;
+    }
 
-        if (existingHosts != null) {
-            existingHosts.removeIf(existingHost -> existingHost.id().equals(host.id()));
-        }
+    // Locations of the host as plain connect points, to key the location index
+    private Set<ConnectPoint> connectPoints(Host host) {
+        return host.locations().stream()
+                .map(location -> new ConnectPoint(location.elementId(), location.port()))
+                .collect(Collectors.toSet());
+    }
 
-        if (existingHosts == null || existingHosts.isEmpty()) {
-            return null;
-        }
-        return existingHosts;
+    private Set<DeviceId> deviceIds(Host host) {
+        return host.locations().stream().map(HostLocation::deviceId).collect(Collectors.toSet());
     }
 
-    private void updateHostsByIp(DefaultHost host, DefaultHost prevHost) {
-        // Let's update first the current ips
-        host.ipAddresses().forEach(
-                ip -> hostsByIp.compute(ip, (k, v) -> v == null ? addHosts(host) : updateHosts(v, host)));
+    private <K> void addToIndex(Map<K, Map<HostId, Host>> index, Set<K> keys, Host host) {
+        keys.forEach(key -> index.compute(key, (k, v) -> v == null ? addHosts(host) : updateHosts(v, host)));
+    }
 
-        // Let's remove then each old ip
-        Set<IpAddress> oldIps = prevHost != null ? prevHost.ipAddresses() : Collections.emptySet();
-        Sets.difference(oldIps, host.ipAddresses()).forEach(
-                ip -> hostsByIp.computeIfPresent(ip, (k, v) -> removeHosts(v, host)));
+    private <K> void updateIndex(Map<K, Map<HostId, Host>> index, Set<K> keys, Set<K> oldKeys, Host host) {
+        // Let's update first the current keys
+        addToIndex(index, keys, host);
+
+        // Let's remove then each old key
+        removeFromIndex(index, Sets.difference(oldKeys, keys), host);
+    }
+
+    private <K> void removeFromIndex(Map<K, Map<HostId, Host>> index, Set<K> keys, Host host) {
+        keys.forEach(key -> index.computeIfPresent(key, (k, v) -> removeHosts(v, host)));
+    }
+
+    private void updateIndexes(DefaultHost host, DefaultHost prevHost) {
+        if (prevHost == null) {
+            addToIndex(hostsByIp, host.ipAddresses(), host);
+            addToIndex(hostsByMac, ImmutableSet.of(host.mac()), host);
+            addToIndex(hostsByVlan, ImmutableSet.of(host.vlan()), host);
+            addToIndex(hostsByLocation, connectPoints(host), host);
+            addToIndex(hostsByDevice, deviceIds(host), host);
+            return;
+        }
+        updateIndex(hostsByIp, host.ipAddresses(), prevHost.ipAddresses(), host);
+        updateIndex(hostsByMac, ImmutableSet.of(host.mac()), ImmutableSet.of(prevHost.mac()), host);
+        updateIndex(hostsByVlan, ImmutableSet.of(host.vlan()), ImmutableSet.of(prevHost.vlan()), host);
+        updateIndex(hostsByLocation, connectPoints(host), connectPoints(prevHost), host);
+        updateIndex(hostsByDevice, deviceIds(host), deviceIds(prevHost), host);
     }
 
-    private void removeHostsByIp(DefaultHost host) {
-        host.ipAddresses().forEach(ip -> hostsByIp.computeIfPresent(ip, (k, v) -> removeHosts(v, host)));
+    private void removeFromIndexes(DefaultHost host) {
+        removeFromIndex(hostsByIp, host.ipAddresses(), host);
+        removeFromIndex(hostsByMac, ImmutableSet.of(host.mac()), host);
+        removeFromIndex(hostsByVlan, ImmutableSet.of(host.vlan()), host);
+        removeFromIndex(hostsByLocation, connectPoints(host), host);
+        removeFromIndex(hostsByDevice, deviceIds(host), host);
     }
 
     private void removeIpFromHostsByIp(DefaultHost host, IpAddress ip) {
@@ -469,11 +498,11 @@ public class DistributedHostStore
             DefaultHost prevHost = Versioned.valueOrNull(event.oldValue());
             switch (event.type()) {
                 case INSERT:
-                    updateHostsByIp(host, prevHost);
+                    updateIndexes(host, prevHost);
                     notifyDelegate(new HostEvent(HOST_ADDED, host));
                     break;
                 case UPDATE:
-                    updateHostsByIp(host, prevHost);
+                    updateIndexes(host, prevHost);
                     if (host.suspended() && !prevHost.suspended()) {
                         notifyDelegate(new HostEvent(HOST_SUSPENDED, host, prevHost));
                     } else if (!host.suspended() && prevHost.suspended()) {
@@ -487,7 +516,7 @@ public class DistributedHostStore
                     }
                     break;
                 case REMOVE:
-                    removeHostsByIp(prevHost);
+                    removeFromIndexes(prevHost);
                     notifyDelegate(new HostEvent(HOST_REMOVED, prevHost));
                     break;
                 default:
@@ -64,12 +64,10 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
-import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static org.onosproject.net.DefaultAnnotations.union;
@@ -113,6 +111,13 @@ public class ECLinkStore
     private final Logger log = getLogger(getClass());
 
     private final Map<LinkKey, Link> links = Maps.newConcurrentMap();
+
+    // Keys of the cached links by source and destination device, and by
+    // source and destination connect point; updated along with links
+    private final Map<DeviceId, Set<LinkKey>> egressDeviceLinks = Maps.newConcurrentMap();
+    private final Map<DeviceId, Set<LinkKey>> ingressDeviceLinks = Maps.newConcurrentMap();
+    private final Map<ConnectPoint, Set<LinkKey>> egressLinks = Maps.newConcurrentMap();
+    private final Map<ConnectPoint, Set<LinkKey>> ingressLinks = Maps.newConcurrentMap();
     private final Map<LinkKey, Set<ProviderId>> linkProviders = Maps.newConcurrentMap();
     private EventuallyConsistentMap<Provided<LinkKey>, LinkDescription> linkDescriptions;
 
@@ -197,7 +202,7 @@ public class ECLinkStore
         linkDescriptions.removeListener(linkTracker);
         linkDescriptions.destroy();
         linkProviders.clear();
-        links.clear();
+        clearLinkCache();
         clusterCommunicator.removeSubscriber(LINK_INJECT_MESSAGE);
         netCfgService.removeListener(cfgListener);
         netCfgService.unregisterConfigFactory(factory);
@@ -217,12 +222,12 @@ public class ECLinkStore
 
     @Override
     public Set<Link> getDeviceEgressLinks(DeviceId deviceId) {
-        return filter(links.values(), link -> deviceId.equals(link.src().deviceId()));
+        return indexedLinks(egressDeviceLinks, deviceId);
     }
 
     @Override
     public Set<Link> getDeviceIngressLinks(DeviceId deviceId) {
-        return filter(links.values(), link -> deviceId.equals(link.dst().deviceId()));
+        return indexedLinks(ingressDeviceLinks, deviceId);
     }
 
     @Override
@@ -232,12 +237,12 @@ public class ECLinkStore
 
     @Override
     public Set<Link> getEgressLinks(ConnectPoint src) {
-        return filter(links.values(), link -> src.equals(link.src()));
+        return indexedLinks(egressLinks, src);
     }
 
     @Override
     public Set<Link> getIngressLinks(ConnectPoint dst) {
-        return filter(links.values(), link -> dst.equals(link.dst()));
+        return indexedLinks(ingressLinks, dst);
     }
 
     @Override
@@ -319,10 +324,14 @@ public class ECLinkStore
         Link link = links.compute(linkKey, (key, existingLink) -> {
             Link newLink = composeLink(linkKey);
             if (newLink == null) {
+                if (existingLink != null) {
+                    unindex(key);
+                }
                 return null;
             }
             if (existingLink == null) {
                 eventType.set(LINK_ADDED);
+                index(key);
                 return newLink;
             } else if (existingLink.state() != newLink.state() ||
                     existingLink.isExpected() != newLink.isExpected() ||
@@ -461,7 +470,13 @@ public class ECLinkStore
     }
 
     private LinkEvent purgeLinkCache(LinkKey linkKey) {
-        Link removedLink = links.remove(linkKey);
+        AtomicReference<Link> removed = new AtomicReference<>();
+        links.computeIfPresent(linkKey, (key, link) -> {
+            unindex(key);
+            removed.set(link);
+            return null;
+        });
+        Link removedLink = removed.get();
         if (removedLink != null) {
             getAllProviders(linkKey).forEach(p -> linkDescriptions.remove(new Provided<>(linkKey, p)));
             linkProviders.remove(linkKey);
@@ -470,8 +485,56 @@ public class ECLinkStore
         return null;
     }
 
-    private Set<Link> filter(Collection<Link> links, Predicate<Link> predicate) {
-        return links.stream().filter(predicate).collect(Collectors.toSet());
+    // Adds the given link key to the adjacency indexes; to be called while
+    // computing the key's entry in links.
+    private void index(LinkKey key) {
+        addToIndex(egressDeviceLinks, key.src().deviceId(), key);
+        addToIndex(ingressDeviceLinks, key.dst().deviceId(), key);
+        addToIndex(egressLinks, key.src(), key);
+        addToIndex(ingressLinks, key.dst(), key);
+    }
+
+    // Removes the given link key from the adjacency indexes; to be called
+    // while computing the key's entry in links.
+    private void unindex(LinkKey key) {
+        removeFromIndex(egressDeviceLinks, key.src().deviceId(), key);
+        removeFromIndex(ingressDeviceLinks, key.dst().deviceId(), key);
+        removeFromIndex(egressLinks, key.src(), key);
+        removeFromIndex(ingressLinks, key.dst(), key);
+    }
+
+    private static <K> void addToIndex(Map<K, Set<LinkKey>> index, K subject, LinkKey key) {
+        index.compute(subject, (k, keys) -> {
+            Set<LinkKey> result = keys == null ? Sets.newConcurrentHashSet() : keys;
+            result.add(key);
+            return result;
+        });
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<LinkKey>> index, K subject, LinkKey key) {
+        index.computeIfPresent(subject, (k, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private <K> Set<Link> indexedLinks(Map<K, Set<LinkKey>> index, K subject) {
+        Set<LinkKey> keys = index.get(subject);
+        if (keys == null) {
+            return Sets.newHashSet();
+        }
+        return keys.stream()
+                .map(links::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private void clearLinkCache() {
+        links.clear();
+        egressDeviceLinks.clear();
+        ingressDeviceLinks.clear();
+        egressLinks.clear();
+        ingressLinks.clear();
     }
 
     private LinkEvent injectLink(Provided<LinkDescription> linkInjectRequest) {
@@ -518,7 +581,7 @@ public class ECLinkStore
                     linkDescriptions.clear();
                 }
                 if (links != null) {
-                    links.clear();
+                    clearLinkCache();
                 }
             }
             log.debug("config set link discovery mode to {}",
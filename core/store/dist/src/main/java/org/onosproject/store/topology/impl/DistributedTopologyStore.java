@@ -15,10 +15,13 @@
  */
 package org.onosproject.store.topology.impl;
 
+import com.codahale.metrics.Timer;
 import org.onlab.graph.GraphPathSearch;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.KryoNamespace;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.common.DefaultTopology;
+import org.onosproject.core.MetricsHelper;
 import org.onosproject.event.Event;
 import org.onosproject.mastership.MastershipService;
 import org.onosproject.net.ConnectPoint;
@@ -69,9 +72,14 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.get;
 import static org.onlab.util.Tools.isNullOrEmpty;
+import static org.onlab.util.Tools.isPropertyEnabled;
 import static org.onosproject.net.topology.TopologyEvent.Type.TOPOLOGY_CHANGED;
+import static org.onosproject.store.OsgiPropertyConstants.INCREMENTAL_TOPOLOGY;
+import static org.onosproject.store.OsgiPropertyConstants.INCREMENTAL_TOPOLOGY_DEFAULT;
 import static org.onosproject.store.OsgiPropertyConstants.LINK_WEIGHT_FUNCTION;
 import static org.onosproject.store.OsgiPropertyConstants.LINK_WEIGHT_FUNCTION_DEFAULT;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -89,16 +97,17 @@ import static org.slf4j.LoggerFactory.getLogger;
                 TopologyStore.class, PathAdminService.class
         },
         property = {
-                LINK_WEIGHT_FUNCTION + "=" + LINK_WEIGHT_FUNCTION_DEFAULT
+                LINK_WEIGHT_FUNCTION + "=" + LINK_WEIGHT_FUNCTION_DEFAULT,
+                INCREMENTAL_TOPOLOGY + ":Boolean=" + INCREMENTAL_TOPOLOGY_DEFAULT
         }
 )
 public class DistributedTopologyStore
         extends AbstractStore<TopologyEvent, TopologyStoreDelegate>
-        implements TopologyStore, PathAdminService {
+        implements TopologyStore, PathAdminService, MetricsHelper {
 
     private final Logger log = getLogger(getClass());
 
-    private static final String FORMAT = "Settings: linkWeightFunction={}";
+    private static final String FORMAT = "Settings: linkWeightFunction={}, incrementalTopology={}";
 
     private volatile DefaultTopology current =
             new DefaultTopology(ProviderId.NONE,
@@ -121,6 +130,9 @@ public class DistributedTopologyStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected DeviceService deviceService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
     private static final String HOP_COUNT = "hopCount";
     private static final String LINK_METRIC = "linkMetric";
     private static final String GEO_DISTANCE = "geoDistance";
@@ -128,6 +140,16 @@ public class DistributedTopologyStore
     /** Default link-weight function: hopCount, linkMetric, geoDistance. */
     private String linkWeightFunction = LINK_WEIGHT_FUNCTION_DEFAULT;
 
+    /**
+     * Derive each new topology incrementally from the current one; any link
+     * change within a cluster still recomputes all clusters.
+     */
+    private boolean incrementalTopology = INCREMENTAL_TOPOLOGY_DEFAULT;
+
+    // Time to build the graph, clusters and broadcast sets of each topology;
+    // shortest paths are computed later, on demand, and are not included
+    private Timer clusterBuildTimer;
+
     // Cluster root to broadcast points bindings to allow convergence to
     // a shared broadcast tree; node that is the master of the cluster root
     // is the primary.
@@ -140,6 +162,7 @@ public class DistributedTopologyStore
     protected void activate(ComponentContext context) {
         configService.registerProperties(getClass());
         modified(context);
+        clusterBuildTimer = createTimer("Topology", "store", "clusterBuildTime");
         KryoNamespace.Builder hostSerializer = KryoNamespace.newBuilder()
                 .register(KryoNamespaces.API);
 
@@ -174,7 +197,9 @@ public class DistributedTopologyStore
                             new GeoDistanceLinkWeight(deviceService) : null;
             setDefaultLinkWeigher(weight);
         }
-        log.info(FORMAT, linkWeightFunction);
+        incrementalTopology = isPropertyEnabled(properties, INCREMENTAL_TOPOLOGY,
+                                                INCREMENTAL_TOPOLOGY_DEFAULT);
+        log.info(FORMAT, linkWeightFunction, incrementalTopology);
     }
 
     @Override
@@ -295,10 +320,14 @@ public class DistributedTopologyStore
     public TopologyEvent updateTopology(ProviderId providerId,
                                         GraphDescription graphDescription,
                                         List<Event> reasons) {
-        // Have the default topology construct self from the description data.
+        // Have the default topology construct self from the description data,
+        // deriving what it can from the current one in incremental mode.
+        Timer.Context buildContext = startTimer(clusterBuildTimer);
         DefaultTopology newTopology =
-                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint);
+                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint,
+                                    incrementalTopology ? current : null);
         updateBroadcastPoints(newTopology);
+        stopTimer(buildContext);
 
         // Promote the new topology to current and return a ready-to-send event.
         synchronized (this) {
@@ -337,6 +366,11 @@ public class DistributedTopologyStore
         return (DefaultTopology) topology;
     }
 
+    @Override
+    public MetricsService metricsService() {
+        return metricsService;
+    }
+
     @Override
     public void setDefaultLinkWeigher(LinkWeigher linkWeigher) {
         DefaultTopology.setDefaultLinkWeigher(linkWeigher);
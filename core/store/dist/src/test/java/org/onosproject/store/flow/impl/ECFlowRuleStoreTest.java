@@ -16,7 +16,9 @@
 package org.onosproject.store.flow.impl;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 import org.junit.After;
 import org.junit.Before;
@@ -28,6 +30,7 @@ import org.onosproject.cluster.NodeId;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.core.DefaultApplicationId;
 import org.onosproject.mastership.MastershipInfo;
 import org.onosproject.mastership.MastershipServiceAdapter;
 import org.onosproject.net.device.DeviceServiceAdapter;
@@ -281,6 +284,22 @@ public class ECFlowRuleStoreTest {
         assertThat(sum, is(0));
     }
 
+    /**
+     * Tests looking up the flow entries of an application on several devices.
+     */
+    @Test
+    public void testGetFlowEntriesByAppId() {
+        flowStoreImpl.addOrUpdateFlowRule(new DefaultFlowEntry(flowRule));
+        flowStoreImpl.addOrUpdateFlowRule(new DefaultFlowEntry(flowRule1));
+
+        Iterable<FlowEntry> flows = flowStoreImpl.getFlowEntriesByAppId(
+                ImmutableList.of(deviceId, did("device2")), APP_ID);
+        assertThat(Iterables.size(flows), is(2));
+        flows = flowStoreImpl.getFlowEntriesByAppId(
+                ImmutableList.of(deviceId), new DefaultApplicationId(APP_ID.id() + 1, "other"));
+        assertThat(flows, is(emptyIterable()));
+    }
+
     /**
      * Tests purge flow for a device.
      */
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.net.intent.IntentTestsMocks;
+import org.onosproject.store.LogicalTimestamp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for {@link FlowBucket} digests and deltas.
+ */
+public class FlowBucketTest {
+
+    private static final DeviceId DEVICE_ID = did("device1");
+    private static final int NUM_FLOWS = 500;
+
+    private static FlowRule rule(int priority) {
+        return DefaultFlowRule.builder()
+                .forDevice(DEVICE_ID)
+                .withSelector(new IntentTestsMocks.MockSelector())
+                .withTreatment(new IntentTestsMocks.MockTreatment())
+                .withPriority(priority)
+                .makePermanent()
+                .fromApp(APP_ID)
+                .build();
+    }
+
+    private static List<StoredFlowEntry> entries() {
+        List<StoredFlowEntry> entries = Lists.newArrayList();
+        for (int i = 0; i < NUM_FLOWS; i++) {
+            entries.add(new DefaultFlowEntry(rule(i + 1)));
+        }
+        return entries;
+    }
+
+    /**
+     * Tests that the range hashes are maintained incrementally and independent of insertion order.
+     */
+    @Test
+    public void testDigestHashes() {
+        LogicalClock clock = new LogicalClock();
+        List<StoredFlowEntry> entries = entries();
+        FlowBucket bucket1 = new FlowBucket(new BucketId(DEVICE_ID, 0));
+        FlowBucket bucket2 = new FlowBucket(new BucketId(DEVICE_ID, 0));
+        long emptyHash = bucket1.getDigest().hash();
+
+        entries.forEach(entry -> bucket1.add(entry, 1, clock));
+        Lists.reverse(entries).forEach(entry -> bucket2.add(new DefaultFlowEntry(entry), 1, clock));
+        assertEquals(bucket1.getDigest().hash(), bucket2.getDigest().hash());
+        assertEquals(0, bucket1.getDigest().differingRanges(bucket2.getDigest()));
+
+        // Statistics are replicated lazily and do not change the hashes.
+        LogicalTimestamp timestamp = bucket2.timestamp();
+        bucket2.update(entries.get(0), stored -> {
+            stored.setBytes(100);
+            stored.setPackets(10);
+            stored.setLife(1000);
+            return true;
+        }, 1, clock);
+        assertEquals(bucket1.getDigest().hash(), bucket2.getDigest().hash());
+        assertEquals(0, bucket2.getDelta(timestamp).ranges());
+
+        bucket2.update(entries.get(0), stored -> {
+            stored.setState(FlowEntry.FlowEntryState.PENDING_REMOVE);
+            return true;
+        }, 1, clock);
+        assertNotEquals(bucket1.getDigest().hash(), bucket2.getDigest().hash());
+        assertEquals(1, Integer.bitCount(bucket2.getDelta(timestamp).ranges()));
+
+        entries.forEach(entry -> bucket1.remove(entry, 1, clock));
+        assertEquals(emptyHash, bucket1.getDigest().hash());
+        assertEquals(0, bucket1.count());
+    }
+
+    /**
+     * Tests that deltas carry only the changed ranges and converge replicas.
+     */
+    @Test
+    public void testDeltas() {
+        LogicalClock clock = new LogicalClock();
+        List<StoredFlowEntry> entries = entries();
+        FlowBucket master = new FlowBucket(new BucketId(DEVICE_ID, 0));
+        FlowBucket backup = new FlowBucket(new BucketId(DEVICE_ID, 0));
+        entries.forEach(entry -> master.add(entry, 1, clock));
+
+        FlowBucketDelta full = master.getDelta((LogicalTimestamp) null);
+        assertEquals(NUM_FLOWS, full.entries().size());
+        backup.applyDelta(full);
+        assertEquals(NUM_FLOWS, backup.count());
+        assertEquals(master.getDigest().hash(), backup.getDigest().hash());
+
+        LogicalTimestamp lastBackup = master.timestamp();
+        StoredFlowEntry removed = entries.get(0);
+        master.remove(removed, 1, clock);
+
+        FlowBucketDelta delta = master.getDelta(lastBackup);
+        assertEquals(1, Integer.bitCount(delta.ranges()));
+        assertTrue(delta.entries().size() < NUM_FLOWS);
+        backup.applyDelta(delta);
+        assertEquals(NUM_FLOWS - 1, backup.count());
+        assertEquals(master.getDigest().hash(), backup.getDigest().hash());
+
+        // A replica which lost a range is repaired using the digest comparison.
+        FlowBucket empty = new FlowBucket(new BucketId(DEVICE_ID, 0));
+        empty.applyDelta(master.getDelta(empty.getDigest()));
+        assertEquals(master.getDigest().hash(), empty.getDigest().hash());
+        assertEquals(0, master.getDelta(empty.getDigest()).entries().size());
+    }
+
+    /**
+     * Tests that the secondary index follows the contents of the buckets.
+     */
+    @Test
+    public void testIndex() {
+        LogicalClock clock = new LogicalClock();
+        List<StoredFlowEntry> entries = entries();
+        FlowEntryIndex index = new FlowEntryIndex();
+        FlowBucket master = new FlowBucket(new BucketId(DEVICE_ID, 0), index);
+        entries.forEach(entry -> master.add(entry, 1, clock));
+
+        short groupId = (short) (entries.get(0).id().value() >>> 32);
+        assertEquals(NUM_FLOWS, index.getByAppId(APP_ID.id()).size());
+        assertEquals(NUM_FLOWS, index.getByGroupKey(FlowEntryIndex.groupKey(APP_ID.id(), groupId)).size());
+        assertTrue(index.getByAppId((short) (APP_ID.id() + 1)).isEmpty());
+        assertTrue(index.getByGroupKey(FlowEntryIndex.groupKey(APP_ID.id(), (short) (groupId + 1))).isEmpty());
+
+        master.remove(entries.get(0), 1, clock);
+        master.update(new DefaultFlowEntry(entries.get(1)), 1, clock);
+        assertEquals(NUM_FLOWS - 1, index.getByAppId(APP_ID.id()).size());
+
+        // Buckets replicated from the master are indexed when the delta is applied.
+        FlowEntryIndex backupIndex = new FlowEntryIndex();
+        FlowBucket backup = new FlowBucket(new BucketId(DEVICE_ID, 0), backupIndex);
+        backup.applyDelta(master.getDelta((LogicalTimestamp) null));
+        assertEquals(NUM_FLOWS - 1, backupIndex.getByAppId(APP_ID.id()).size());
+        backup.applyDelta(new FlowBucket(new BucketId(DEVICE_ID, 0)).getDelta((LogicalTimestamp) null));
+        assertTrue(backupIndex.getByAppId(APP_ID.id()).isEmpty());
+
+        master.purge();
+        assertTrue(index.getByAppId(APP_ID.id()).isEmpty());
+        assertTrue(index.getByGroupKey(FlowEntryIndex.groupKey(APP_ID.id(), groupId)).isEmpty());
+    }
+}
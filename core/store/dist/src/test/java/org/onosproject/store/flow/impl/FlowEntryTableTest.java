@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.net.intent.IntentTestsMocks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for {@link FlowEntryTable}.
+ */
+public class FlowEntryTableTest {
+
+    private static final DeviceId DEVICE_ID = did("device1");
+    private static final int NUM_FLOWS = 1000;
+
+    private static FlowRule rule(int priority) {
+        return DefaultFlowRule.builder()
+                .forDevice(DEVICE_ID)
+                .withSelector(new IntentTestsMocks.MockSelector())
+                .withTreatment(new IntentTestsMocks.MockTreatment())
+                .withPriority(priority)
+                .makePermanent()
+                .fromApp(APP_ID)
+                .build();
+    }
+
+    private static List<StoredFlowEntry> entries() {
+        List<StoredFlowEntry> entries = Lists.newArrayList();
+        for (int i = 0; i < NUM_FLOWS; i++) {
+            entries.add(new DefaultFlowEntry(rule(i + 1)));
+        }
+        return entries;
+    }
+
+    /**
+     * Tests adding, replacing and removing entries.
+     */
+    @Test
+    public void testPutGetRemove() {
+        FlowEntryTable table = new FlowEntryTable();
+        List<StoredFlowEntry> entries = entries();
+        entries.forEach(entry -> assertNull(table.put(entry)));
+        assertEquals(NUM_FLOWS, table.size());
+
+        for (StoredFlowEntry entry : entries) {
+            assertSame(entry, table.get(entry));
+        }
+
+        StoredFlowEntry replacement = new DefaultFlowEntry(rule(1));
+        assertSame(entries.get(0), table.put(replacement));
+        assertSame(replacement, table.get(rule(1)));
+        assertEquals(NUM_FLOWS, table.size());
+
+        for (int i = 0; i < NUM_FLOWS; i += 2) {
+            assertTrue(table.remove(entries.get(i)) != null);
+        }
+        assertEquals(NUM_FLOWS / 2, table.size());
+        for (int i = 0; i < NUM_FLOWS; i++) {
+            assertEquals(i % 2 == 1, table.get(entries.get(i)) != null);
+        }
+        assertNull(table.remove(entries.get(0)));
+
+        // Re-adding entries reuses tombstones without losing live entries.
+        entries.forEach(table::put);
+        assertEquals(NUM_FLOWS, table.size());
+        assertEquals(Sets.newHashSet(entries), Sets.newHashSet(table));
+    }
+}
@@ -323,6 +323,39 @@ public class DistributedHostStoreTest {
         assertEquals(HOST_ADDRESS, hostInHostsByIp.ipAddresses());
     }
 
+    @Test
+    public void testIndexes() {
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, HOST_LEARNT_WITH_LOCATIONS, false);
+        ecXHostStore.createOrUpdateHost(PID, HOSTID1,
+                createHostDesc(HOSTID1, HOST_ADDRESS, false, HOST_LOCATION), false);
+
+        assertEquals(2, ecXHostStore.getHosts(VlanId.NONE).size());
+        assertEquals(1, ecXHostStore.getHosts(HOSTID.mac()).size());
+        assertEquals(2, ecXHostStore.getConnectedHosts(CP11).size());
+        assertEquals(2, ecXHostStore.getConnectedHosts(HOST_LOC11).size());
+        assertEquals(1, ecXHostStore.getConnectedHosts(CP12).size());
+        assertEquals(2, ecXHostStore.getConnectedHosts(DEV1).size());
+
+        // Move the first host off CP11
+        ecXHostStore.removeLocation(HOSTID, HOST_LOC11);
+        assertEquals(ImmutableSet.of(HOSTID1), ids(ecXHostStore.getConnectedHosts(CP11)));
+        Host moved = ecXHostStore.getConnectedHosts(CP12).iterator().next();
+        assertEquals(ImmutableSet.of(HOST_LOC12), moved.locations());
+        assertEquals(moved.locations(), ecXHostStore.getHosts(HOSTID.mac()).iterator().next().locations());
+
+        ecXHostStore.removeHost(HOSTID1);
+        assertTrue(ecXHostStore.getConnectedHosts(CP11).isEmpty());
+        assertTrue(ecXHostStore.getHosts(HOSTID1.mac()).isEmpty());
+        assertEquals(ImmutableSet.of(HOSTID), ids(ecXHostStore.getConnectedHosts(DEV1)));
+        assertEquals(ImmutableSet.of(HOSTID), ids(ecXHostStore.getHosts(VlanId.NONE)));
+    }
+
+    private static Set<HostId> ids(Set<Host> hosts) {
+        Set<HostId> ids = new HashSet<>();
+        hosts.forEach(host -> ids.add(host.id()));
+        return ids;
+    }
+
     @Test
     public void testHostAdded() {
         // Host is first discovered at only one location
@@ -444,6 +444,11 @@ public class ECLinkStoreTest {
         LinkEvent event2 = linkStore.removeLink(d1P1, d2P2);
         assertNull(event2);
 
+        assertTrue(linkStore.getEgressLinks(d1P1).isEmpty());
+        assertTrue(linkStore.getIngressLinks(d2P2).isEmpty());
+        assertTrue(linkStore.getDeviceEgressLinks(DID1).isEmpty());
+        assertEquals(1, linkStore.getDeviceIngressLinks(DID1).size());
+
         assertLink(linkId2, DIRECT, linkStore.getLink(d2P2, d1P1));
         assertAnnotationsEquals(linkStore.getLink(d2P2, d1P1).annotations(), A2);
 
@@ -25,11 +25,21 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Anti-entropy advertisement message for eventually consistent map.
+ * <p>
+ * An advertisement either carries the digests of the map entries in a set of
+ * key hash ranges, or only a hash of each key hash range.
  */
 public class AntiEntropyAdvertisement<K> {
 
+    /**
+     * Bit mask of all key hash ranges.
+     */
+    public static final long ALL_RANGES = -1L;
+
     private final NodeId sender;
     private final Map<K, MapValue.Digest> digest;
+    private final long ranges;
+    private final long[] rangeHashes;
 
     /**
      * Creates a new anti entropy advertisement message.
@@ -39,8 +49,38 @@ public class AntiEntropyAdvertisement<K> {
      */
     public AntiEntropyAdvertisement(NodeId sender,
                                     Map<K, MapValue.Digest> digest) {
+        this(sender, digest, ALL_RANGES);
+    }
+
+    /**
+     * Creates a new anti entropy advertisement message for a subset of the
+     * key hash ranges.
+     *
+     * @param sender the sender's node ID
+     * @param digest for map entries in the given ranges
+     * @param ranges bit mask of the key hash ranges covered by the digest
+     */
+    public AntiEntropyAdvertisement(NodeId sender,
+                                    Map<K, MapValue.Digest> digest,
+                                    long ranges) {
         this.sender = checkNotNull(sender);
         this.digest = ImmutableMap.copyOf(checkNotNull(digest));
+        this.ranges = ranges;
+        this.rangeHashes = null;
+    }
+
+    /**
+     * Creates a new anti entropy advertisement message carrying only the
+     * hash of each key hash range.
+     *
+     * @param sender      the sender's node ID
+     * @param rangeHashes hash of the map entries in each key hash range
+     */
+    public AntiEntropyAdvertisement(NodeId sender, long[] rangeHashes) {
+        this.sender = checkNotNull(sender);
+        this.digest = ImmutableMap.of();
+        this.ranges = ALL_RANGES;
+        this.rangeHashes = checkNotNull(rangeHashes).clone();
     }
 
     /**
@@ -61,11 +101,32 @@ public class AntiEntropyAdvertisement<K> {
         return digest;
     }
 
+    /**
+     * Returns the bit mask of the key hash ranges covered by the digest.
+     *
+     * @return bit mask of key hash ranges
+     */
+    public long ranges() {
+        return ranges;
+    }
+
+    /**
+     * Returns the hash of the map entries in each key hash range, if this is
+     * a range advertisement.
+     *
+     * @return range hashes, or null if the advertisement carries digests
+     */
+    public long[] rangeHashes() {
+        return rangeHashes;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass())
                 .add("sender", sender)
                 .add("totalEntries", digest.size())
+                .add("ranges", Long.toHexString(ranges))
+                .add("rangeHashes", rangeHashes != null ? rangeHashes.length : 0)
                 .toString();
     }
 }
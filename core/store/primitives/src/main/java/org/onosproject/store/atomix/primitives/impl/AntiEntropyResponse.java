@@ -33,5 +33,10 @@ public enum AntiEntropyResponse {
     /**
      * Signifies a ignored anti-entropy message, potentially due to the receiver operating under high load.
      */
-    IGNORED
+    IGNORED,
+
+    /**
+     * Signifies a successfully processed range advertisement whose range hashes differ from the receiver's.
+     */
+    DIVERGED
 }
\ No newline at end of file
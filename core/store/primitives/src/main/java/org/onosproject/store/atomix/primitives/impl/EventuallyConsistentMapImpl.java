@@ -28,6 +28,7 @@ import java.util.Timer;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -40,14 +41,19 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import com.codahale.metrics.Histogram;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.AbstractAccumulator;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.SlidingWindowCounter;
@@ -90,7 +96,22 @@ public class EventuallyConsistentMapImpl<K, V>
     private static final int HIGH_LOAD_THRESHOLD = 2;
     private static final int LOAD_WINDOW = 2;
 
+    // Anti-entropy key hash ranges; range bit masks are carried in a long
+    private static final int RANGE_BITS = 6;
+    private static final int NUM_RANGES = 1 << RANGE_BITS;
+    // Maps with at least this many entries advertise range hashes instead of per-key digests
+    private static final int RANGE_ADVERTISEMENT_THRESHOLD = 1024;
+    // Upper bound of the anti-entropy period, as a multiple of the configured period
+    private static final int MAX_PERIOD_MULTIPLIER = 8;
+    private static final String METRICS_COMPONENT = "EventuallyConsistentMap";
+    private static final String AE_BYTES = "antiEntropyBytes";
+    private static final String AE_CONVERGENCE = "antiEntropyConvergence";
+
     private final Map<K, MapValue<V>> items;
+    // Hash of the entries in each key hash range, computed on demand by maps
+    // large enough to advertise them, and recomputed after entries change
+    private volatile long[] rangeHashes;
+    private volatile boolean rangeHashesStale = true;
     private final ClusterCommunicationService clusterCommunicator;
     private final Serializer serializer;
     private final PersistenceService persistenceService;
@@ -120,6 +141,12 @@ public class EventuallyConsistentMapImpl<K, V>
     private long previousTombstonePurgeTime;
     private volatile boolean destroyed = false;
     private SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW_SIZE);
+    private final long antiEntropyPeriodMillis;
+    private volatile int periodMultiplier = 1;
+    private volatile long divergedSince;
+    private final MetricsService metricsService;
+    private final Histogram antiEntropyBytes;
+    private final com.codahale.metrics.Timer antiEntropyConvergence;
 
     /**
      * Creates a new eventually consistent map shared amongst multiple instances.
@@ -146,6 +173,7 @@ public class EventuallyConsistentMapImpl<K, V>
      * @param persistenceService     persistence service
      * @param peersSupplier          supplier for peers
      * @param bootstrapPeersSupplier supplier for bootstrap peers
+     * @param metricsService         metrics service; may be null
      */
     //CHECKSTYLE:OFF
     EventuallyConsistentMapImpl(
@@ -165,7 +193,8 @@ public class EventuallyConsistentMapImpl<K, V>
             boolean persistent,
             PersistenceService persistenceService,
             Supplier<List<NodeId>> peersSupplier,
-            Supplier<List<NodeId>> bootstrapPeersSupplier
+            Supplier<List<NodeId>> bootstrapPeersSupplier,
+            MetricsService metricsService
     ) {
         //CHECKSTYLE:ON
         this.localNodeId = localNodeId;
@@ -229,11 +258,23 @@ public class EventuallyConsistentMapImpl<K, V>
                             groupedThreads("onos/ecm", mapName + "-bg-%d", log));
         }
 
+        this.metricsService = metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(mapName);
+            antiEntropyBytes = metricsService.createHistogram(component, feature, AE_BYTES);
+            antiEntropyConvergence = metricsService.createTimer(component, feature, AE_CONVERGENCE);
+        } else {
+            antiEntropyBytes = null;
+            antiEntropyConvergence = null;
+        }
+
         // start anti-entropy thread
-        this.backgroundExecutor.scheduleAtFixedRate(
-                this::sendAdvertisement,
-                initialDelaySec, antiEntropyPeriod,
-                antiEntropyTimeUnit
+        this.antiEntropyPeriodMillis = antiEntropyTimeUnit.toMillis(antiEntropyPeriod);
+        this.backgroundExecutor.schedule(
+                this::runAntiEntropy,
+                initialDelaySec,
+                TimeUnit.SECONDS
         );
 
         bootstrapMessageSubject = new MessageSubject("ecm-" + mapName + "-bootstrap");
@@ -434,6 +475,9 @@ public class EventuallyConsistentMapImpl<K, V>
                 return existing;
             }
         });
+        if (updated.get()) {
+            rangeHashesStale = true;
+        }
         return previousValue.get();
     }
 
@@ -463,6 +507,7 @@ public class EventuallyConsistentMapImpl<K, V>
             }
         });
         if (updated.get()) {
+            rangeHashesStale = true;
             notifyPeers(new UpdateEntry<>(key, computedValue), peerUpdateFunction.apply(key, computedValue.get()));
             EventuallyConsistentMapEvent.Type updateType = computedValue.isTombstone() ? REMOVE : PUT;
             V value = computedValue.isTombstone()
@@ -532,6 +577,9 @@ public class EventuallyConsistentMapImpl<K, V>
             }
             return existing;
         });
+        if (updated.get()) {
+            rangeHashesStale = true;
+        }
         return updated.get();
     }
 
@@ -569,6 +617,13 @@ public class EventuallyConsistentMapImpl<K, V>
         clusterCommunicator.removeSubscriber(updateMessageSubject);
         clusterCommunicator.removeSubscriber(updateRequestSubject);
         clusterCommunicator.removeSubscriber(antiEntropyAdvertisementSubject);
+
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(mapName);
+            metricsService.removeMetric(component, feature, AE_BYTES);
+            metricsService.removeMetric(component, feature, AE_CONVERGENCE);
+        }
         return CompletableFuture.completedFuture(null);
     }
 
@@ -594,6 +649,24 @@ public class EventuallyConsistentMapImpl<K, V>
         return counter.get(LOAD_WINDOW) > HIGH_LOAD_THRESHOLD;
     }
 
+    /**
+     * Runs a round of anti-entropy and schedules the next one. The period is
+     * extended while range advertisements find no divergence between peers.
+     */
+    private void runAntiEntropy() {
+        if (destroyed) {
+            return;
+        }
+        sendAdvertisement();
+        try {
+            backgroundExecutor.schedule(this::runAntiEntropy,
+                    antiEntropyPeriodMillis * periodMultiplier,
+                    TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Anti-entropy for {} stopped", mapName);
+        }
+    }
+
     private void sendAdvertisement() {
         try {
             if (underHighLoad() || destroyed) {
@@ -613,23 +686,63 @@ public class EventuallyConsistentMapImpl<K, V>
     }
 
     private void sendAdvertisementToPeer(NodeId peer) {
+        AntiEntropyAdvertisement<K> ad = items.size() >= RANGE_ADVERTISEMENT_THRESHOLD
+                ? createRangeAdvertisement() : createAdvertisement();
+        sendAdvertisementToPeer(peer, ad);
+    }
+
+    private void sendAdvertisementToPeer(NodeId peer, AntiEntropyAdvertisement<K> ad) {
         long adCreationTime = System.currentTimeMillis();
-        AntiEntropyAdvertisement<K> ad = createAdvertisement();
         clusterCommunicator.sendAndReceive(ad,
                 antiEntropyAdvertisementSubject,
-                serializer::encode,
+                this::encodeAdvertisement,
                 serializer::decode,
                 peer)
                 .whenComplete((result, error) -> {
                     if (error != null) {
                         log.debug("Failed to send anti-entropy advertisement to {}: {}",
                                 peer, error.getMessage());
-                    } else if (result == AntiEntropyResponse.PROCESSED) {
+                    } else if (result == AntiEntropyResponse.PROCESSED || result == AntiEntropyResponse.DIVERGED) {
                         antiEntropyTimes.put(peer, adCreationTime);
+                        if (ad.rangeHashes() != null) {
+                            rangeAdvertisementCompleted(result == AntiEntropyResponse.DIVERGED);
+                        }
                     }
                 });
     }
 
+    private byte[] encodeAdvertisement(AntiEntropyAdvertisement<K> ad) {
+        byte[] bytes = serializer.encode(ad);
+        if (antiEntropyBytes != null) {
+            antiEntropyBytes.update(bytes.length);
+        }
+        return bytes;
+    }
+
+    /**
+     * Adapts the anti-entropy period to the outcome of a range advertisement
+     * and records the time it took the peers to converge.
+     *
+     * @param diverged whether the peer's range hashes differed from ours
+     */
+    private void rangeAdvertisementCompleted(boolean diverged) {
+        if (diverged) {
+            if (divergedSince == 0) {
+                divergedSince = System.nanoTime();
+            }
+            periodMultiplier = 1;
+        } else {
+            long since = divergedSince;
+            if (since != 0) {
+                divergedSince = 0;
+                if (antiEntropyConvergence != null) {
+                    antiEntropyConvergence.update(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+                }
+            }
+            periodMultiplier = Math.min(periodMultiplier * 2, MAX_PERIOD_MULTIPLIER);
+        }
+    }
+
     private void sendUpdateRequestToPeer(NodeId peer, Set<K> keys) {
         UpdateRequest<K> request = new UpdateRequest<>(localNodeId, keys);
         clusterCommunicator.unicast(request,
@@ -649,6 +762,75 @@ public class EventuallyConsistentMapImpl<K, V>
                 ImmutableMap.copyOf(Maps.transformValues(items, MapValue::digest)));
     }
 
+    /**
+     * Creates an advertisement of the digests of the entries in the given key hash ranges.
+     *
+     * @param ranges bit mask of key hash ranges
+     * @return anti-entropy advertisement
+     */
+    private AntiEntropyAdvertisement<K> createAdvertisement(long ranges) {
+        Map<K, MapValue.Digest> digest = Maps.newHashMap();
+        items.forEach((key, value) -> {
+            if (inRanges(keyHash(key), ranges)) {
+                digest.put(key, value.digest());
+            }
+        });
+        return new AntiEntropyAdvertisement<>(localNodeId, digest, ranges);
+    }
+
+    private AntiEntropyAdvertisement<K> createRangeAdvertisement() {
+        return new AntiEntropyAdvertisement<>(localNodeId, rangeHashes());
+    }
+
+    /**
+     * Returns the hash of the entries in each key hash range, recomputing
+     * them if entries changed since they were last computed. Range hashes are
+     * sums of entry hashes, so they do not depend on the iteration order.
+     *
+     * @return range hashes
+     */
+    private long[] rangeHashes() {
+        long[] hashes = rangeHashes;
+        if (hashes == null || rangeHashesStale) {
+            // Entries changed while computing mark the hashes stale again
+            rangeHashesStale = false;
+            long[] computed = new long[NUM_RANGES];
+            items.forEach((key, value) -> {
+                long keyHash = keyHash(key);
+                computed[range(keyHash)] += entryHash(keyHash, value);
+            });
+            rangeHashes = computed;
+            hashes = computed;
+        }
+        return hashes.clone();
+    }
+
+    /**
+     * Computes the hash of an entry, using the serialized form of its
+     * timestamp so that hashes agree across nodes.
+     */
+    private long entryHash(long keyHash, MapValue<V> value) {
+        MapValue.Digest digest = value.digest();
+        return Hashing.murmur3_128().newHasher()
+                .putLong(keyHash)
+                .putBytes(serializer.encode(digest.timestamp()))
+                .putBoolean(digest.isTombstone())
+                .hash()
+                .asLong();
+    }
+
+    private long keyHash(K key) {
+        return Hashing.murmur3_128().hashBytes(serializer.encode(key)).asLong();
+    }
+
+    private static int range(long keyHash) {
+        return (int) (keyHash >>> (Long.SIZE - RANGE_BITS));
+    }
+
+    private static boolean inRanges(long keyHash, long ranges) {
+        return (ranges & (1L << range(keyHash))) != 0;
+    }
+
     private AntiEntropyResponse handleAntiEntropyAdvertisement(AntiEntropyAdvertisement<K> ad) {
         if (destroyed || underHighLoad()) {
             return AntiEntropyResponse.IGNORED;
@@ -658,6 +840,9 @@ public class EventuallyConsistentMapImpl<K, V>
                 log.trace("Received anti-entropy advertisement from {} for {} with {} entries in it",
                         ad.sender(), mapName, ad.digest().size());
             }
+            if (ad.rangeHashes() != null) {
+                return antiEntropyCheckRanges(ad);
+            }
             antiEntropyCheckLocalItems(ad).forEach(this::notifyListeners);
         } catch (Exception e) {
             log.warn("Error handling anti-entropy advertisement", e);
@@ -666,6 +851,30 @@ public class EventuallyConsistentMapImpl<K, V>
         return AntiEntropyResponse.PROCESSED;
     }
 
+    /**
+     * Processes a range advertisement from a peer by comparing its range
+     * hashes with the local ones. The digests of the local entries in any
+     * mismatched ranges are advertised back to the peer, which then
+     * reconciles those ranges in both directions.
+     */
+    private AntiEntropyResponse antiEntropyCheckRanges(AntiEntropyAdvertisement<K> ad) {
+        long[] remoteHashes = ad.rangeHashes();
+        long[] localHashes = rangeHashes();
+        long mismatched = 0;
+        for (int i = 0; i < NUM_RANGES; i++) {
+            if (i >= remoteHashes.length || remoteHashes[i] != localHashes[i]) {
+                mismatched |= 1L << i;
+            }
+        }
+        if (mismatched == 0) {
+            return AntiEntropyResponse.PROCESSED;
+        }
+        log.debug("{} of {} anti-entropy ranges for {} differ from {}",
+                Long.bitCount(mismatched), NUM_RANGES, mapName, ad.sender());
+        sendAdvertisementToPeer(ad.sender(), createAdvertisement(mismatched));
+        return AntiEntropyResponse.DIVERGED;
+    }
+
     /**
      * Processes anti-entropy ad from peer by taking following actions:
      * 1. If peer has an old entry, updates peer.
@@ -679,8 +888,13 @@ public class EventuallyConsistentMapImpl<K, V>
         final List<NodeId> peers = ImmutableList.of(sender);
         Set<K> staleOrMissing = new HashSet<>();
         Set<K> locallyUnknown = new HashSet<>(ad.digest().keySet());
+        final long ranges = ad.ranges();
 
         items.forEach((key, localValue) -> {
+            if (ranges != AntiEntropyAdvertisement.ALL_RANGES && !inRanges(keyHash(key), ranges)) {
+                // entry is not covered by the advertisement
+                return;
+            }
             locallyUnknown.remove(key);
             MapValue.Digest remoteValueDigest = ad.digest().get(key);
             if (remoteValueDigest == null || localValue.isNewerThan(remoteValueDigest.timestamp())) {
@@ -739,6 +953,9 @@ public class EventuallyConsistentMapImpl<K, V>
                 .collect(Collectors.toList());
         previousTombstonePurgeTime = currentSafeTombstonePurgeTime;
         tombStonesToDelete.forEach(entry -> items.remove(entry.getKey(), entry.getValue()));
+        if (!tombStonesToDelete.isEmpty()) {
+            rangeHashesStale = true;
+        }
     }
 
     private void processUpdates(Collection<UpdateEntry<K, V>> updates) {
@@ -23,6 +23,7 @@ import io.atomix.core.map.AtomicMapType;
 import io.atomix.core.workqueue.WorkQueueType;
 import io.atomix.primitive.partition.PartitionGroup;
 import io.atomix.protocols.raft.MultiRaftProtocol;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.cluster.Member;
@@ -102,6 +103,9 @@ public class StorageManager implements StorageService, StorageAdminService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected AtomixManager atomixManager;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
     private Atomix atomix;
     private PartitionGroup group;
 
@@ -160,7 +164,8 @@ public class StorageManager implements StorageService, StorageAdminService {
             clusterCommunicator,
             persistenceService,
             peersSupplier,
-            bootstrapPeersSupplier
+            bootstrapPeersSupplier,
+            metricsService
         );
     }
 
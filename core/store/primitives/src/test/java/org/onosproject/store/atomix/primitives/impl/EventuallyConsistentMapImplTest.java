@@ -18,6 +18,7 @@ package org.onosproject.store.atomix.primitives.impl;
 import static com.google.common.base.Preconditions.checkArgument;
 import static junit.framework.TestCase.assertFalse;
 import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
@@ -49,6 +50,8 @@ import java.util.function.Supplier;
 
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.easymock.Capture;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -648,6 +651,35 @@ public class EventuallyConsistentMapImplTest {
         return true;
     }
 
+    @Test
+    public void testRangeAdvertisement() throws Exception {
+        expectPeerMessage(clusterCommunicator);
+        ecMap.put(KEY1, VALUE1);
+        ecMap.put(KEY2, VALUE2);
+
+        // An empty peer differs in the ranges holding our keys, so the digests
+        // of those ranges are advertised back to the peer
+        NodeId peer = NodeId.nodeId("1");
+        Capture<AntiEntropyAdvertisement<String>> drillDown = Capture.newInstance();
+        reset(clusterCommunicator);
+        expect(clusterCommunicator.sendAndReceive(capture(drillDown),
+                eq(ANTI_ENTROPY_MESSAGE_SUBJECT),
+                anyObject(Function.class),
+                anyObject(Function.class),
+                eq(peer)))
+                .andReturn(CompletableFuture.completedFuture(AntiEntropyResponse.PROCESSED));
+        replay(clusterCommunicator);
+
+        assertEquals(AntiEntropyResponse.DIVERGED,
+                antiEntropyHandler.apply(new AntiEntropyAdvertisement<>(peer, new long[64])));
+        verify(clusterCommunicator);
+
+        AntiEntropyAdvertisement<String> ad = drillDown.getValue();
+        assertNull(ad.rangeHashes());
+        assertEquals(ImmutableSet.of(KEY1, KEY2), ad.digest().keySet());
+        assertTrue(Long.bitCount(ad.ranges()) <= 2);
+    }
+
     @Test
     public void testDestroy() throws Exception {
         clusterCommunicator.removeSubscriber(BOOTSTRAP_MESSAGE_SUBJECT);
@@ -231,6 +231,21 @@ public class KryoSerializerTest {
         assertEquals(versioned3.value1, versioned3Downgrade.value1);
     }
 
+    @Test
+    public void testPooledBuffers() {
+        // Results are exact-size copies and independent of the reused buffers.
+        byte[] small = serializer.encode(DID1);
+        byte[] large = serializer.encode(new byte[2 * 1024 * 1024]);
+        assertArrayEquals(small, serializer.encode(DID1));
+        assertEquals(DID1, serializer.decode(small));
+        assertEquals(2 * 1024 * 1024, ((byte[]) serializer.decode(large)).length);
+
+        // Direct buffers are decoded in place.
+        ByteBuffer buffer = ByteBuffer.allocateDirect(small.length);
+        buffer.put(small).flip();
+        assertEquals(DID1, serializer.decode(buffer));
+    }
+
     @Test
     public void testConnectPoint() {
         testSerializedEquals(new ConnectPoint(DID1, P1));
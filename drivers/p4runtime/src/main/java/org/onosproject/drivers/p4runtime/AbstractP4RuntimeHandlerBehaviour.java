@@ -22,8 +22,15 @@ import org.onosproject.net.pi.service.PiPipeconfService;
 import org.onosproject.net.pi.service.PiTranslationService;
 import org.onosproject.p4runtime.api.P4RuntimeClient;
 import org.onosproject.p4runtime.api.P4RuntimeController;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.WriteRequest;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_WRITE_COALESCING;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_WRITE_COALESCING_MAX_BATCH_SIZE;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_WRITE_COALESCING_WINDOW;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.WRITE_COALESCING;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.WRITE_COALESCING_MAX_BATCH_SIZE;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.WRITE_COALESCING_WINDOW;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverUtils.extractP4DeviceId;
 
 /**
@@ -91,4 +98,45 @@ public abstract class AbstractP4RuntimeHandlerBehaviour
             return Boolean.parseBoolean(handler().driver().getProperty(propName));
         }
     }
+
+    /**
+     * Returns the value of the given driver property, if present and valid,
+     * otherwise returns the given default value.
+     *
+     * @param propName   property name
+     * @param defaultVal default value
+     * @return integer
+     */
+    int driverIntProperty(String propName, int defaultVal) {
+        checkNotNull(propName);
+        final String propValue = handler().driver().getProperty(propName);
+        if (propValue == null) {
+            return defaultVal;
+        }
+        try {
+            return Integer.parseInt(propValue.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value for driver property {}: {}", propName, propValue);
+            return defaultVal;
+        }
+    }
+
+    /**
+     * Returns a new write request for this device. Unless disabled by driver
+     * properties, the request is coalesced with the ones submitted for the
+     * same device by other behaviours.
+     *
+     * @return new write request
+     */
+    WriteRequest newWriteRequest() {
+        if (!driverBoolProperty(WRITE_COALESCING, DEFAULT_WRITE_COALESCING)) {
+            return client.write(p4DeviceId, pipeconf);
+        }
+        return P4RuntimeWriteCoalescer.write(
+                deviceId, client, p4DeviceId, pipeconf,
+                driverIntProperty(WRITE_COALESCING_MAX_BATCH_SIZE,
+                                  DEFAULT_WRITE_COALESCING_MAX_BATCH_SIZE),
+                driverIntProperty(WRITE_COALESCING_WINDOW,
+                                  DEFAULT_WRITE_COALESCING_WINDOW));
+    }
 }
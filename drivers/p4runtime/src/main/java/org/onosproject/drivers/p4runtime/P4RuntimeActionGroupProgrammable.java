@@ -183,7 +183,7 @@ public class P4RuntimeActionGroupProgrammable
             log.warn("Cleaning up {} action profile groups and " +
                              "{} members on {}...",
                      groupHandlesToRemove.size(), memberHandlesToRemove.size(), deviceId);
-            client.write(p4DeviceId, pipeconf)
+            newWriteRequest()
                     .delete(groupHandlesToRemove)
                     .delete(memberHandlesToRemove)
                     .submit().whenComplete((r, ex) -> {
@@ -308,7 +308,7 @@ public class P4RuntimeActionGroupProgrammable
         if (members == null) {
             return;
         }
-        final WriteRequest request = client.write(p4DeviceId, pipeconf);
+        final WriteRequest request = newWriteRequest();
         WRITE_LOCKS.get(deviceId).lock();
         try {
             if (operation == Operation.APPLY) {
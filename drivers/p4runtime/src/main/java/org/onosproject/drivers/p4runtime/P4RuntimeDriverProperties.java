@@ -48,6 +48,27 @@ public final class P4RuntimeDriverProperties {
     public static final String READ_COUNTERS_WITH_TABLE_ENTRIES = "tableReadCountersWithTableEntries";
     public static final boolean DEFAULT_READ_COUNTERS_WITH_TABLE_ENTRIES = true;
 
+    // Maximum number of direct counter cells requested with a single read,
+    // when counters are not read with table entries.
+    public static final String READ_COUNTERS_BATCH_SIZE = "tableReadCountersBatchSize";
+    public static final int DEFAULT_READ_COUNTERS_BATCH_SIZE = 1000;
+
+    // If true, write requests issued concurrently for the same device by
+    // different behaviours (flow rules, groups, meters) are coalesced, with
+    // at most one write request in flight per device.
+    public static final String WRITE_COALESCING = "writeCoalescing";
+    public static final boolean DEFAULT_WRITE_COALESCING = true;
+
+    // Maximum number of updates in a coalesced write request.
+    public static final String WRITE_COALESCING_MAX_BATCH_SIZE = "writeCoalescingMaxBatchSize";
+    public static final int DEFAULT_WRITE_COALESCING_MAX_BATCH_SIZE = 1000;
+
+    // Time to wait for other updates before sending a coalesced write request
+    // when none is in flight, in milliseconds. If 0, updates are sent
+    // immediately and coalesced only while a write request is in flight.
+    public static final String WRITE_COALESCING_WINDOW = "writeCoalescingWindowMillis";
+    public static final int DEFAULT_WRITE_COALESCING_WINDOW = 0;
+
     // True if target supports reading and writing table entries.
     public static final String SUPPORT_DEFAULT_TABLE_ENTRY = "supportDefaultTableEntry";
     public static final boolean DEFAULT_SUPPORT_DEFAULT_TABLE_ENTRY = true;
@@ -16,11 +16,15 @@
 
 package org.onosproject.drivers.p4runtime;
 
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.Striped;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.drivers.p4runtime.mirror.P4RuntimeDefaultEntryMirror;
 import org.onosproject.drivers.p4runtime.mirror.P4RuntimeTableMirror;
 import org.onosproject.drivers.p4runtime.mirror.TimedEntry;
@@ -31,6 +35,7 @@ import org.onosproject.net.flow.FlowRuleProgrammable;
 import org.onosproject.net.pi.model.PiCounterType;
 import org.onosproject.net.pi.model.PiPipelineModel;
 import org.onosproject.net.pi.model.PiTableId;
+import org.onosproject.net.pi.model.PiTableModel;
 import org.onosproject.net.pi.runtime.PiCounterCell;
 import org.onosproject.net.pi.runtime.PiCounterCellData;
 import org.onosproject.net.pi.runtime.PiCounterCellHandle;
@@ -57,14 +62,19 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_DELETE_BEFORE_UPDATE;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_READ_COUNTERS_BATCH_SIZE;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_READ_COUNTERS_WITH_TABLE_ENTRIES;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_READ_FROM_MIRROR;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_SUPPORT_DEFAULT_TABLE_ENTRY;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DEFAULT_SUPPORT_TABLE_COUNTERS;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.DELETE_BEFORE_UPDATE;
+import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.READ_COUNTERS_BATCH_SIZE;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.READ_COUNTERS_WITH_TABLE_ENTRIES;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.READ_FROM_MIRROR;
 import static org.onosproject.drivers.p4runtime.P4RuntimeDriverProperties.SUPPORT_DEFAULT_TABLE_ENTRY;
@@ -87,10 +97,14 @@ public class P4RuntimeFlowRuleProgrammable
     // that each request gets consistent access to mirror state.
     private static final Striped<Lock> WRITE_LOCKS = Striped.lock(30);
 
+    private static final String METRICS_COMPONENT = "P4RuntimeFlowRuleProgrammable";
+    private static final String METRICS_READ_FEATURE = "tableRead";
+
     private PiPipelineModel pipelineModel;
     private P4RuntimeTableMirror tableMirror;
     private PiFlowRuleTranslator translator;
     private P4RuntimeDefaultEntryMirror defaultEntryMirror;
+    private MetricsService metricsService;
 
     @Override
     protected boolean setupBehaviour(String opName) {
@@ -103,6 +117,7 @@ public class P4RuntimeFlowRuleProgrammable
         tableMirror = handler().get(P4RuntimeTableMirror.class);
         translator = translationService.flowRuleTranslator();
         defaultEntryMirror = handler().get(P4RuntimeDefaultEntryMirror.class);
+        metricsService = handler().get(MetricsService.class);
         return true;
     }
 
@@ -121,8 +136,14 @@ public class P4RuntimeFlowRuleProgrammable
         final ImmutableList.Builder<FlowEntry> result = ImmutableList.builder();
         final List<PiTableEntry> inconsistentEntries = Lists.newArrayList();
 
-        // Read table entries from device.
-        final Collection<PiTableEntry> deviceEntries = getAllTableEntriesFromDevice();
+        // Read table entries from device. Counters of each table are read
+        // while entries of the following tables are being read.
+        final Map<PiTableEntryHandle, PiCounterCellData> counterCellMap =
+                Maps.newConcurrentMap();
+        final List<CompletableFuture<Void>> counterReads = Lists.newArrayList();
+        final Collection<PiTableEntry> deviceEntries = getAllTableEntriesFromDevice(
+                tableEntries -> counterReads.add(
+                        readEntryCounters(tableEntries, counterCellMap)));
         if (deviceEntries == null) {
             // Potential error at the client level.
             return Collections.emptyList();
@@ -136,8 +157,8 @@ public class P4RuntimeFlowRuleProgrammable
             return Collections.emptyList();
         }
 
-        final Map<PiTableEntryHandle, PiCounterCellData> counterCellMap =
-                readEntryCounters(deviceEntries);
+        Futures.getUnchecked(CompletableFuture.allOf(
+                counterReads.toArray(new CompletableFuture[0])));
         // Forge flow entries with counter values.
         for (PiTableEntry entry : deviceEntries) {
             final PiTableEntryHandle handle = entry.handle(deviceId);
@@ -161,7 +182,7 @@ public class P4RuntimeFlowRuleProgrammable
             log.warn("Found {} inconsistent table entries on {}, removing them...",
                      inconsistentEntries.size(), deviceId);
             // Submit delete request and update mirror when done.
-            client.write(p4DeviceId, pipeconf)
+            newWriteRequest()
                     .entities(inconsistentEntries, DELETE)
                     .submit().whenComplete((response, ex) -> {
                 if (ex != null) {
@@ -178,31 +199,57 @@ public class P4RuntimeFlowRuleProgrammable
         return result.build();
     }
 
-    private Collection<PiTableEntry> getAllTableEntriesFromDevice() {
-        final P4RuntimeReadClient.ReadRequest request = client.read(
-                p4DeviceId, pipeconf);
+    private Collection<PiTableEntry> getAllTableEntriesFromDevice(
+            Consumer<Collection<PiTableEntry>> tableConsumer) {
+        final List<PiTableEntry> deviceEntries = Lists.newArrayList();
         // Read entries from all non-constant tables, including default ones.
-        pipelineModel.tables().stream()
-                .filter(t -> !t.isConstantTable())
-                .forEach(t -> {
-                    request.tableEntries(t.id());
-                    if (driverBoolProperty(SUPPORT_DEFAULT_TABLE_ENTRY,
-                                           DEFAULT_SUPPORT_DEFAULT_TABLE_ENTRY) &&
-                            t.constDefaultAction().isEmpty()) {
-                        request.defaultTableEntry(t.id());
+        // Tables are read one at a time, to bound the size of each response,
+        // and entries are decoded as they are received.
+        for (PiTableModel table : pipelineModel.tables()) {
+            if (table.isConstantTable()) {
+                continue;
+            }
+            final P4RuntimeReadClient.ReadRequest request = client.read(
+                    p4DeviceId, pipeconf).tableEntries(table.id());
+            if (driverBoolProperty(SUPPORT_DEFAULT_TABLE_ENTRY,
+                                   DEFAULT_SUPPORT_DEFAULT_TABLE_ENTRY) &&
+                    table.constDefaultAction().isEmpty()) {
+                request.defaultTableEntry(table.id());
+            }
+            // Device implementation might return duplicate entries. For
+            // example if reading only default ones is not supported and
+            // non-default entries are returned, by using a set we are robust
+            // against that possibility.
+            final Set<PiTableEntry> tableEntries = Sets.newLinkedHashSet();
+            final Timer.Context timer = startTimer(readTimer(table.id()));
+            final P4RuntimeReadClient.ReadResponse response;
+            try {
+                response = Futures.getUnchecked(request.submit(entity -> {
+                    if (entity instanceof PiTableEntry) {
+                        tableEntries.add((PiTableEntry) entity);
                     }
-                });
-        final P4RuntimeReadClient.ReadResponse response = request.submitSync();
-        if (!response.isSuccess()) {
+                }));
+            } finally {
+                stopTimer(timer);
+            }
+            if (!response.isSuccess()) {
+                return null;
+            }
+            tableConsumer.accept(tableEntries);
+            deviceEntries.addAll(tableEntries);
+        }
+        return deviceEntries;
+    }
+
+    private Timer readTimer(PiTableId tableId) {
+        if (metricsService == null) {
             return null;
         }
-        return response.all(PiTableEntry.class).stream()
-                // Device implementation might return duplicate entries. For
-                // example if reading only default ones is not supported and
-                // non-default entries are returned, by using distinct() we
-                // are robust against that possibility.
-                .distinct()
-                .collect(Collectors.toList());
+        final MetricsComponent component = metricsService.registerComponent(
+                METRICS_COMPONENT);
+        return metricsService.createTimer(
+                component, component.registerFeature(METRICS_READ_FEATURE),
+                tableId.id());
     }
 
     @Override
@@ -265,7 +312,7 @@ public class P4RuntimeFlowRuleProgrammable
             return Collections.emptyList();
         }
         // Created batched write request.
-        final WriteRequest request = client.write(p4DeviceId, pipeconf);
+        final WriteRequest request = newWriteRequest();
         // For each rule, translate to PI and append to write request.
         final Map<PiHandle, FlowRule> handleToRuleMap = Maps.newHashMap();
         final List<FlowRule> skippedRules = Lists.newArrayList();
@@ -462,37 +509,52 @@ public class P4RuntimeFlowRuleProgrammable
         return originalDefaultEntry.action().equals(entry.action());
     }
 
-    private Map<PiTableEntryHandle, PiCounterCellData> readEntryCounters(
-            Collection<PiTableEntry> tableEntries) {
+    private CompletableFuture<Void> readEntryCounters(
+            Collection<PiTableEntry> tableEntries,
+            Map<PiTableEntryHandle, PiCounterCellData> counterCellMap) {
 
         if (!driverBoolProperty(SUPPORT_TABLE_COUNTERS,
                                 DEFAULT_SUPPORT_TABLE_COUNTERS)
                 || tableEntries.isEmpty()) {
-            return Collections.emptyMap();
+            return CompletableFuture.completedFuture(null);
         }
 
         if (driverBoolProperty(READ_COUNTERS_WITH_TABLE_ENTRIES,
                                DEFAULT_READ_COUNTERS_WITH_TABLE_ENTRIES)) {
-            return tableEntries.stream()
+            tableEntries.stream()
                     .filter(t -> t.counter() != null)
-                    .collect(Collectors.toMap(
-                            t -> t.handle(deviceId), PiTableEntry::counter));
+                    .forEach(t -> counterCellMap.put(t.handle(deviceId), t.counter()));
+            return CompletableFuture.completedFuture(null);
         } else {
-            final Set<PiHandle> cellHandles = tableEntries.stream()
+            final List<PiHandle> cellHandles = tableEntries.stream()
                     .filter(e -> !e.isDefaultAction())
                     .filter(e -> tableHasCounter(e.table()))
                     .map(PiCounterCellId::ofDirect)
                     .map(id -> PiCounterCellHandle.of(deviceId, id))
-                    .collect(Collectors.toSet());
-            // FIXME: We might be sending a very large read request...
-            return client.read(p4DeviceId, pipeconf)
-                    .handles(cellHandles)
-                    .submitSync()
-                    .all(PiCounterCell.class).stream()
-                    .filter(c -> c.cellId().counterType().equals(PiCounterType.DIRECT))
-                    .collect(Collectors.toMap(
-                            c -> c.cellId().tableEntry().handle(deviceId),
-                            PiCounterCell::data));
+                    .collect(Collectors.toList());
+            // Split cells in multiple requests to avoid sending a very large
+            // read request, and consume cells as they are received.
+            final int batchSize = Math.max(1, driverIntProperty(
+                    READ_COUNTERS_BATCH_SIZE, DEFAULT_READ_COUNTERS_BATCH_SIZE));
+            final List<CompletableFuture<P4RuntimeReadClient.ReadResponse>> reads =
+                    Lists.newArrayList();
+            for (List<PiHandle> batch : Lists.partition(cellHandles, batchSize)) {
+                reads.add(client.read(p4DeviceId, pipeconf)
+                                  .handles(batch)
+                                  .submit(entity -> {
+                                      if (entity instanceof PiCounterCell) {
+                                          addDirectCounterCell((PiCounterCell) entity, counterCellMap);
+                                      }
+                                  }));
+            }
+            return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0]));
+        }
+    }
+
+    private void addDirectCounterCell(PiCounterCell cell,
+                                      Map<PiTableEntryHandle, PiCounterCellData> counterCellMap) {
+        if (cell.cellId().counterType().equals(PiCounterType.DIRECT)) {
+            counterCellMap.put(cell.cellId().tableEntry().handle(deviceId), cell.data());
         }
     }
 
@@ -105,14 +105,16 @@ public class P4RuntimeMeterProgrammable extends AbstractP4RuntimeHandlerBehaviou
 
         final PiMeterCellHandle handle = PiMeterCellHandle.of(deviceId, piMeterCellConfig);
         ENTRY_LOCKS.getUnchecked(handle).lock();
-        final boolean result = client.write(p4DeviceId, pipeconf)
-                .modify(piMeterCellConfig).submitSync().isSuccess();
-        if (result) {
-            meterMirror.put(handle, piMeterCellConfig);
+        try {
+            final boolean result = newWriteRequest()
+                    .modify(piMeterCellConfig).submitSync().isSuccess();
+            if (result) {
+                meterMirror.put(handle, piMeterCellConfig);
+            }
+            return result;
+        } finally {
+            ENTRY_LOCKS.getUnchecked(handle).unlock();
         }
-        ENTRY_LOCKS.getUnchecked(handle).unlock();
-
-        return result;
     }
 
     @Override
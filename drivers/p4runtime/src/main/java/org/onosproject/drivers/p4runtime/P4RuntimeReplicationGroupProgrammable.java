@@ -160,7 +160,7 @@ public class P4RuntimeReplicationGroupProgrammable
 
     private boolean writeEntryOnDevice(
             PiPreEntry entry, P4RuntimeClient.UpdateType opType) {
-        return client.write(p4DeviceId, pipeconf)
+        return newWriteRequest()
                 .entity(entry, opType).submitSync().isSuccess();
     }
 
@@ -0,0 +1,557 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.drivers.p4runtime;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import org.onlab.util.SharedExecutors;
+import org.onlab.util.SharedScheduledExecutors;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.pi.model.PiPipeconf;
+import org.onosproject.net.pi.runtime.PiEntity;
+import org.onosproject.net.pi.runtime.PiEntityType;
+import org.onosproject.net.pi.runtime.PiHandle;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.Atomicity;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.EntityUpdateRequest;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.EntityUpdateResponse;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.EntityUpdateStatus;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.UpdateType;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.WriteRequest;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.WriteResponse;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Coalesces the P4Runtime write requests issued by the different behaviours of
+ * the same device (flow rules, action profile groups and members, replication
+ * groups, meters) in larger write requests.
+ * <p>
+ * At most one write request per device is in flight, and requests are sent in
+ * the same order as submitted. Requests submitted while a write request is in
+ * flight are queued; as soon as the response is received, the next queued
+ * request is sent, together with the following ones that cannot depend on it.
+ * A P4Runtime server may apply the updates of a write request in any order,
+ * hence only requests made of updates of the same type on the same kind of
+ * entity, and with no entity in common, are sent together. Requests with
+ * other updates, or with a specific atomicity, are sent alone. Each submitter
+ * receives a response made only of its own updates.
+ * <p>
+ * A coalescer is discarded as soon as it has no request to send, hence none
+ * is kept for devices which are no longer written to, e.g. removed ones.
+ */
+final class P4RuntimeWriteCoalescer {
+
+    private static final Logger log = getLogger(P4RuntimeWriteCoalescer.class);
+
+    private static final Map<DeviceId, P4RuntimeWriteCoalescer> COALESCERS =
+            Maps.newConcurrentMap();
+
+    private final DeviceId deviceId;
+
+    // Guarded by this.
+    private final Deque<CoalescedWriteRequest> queue = new ArrayDeque<>();
+    private boolean flushing;
+    private boolean retired;
+
+    private P4RuntimeWriteCoalescer(DeviceId deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * Returns a new write request that, once submitted, is coalesced with the
+     * other requests submitted for the given device.
+     *
+     * @param deviceId      device ID
+     * @param client        P4Runtime client
+     * @param p4DeviceId    P4Runtime-internal device ID
+     * @param pipeconf      pipeconf
+     * @param maxBatchSize  maximum number of updates per write request sent
+     *                      to the device, unless a single request has more
+     * @param windowMillis  time to wait for other requests before sending a
+     *                      write request when none is in flight, in
+     *                      milliseconds; 0 to send it immediately
+     * @return new write request
+     */
+    static WriteRequest write(DeviceId deviceId, P4RuntimeWriteClient client,
+                              long p4DeviceId, PiPipeconf pipeconf,
+                              int maxBatchSize, int windowMillis) {
+        return new CoalescedWriteRequest(checkNotNull(deviceId), checkNotNull(client),
+                                         p4DeviceId, checkNotNull(pipeconf),
+                                         Math.max(1, maxBatchSize),
+                                         Math.max(0, windowMillis));
+    }
+
+    /**
+     * Returns the number of requests waiting to be sent to the given device.
+     *
+     * @param deviceId device ID
+     * @return number of queued requests
+     */
+    static int queued(DeviceId deviceId) {
+        final P4RuntimeWriteCoalescer coalescer = COALESCERS.get(deviceId);
+        if (coalescer == null) {
+            return 0;
+        }
+        synchronized (coalescer) {
+            return coalescer.queue.size();
+        }
+    }
+
+    /**
+     * Returns whether a coalescer currently exists for the given device.
+     *
+     * @param deviceId device ID
+     * @return true if a coalescer exists
+     */
+    static boolean exists(DeviceId deviceId) {
+        return COALESCERS.containsKey(deviceId);
+    }
+
+    private static void enqueue(CoalescedWriteRequest request) {
+        P4RuntimeWriteCoalescer coalescer;
+        do {
+            coalescer = COALESCERS.computeIfAbsent(
+                    request.deviceId, P4RuntimeWriteCoalescer::new);
+        } while (!coalescer.offer(request));
+    }
+
+    // Returns false if the coalescer was discarded in the meantime.
+    private boolean offer(CoalescedWriteRequest request) {
+        final boolean flushNow;
+        synchronized (this) {
+            if (retired) {
+                return false;
+            }
+            queue.addLast(request);
+            flushNow = !flushing;
+            flushing = true;
+        }
+        if (flushNow) {
+            if (request.windowMillis > 0) {
+                SharedScheduledExecutors.newTimeout(
+                        this::flush, request.windowMillis, TimeUnit.MILLISECONDS);
+            } else {
+                flush();
+            }
+        }
+        return true;
+    }
+
+    private void flush() {
+        final List<CoalescedWriteRequest> batch;
+        synchronized (this) {
+            batch = nextBatch();
+            if (batch.isEmpty()) {
+                flushing = false;
+                retired = true;
+                COALESCERS.remove(deviceId, this);
+                return;
+            }
+        }
+        CompletableFuture<WriteResponse> future;
+        try {
+            future = send(batch);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((response, error) -> {
+            List<WriteResponse> responses = null;
+            Throwable failure = error;
+            if (error != null) {
+                log.error("Exception writing to " + deviceId, error);
+            } else {
+                try {
+                    responses = split(batch, response);
+                } catch (RuntimeException e) {
+                    log.error("Exception dispatching write responses of " + deviceId, e);
+                    failure = e;
+                }
+            }
+            // Sends the next batch before completing the submitters, whose
+            // callbacks may submit and wait for further writes to this device.
+            scheduleFlush();
+            for (int i = 0; i < batch.size(); i++) {
+                if (failure != null) {
+                    batch.get(i).future.completeExceptionally(failure);
+                } else {
+                    batch.get(i).future.complete(responses.get(i));
+                }
+            }
+        });
+    }
+
+    // Sends the requests queued in the meantime, without holding the thread
+    // which completed the response.
+    private void scheduleFlush() {
+        try {
+            SharedExecutors.getPoolThreadExecutor().execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            flush();
+        }
+    }
+
+    private List<CoalescedWriteRequest> nextBatch() {
+        final List<CoalescedWriteRequest> batch = Lists.newArrayList();
+        final CoalescedWriteRequest first = queue.pollFirst();
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        if (!first.coalescable()) {
+            return batch;
+        }
+        final Set<PiHandle> handles = Sets.newHashSet(first.handles());
+        int size = first.updates.size();
+        CoalescedWriteRequest next = queue.peekFirst();
+        while (next != null && next.coalescable() && next.sameTarget(first)
+                && next.sameKind(first)
+                && size + next.updates.size() <= first.maxBatchSize
+                && Sets.intersection(handles, next.handles()).isEmpty()) {
+            handles.addAll(next.handles());
+            size += next.updates.size();
+            batch.add(queue.pollFirst());
+            next = queue.peekFirst();
+        }
+        return batch;
+    }
+
+    private CompletableFuture<WriteResponse> send(List<CoalescedWriteRequest> batch) {
+        final CoalescedWriteRequest first = batch.get(0);
+        final WriteRequest request = first.direct != null
+                ? first.direct : first.client.write(first.p4DeviceId, first.pipeconf);
+        batch.forEach(r -> r.updates.forEach(u -> {
+            if (u.updateType() == UpdateType.DELETE) {
+                request.delete(u.handle());
+            } else {
+                request.entity(u.entity(), u.updateType());
+            }
+        }));
+        if (batch.size() > 1) {
+            log.debug("Sending {} coalesced write requests to {}...", batch.size(), deviceId);
+        }
+        return request.submit();
+    }
+
+    private List<WriteResponse> split(List<CoalescedWriteRequest> batch, WriteResponse response) {
+        if (batch.size() == 1) {
+            return ImmutableList.of(response);
+        }
+        // Handles are unique across the requests of a batch.
+        final Map<PiHandle, EntityUpdateResponse> responses = Maps.newHashMap();
+        response.all().forEach(r -> responses.put(r.handle(), r));
+        return batch.stream().<WriteResponse>map(request -> {
+            final List<EntityUpdateResponse> own = Lists.newArrayList();
+            request.updates.forEach(u -> {
+                final EntityUpdateResponse r = responses.get(u.handle());
+                own.add(r != null ? r : new MissingUpdateResponse(u));
+            });
+            return new CoalescedWriteResponse(own);
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Write request whose updates are sent to the device by the coalescer.
+     */
+    private static final class CoalescedWriteRequest implements WriteRequest {
+
+        private final DeviceId deviceId;
+        private final P4RuntimeWriteClient client;
+        private final long p4DeviceId;
+        private final PiPipeconf pipeconf;
+        private final int maxBatchSize;
+        private final int windowMillis;
+
+        private final List<EntityUpdateRequest> updates = Lists.newArrayList();
+        private final AtomicBoolean submitted = new AtomicBoolean(false);
+        private final CompletableFuture<WriteResponse> future = new CompletableFuture<>();
+        // Underlying request, when this one is not coalesced with others.
+        private WriteRequest direct;
+
+        private CoalescedWriteRequest(DeviceId deviceId, P4RuntimeWriteClient client,
+                                      long p4DeviceId, PiPipeconf pipeconf,
+                                      int maxBatchSize, int windowMillis) {
+            this.deviceId = deviceId;
+            this.client = client;
+            this.p4DeviceId = p4DeviceId;
+            this.pipeconf = pipeconf;
+            this.maxBatchSize = maxBatchSize;
+            this.windowMillis = windowMillis;
+        }
+
+        private boolean sameTarget(CoalescedWriteRequest other) {
+            return client == other.client
+                    && p4DeviceId == other.p4DeviceId
+                    && pipeconf.equals(other.pipeconf);
+        }
+
+        // True if all updates have the same type and entity type as the
+        // updates of the given request.
+        private boolean sameKind(CoalescedWriteRequest other) {
+            final EntityUpdateRequest update = other.updates.get(0);
+            return updates.stream().allMatch(
+                    u -> u.updateType() == update.updateType()
+                            && u.entityType() == update.entityType());
+        }
+
+        // True if the updates can be sent together with the ones of other
+        // requests: default atomicity, updates of the same kind, no entity
+        // updated twice.
+        private boolean coalescable() {
+            return direct == null && sameKind(this)
+                    && handles().size() == updates.size();
+        }
+
+        private Set<PiHandle> handles() {
+            return updates.stream().map(EntityUpdateRequest::handle)
+                    .collect(Collectors.toSet());
+        }
+
+        @Override
+        public WriteRequest withAtomicity(Atomicity atomicity) {
+            checkNotNull(atomicity);
+            checkState(!submitted.get(),
+                       "Request has already been submitted, cannot change atomicity");
+            if (atomicity != Atomicity.CONTINUE_ON_ERROR || direct != null) {
+                // Sent alone, with the atomicity of the underlying request.
+                if (direct == null) {
+                    direct = client.write(p4DeviceId, pipeconf);
+                }
+                direct.withAtomicity(atomicity);
+            }
+            return this;
+        }
+
+        @Override
+        public WriteRequest insert(PiEntity entity) {
+            return entity(entity, UpdateType.INSERT);
+        }
+
+        @Override
+        public WriteRequest insert(Iterable<? extends PiEntity> entities) {
+            return entities(entities, UpdateType.INSERT);
+        }
+
+        @Override
+        public WriteRequest modify(PiEntity entity) {
+            return entity(entity, UpdateType.MODIFY);
+        }
+
+        @Override
+        public WriteRequest modify(Iterable<? extends PiEntity> entities) {
+            return entities(entities, UpdateType.MODIFY);
+        }
+
+        @Override
+        public WriteRequest delete(PiHandle handle) {
+            checkNotNull(handle);
+            return append(new Update(handle, null, UpdateType.DELETE));
+        }
+
+        @Override
+        public WriteRequest delete(Iterable<? extends PiHandle> handles) {
+            checkNotNull(handles);
+            handles.forEach(this::delete);
+            return this;
+        }
+
+        @Override
+        public WriteRequest entity(PiEntity entity, UpdateType updateType) {
+            checkNotNull(entity);
+            checkNotNull(updateType);
+            return append(new Update(
+                    entity.handle(deviceId),
+                    updateType == UpdateType.DELETE ? null : entity,
+                    updateType));
+        }
+
+        @Override
+        public WriteRequest entities(Iterable<? extends PiEntity> entities,
+                                     UpdateType updateType) {
+            checkNotNull(entities);
+            entities.forEach(e -> entity(e, updateType));
+            return this;
+        }
+
+        private WriteRequest append(Update update) {
+            checkState(!submitted.get(),
+                       "Request has already been submitted, cannot add more entities");
+            updates.add(update);
+            return this;
+        }
+
+        @Override
+        public CompletableFuture<WriteResponse> submit() {
+            checkState(!submitted.getAndSet(true),
+                       "Request has already been submitted, cannot submit again");
+            if (updates.isEmpty()) {
+                return completedFuture(new CoalescedWriteResponse(ImmutableList.of()));
+            }
+            enqueue(this);
+            return future;
+        }
+
+        @Override
+        public WriteResponse submitSync() {
+            return Futures.getUnchecked(submit());
+        }
+
+        @Override
+        public Collection<EntityUpdateRequest> pendingUpdates() {
+            return ImmutableList.copyOf(updates);
+        }
+    }
+
+    /**
+     * Update of a coalesced write request.
+     */
+    private static class Update implements EntityUpdateRequest {
+
+        private final PiHandle handle;
+        private final PiEntity entity;
+        private final UpdateType updateType;
+
+        Update(PiHandle handle, PiEntity entity, UpdateType updateType) {
+            this.handle = handle;
+            this.entity = entity;
+            this.updateType = updateType;
+        }
+
+        @Override
+        public PiHandle handle() {
+            return handle;
+        }
+
+        @Override
+        public PiEntity entity() {
+            return entity;
+        }
+
+        @Override
+        public UpdateType updateType() {
+            return updateType;
+        }
+
+        @Override
+        public PiEntityType entityType() {
+            return handle.entityType();
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("handle", handle)
+                    .add("updateType", updateType)
+                    .toString();
+        }
+    }
+
+    /**
+     * Response for an update the device did not report about, e.g. because
+     * none of the updates of the write request could be encoded.
+     */
+    private static final class MissingUpdateResponse
+            extends Update implements EntityUpdateResponse {
+
+        private MissingUpdateResponse(EntityUpdateRequest update) {
+            super(update.handle(), update.entity(), update.updateType());
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return false;
+        }
+
+        @Override
+        public EntityUpdateStatus status() {
+            return EntityUpdateStatus.OTHER_ERROR;
+        }
+
+        @Override
+        public String explanation() {
+            return "No response received for coalesced update";
+        }
+
+        @Override
+        public Throwable throwable() {
+            return null;
+        }
+    }
+
+    /**
+     * Write response made of the responses to the updates of a single
+     * coalesced write request, in the same order as requested.
+     */
+    private static final class CoalescedWriteResponse implements WriteResponse {
+
+        private final List<EntityUpdateResponse> responses;
+
+        private CoalescedWriteResponse(List<EntityUpdateResponse> responses) {
+            this.responses = ImmutableList.copyOf(responses);
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return responses.stream().allMatch(EntityUpdateResponse::isSuccess);
+        }
+
+        @Override
+        public Collection<EntityUpdateResponse> all() {
+            return responses;
+        }
+
+        @Override
+        public Collection<EntityUpdateResponse> success() {
+            return responses.stream().filter(EntityUpdateResponse::isSuccess)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public Collection<EntityUpdateResponse> failed() {
+            return responses.stream().filter(r -> !r.isSuccess())
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public Collection<EntityUpdateResponse> status(EntityUpdateStatus status) {
+            checkNotNull(status);
+            return responses.stream().filter(r -> r.status() == status)
+                    .collect(Collectors.toList());
+        }
+    }
+}
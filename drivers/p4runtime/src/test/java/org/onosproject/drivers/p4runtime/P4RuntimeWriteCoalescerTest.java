@@ -0,0 +1,557 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.drivers.p4runtime;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.pi.model.PiActionId;
+import org.onosproject.net.pi.model.PiActionProfileId;
+import org.onosproject.net.pi.model.PiMeterId;
+import org.onosproject.net.pi.model.PiPipeconf;
+import org.onosproject.net.pi.runtime.PiAction;
+import org.onosproject.net.pi.runtime.PiActionProfileMember;
+import org.onosproject.net.pi.runtime.PiActionProfileMemberId;
+import org.onosproject.net.pi.runtime.PiEntity;
+import org.onosproject.net.pi.runtime.PiEntityType;
+import org.onosproject.net.pi.runtime.PiHandle;
+import org.onosproject.net.pi.runtime.PiMeterCellConfig;
+import org.onosproject.net.pi.runtime.PiMeterCellId;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.Atomicity;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.EntityUpdateRequest;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.EntityUpdateResponse;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.EntityUpdateStatus;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.UpdateType;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.WriteRequest;
+import org.onosproject.p4runtime.api.P4RuntimeWriteClient.WriteResponse;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.createMock;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the P4Runtime write coalescer.
+ */
+public class P4RuntimeWriteCoalescerTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private static final PiMeterId METER_ID = PiMeterId.of("ingress.meter");
+    private static final PiActionProfileId ACT_PROF_ID = PiActionProfileId.of("ingress.act_prof");
+    private static final PiAction ACTION = PiAction.builder()
+            .withId(PiActionId.of("ingress.nop")).build();
+
+    private static int nextDevice;
+
+    private DeviceId deviceId;
+    private PiPipeconf pipeconf;
+    private FakeWriteClient client;
+
+    @Before
+    public void setUp() {
+        deviceId = DeviceId.deviceId("device:coalescer-test-" + nextDevice++);
+        pipeconf = createMock(PiPipeconf.class);
+        client = new FakeWriteClient(deviceId);
+    }
+
+    private WriteRequest newRequest() {
+        return P4RuntimeWriteCoalescer.write(deviceId, client, 1, pipeconf, MAX_BATCH_SIZE, 0);
+    }
+
+    private static PiMeterCellConfig meter(long index) {
+        return PiMeterCellConfig.builder()
+                .withMeterCellId(PiMeterCellId.ofIndirect(METER_ID, index))
+                .build();
+    }
+
+    private static PiActionProfileMember member(int id) {
+        return PiActionProfileMember.builder()
+                .forActionProfile(ACT_PROF_ID)
+                .withId(PiActionProfileMemberId.of(id))
+                .withAction(ACTION)
+                .build();
+    }
+
+    private List<PiHandle> handles(PiEntity... entities) {
+        return Lists.newArrayList(entities).stream()
+                .map(e -> e.handle(deviceId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks that requests of the same kind, queued while a write request is
+     * in flight, are sent together and that each submitter only gets the
+     * responses to its own updates.
+     */
+    @Test
+    public void testCoalescing() throws Exception {
+        CompletableFuture<WriteResponse> first = newRequest().modify(meter(1)).submit();
+        FakeWriteRequest sent = client.next();
+        assertThat(sent.handles(), contains(handles(meter(1)).toArray()));
+
+        CompletableFuture<WriteResponse> second = newRequest().modify(meter(2)).submit();
+        CompletableFuture<WriteResponse> third = newRequest()
+                .modify(ImmutableList.of(meter(3), meter(4))).submit();
+        assertThat(client.poll(), nullValue());
+
+        sent.succeed();
+        assertTrue(first.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isSuccess());
+
+        sent = client.next();
+        assertThat(sent.handles(), contains(handles(meter(2), meter(3), meter(4)).toArray()));
+        sent.succeed();
+
+        WriteResponse response = second.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertThat(handlesOf(response), contains(handles(meter(2)).toArray()));
+        response = third.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertThat(handlesOf(response), contains(handles(meter(3), meter(4)).toArray()));
+    }
+
+    /**
+     * Checks that requests of different kinds are sent in separate write
+     * requests, in the same order as submitted.
+     */
+    @Test
+    public void testSubmissionOrder() throws Exception {
+        newRequest().modify(meter(1)).submit();
+        FakeWriteRequest sent = client.next();
+
+        newRequest().insert(member(1)).submit();
+        newRequest().delete(meter(2).handle(deviceId)).submit();
+        newRequest().insert(member(2)).submit();
+        newRequest().insert(ImmutableList.of(member(3), meter(3))).submit();
+
+        sent.succeed();
+        sent = client.next();
+        assertThat(sent.handles(), contains(handles(member(1)).toArray()));
+        sent.succeed();
+        sent = client.next();
+        assertThat(sent.handles(), contains(handles(meter(2)).toArray()));
+        assertThat(sent.updates.get(0).updateType(), is(UpdateType.DELETE));
+        sent.succeed();
+        sent = client.next();
+        assertThat(sent.handles(), contains(handles(member(2)).toArray()));
+        sent.succeed();
+        // Mixed requests are sent alone, with their updates in order.
+        sent = client.next();
+        assertThat(sent.handles(), contains(handles(member(3), meter(3)).toArray()));
+        sent.succeed();
+        assertThat(client.poll(), nullValue());
+    }
+
+    /**
+     * Checks that requests with a specific atomicity are sent alone with the
+     * atomicity set on the underlying request.
+     */
+    @Test
+    public void testAtomicity() throws Exception {
+        newRequest().modify(meter(1)).submit();
+        FakeWriteRequest sent = client.next();
+
+        newRequest().withAtomicity(Atomicity.ROLLBACK_ON_ERROR)
+                .modify(meter(2)).submit();
+        newRequest().modify(meter(3)).submit();
+
+        sent.succeed();
+        sent = client.next();
+        assertThat(sent.atomicity, is(Atomicity.ROLLBACK_ON_ERROR));
+        assertThat(sent.handles(), contains(handles(meter(2)).toArray()));
+        sent.succeed();
+        sent = client.next();
+        assertThat(sent.atomicity, nullValue());
+        assertThat(sent.handles(), contains(handles(meter(3)).toArray()));
+        sent.succeed();
+
+        try {
+            newRequest().withAtomicity(Atomicity.DATAPLANE_ATOMIC);
+            fail("Unsupported atomicity should be rejected");
+        } catch (UnsupportedOperationException e) {
+            // Expected, as without coalescing.
+        }
+    }
+
+    /**
+     * Checks that a failed write request fails all the requests sent with it,
+     * and that the following requests are still sent.
+     */
+    @Test
+    public void testErrorPropagation() throws Exception {
+        CompletableFuture<WriteResponse> first = newRequest().modify(meter(1)).submit();
+        FakeWriteRequest sent = client.next();
+        CompletableFuture<WriteResponse> second = newRequest().modify(meter(2)).submit();
+        CompletableFuture<WriteResponse> third = newRequest().modify(meter(3)).submit();
+
+        sent.fail(new IllegalStateException("first"));
+        assertFailed(first);
+
+        sent = client.next();
+        sent.fail(new IllegalStateException("second"));
+        assertFailed(second);
+        assertFailed(third);
+
+        CompletableFuture<WriteResponse> fourth = newRequest().modify(meter(4)).submit();
+        client.next().succeed();
+        assertTrue(fourth.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isSuccess());
+    }
+
+    /**
+     * Checks that requests are still sent after an exception dispatching the
+     * responses of a write request.
+     */
+    @Test
+    public void testFlushRecovery() throws Exception {
+        newRequest().modify(meter(1)).submit();
+        FakeWriteRequest sent = client.next();
+        CompletableFuture<WriteResponse> second = newRequest().modify(meter(2)).submit();
+        CompletableFuture<WriteResponse> third = newRequest().modify(meter(3)).submit();
+        CompletableFuture<WriteResponse> fourth = newRequest().insert(member(4)).submit();
+        sent.succeed();
+
+        sent = client.next();
+        sent.future.complete(new BrokenWriteResponse());
+        assertFailed(second);
+        assertFailed(third);
+
+        client.next().succeed();
+        assertTrue(fourth.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isSuccess());
+    }
+
+    /**
+     * Checks that a completion callback can submit and wait for another
+     * write request to the same device.
+     */
+    @Test
+    public void testChainedWrite() throws Exception {
+        CompletableFuture<WriteResponse> first = newRequest().modify(meter(1)).submit();
+        CompletableFuture<Boolean> chained = first.thenApply(response -> {
+            try {
+                // Waits in the callback, as a synchronous write would.
+                return newRequest().modify(meter(2)).submit()
+                        .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isSuccess();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        FakeWriteRequest sent = client.next();
+        Thread completer = new Thread(sent::succeed);
+        completer.start();
+
+        sent = client.next();
+        assertThat(sent.handles(), contains(handles(meter(2)).toArray()));
+        sent.succeed();
+        assertTrue(chained.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        completer.join(TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Checks that the coalescer of a device is discarded once it has nothing
+     * to send, and that a new one is created for the following requests.
+     */
+    @Test
+    public void testCleanup() throws Exception {
+        assertFalse(P4RuntimeWriteCoalescer.exists(deviceId));
+        newRequest().modify(meter(1)).submit();
+        assertTrue(P4RuntimeWriteCoalescer.exists(deviceId));
+        client.next().succeed();
+        waitRemoved();
+
+        CompletableFuture<WriteResponse> second = newRequest().modify(meter(2)).submit();
+        client.next().succeed();
+        assertTrue(second.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isSuccess());
+        waitRemoved();
+    }
+
+    private void waitRemoved() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (P4RuntimeWriteCoalescer.exists(deviceId)) {
+            assertTrue("Coalescer not removed", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void assertFailed(CompletableFuture<WriteResponse> future) throws Exception {
+        try {
+            future.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            fail("Request should have failed");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), notNullValue());
+        }
+    }
+
+    private static List<PiHandle> handlesOf(WriteResponse response) {
+        return response.all().stream()
+                .map(EntityUpdateResponse::handle)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Write client recording the write requests submitted.
+     */
+    private static final class FakeWriteClient implements P4RuntimeWriteClient {
+
+        private final DeviceId deviceId;
+        private final BlockingQueue<FakeWriteRequest> submitted = new LinkedBlockingQueue<>();
+
+        private FakeWriteClient(DeviceId deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        @Override
+        public WriteRequest write(long p4DeviceId, PiPipeconf pipeconf) {
+            return new FakeWriteRequest(this);
+        }
+
+        private FakeWriteRequest next() throws InterruptedException {
+            FakeWriteRequest request = submitted.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertThat("No write request sent", request, notNullValue());
+            return request;
+        }
+
+        private FakeWriteRequest poll() throws InterruptedException {
+            return submitted.poll(100, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write request completed by the tests.
+     */
+    private static final class FakeWriteRequest implements WriteRequest {
+
+        private final FakeWriteClient client;
+        private final List<EntityUpdateRequest> updates = Lists.newArrayList();
+        private final CompletableFuture<WriteResponse> future = new CompletableFuture<>();
+        private Atomicity atomicity;
+
+        private FakeWriteRequest(FakeWriteClient client) {
+            this.client = client;
+        }
+
+        private List<PiHandle> handles() {
+            return updates.stream().map(EntityUpdateRequest::handle)
+                    .collect(Collectors.toList());
+        }
+
+        private void succeed() {
+            future.complete(new FakeWriteResponse(updates.stream()
+                    .map(FakeUpdate::new).collect(Collectors.toList())));
+        }
+
+        private void fail(Throwable error) {
+            future.completeExceptionally(error);
+        }
+
+        @Override
+        public WriteRequest withAtomicity(Atomicity atomicity) {
+            if (atomicity == Atomicity.DATAPLANE_ATOMIC) {
+                throw new UnsupportedOperationException("Not supported");
+            }
+            this.atomicity = atomicity;
+            return this;
+        }
+
+        @Override
+        public WriteRequest insert(PiEntity entity) {
+            return entity(entity, UpdateType.INSERT);
+        }
+
+        @Override
+        public WriteRequest insert(Iterable<? extends PiEntity> entities) {
+            return entities(entities, UpdateType.INSERT);
+        }
+
+        @Override
+        public WriteRequest modify(PiEntity entity) {
+            return entity(entity, UpdateType.MODIFY);
+        }
+
+        @Override
+        public WriteRequest modify(Iterable<? extends PiEntity> entities) {
+            return entities(entities, UpdateType.MODIFY);
+        }
+
+        @Override
+        public WriteRequest delete(PiHandle handle) {
+            updates.add(new FakeUpdate(handle, null, UpdateType.DELETE));
+            return this;
+        }
+
+        @Override
+        public WriteRequest delete(Iterable<? extends PiHandle> handles) {
+            handles.forEach(this::delete);
+            return this;
+        }
+
+        @Override
+        public WriteRequest entity(PiEntity entity, UpdateType updateType) {
+            updates.add(new FakeUpdate(entity.handle(client.deviceId), entity, updateType));
+            return this;
+        }
+
+        @Override
+        public WriteRequest entities(Iterable<? extends PiEntity> entities, UpdateType updateType) {
+            entities.forEach(e -> entity(e, updateType));
+            return this;
+        }
+
+        @Override
+        public CompletableFuture<WriteResponse> submit() {
+            client.submitted.add(this);
+            return future;
+        }
+
+        @Override
+        public WriteResponse submitSync() {
+            return submit().join();
+        }
+
+        @Override
+        public Collection<EntityUpdateRequest> pendingUpdates() {
+            return ImmutableList.copyOf(updates);
+        }
+    }
+
+    /**
+     * Successful update.
+     */
+    private static final class FakeUpdate implements EntityUpdateResponse {
+
+        private final PiHandle handle;
+        private final PiEntity entity;
+        private final UpdateType updateType;
+
+        private FakeUpdate(PiHandle handle, PiEntity entity, UpdateType updateType) {
+            this.handle = handle;
+            this.entity = entity;
+            this.updateType = updateType;
+        }
+
+        private FakeUpdate(EntityUpdateRequest request) {
+            this(request.handle(), request.entity(), request.updateType());
+        }
+
+        @Override
+        public PiHandle handle() {
+            return handle;
+        }
+
+        @Override
+        public PiEntity entity() {
+            return entity;
+        }
+
+        @Override
+        public UpdateType updateType() {
+            return updateType;
+        }
+
+        @Override
+        public PiEntityType entityType() {
+            return handle.entityType();
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+
+        @Override
+        public EntityUpdateStatus status() {
+            return EntityUpdateStatus.OK;
+        }
+
+        @Override
+        public String explanation() {
+            return null;
+        }
+
+        @Override
+        public Throwable throwable() {
+            return null;
+        }
+    }
+
+    /**
+     * Write response made of the given update responses.
+     */
+    private static class FakeWriteResponse implements WriteResponse {
+
+        private final List<EntityUpdateResponse> responses;
+
+        FakeWriteResponse(List<EntityUpdateResponse> responses) {
+            this.responses = responses;
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return responses.stream().allMatch(EntityUpdateResponse::isSuccess);
+        }
+
+        @Override
+        public Collection<EntityUpdateResponse> all() {
+            return responses;
+        }
+
+        @Override
+        public Collection<EntityUpdateResponse> success() {
+            return responses;
+        }
+
+        @Override
+        public Collection<EntityUpdateResponse> failed() {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public Collection<EntityUpdateResponse> status(EntityUpdateStatus status) {
+            return status == EntityUpdateStatus.OK ? responses : ImmutableList.of();
+        }
+    }
+
+    /**
+     * Write response which cannot be read.
+     */
+    private static final class BrokenWriteResponse extends FakeWriteResponse {
+
+        BrokenWriteResponse() {
+            super(ImmutableList.of());
+        }
+
+        @Override
+        public Collection<EntityUpdateResponse> all() {
+            throw new IllegalStateException("Broken response");
+        }
+    }
+}
@@ -30,6 +30,7 @@ import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.config.NetworkConfigRegistry;
@@ -108,6 +109,7 @@ public class Controller {
     // Configuration options
     protected List<Integer> openFlowPorts = ImmutableList.of(6633, 6653);
     protected int workerThreads = 0;
+    protected int dispatcherThreads = 0;
     protected int[] cfgQueueSizes = {FIRST_QUEUE_SIZE, 0, 0, 0, 0, 0, 0, DEFAULT_QUEUE_SIZE};
     protected int[] cfgBulkSizes = new int[8];
 
@@ -119,6 +121,10 @@ public class Controller {
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
 
+    // Shared message dispatcher; null when each switch uses its own dispatcher thread
+    protected OFMessageDispatcher messageDispatcher;
+    private MetricsService metricsService;
+
     enum TlsMode {
         DISABLED, // TLS is not used for OpenFlow connections
         ENABLED,  // Clients are required use TLS and present a client certificate
@@ -264,6 +270,7 @@ public class Controller {
     public void setConfigParams(Dictionary<?, ?> properties) {
         boolean restartRequired = setOpenFlowPorts(properties);
         restartRequired |= setWorkerThreads(properties);
+        restartRequired |= setDispatcherThreads(properties);
         restartRequired |= setTlsParameters(properties);
         if (restartRequired) {
             restart();
@@ -326,6 +333,38 @@ public class Controller {
         return oldValue != this.workerThreads; // restart if number of threads has changed
     }
 
+    /**
+     * Gets the number of shared dispatcher threads from property dict.
+     *
+     * @param properties dictionary
+     * @return true if restart is required
+     */
+    private boolean setDispatcherThreads(Dictionary<?, ?> properties) {
+        int oldValue = this.dispatcherThreads;
+
+        String threads = get(properties, "dispatcherThreads");
+        if (!Strings.isNullOrEmpty(threads)) {
+            int value = Integer.parseInt(threads);
+            if (value >= 0) {
+                this.dispatcherThreads = value;
+            } else {
+                throw new IllegalArgumentException("dispatcherThreads value must be a non-negative integer value");
+            }
+        }
+        log.debug("Number of shared dispatcher threads set to {}", this.dispatcherThreads);
+
+        return oldValue != this.dispatcherThreads; // restart to re-register all switch connections
+    }
+
+    /**
+     * Sets the metrics service used by the shared message dispatcher.
+     *
+     * @param metricsService metrics service
+     */
+    public void setMetricsService(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
     static class TlsParams {
         final TlsMode mode;
         final String ksLocation;
@@ -641,6 +680,10 @@ public class Controller {
         this.driverService = driverService;
         this.netCfgService = netCfgService;
         this.init();
+        if (dispatcherThreads > 0) {
+            messageDispatcher = new OFMessageDispatcher(dispatcherThreads, metricsService);
+            log.info("Using {} shared OpenFlow dispatcher threads", dispatcherThreads);
+        }
         this.addListeningPorts(this.openFlowPorts);
     }
 
@@ -664,6 +707,11 @@ public class Controller {
             log.warn("Interrupted while stopping", e);
             Thread.currentThread().interrupt();
         }
+
+        if (messageDispatcher != null) {
+            messageDispatcher.shutdown();
+            messageDispatcher = null;
+        }
     }
 
     private void restart() {
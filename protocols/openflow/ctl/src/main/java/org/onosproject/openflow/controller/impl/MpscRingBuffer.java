@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded lock-free ring buffer for multiple producers and a single consumer.
+ * <p>
+ * Producers claim a slot by advancing the tail and then publish the element
+ * into the slot; the consumer treats an unpublished slot as the end of the
+ * buffer. The capacity is rounded up to the next power of two.
+ *
+ * @param <T> type of the buffered elements
+ */
+final class MpscRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> buffer;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Creates a new ring buffer.
+     *
+     * @param capacity minimum number of elements the buffer can hold
+     */
+    MpscRingBuffer(int capacity) {
+        checkArgument(capacity > 0 && capacity <= 1 << 30, "Invalid capacity %s", capacity);
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the number of elements the buffer can hold.
+     *
+     * @return buffer capacity
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds the given element to the buffer if there is room for it.
+     *
+     * @param element element to add
+     * @return true if the element was added, false if the buffer is full
+     */
+    boolean offer(T element) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head.get() > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        buffer.lazySet((int) t & mask, element);
+        return true;
+    }
+
+    /**
+     * Removes up to the given number of published elements from the buffer,
+     * in insertion order, and passes them to the given consumer.
+     * <p>
+     * Must only be invoked by the single consumer.
+     *
+     * @param consumer element consumer
+     * @param limit    maximum number of elements to remove
+     * @return number of elements removed
+     */
+    int drain(Consumer<? super T> consumer, int limit) {
+        long h = head.get();
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) h & mask;
+            T element = buffer.get(index);
+            if (element == null) {
+                break;
+            }
+            // Clear the slot before releasing it to the producers.
+            buffer.lazySet(index, null);
+            head.lazySet(++h);
+            drained++;
+            consumer.accept(element);
+        }
+        return drained;
+    }
+
+    /**
+     * Returns the number of claimed slots; this includes elements which are
+     * still being published.
+     *
+     * @return number of elements in the buffer
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * Returns true if there are no claimed slots in the buffer.
+     *
+     * @return true if the buffer is empty
+     */
+    boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+}
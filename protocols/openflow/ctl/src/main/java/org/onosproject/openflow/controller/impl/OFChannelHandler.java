@@ -234,6 +234,13 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
      */
     private final Deque<OFMessage> dispatchBacklog;
 
+    /**
+     * Queues of this switch in the shared message dispatcher, if enabled.
+     * <p>
+     * Gets initialized on channelActive, closed on channelInactive.
+     */
+    private OFMessageDispatcher.SwitchQueue sharedQueue;
+
     /**
      * Create a new unconnected OFChannelHandler.
      * @param controller parent controller
@@ -1333,7 +1340,13 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
             channelId = channel.toString();
         }
 
-        dispatcher = Executors.newSingleThreadExecutor(groupedThreads("onos/of/dispatcher", channelId, log));
+        OFMessageDispatcher messageDispatcher = controller.messageDispatcher;
+        if (messageDispatcher != null) {
+            sharedQueue = messageDispatcher.register(controller.cfgQueueSizes, controller.cfgBulkSizes,
+                                                     this::handleDispatchedMessage);
+        } else {
+            dispatcher = Executors.newSingleThreadExecutor(groupedThreads("onos/of/dispatcher", channelId, log));
+        }
 
         /*
             hack to wait for the switch to tell us what it's
@@ -1355,6 +1368,10 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
             dispatcher.shutdownNow();
             dispatcher = null;
         }
+        if (sharedQueue != null) {
+            sharedQueue.close();
+            sharedQueue = null;
+        }
 
          if (thisdpid != 0) {
              if (!duplicateDpidFound) {
@@ -1445,7 +1462,7 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                                IdleStateEvent e)
             throws IOException {
         // dispatcher terminated for some reason, restart
-        if (dispatcherHandle.isDone()) {
+        if (dispatcher != null && dispatcherHandle.isDone()) {
             dispatcherHandle = dispatcher.submit(new Dispatcher());
         }
         // drain the backlog
@@ -1543,6 +1560,9 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
      * @return true if message was successful added to queue
      */
     private boolean pushMessageToQueue(OFMessage message, int idQueue) {
+        if (sharedQueue != null) {
+            return sharedQueue.offer(message, idQueue);
+        }
         if (!dispatchQueuesMapProducer.get(idQueue).offer(message)) {
             return false;
         } else {
@@ -1631,19 +1651,38 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
         boolean backlogEmpty = processDispatchBacklogQueue();
         if (m.getType() == OFType.PACKET_IN) {
             Ethernet pkt = parsePacketInMessage(m);
-            pushMessageToQueue(m, classifyEthernetPacket(pkt));
+            if (!pushMessageToQueue(m, classifyEthernetPacket(pkt))) {
+                messageDropped();
+            }
         } else {
             if (!backlogEmpty || !pushMessageToQueue(m, NUM_OF_QUEUES - 1)) {
-                dispatchBacklog.offer(m);
+                if (!dispatchBacklog.offer(m)) {
+                    messageDropped();
+                }
             }
         }
 
-        if (dispatcherHandle.isDone()) {
+        if (dispatcher != null && dispatcherHandle.isDone()) {
             // dispatcher terminated for some reason, restart
             dispatcherHandle = dispatcher.submit(new Dispatcher());
         }
     }
 
+    private void messageDropped() {
+        if (sharedQueue != null) {
+            sharedQueue.dropped();
+        }
+    }
+
+    /**
+     * Handles a message from the shared message dispatcher.
+     *
+     * @param message OpenFlow message
+     */
+    private void handleDispatchedMessage(OFMessage message) {
+        sw.handleMessage(message);
+    }
+
     private final class Dispatcher implements Runnable {
         // dispatch loop
         @Override
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onlab.util.Tools.groupedThreads;
+
+/**
+ * Dispatches OpenFlow messages of all switches using a small, shared pool of
+ * event loops.
+ * <p>
+ * Each switch registers a {@link SwitchQueue} holding one bounded ring buffer
+ * per classifier queue. A switch is pinned to a single event loop and is
+ * scheduled on it at most once at a time, so messages of the same switch are
+ * handled sequentially and in order, while the switches assigned to a loop
+ * are served round robin, one bulk per classifier queue at a time.
+ */
+final class OFMessageDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OFMessageDispatcher.class);
+
+    private static final String METRICS_COMPONENT = "OpenFlowController";
+    private static final String METRICS_FEATURE = "dispatcher";
+    private static final String QUEUE_DEPTH = "queueDepth";
+
+    private final EventLoop[] loops;
+    private final ExecutorService executor;
+    private final Set<SwitchQueue> queues = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextLoop = new AtomicInteger();
+
+    private final MetricsService metricsService;
+    private final Meter dropMeter;
+    private final Timer latencyTimer;
+    private final Timer processingTimer;
+
+    /**
+     * Creates and starts a new dispatcher.
+     *
+     * @param numLoops       number of event loops
+     * @param metricsService metrics service; may be null
+     */
+    OFMessageDispatcher(int numLoops, MetricsService metricsService) {
+        checkArgument(numLoops > 0, "Number of dispatcher threads must be positive");
+        this.metricsService = metricsService;
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            dropMeter = metricsService.createMeter(component, feature, "drops");
+            latencyTimer = metricsService.createTimer(component, feature, "queueLatency");
+            processingTimer = metricsService.createTimer(component, feature, "processingTime");
+            metricsService.registerMetric(component, feature, QUEUE_DEPTH, (Gauge<Integer>) this::queueDepth);
+        } else {
+            dropMeter = null;
+            latencyTimer = null;
+            processingTimer = null;
+        }
+
+        loops = new EventLoop[numLoops];
+        executor = Executors.newFixedThreadPool(numLoops, groupedThreads("onos/of/dispatcher", "loop-%d", log));
+        for (int i = 0; i < numLoops; i++) {
+            loops[i] = new EventLoop();
+            executor.execute(loops[i]);
+        }
+    }
+
+    /**
+     * Registers the dispatch queues of a new switch connection.
+     *
+     * @param queueSizes capacity of each classifier queue; 0 for no queue
+     * @param bulkSizes  maximum number of messages handled per turn for each classifier queue
+     * @param handler    message handler, invoked from the switch's event loop
+     * @return switch queue
+     */
+    SwitchQueue register(int[] queueSizes, int[] bulkSizes, Consumer<OFMessage> handler) {
+        EventLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+        SwitchQueue queue = new SwitchQueue(loop, queueSizes, bulkSizes, handler);
+        queues.add(queue);
+        return queue;
+    }
+
+    /**
+     * Returns the number of messages waiting in the queues of all switches.
+     *
+     * @return total queue depth
+     */
+    int queueDepth() {
+        int depth = 0;
+        for (SwitchQueue queue : queues) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    /**
+     * Stops the event loops and drops all pending messages.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+        queues.clear();
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            metricsService.removeMetric(component, component.registerFeature(METRICS_FEATURE), QUEUE_DEPTH);
+        }
+    }
+
+    /**
+     * Dispatch queues of a single switch connection.
+     */
+    final class SwitchQueue implements Runnable {
+
+        private final EventLoop loop;
+        private final MpscRingBuffer<OFMessage>[] rings;
+        private final int[] bulkSizes;
+        private final Consumer<OFMessage> handler;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long scheduledAt;
+        private volatile boolean closed;
+
+        @SuppressWarnings("unchecked")
+        private SwitchQueue(EventLoop loop, int[] queueSizes, int[] bulkSizes, Consumer<OFMessage> handler) {
+            this.loop = loop;
+            this.rings = new MpscRingBuffer[queueSizes.length];
+            for (int i = 0; i < queueSizes.length; i++) {
+                if (queueSizes[i] > 0) {
+                    rings[i] = new MpscRingBuffer<>(queueSizes[i]);
+                }
+            }
+            this.bulkSizes = bulkSizes.clone();
+            this.handler = handler;
+        }
+
+        /**
+         * Adds a message to the given classifier queue and schedules the
+         * switch for dispatching.
+         *
+         * @param message OpenFlow message
+         * @param idQueue id of the classifier queue
+         * @return true if the message was queued, false if the queue is full
+         */
+        boolean offer(OFMessage message, int idQueue) {
+            MpscRingBuffer<OFMessage> ring = rings[idQueue];
+            if (closed || ring == null || !ring.offer(message)) {
+                return false;
+            }
+            schedule();
+            return true;
+        }
+
+        /**
+         * Records a message of the switch discarded by the caller, after
+         * being rejected by the queues.
+         */
+        void dropped() {
+            if (dropMeter != null) {
+                dropMeter.mark();
+            }
+        }
+
+        /**
+         * Returns the number of messages waiting in the switch's queues.
+         *
+         * @return queue depth
+         */
+        int size() {
+            int size = 0;
+            for (MpscRingBuffer<OFMessage> ring : rings) {
+                if (ring != null) {
+                    size += ring.size();
+                }
+            }
+            return size;
+        }
+
+        /**
+         * Unregisters the switch; pending messages are discarded.
+         */
+        void close() {
+            closed = true;
+            queues.remove(this);
+        }
+
+        private boolean isEmpty() {
+            for (MpscRingBuffer<OFMessage> ring : rings) {
+                if (ring != null && !ring.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                scheduledAt = System.nanoTime();
+                loop.execute(this);
+            }
+        }
+
+        private void handle(OFMessage message) {
+            if (closed) {
+                return;
+            }
+            try {
+                handler.accept(message);
+            } catch (Exception e) {
+                log.warn("Unable to handle OpenFlow message {}", message.getType(), e);
+            }
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            if (latencyTimer != null) {
+                latencyTimer.update(start - scheduledAt, TimeUnit.NANOSECONDS);
+            }
+            for (int i = 0; i < rings.length; i++) {
+                if (rings[i] != null) {
+                    rings[i].drain(this::handle, bulkSizes[i]);
+                }
+            }
+            if (processingTimer != null) {
+                processingTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            scheduled.set(false);
+            // Messages queued while the switch was being served must not be left behind.
+            if (!closed && !isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Event loop serving the switches which are ready for dispatching.
+     */
+    private static final class EventLoop implements Runnable {
+
+        private final Queue<Runnable> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean parked = new AtomicBoolean();
+        private volatile Thread thread;
+
+        private void execute(Runnable task) {
+            ready.add(task);
+            Thread t = thread;
+            if (t != null && parked.get() && parked.compareAndSet(true, false)) {
+                LockSupport.unpark(t);
+            }
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            while (!Thread.currentThread().isInterrupted()) {
+                Runnable task = ready.poll();
+                if (task != null) {
+                    task.run();
+                    continue;
+                }
+                parked.set(true);
+                if (ready.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                parked.set(false);
+            }
+            ready.clear();
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.onosproject.openflow.controller.impl;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.DeviceId;
@@ -124,6 +125,7 @@ import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.*;
                 BULK_SIZE_N5 + ":Integer=" + BULK_SIZE_DEFAULT,
                 QUEUE_SIZE_N6 + ":Integer=" + QUEUE_SIZE_DEFAULT,
                 BULK_SIZE_N6 + ":Integer=" + BULK_SIZE_DEFAULT,
+                DISPATCHER_THREADS + ":Integer=" + DISPATCHER_THREADS_DEFAULT,
         }
 )
 
@@ -146,6 +148,9 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected NetworkConfigRegistry netCfgService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
     /** Port numbers (comma separated) used by OpenFlow protocol; default is 6633,6653. */
     private String openflowPorts = OFPORTS_DEFAULT;
 
@@ -220,6 +225,9 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     /** Size of bulk N6. */
     private int bulkSizeN6 = BULK_SIZE_DEFAULT;
 
+    /** Number of threads shared by all switches for message dispatching; 0 for one thread per switch. */
+    private int dispatcherThreads = DISPATCHER_THREADS_DEFAULT;
+
     protected ExecutorService executorMsgs =
         Executors.newFixedThreadPool(32, groupedThreads("onos/of", "event-stats-%d", log));
 
@@ -340,6 +348,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         cfgService.registerProperties(getClass());
         netCfgService.registerConfigFactory(factory);
         netCfgService.addListener(netCfgListener);
+        ctrl.setMetricsService(metricsService);
         ctrl.setConfigParams(context.getProperties());
         ctrl.start(agent, driverService, netCfgService);
         openFlowManager.addListener(openFlowListener);
@@ -68,4 +68,7 @@ public final class OsgiPropertyConstants {
     public static final int BULK_SIZE_DEFAULT = 100;
     public static final int QUEUE_SIZE_DEFAULT = 1;
 
+    public static final String DISPATCHER_THREADS = "dispatcherThreads";
+    public static final int DISPATCHER_THREADS_DEFAULT = 0;
+
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the multi-producer single-consumer ring buffer.
+ */
+public class MpscRingBufferTest {
+
+    /**
+     * Tests capacity rounding, bounded offers and ordered draining.
+     */
+    @Test
+    public void testOfferDrain() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(5);
+        assertThat(ring.capacity(), is(8));
+        assertTrue(ring.isEmpty());
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(8));
+        assertThat(ring.size(), is(8));
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(ring.drain(drained::add, 3), is(3));
+        assertTrue(ring.offer(8));
+        assertThat(ring.drain(drained::add, Integer.MAX_VALUE), is(6));
+        assertThat(drained, is(ImmutableList.of(0, 1, 2, 3, 4, 5, 6, 7, 8)));
+        assertTrue(ring.isEmpty());
+    }
+
+    /**
+     * Tests that concurrent producers lose no elements and keep their own order.
+     */
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 10000;
+        MpscRingBuffer<int[]> ring = new MpscRingBuffer<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    int[] element = {producer, i};
+                    while (!ring.offer(element)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        int[] next = new int[producers];
+        int total = 0;
+        start.countDown();
+        while (total < producers * perProducer) {
+            total += ring.drain(element -> {
+                assertThat(element[1], is(next[element[0]]));
+                next[element[0]]++;
+            }, 16);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(ring.isEmpty());
+    }
+}
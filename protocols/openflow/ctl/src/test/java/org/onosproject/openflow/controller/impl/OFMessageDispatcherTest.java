@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the shared OpenFlow message dispatcher.
+ */
+public class OFMessageDispatcherTest {
+
+    private static final int NUM_SWITCHES = 8;
+    private static final int NUM_MESSAGES = 1000;
+    private static final int[] QUEUE_SIZES = {16, 0, 0, 0, 0, 0, 0, 2048};
+    private static final int[] BULK_SIZES = {4, 4, 4, 4, 4, 4, 4, 4};
+
+    private final OFFactory factory = OFFactories.getFactory(OFVersion.OF_13);
+    private OFMessageDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        dispatcher = new OFMessageDispatcher(2, null);
+    }
+
+    @After
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Tests that the messages of each switch are handled in order.
+     */
+    @Test
+    public void testPerSwitchOrdering() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(NUM_SWITCHES * NUM_MESSAGES);
+        List<List<Long>> handled = new ArrayList<>();
+        List<OFMessageDispatcher.SwitchQueue> queues = new ArrayList<>();
+        for (int s = 0; s < NUM_SWITCHES; s++) {
+            List<Long> xids = Collections.synchronizedList(new ArrayList<>());
+            handled.add(xids);
+            queues.add(dispatcher.register(QUEUE_SIZES, BULK_SIZES, message -> {
+                xids.add(message.getXid());
+                latch.countDown();
+            }));
+        }
+
+        for (int i = 0; i < NUM_MESSAGES; i++) {
+            for (OFMessageDispatcher.SwitchQueue queue : queues) {
+                assertTrue(queue.offer(message(i), QUEUE_SIZES.length - 1));
+            }
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        for (List<Long> xids : handled) {
+            assertThat(xids.size(), is(NUM_MESSAGES));
+            for (int i = 0; i < NUM_MESSAGES; i++) {
+                assertThat(xids.get(i), is((long) i));
+            }
+        }
+        assertThat(dispatcher.queueDepth(), is(0));
+    }
+
+    /**
+     * Tests that messages are dropped when a queue is full or missing.
+     */
+    @Test
+    public void testDrops() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OFMessageDispatcher.SwitchQueue queue = dispatcher.register(QUEUE_SIZES, BULK_SIZES, message -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(queue.offer(message(0), 0));
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i <= QUEUE_SIZES[0]; i++) {
+            assertTrue(queue.offer(message(i), 0));
+        }
+        assertFalse(queue.offer(message(QUEUE_SIZES[0] + 1), 0));
+        assertFalse(queue.offer(message(0), 1));
+        assertThat(dispatcher.queueDepth(), is(QUEUE_SIZES[0]));
+
+        release.countDown();
+        queue.close();
+        assertFalse(queue.offer(message(0), 0));
+    }
+
+    private OFMessage message(long xid) {
+        return factory.buildEchoRequest().setXid(xid).build();
+    }
+}
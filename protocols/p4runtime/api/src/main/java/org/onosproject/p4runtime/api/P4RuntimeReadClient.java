@@ -26,6 +26,7 @@ import org.onosproject.net.pi.runtime.PiHandle;
 
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * P4Runtime client interface for the Read RPC that allows reading multiple
@@ -216,10 +217,22 @@ public interface P4RuntimeReadClient {
          */
         ReadResponse submitSync();
 
-        //TODO: implement per-entity asynchronous reads. This would allow a user
-        // of this client to process read entities as they arrive, instead of
-        // waiting for the client to receive them all. Java 9 Reactive Streams
-        // seems a good way of doing it.
+        /**
+         * Submits the read request and passes each PI entity to the given
+         * consumer as soon as it is received and decoded, instead of
+         * accumulating all entities in the response. This allows processing
+         * large reads while they are in progress, without holding all
+         * entities in memory. The future is completed once all entities have
+         * been received and consumed; the response does not include the
+         * entities.
+         * <p>
+         * The consumer is invoked by a single thread at a time, which might be
+         * a gRPC thread, and should not block.
+         *
+         * @param consumer consumer of the PI entities
+         * @return completable future of a read response
+         */
+        CompletableFuture<ReadResponse> submit(Consumer<PiEntity> consumer);
     }
 
     /**
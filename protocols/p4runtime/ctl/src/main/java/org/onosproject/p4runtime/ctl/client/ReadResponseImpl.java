@@ -32,6 +32,7 @@ import p4.v1.P4RuntimeOuterClass;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onosproject.p4runtime.ctl.codec.Codecs.CODECS;
@@ -91,7 +92,12 @@ public final class ReadResponseImpl implements P4RuntimeReadClient.ReadResponse
     }
 
     static Builder builder(DeviceId deviceId, PiPipeconf pipeconf) {
-        return new Builder(deviceId, pipeconf);
+        return new Builder(deviceId, pipeconf, null);
+    }
+
+    static Builder builder(DeviceId deviceId, PiPipeconf pipeconf,
+                           Consumer<PiEntity> consumer) {
+        return new Builder(deviceId, pipeconf, checkNotNull(consumer));
     }
 
     /**
@@ -101,6 +107,9 @@ public final class ReadResponseImpl implements P4RuntimeReadClient.ReadResponse
 
         private final DeviceId deviceId;
         private final PiPipeconf pipeconf;
+        // If not null, entities are passed to the consumer instead of being
+        // added to the response.
+        private final Consumer<PiEntity> consumer;
         private final List<PiEntity> entities = Lists.newArrayList();
         private final ListMultimap<Class<? extends PiEntity>, PiEntity>
                 typeToEntities = ArrayListMultimap.create();
@@ -109,21 +118,48 @@ public final class ReadResponseImpl implements P4RuntimeReadClient.ReadResponse
         private String explanation;
         private Throwable throwable;
 
-        private Builder(DeviceId deviceId, PiPipeconf pipeconf) {
+        private Builder(DeviceId deviceId, PiPipeconf pipeconf,
+                        Consumer<PiEntity> consumer) {
             this.deviceId = deviceId;
             this.pipeconf = pipeconf;
+            this.consumer = consumer;
         }
 
-        void addEntity(P4RuntimeOuterClass.Entity entityMsg) {
+        /**
+         * Adds the given entity to the response, or passes it to the
+         * consumer. If the consumer throws, the response is marked as failed
+         * and no more entities are accepted.
+         *
+         * @param entityMsg entity message
+         * @return false if the response has failed, true otherwise
+         */
+        boolean addEntity(P4RuntimeOuterClass.Entity entityMsg) {
+            if (!success) {
+                return false;
+            }
+            final PiEntity piEntity;
             try {
-                final PiEntity piEntity = CODECS.entity().decode(entityMsg, null, pipeconf);
-                entities.add(piEntity);
-                typeToEntities.put(piEntity.getClass(), piEntity);
+                piEntity = CODECS.entity().decode(entityMsg, null, pipeconf);
             } catch (CodecException e) {
                 log.warn("Unable to decode {} message from {}: {} [{}]",
                          entityMsg.getEntityCase().name(), deviceId,
                           e.getMessage(), TextFormat.shortDebugString(entityMsg));
+                return true;
+            }
+            if (consumer != null) {
+                try {
+                    consumer.accept(piEntity);
+                } catch (RuntimeException e) {
+                    log.warn("Unable to consume {} read from {}: {}",
+                             piEntity.piEntityType(), deviceId, e.getMessage());
+                    fail(e);
+                    return false;
+                }
+                return true;
             }
+            entities.add(piEntity);
+            typeToEntities.put(piEntity.getClass(), piEntity);
+            return true;
         }
 
         ReadResponseImpl fail(Throwable throwable) {
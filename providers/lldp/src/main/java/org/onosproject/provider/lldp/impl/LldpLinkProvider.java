@@ -19,6 +19,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import org.onlab.packet.Ethernet;
+import org.onlab.packet.MacAddress;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterMetadataService;
 import org.onosproject.cluster.ClusterService;
@@ -53,6 +54,7 @@ import org.onosproject.net.packet.PacketProcessor;
 import org.onosproject.net.packet.PacketService;
 import org.onosproject.net.provider.AbstractProvider;
 import org.onosproject.net.provider.ProviderId;
+import org.onosproject.provider.lldpcommon.ChassisIdIndex;
 import org.onosproject.provider.lldpcommon.LinkDiscovery;
 import org.onosproject.provider.lldpcommon.LinkDiscoveryContext;
 import org.osgi.service.component.ComponentContext;
@@ -182,6 +184,10 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
     // Device link discovery helpers.
     protected final Map<DeviceId, LinkDiscovery> discoverers = new ConcurrentHashMap<>();
 
+    // Available devices by chassis ID and port MAC, to find the source of
+    // LLDP packets not sent by ONOS.
+    private final ChassisIdIndex chassisIdIndex = new ChassisIdIndex();
+
     // Most recent time a tracked link was seen; links are tracked if their
     // destination connection point is mastered by this controller instance.
     private final Map<LinkKey, Long> linkTimes = Maps.newConcurrentMap();
@@ -361,6 +367,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         deviceService.addListener(deviceListener);
         packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0));
 
+        loadChassisIds();
         loadDevices();
 
         executor = newSingleThreadScheduledExecutor(groupedThreads("onos/link", "discovery-%d", log));
@@ -388,6 +395,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         }
         discoverers.values().forEach(LinkDiscovery::stop);
         discoverers.clear();
+        chassisIdIndex.clear();
         linkTimes.clear();
 
         providerService = null;
@@ -405,6 +413,49 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
                                .ifPresent(ld -> updatePorts(ld, d.id())));
     }
 
+    /**
+     * Indexes the chassis IDs and port MAC addresses of available devices.
+     */
+    private void loadChassisIds() {
+        chassisIdIndex.clear();
+        deviceService.getAvailableDevices().forEach(this::indexChassisIds);
+    }
+
+    private void indexChassisIds(Device device) {
+        chassisIdIndex.updateDevice(device);
+        deviceService.getPorts(device.id()).forEach(chassisIdIndex::updatePort);
+    }
+
+    /**
+     * Updates the chassis ID index on the specified device event.
+     */
+    private void updateChassisIds(DeviceEvent event) {
+        Device device = event.subject();
+        switch (event.type()) {
+            case DEVICE_ADDED:
+            case DEVICE_UPDATED:
+            case DEVICE_AVAILABILITY_CHANGED:
+                if (deviceService.isAvailable(device.id())) {
+                    indexChassisIds(device);
+                } else {
+                    chassisIdIndex.removeDevice(device.id());
+                }
+                break;
+            case PORT_ADDED:
+            case PORT_UPDATED:
+                chassisIdIndex.updatePort(event.port());
+                break;
+            case PORT_REMOVED:
+                chassisIdIndex.removePort(device.id(), event.port().number());
+                break;
+            case DEVICE_REMOVED:
+                chassisIdIndex.removeDevice(device.id());
+                break;
+            default:
+                break;
+        }
+    }
+
     private boolean isBlacklisted(DeviceId did) {
         LinkDiscoveryFromDevice cfg = cfgRegistry.getConfig(did, LinkDiscoveryFromDevice.class);
         if (cfg == null) {
@@ -610,6 +661,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
                 return;
             }
             log.trace("{} {} {}", event.type(), event.subject(), event);
+            updateChassisIds(event);
             final DeviceId deviceId = device.id();
             switch (event.type()) {
                 case DEVICE_ADDED:
@@ -838,6 +890,11 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         public long maxDiscoveryDelay() {
             return maxDiscoveryDelayMs;
         }
+
+        @Override
+        public Optional<Device> findDeviceByChassisId(MacAddress chassisId) {
+            return chassisIdIndex.lookup(chassisId).map(deviceService::getDevice);
+        }
     }
 
     static final EnumSet<NetworkConfigEvent.Type> CONFIG_CHANGED
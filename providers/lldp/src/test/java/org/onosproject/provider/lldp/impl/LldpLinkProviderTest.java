@@ -36,6 +36,7 @@ import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.DefaultApplicationId;
 import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.AnnotationKeys;
 import org.onosproject.net.Annotations;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultAnnotations;
@@ -68,6 +69,7 @@ import org.onosproject.net.provider.ProviderId;
 import org.onosproject.provider.lldpcommon.LinkDiscovery;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -467,6 +469,61 @@ public class LldpLinkProviderTest {
     }
 
 
+    @Test
+    public void probesAreSigned() {
+        deviceListener.event(deviceEvent(DeviceEvent.Type.DEVICE_ADDED, DID1));
+        deviceListener.event(portEvent(DeviceEvent.Type.PORT_ADDED, DID1, port(DID1, 3, true)));
+
+        List<OutboundPacket> emitted;
+        synchronized (packetService.emitted) {
+            emitted = new ArrayList<>(packetService.emitted);
+        }
+        assertFalse("No probe emitted", emitted.isEmpty());
+        for (OutboundPacket packet : emitted) {
+            byte[] frame = packet.data().array();
+            Ethernet eth;
+            try {
+                eth = Ethernet.deserializer().deserialize(frame, 0, frame.length);
+            } catch (Exception e) {
+                throw new AssertionError("Cannot parse probe", e);
+            }
+            ONOSLLDP lldp = ONOSLLDP.parseONOSLLDP(eth);
+            assertNotNull("Not an ONOS probe", lldp);
+            assertEquals(packet.sendThrough().toString(), lldp.getDeviceString());
+            assertTrue("Probe failed to validate", ONOSLLDP.verify(lldp, "test-secret", 10000));
+        }
+    }
+
+    @Test
+    public void chassisIdPktCtx() {
+        Device d3 = new DefaultDevice(ProviderId.NONE, DID3, Device.Type.SWITCH,
+                                      "TESTMF", "TESTHW", "TESTSW", "TESTSN", new ChassisId(0x1234L));
+        deviceService.putDevice(d3);
+        deviceService.putPorts(DID3, new DefaultPort(d3, PortNumber.portNumber(1), true,
+                DefaultAnnotations.builder().set(AnnotationKeys.PORT_NAME, "eth1").build()));
+        deviceListener.event(deviceEvent(DeviceEvent.Type.DEVICE_ADDED, DID3));
+        deviceListener.event(deviceEvent(DeviceEvent.Type.DEVICE_ADDED, DID2));
+
+        // LLDP of another agent, identifying its source by chassis ID and port name
+        ONOSLLDP lldp = new ONOSLLDP();
+        lldp.setName("other");
+        lldp.setChassisId(new ChassisId(0x1234L));
+        lldp.setPortName("eth1");
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(Ethernet.TYPE_LLDP);
+        eth.setDestinationMACAddress(MacAddress.ONOS_LLDP);
+        eth.setSourceMACAddress("DE:AD:BE:EF:BA:11");
+        eth.setPayload(lldp);
+
+        testProcessor.process(new LldpPacketContext(deviceService.getDevice(DID2), eth));
+        assertTrue("Link not detected", detectedLink(DID3, DID2));
+
+        deviceListener.event(deviceEvent(DeviceEvent.Type.DEVICE_REMOVED, DID3));
+        PacketContext pktCtx = new LldpPacketContext(deviceService.getDevice(DID2), eth);
+        testProcessor.process(pktCtx);
+        assertFalse("Context should still be free", pktCtx.isHandled());
+    }
+
     @After
     public void tearDown() {
         provider.deactivate();
@@ -699,11 +756,35 @@ public class LldpLinkProviderTest {
 
     }
 
+    private class LldpPacketContext extends TestPacketContext {
+
+        private final Ethernet eth;
+
+        public LldpPacketContext(Device dev, Ethernet eth) {
+            super(dev);
+            this.eth = eth;
+        }
+
+        @Override
+        public InboundPacket inPacket() {
+            ConnectPoint cp = new ConnectPoint(device.id(), pd3.number());
+            return new DefaultInboundPacket(cp, eth, ByteBuffer.wrap(eth.serialize()));
+        }
+    }
+
     private class TestPacketService extends PacketServiceAdapter {
+
+        private final List<OutboundPacket> emitted = Collections.synchronizedList(new ArrayList<>());
+
         @Override
         public void addProcessor(PacketProcessor processor, int priority) {
             testProcessor = processor;
         }
+
+        @Override
+        public void emit(OutboundPacket packet) {
+            emitted.add(packet);
+        }
     }
 
     private class TestDeviceService extends DeviceServiceAdapter {
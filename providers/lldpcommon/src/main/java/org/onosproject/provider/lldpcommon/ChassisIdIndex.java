@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import com.google.common.collect.Maps;
+import org.onlab.packet.MacAddress;
+import org.onosproject.net.AnnotationKeys;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Port;
+import org.onosproject.net.PortNumber;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Index of the devices by chassis ID and by port MAC address, used to find
+ * the source device of the LLDP packets sent by other agents than ONOS.
+ * Lookups are lock-free; updates are serialized on the index.
+ */
+public class ChassisIdIndex {
+
+    private final Map<MacAddress, DeviceId> devicesByChassisId = Maps.newConcurrentMap();
+    private final Map<MacAddress, DeviceId> devicesByPortMac = Maps.newConcurrentMap();
+    private final Map<DeviceId, MacAddress> chassisIds = Maps.newConcurrentMap();
+    private final Map<DeviceId, Map<PortNumber, MacAddress>> portMacs = Maps.newConcurrentMap();
+
+    /**
+     * Indexes the chassis ID of the given device.
+     *
+     * @param device device
+     */
+    public synchronized void updateDevice(Device device) {
+        DeviceId deviceId = device.id();
+        MacAddress previous = chassisIds.remove(deviceId);
+        if (previous != null) {
+            devicesByChassisId.remove(previous, deviceId);
+        }
+        if (device.chassisId() != null) {
+            MacAddress chassisId = MacAddress.valueOf(device.chassisId().value());
+            chassisIds.put(deviceId, chassisId);
+            devicesByChassisId.put(chassisId, deviceId);
+        }
+    }
+
+    /**
+     * Indexes the MAC address of the given port, if annotated with one.
+     *
+     * @param port port
+     */
+    public synchronized void updatePort(Port port) {
+        DeviceId deviceId = (DeviceId) port.element().id();
+        removePort(deviceId, port.number());
+        String value = port.annotations().value(AnnotationKeys.PORT_MAC);
+        if (value == null) {
+            return;
+        }
+        MacAddress portMac;
+        try {
+            portMac = MacAddress.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        portMacs.computeIfAbsent(deviceId, id -> Maps.newConcurrentMap()).put(port.number(), portMac);
+        devicesByPortMac.put(portMac, deviceId);
+    }
+
+    /**
+     * Removes the given port from the index.
+     *
+     * @param deviceId   device identifier
+     * @param portNumber port number
+     */
+    public synchronized void removePort(DeviceId deviceId, PortNumber portNumber) {
+        Map<PortNumber, MacAddress> macs = portMacs.get(deviceId);
+        MacAddress previous = macs == null ? null : macs.remove(portNumber);
+        if (previous != null) {
+            devicesByPortMac.remove(previous, deviceId);
+        }
+    }
+
+    /**
+     * Removes the given device and its ports from the index.
+     *
+     * @param deviceId device identifier
+     */
+    public synchronized void removeDevice(DeviceId deviceId) {
+        MacAddress chassisId = chassisIds.remove(deviceId);
+        if (chassisId != null) {
+            devicesByChassisId.remove(chassisId, deviceId);
+        }
+        Map<PortNumber, MacAddress> macs = portMacs.remove(deviceId);
+        if (macs != null) {
+            macs.values().forEach(mac -> devicesByPortMac.remove(mac, deviceId));
+        }
+    }
+
+    /**
+     * Removes all devices from the index.
+     */
+    public synchronized void clear() {
+        devicesByChassisId.clear();
+        devicesByPortMac.clear();
+        chassisIds.clear();
+        portMacs.clear();
+    }
+
+    /**
+     * Returns the device with the given chassis ID or, failing that, with
+     * a port of the given MAC address.
+     *
+     * @param chassisId chassis ID, as a MAC address
+     * @return device identifier, if any
+     */
+    public Optional<DeviceId> lookup(MacAddress chassisId) {
+        if (chassisId == null) {
+            return Optional.empty();
+        }
+        DeviceId deviceId = devicesByChassisId.get(chassisId);
+        return Optional.ofNullable(deviceId != null ? deviceId : devicesByPortMac.get(chassisId));
+    }
+}
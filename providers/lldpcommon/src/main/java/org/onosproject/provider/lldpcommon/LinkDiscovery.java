@@ -24,7 +24,6 @@ import org.onlab.packet.Ethernet;
 import org.onlab.packet.MacAddress;
 import org.onlab.packet.ONOSLLDP;
 import org.onlab.util.Timer;
-import org.onlab.util.Tools;
 import org.onosproject.net.AnnotationKeys;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultAnnotations;
@@ -47,9 +46,6 @@ import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Supplier;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -83,6 +79,11 @@ public class LinkDiscovery implements TimerTask {
 
     // Set of ports to be probed
     private final Map<Long, String> portMap = Maps.newConcurrentMap();
+
+    // Pre-serialized LLDP and BDDP probes of the ports
+    private final Map<Long, LinkProbeTemplate> lldpTemplates = Maps.newConcurrentMap();
+    private final Map<Long, LinkProbeTemplate> bddpTemplates = Maps.newConcurrentMap();
+
     /**
      * Instantiates discovery manager for the given physical switch. Creates a
      * generic LLDP packet that will be customized for the port it is sent out on.
@@ -162,6 +163,8 @@ public class LinkDiscovery implements TimerTask {
      */
     public void removePort(PortNumber port) {
         portMap.remove(port.toLong());
+        lldpTemplates.remove(port.toLong());
+        bddpTemplates.remove(port.toLong());
     }
 
     /**
@@ -257,7 +260,7 @@ public class LinkDiscovery implements TimerTask {
                 return false;
             }
 
-            Optional<Device> srcDevice = findSourceDeviceByChassisId(deviceService, srcChassisId);
+            Optional<Device> srcDevice = context.findDeviceByChassisId(srcChassisId);
 
             if (!srcDevice.isPresent()) {
                 log.warn("source device not found. srcChassisId value: {}", srcChassisId);
@@ -306,33 +309,6 @@ public class LinkDiscovery implements TimerTask {
         return false;
     }
 
-    private Optional<Device> findSourceDeviceByChassisId(DeviceService deviceService, MacAddress srcChassisId) {
-        Supplier<Stream<Device>> deviceStream = () ->
-                StreamSupport.stream(deviceService.getAvailableDevices().spliterator(), false);
-        Optional<Device> remoteDeviceOptional = deviceStream.get()
-                .filter(device -> device.chassisId() != null
-                        && MacAddress.valueOf(device.chassisId().value()).equals(srcChassisId))
-                .findAny();
-
-        if (remoteDeviceOptional.isPresent()) {
-            log.debug("sourceDevice found by chassis id: {}", srcChassisId);
-            return remoteDeviceOptional;
-        } else {
-            remoteDeviceOptional = deviceStream.get().filter(device ->
-                    Tools.stream(deviceService.getPorts(device.id()))
-                            .anyMatch(port -> port.annotations().keys().contains(AnnotationKeys.PORT_MAC)
-                                    && MacAddress.valueOf(port.annotations().value(AnnotationKeys.PORT_MAC))
-                                    .equals(srcChassisId)))
-                    .findAny();
-            if (remoteDeviceOptional.isPresent()) {
-                log.debug("sourceDevice found by port mac: {}", srcChassisId);
-                return remoteDeviceOptional;
-            } else {
-                return Optional.empty();
-            }
-        }
-    }
-
     private Optional<Port> findSourcePortByName(String remotePortName,
                                                 DeviceService deviceService,
                                                 Device remoteDevice) {
@@ -408,16 +384,15 @@ public class LinkDiscovery implements TimerTask {
         if (portNumber == null) {
             return null;
         }
-        ONOSLLDP lldp = getLinkProbe(portNumber, portDesc);
-        if (lldp == null) {
+        byte[] frame = getLinkProbe(lldpTemplates, ethPacket, portNumber, portDesc);
+        if (frame == null) {
             log.warn("Cannot get link probe with portNumber {} and portDesc {} for {} at LLDP packet creation.",
                     portNumber, portDesc, deviceId);
             return null;
         }
-        ethPacket.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
         return new DefaultOutboundPacket(deviceId,
                                          builder().setOutput(portNumber(portNumber)).build(),
-                                         ByteBuffer.wrap(ethPacket.serialize()));
+                                         ByteBuffer.wrap(frame));
     }
 
     /**
@@ -431,26 +406,41 @@ public class LinkDiscovery implements TimerTask {
         if (portNumber == null) {
             return null;
         }
-        ONOSLLDP lldp = getLinkProbe(portNumber, portDesc);
-        if (lldp == null) {
+        byte[] frame = getLinkProbe(bddpTemplates, bddpEth, portNumber, portDesc);
+        if (frame == null) {
             log.warn("Cannot get link probe with portNumber {} and portDesc {} for {} at BDDP packet creation.",
                     portNumber, portDesc, deviceId);
             return null;
         }
-        bddpEth.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
         return new DefaultOutboundPacket(deviceId,
                                          builder().setOutput(portNumber(portNumber)).build(),
-                                         ByteBuffer.wrap(bddpEth.serialize()));
+                                         ByteBuffer.wrap(frame));
     }
 
-    private ONOSLLDP getLinkProbe(Long portNumber, String portDesc) {
+    /**
+     * Returns the serialized probe for the specified port, stamped with the
+     * current time. The probe template of the port is created or, if the
+     * device, port or cluster parameters changed, recreated as needed.
+     */
+    private byte[] getLinkProbe(Map<Long, LinkProbeTemplate> templates, Ethernet header,
+                                Long portNumber, String portDesc) {
         Device device = context.deviceService().getDevice(deviceId);
         if (device == null) {
             log.warn("Cannot find the device {}", deviceId);
             return null;
         }
-        return ONOSLLDP.onosSecureLLDP(deviceId.toString(), device.chassisId(), portNumber.intValue(), portDesc,
-                                       context.lldpSecret());
+        String fingerprint = context.fingerprint();
+        String secret = context.lldpSecret();
+        LinkProbeTemplate template = templates.get(portNumber);
+        if (template == null || !template.matches(device.chassisId(), portDesc, fingerprint, secret)) {
+            template = LinkProbeTemplate.create(header, deviceId.toString(), device.chassisId(),
+                                                portNumber.intValue(), portDesc, fingerprint, secret);
+            if (template == null) {
+                return null;
+            }
+            templates.put(portNumber, template);
+        }
+        return template.frame(System.currentTimeMillis());
     }
 
     private void sendProbes(Long portNumber, String portDesc) {
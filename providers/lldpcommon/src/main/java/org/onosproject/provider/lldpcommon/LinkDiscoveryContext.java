@@ -15,12 +15,18 @@
  */
 package org.onosproject.provider.lldpcommon;
 
+import org.onlab.packet.MacAddress;
+import org.onlab.util.Tools;
 import org.onosproject.mastership.MastershipService;
+import org.onosproject.net.AnnotationKeys;
+import org.onosproject.net.Device;
 import org.onosproject.net.LinkKey;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.link.LinkProviderService;
 import org.onosproject.net.packet.PacketService;
 
+import java.util.Optional;
+
 /**
  * Shared context for use by link discovery.
  */
@@ -103,4 +109,30 @@ public interface LinkDiscoveryContext {
      * @return delay in ms
      */
     long maxDiscoveryDelay();
+
+    /**
+     * Returns the available device with the given chassis ID or, failing
+     * that, with a port of the given MAC address. The default implementation
+     * scans all devices and ports; contexts tracking device events should
+     * answer from an index instead.
+     *
+     * @param chassisId chassis ID, as a MAC address
+     * @return device, if any
+     */
+    default Optional<Device> findDeviceByChassisId(MacAddress chassisId) {
+        DeviceService deviceService = deviceService();
+        Optional<Device> device = Tools.stream(deviceService.getAvailableDevices())
+                .filter(d -> d.chassisId() != null
+                        && MacAddress.valueOf(d.chassisId().value()).equals(chassisId))
+                .findAny();
+        if (device.isPresent()) {
+            return device;
+        }
+        return Tools.stream(deviceService.getAvailableDevices())
+                .filter(d -> Tools.stream(deviceService.getPorts(d.id()))
+                        .anyMatch(port -> port.annotations().keys().contains(AnnotationKeys.PORT_MAC)
+                                && MacAddress.valueOf(port.annotations().value(AnnotationKeys.PORT_MAC))
+                                .equals(chassisId)))
+                .findAny();
+    }
 }
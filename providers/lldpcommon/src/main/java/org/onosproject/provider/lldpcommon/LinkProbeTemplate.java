@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import org.onlab.packet.ChassisId;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.LLDPOrganizationalTLV;
+import org.onlab.packet.ONOSLLDP;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Objects;
+
+import static org.onlab.packet.LLDPOrganizationalTLV.OUI_LENGTH;
+import static org.onlab.packet.LLDPOrganizationalTLV.SUBTYPE_LENGTH;
+
+/**
+ * Serialized link probe of a port. Only the timestamp and signature of the
+ * probe are rewritten, in place, for each probe sent.
+ */
+final class LinkProbeTemplate {
+
+    private static final String HMAC = "HmacSHA256";
+    private static final int ETHERNET_HEADER_LENGTH = 14;
+    private static final int VLAN_HEADER_LENGTH = 4;
+    private static final int TLV_HEADER_LENGTH = 2;
+    private static final int END_TLV_TYPE = 0;
+    // Subtypes of the timestamp and signature TLVs, as set by ONOSLLDP
+    private static final byte TIMESTAMP_SUBTYPE = 4;
+    private static final byte SIG_SUBTYPE = 5;
+
+    private final ChassisId chassisId;
+    private final String portDesc;
+    private final String fingerprint;
+    private final String secret;
+
+    private final byte[] frame;
+    private final ByteBuffer frameBuffer;
+    private final int timestampOffset;
+    private final int sigOffset;
+    private final byte[] sigPrefix;
+    private final Mac mac;
+
+    private LinkProbeTemplate(ChassisId chassisId, String portDesc, String fingerprint, String secret,
+                              byte[] frame, int timestampOffset, int sigOffset,
+                              byte[] sigPrefix, Mac mac) {
+        this.chassisId = chassisId;
+        this.portDesc = portDesc;
+        this.fingerprint = fingerprint;
+        this.secret = secret;
+        this.frame = frame;
+        this.frameBuffer = ByteBuffer.wrap(frame);
+        this.timestampOffset = timestampOffset;
+        this.sigOffset = sigOffset;
+        this.sigPrefix = sigPrefix;
+        this.mac = mac;
+    }
+
+    /**
+     * Creates the template of the probes of a port, serializing the given
+     * frame header with a secure ONOS LLDP probe as payload.
+     *
+     * @param header      Ethernet header of the probes; its source MAC
+     *                    address and payload are overwritten
+     * @param deviceId    device ID as a string
+     * @param chassisId   chassis ID of the device
+     * @param portNumber  port to send the probes out of
+     * @param portDesc    port description
+     * @param fingerprint cluster fingerprint, used as source MAC address
+     * @param secret      LLDP secret, or null for unsigned probes
+     * @return template, or null if the probe cannot be created
+     */
+    static LinkProbeTemplate create(Ethernet header, String deviceId, ChassisId chassisId,
+                                    int portNumber, String portDesc, String fingerprint, String secret) {
+        ONOSLLDP lldp = ONOSLLDP.onosSecureLLDP(deviceId, chassisId, portNumber, portDesc, secret);
+        if (lldp == null) {
+            return null;
+        }
+        byte[] frame;
+        synchronized (header) {
+            header.setSourceMACAddress(fingerprint).setPayload(lldp);
+            frame = header.serialize();
+        }
+        if (secret == null) {
+            return new LinkProbeTemplate(chassisId, portDesc, fingerprint, null,
+                                         frame, -1, -1, null, null);
+        }
+
+        int lldpOffset = ETHERNET_HEADER_LENGTH
+                + (header.getVlanID() == Ethernet.VLAN_UNTAGGED ? 0 : VLAN_HEADER_LENGTH)
+                + (header.getQinQVID() == Ethernet.VLAN_UNTAGGED ? 0 : VLAN_HEADER_LENGTH);
+        int timestampOffset = valueOffset(frame, lldpOffset, TIMESTAMP_SUBTYPE);
+        int sigOffset = valueOffset(frame, lldpOffset, SIG_SUBTYPE);
+        if (timestampOffset < 0 || sigOffset < 0) {
+            return null;
+        }
+
+        // Same input as the signature of ONOSLLDP: device ID, port, timestamp
+        byte[] device = deviceId.getBytes();
+        byte[] sigPrefix = ByteBuffer.allocate(device.length + Long.BYTES)
+                .put(device).putLong(portNumber).array();
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC));
+            if (mac.getMacLength() != lldp.getSig().length) {
+                return null;
+            }
+            return new LinkProbeTemplate(chassisId, portDesc, fingerprint, secret,
+                                         frame, timestampOffset, sigOffset, sigPrefix, mac);
+        } catch (GeneralSecurityException e) {
+            return null;
+        }
+    }
+
+    // Returns the offset of the value of the ONOS organizational TLV of the
+    // given subtype in the serialized frame, or -1 if there is none.
+    private static int valueOffset(byte[] frame, int offset, byte subType) {
+        while (offset + TLV_HEADER_LENGTH <= frame.length) {
+            int typeLength = ((frame[offset] & 0xff) << 8) | (frame[offset + 1] & 0xff);
+            int type = typeLength >>> 9;
+            int length = typeLength & 0x1ff;
+            if (type == END_TLV_TYPE) {
+                break;
+            }
+            if (type == LLDPOrganizationalTLV.ORGANIZATIONAL_TLV_TYPE &&
+                    frame[offset + TLV_HEADER_LENGTH + OUI_LENGTH] == subType) {
+                return offset + TLV_HEADER_LENGTH + OUI_LENGTH + SUBTYPE_LENGTH;
+            }
+            offset += TLV_HEADER_LENGTH + length;
+        }
+        return -1;
+    }
+
+    /**
+     * Indicates whether the template was created with the given parameters.
+     *
+     * @param chassisId   chassis ID of the device
+     * @param portDesc    port description
+     * @param fingerprint cluster fingerprint
+     * @param secret      LLDP secret
+     * @return true if the template is up to date
+     */
+    boolean matches(ChassisId chassisId, String portDesc, String fingerprint, String secret) {
+        return Objects.equals(this.chassisId, chassisId) &&
+                Objects.equals(this.portDesc, portDesc) &&
+                Objects.equals(this.fingerprint, fingerprint) &&
+                Objects.equals(this.secret, secret);
+    }
+
+    /**
+     * Returns a copy of the probe frame, stamped and signed with the given time.
+     *
+     * @param timestamp probe timestamp, in millis
+     * @return serialized frame, or null if it cannot be signed
+     */
+    synchronized byte[] frame(long timestamp) {
+        if (mac != null) {
+            frameBuffer.putLong(timestampOffset, timestamp);
+            mac.update(sigPrefix);
+            mac.update(frame, timestampOffset, Long.BYTES);
+            try {
+                mac.doFinal(frame, sigOffset);
+            } catch (ShortBufferException e) {
+                return null;
+            }
+        }
+        return frame.clone();
+    }
+}
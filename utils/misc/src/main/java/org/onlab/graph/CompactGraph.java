@@ -0,0 +1,354 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable, int-indexed snapshot of a graph in compressed sparse row form.
+ * <p>
+ * Vertexes are numbered from 0 to {@link #vertexCount()} - 1 and edges from
+ * 0 to {@link #edgeCount()} - 1, with the egress edges of each vertex stored
+ * contiguously. This allows path searches to run over primitive arrays
+ * rather than over sets and maps of vertex and edge objects.
+ * </p>
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class CompactGraph<V extends Vertex, E extends Edge<V>> {
+
+    private final Object[] vertexes;
+    private final Object[] edges;
+    private final Map<V, Integer> indexes;
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] targets;
+
+    /**
+     * Creates a compact snapshot of the specified graph.
+     *
+     * @param graph graph to snapshot
+     */
+    public CompactGraph(Graph<V, E> graph) {
+        checkNotNull(graph, "Graph cannot be null");
+        int vertexCount = graph.getVertexes().size();
+        this.vertexes = new Object[vertexCount];
+        this.indexes = new HashMap<>(vertexCount * 2);
+        this.offsets = new int[vertexCount + 1];
+
+        int i = 0;
+        for (V vertex : graph.getVertexes()) {
+            vertexes[i] = vertex;
+            indexes.put(vertex, i++);
+        }
+
+        int edgeCount = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v] = edgeCount;
+            edgeCount += graph.getEdgesFrom(vertex(v)).size();
+        }
+        offsets[vertexCount] = edgeCount;
+
+        this.edges = new Object[edgeCount];
+        this.sources = new int[edgeCount];
+        this.targets = new int[edgeCount];
+        int e = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            for (E edge : graph.getEdgesFrom(vertex(v))) {
+                Integer target = indexes.get(edge.dst());
+                checkArgument(target != null, "Edge destination not in graph: %s", edge);
+                edges[e] = edge;
+                sources[e] = v;
+                targets[e] = target;
+                e++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of vertexes in the graph.
+     *
+     * @return vertex count
+     */
+    public int vertexCount() {
+        return vertexes.length;
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     *
+     * @return edge count
+     */
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * Returns the index of the specified vertex.
+     *
+     * @param vertex vertex
+     * @return vertex index; -1 if the vertex is not in the graph
+     */
+    public int index(V vertex) {
+        Integer index = indexes.get(vertex);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the vertex with the specified index.
+     *
+     * @param index vertex index
+     * @return vertex
+     */
+    @SuppressWarnings("unchecked")
+    public V vertex(int index) {
+        return (V) vertexes[index];
+    }
+
+    /**
+     * Returns the edge with the specified index.
+     *
+     * @param index edge index
+     * @return edge
+     */
+    @SuppressWarnings("unchecked")
+    public E edge(int index) {
+        return (E) edges[index];
+    }
+
+    /**
+     * Returns the index of the source vertex of the specified edge.
+     *
+     * @param edge edge index
+     * @return source vertex index
+     */
+    public int edgeSource(int edge) {
+        return sources[edge];
+    }
+
+    /**
+     * Returns the index of the destination vertex of the specified edge.
+     *
+     * @param edge edge index
+     * @return destination vertex index
+     */
+    public int edgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Returns the index of the first egress edge of the specified vertex.
+     *
+     * @param vertex vertex index
+     * @return first egress edge index
+     */
+    public int firstEdgeFrom(int vertex) {
+        return offsets[vertex];
+    }
+
+    /**
+     * Returns the index following the last egress edge of the specified
+     * vertex.
+     *
+     * @param vertex vertex index
+     * @return end of the egress edge index range, exclusive
+     */
+    public int endEdgeFrom(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    /**
+     * Computes the weights of all edges using the given function. Infinite,
+     * NaN or negative values mark the edge as not traversable.
+     *
+     * @param weigher edge weight function
+     * @return array of edge weights, indexed by edge
+     */
+    public double[] weights(ToDoubleFunction<E> weigher) {
+        double[] weights = new double[edges.length];
+        for (int e = 0; e < edges.length; e++) {
+            weights[e] = weigher.applyAsDouble(edge(e));
+        }
+        return weights;
+    }
+
+    /**
+     * Computes the tree of all shortest paths from the specified source
+     * vertex to all reachable vertexes, using Dijkstra's algorithm over the
+     * given edge weights.
+     *
+     * @param src     source vertex index
+     * @param weights edge weights, as returned by {@link #weights}
+     * @return shortest path tree
+     */
+    public ShortestPathTree<V, E> shortestPaths(int src, double[] weights) {
+        checkArgument(src >= 0 && src < vertexes.length, "Source not in the graph");
+        checkArgument(weights.length == edges.length, "Weights do not match the edges");
+
+        double[] costs = new double[vertexes.length];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        costs[src] = 0;
+
+        IndexedMinHeap queue = new IndexedMinHeap(costs);
+        queue.insert(src);
+        while (!queue.isEmpty()) {
+            int u = queue.extractMin();
+            double cost = costs[u];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                double w = weights[e];
+                if (!isViable(w)) {
+                    continue;
+                }
+                int v = targets[e];
+                double newCost = cost + w;
+                if (newCost < costs[v]) {
+                    costs[v] = newCost;
+                    queue.insertOrDecrease(v);
+                }
+            }
+        }
+
+        // Every viable edge which lies on a shortest path is a parent edge of
+        // its destination; collect them grouped by destination.
+        int[] parentOffsets = new int[vertexes.length + 1];
+        for (int e = 0; e < edges.length; e++) {
+            if (isParent(e, src, costs, weights)) {
+                parentOffsets[targets[e] + 1]++;
+            }
+        }
+        for (int v = 0; v < vertexes.length; v++) {
+            parentOffsets[v + 1] += parentOffsets[v];
+        }
+        int[] parents = new int[parentOffsets[vertexes.length]];
+        int[] fill = Arrays.copyOf(parentOffsets, vertexes.length);
+        for (int e = 0; e < edges.length; e++) {
+            if (isParent(e, src, costs, weights)) {
+                parents[fill[targets[e]]++] = e;
+            }
+        }
+        return new ShortestPathTree<>(this, src, costs, parentOffsets, parents);
+    }
+
+    private boolean isParent(int e, int src, double[] costs, double[] weights) {
+        int v = targets[e];
+        double cost = costs[sources[e]];
+        return v != src && isViable(weights[e]) && cost != Double.POSITIVE_INFINITY &&
+                cost + weights[e] == costs[v];
+    }
+
+    private static boolean isViable(double weight) {
+        return weight >= 0 && weight != Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("vertexes", vertexes.length)
+                .add("edges", edges.length)
+                .toString();
+    }
+
+    /**
+     * Binary min-heap of vertex indexes ordered by their current cost, with
+     * support for decreasing the cost of a queued vertex.
+     */
+    private static final class IndexedMinHeap {
+
+        private final double[] costs;
+        private final int[] heap;
+        private final int[] positions;
+        private int size;
+
+        private IndexedMinHeap(double[] costs) {
+            this.costs = costs;
+            this.heap = new int[costs.length];
+            this.positions = new int[costs.length];
+            Arrays.fill(positions, -1);
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void insert(int v) {
+            heap[size] = v;
+            positions[v] = size;
+            siftUp(size++);
+        }
+
+        private void insertOrDecrease(int v) {
+            if (positions[v] < 0) {
+                insert(v);
+            } else {
+                siftUp(positions[v]);
+            }
+        }
+
+        private int extractMin() {
+            int min = heap[0];
+            positions[min] = -1;
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                positions[heap[0]] = 0;
+                siftDown(0);
+            }
+            return min;
+        }
+
+        private void siftUp(int i) {
+            int v = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (costs[heap[parent]] <= costs[v]) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                positions[heap[i]] = i;
+                i = parent;
+            }
+            heap[i] = v;
+            positions[v] = i;
+        }
+
+        private void siftDown(int i) {
+            int v = heap[i];
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && costs[heap[child + 1]] < costs[heap[child]]) {
+                    child++;
+                }
+                if (costs[v] <= costs[heap[child]]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                positions[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = v;
+            positions[v] = i;
+        }
+    }
+}
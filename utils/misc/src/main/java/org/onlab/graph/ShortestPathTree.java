@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Immutable tree of all shortest paths from a single source vertex of a
+ * {@link CompactGraph}, as computed by
+ * {@link CompactGraph#shortestPaths(int, double[])}.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public final class ShortestPathTree<V extends Vertex, E extends Edge<V>> {
+
+    private final CompactGraph<V, E> graph;
+    private final int src;
+    private final double[] costs;
+    private final int[] parentOffsets;
+    private final int[] parents;
+
+    ShortestPathTree(CompactGraph<V, E> graph, int src, double[] costs,
+                     int[] parentOffsets, int[] parents) {
+        this.graph = graph;
+        this.src = src;
+        this.costs = costs;
+        this.parentOffsets = parentOffsets;
+        this.parents = parents;
+    }
+
+    /**
+     * Returns the graph whose vertex and edge indexes the tree refers to.
+     *
+     * @return compact graph
+     */
+    public CompactGraph<V, E> graph() {
+        return graph;
+    }
+
+    /**
+     * Returns the index of the source vertex.
+     *
+     * @return source vertex index
+     */
+    public int src() {
+        return src;
+    }
+
+    /**
+     * Indicates whether the specified vertex can be reached from the source.
+     *
+     * @param dst destination vertex index
+     * @return true if reachable
+     */
+    public boolean isReachable(int dst) {
+        return costs[dst] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the cost of the shortest paths to the specified vertex.
+     *
+     * @param dst destination vertex index
+     * @return path cost; positive infinity if not reachable
+     */
+    public double cost(int dst) {
+        return costs[dst];
+    }
+
+    /**
+     * Returns the edge sequences of the shortest paths from the source to
+     * the specified vertex. Paths which would visit a vertex more than once
+     * are excluded. There are no paths from the source to itself.
+     *
+     * @param dst      destination vertex index
+     * @param maxPaths limit on the number of paths;
+     *                 {@link GraphPathSearch#ALL_PATHS} if no limit
+     * @return list of paths, each given as the list of its edges from the
+     *         source to the destination
+     */
+    public List<List<E>> paths(int dst, int maxPaths) {
+        if (dst == src || !isReachable(dst)) {
+            return ImmutableList.of();
+        }
+        List<List<E>> paths = new ArrayList<>();
+        boolean[] visited = new boolean[costs.length];
+        visited[dst] = true;
+        collectPaths(dst, new ArrayList<>(), visited, paths, maxPaths);
+        return paths;
+    }
+
+    // Walks the parent edges back from the given vertex towards the source,
+    // accruing the edges walked so far in reverse order.
+    private void collectPaths(int v, List<E> reversed, boolean[] visited,
+                              List<List<E>> paths, int maxPaths) {
+        for (int i = parentOffsets[v]; i < parentOffsets[v + 1]; i++) {
+            if (maxPaths != ALL_PATHS && paths.size() >= maxPaths) {
+                return;
+            }
+            int e = parents[i];
+            int u = graph.edgeSource(e);
+            if (visited[u]) {
+                continue;
+            }
+            reversed.add(graph.edge(e));
+            if (u == src) {
+                paths.add(ImmutableList.copyOf(Lists.reverse(reversed)));
+            } else {
+                visited[u] = true;
+                collectPaths(u, reversed, visited, paths, maxPaths);
+                visited[u] = false;
+            }
+            reversed.remove(reversed.size() - 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        int reachable = 0;
+        for (double cost : costs) {
+            if (cost != Double.POSITIVE_INFINITY) {
+                reachable++;
+            }
+        }
+        return toStringHelper(this)
+                .add("src", graph.vertex(src))
+                .add("reachable", reachable)
+                .toString();
+    }
+}
@@ -33,7 +33,6 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 import org.slf4j.Logger;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -301,17 +300,31 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * Serializes given object to byte array using Kryo instance in pool.
      *
      * @param obj Object to serialize
-     * @param bufferSize maximum size of serialized bytes
+     * @param bufferSize initial size of the serialization buffer, which grows
+     *                   as needed up to {@link #MAX_BUFFER_SIZE}
      * @return serialized bytes
      */
     public byte[] serialize(final Object obj, final int bufferSize) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bufferSize);
-        Output out = new Output(outputStream);
-        return pool.run(kryo -> {
-            kryo.writeClassAndObject(out, obj);
-            out.flush();
-            return outputStream.toByteArray();
-        });
+        IoBuffers buffers = IoBuffers.acquire();
+        if (buffers == null) {
+            // Nested call from within a serializer; the thread's buffers are in use.
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bufferSize);
+            Output out = new Output(outputStream);
+            return pool.run(kryo -> {
+                kryo.writeClassAndObject(out, obj);
+                out.flush();
+                return outputStream.toByteArray();
+            });
+        }
+        try {
+            Output out = buffers.output(bufferSize);
+            return pool.run(kryo -> {
+                kryo.writeClassAndObject(out, obj);
+                return out.toBytes();
+            });
+        } finally {
+            buffers.release();
+        }
     }
 
     /**
@@ -321,13 +334,23 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @param buffer to write to
      */
     public void serialize(final Object obj, final ByteBuffer buffer) {
-        ByteBufferOutput out = new ByteBufferOutput(buffer);
+        IoBuffers buffers = IoBuffers.acquire();
+        ByteBufferOutput out;
+        if (buffers != null) {
+            out = buffers.byteBufferOutput;
+            out.setBuffer(buffer);
+        } else {
+            out = new ByteBufferOutput(buffer);
+        }
         Kryo kryo = borrow();
         try {
             kryo.writeClassAndObject(out, obj);
             out.flush();
         } finally {
             release(kryo);
+            if (buffers != null) {
+                buffers.release();
+            }
         }
     }
 
@@ -367,7 +390,14 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @return deserialized Object
      */
     public <T> T deserialize(final byte[] bytes) {
-        Input in = new Input(new ByteArrayInputStream(bytes));
+        IoBuffers buffers = IoBuffers.acquire();
+        Input in;
+        if (buffers != null) {
+            in = buffers.input;
+            in.setBuffer(bytes);
+        } else {
+            in = new Input(bytes);
+        }
         Kryo kryo = borrow();
         try {
             @SuppressWarnings("unchecked")
@@ -375,6 +405,9 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
             return obj;
         } finally {
             release(kryo);
+            if (buffers != null) {
+                buffers.release();
+            }
         }
     }
 
@@ -386,7 +419,14 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @return deserialized Object
      */
     public <T> T deserialize(final ByteBuffer buffer) {
-        ByteBufferInput in = new ByteBufferInput(buffer);
+        IoBuffers buffers = IoBuffers.acquire();
+        ByteBufferInput in;
+        if (buffers != null) {
+            in = buffers.byteBufferInput;
+            in.setBuffer(buffer);
+        } else {
+            in = new ByteBufferInput(buffer);
+        }
         Kryo kryo = borrow();
         try {
             @SuppressWarnings("unchecked")
@@ -394,6 +434,9 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
             return obj;
         } finally {
             release(kryo);
+            if (buffers != null) {
+                buffers.release();
+            }
         }
     }
 
@@ -551,6 +594,72 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
                     .toString();
     }
 
+    /**
+     * Kryo inputs and outputs reused by the serialization calls of a thread.
+     * <p>
+     * The buffers are reused to avoid allocating a new stream and buffer for
+     * every serialized object; only the exact-size result is allocated. The
+     * output buffer is discarded once it grows beyond {@link #MAX_POOLED_SIZE}
+     * so that a single large object does not pin memory to the thread.
+     */
+    private static final class IoBuffers {
+
+        private static final int MAX_POOLED_SIZE = 1024 * 1024;
+        private static final byte[] EMPTY_BYTES = new byte[0];
+        private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+        private static final ThreadLocal<IoBuffers> BUFFERS = ThreadLocal.withInitial(IoBuffers::new);
+
+        private Output output = new Output(DEFAULT_BUFFER_SIZE, MAX_BUFFER_SIZE);
+        private final Input input = new Input();
+        private final ByteBufferInput byteBufferInput = new ByteBufferInput();
+        private final ByteBufferOutput byteBufferOutput = new ByteBufferOutput();
+        private boolean inUse;
+
+        /**
+         * Returns the buffers of the current thread, or null if they are
+         * already in use by an enclosing serialization call.
+         *
+         * @return buffers or null
+         */
+        static IoBuffers acquire() {
+            IoBuffers buffers = BUFFERS.get();
+            if (buffers.inUse) {
+                return null;
+            }
+            buffers.inUse = true;
+            return buffers;
+        }
+
+        /**
+         * Returns the cleared output, with a buffer of at least the given
+         * size so that large objects are not serialized through repeated
+         * buffer growth.
+         *
+         * @param bufferSize minimum buffer size
+         * @return output
+         */
+        Output output(int bufferSize) {
+            if (output.getBuffer().length < bufferSize) {
+                output = new Output(Math.min(bufferSize, MAX_BUFFER_SIZE), MAX_BUFFER_SIZE);
+            }
+            output.clear();
+            return output;
+        }
+
+        /**
+         * Releases the buffers, dropping references to the caller's data.
+         */
+        void release() {
+            if (output.getBuffer().length > MAX_POOLED_SIZE) {
+                output = new Output(DEFAULT_BUFFER_SIZE, MAX_BUFFER_SIZE);
+            }
+            input.setBuffer(EMPTY_BYTES);
+            byteBufferInput.setBuffer(EMPTY_BUFFER);
+            byteBufferOutput.setBuffer(EMPTY_BUFFER);
+            inUse = false;
+        }
+    }
+
     static final class RegistrationBlock {
         private final int begin;
         private final ImmutableList<Pair<Class<?>[], Serializer<?>>> types;
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.google.common.collect.ImmutableSet.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Test of the compact graph and its shortest path search.
+ */
+public class CompactGraphTest extends GraphTest {
+
+    private static final ScalarWeight S1 = new ScalarWeight(1);
+    private static final ScalarWeight S2 = new ScalarWeight(2);
+    private static final ScalarWeight S3 = new ScalarWeight(3);
+
+    private final EdgeWeigher<TestVertex, TestEdge> scalarWeigher =
+            new DefaultEdgeWeigher<TestVertex, TestEdge>() {
+                @Override
+                public Weight weight(TestEdge edge) {
+                    return edge.weight();
+                }
+            };
+
+    @Test
+    public void basics() {
+        graph = new AdjacencyListsGraph<>(vertexes(), edges());
+        CompactGraph<TestVertex, TestEdge> compact = new CompactGraph<>(graph);
+        assertEquals("incorrect vertex count", 8, compact.vertexCount());
+        assertEquals("incorrect edge count", 12, compact.edgeCount());
+        assertEquals("incorrect missing index", -1, compact.index(Z));
+
+        for (TestVertex v : vertexes()) {
+            int index = compact.index(v);
+            assertEquals("incorrect vertex", v, compact.vertex(index));
+            Set<TestEdge> egress = new HashSet<>();
+            for (int e = compact.firstEdgeFrom(index); e < compact.endEdgeFrom(index); e++) {
+                assertEquals("incorrect edge source", index, compact.edgeSource(e));
+                assertEquals("incorrect edge target", compact.index(compact.edge(e).dst()),
+                             compact.edgeTarget(e));
+                egress.add(compact.edge(e));
+            }
+            assertEquals("incorrect egress edges", graph.getEdgesFrom(v), egress);
+        }
+    }
+
+    @Test
+    public void hopCountPaths() {
+        graph = new AdjacencyListsGraph<>(vertexes(), edges());
+        CompactGraph<TestVertex, TestEdge> compact = new CompactGraph<>(graph);
+        double[] weights = compact.weights(e -> 1.0);
+
+        for (TestVertex src : vertexes()) {
+            ShortestPathTree<TestVertex, TestEdge> tree =
+                    compact.shortestPaths(compact.index(src), weights);
+            for (TestVertex dst : vertexes()) {
+                assertSamePaths(new DijkstraGraphSearch<TestVertex, TestEdge>()
+                                        .search(graph, src, dst, hopWeigher, ALL_PATHS),
+                                tree.paths(compact.index(dst), ALL_PATHS));
+            }
+        }
+    }
+
+    @Test
+    public void weightedPaths() {
+        graph = new AdjacencyListsGraph<>(of(A, B, C, D, E),
+                                          of(new TestEdge(A, B, S1),
+                                             new TestEdge(A, C, S2),
+                                             new TestEdge(B, D, S2),
+                                             new TestEdge(C, D, S1),
+                                             new TestEdge(A, D, S3),
+                                             new TestEdge(D, E, S1)));
+        CompactGraph<TestVertex, TestEdge> compact = new CompactGraph<>(graph);
+        double[] weights = compact.weights(e -> ((ScalarWeight) e.weight()).value());
+        ShortestPathTree<TestVertex, TestEdge> tree =
+                compact.shortestPaths(compact.index(A), weights);
+
+        assertEquals("incorrect cost", 3.0, tree.cost(compact.index(D)), 0);
+        assertEquals("incorrect paths count", 3, tree.paths(compact.index(D), ALL_PATHS).size());
+        assertEquals("incorrect paths count", 2, tree.paths(compact.index(E), 2).size());
+        assertSamePaths(new DijkstraGraphSearch<TestVertex, TestEdge>()
+                                .search(graph, A, E, scalarWeigher, ALL_PATHS),
+                        tree.paths(compact.index(E), ALL_PATHS));
+        assertTrue("source should have no paths", tree.paths(compact.index(A), ALL_PATHS).isEmpty());
+    }
+
+    @Test
+    public void nonViableEdges() {
+        graph = new AdjacencyListsGraph<>(of(A, B, C),
+                                          of(new TestEdge(A, B, S1),
+                                             new TestEdge(B, C, S1)));
+        CompactGraph<TestVertex, TestEdge> compact = new CompactGraph<>(graph);
+        double[] weights = compact.weights(e -> e.dst().equals(C) ? Double.POSITIVE_INFINITY : 1.0);
+        ShortestPathTree<TestVertex, TestEdge> tree =
+                compact.shortestPaths(compact.index(A), weights);
+
+        assertTrue("B should be reachable", tree.isReachable(compact.index(B)));
+        assertFalse("C should not be reachable", tree.isReachable(compact.index(C)));
+        assertTrue("there should be no paths", tree.paths(compact.index(C), ALL_PATHS).isEmpty());
+    }
+
+    // Asserts that the given edge lists match the paths of the search result.
+    private void assertSamePaths(GraphPathSearch.Result<TestVertex, TestEdge> expected,
+                                 List<List<TestEdge>> actual) {
+        Set<List<TestEdge>> expectedPaths = expected.paths().stream()
+                .map(Path::edges).collect(Collectors.toSet());
+        assertEquals("incorrect paths", expectedPaths, new HashSet<>(actual));
+    }
+}
@@ -29,17 +29,22 @@ import org.onosproject.rest.AbstractWebResource;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.StreamSupport;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onlab.util.Tools.nullIsNotFound;
@@ -59,16 +64,30 @@ public class DevicesWebResource extends AbstractWebResource {
 
     /**
      * Gets all infrastructure devices.
-     * Returns array of all discovered infrastructure devices.
+     * Returns array of all discovered infrastructure devices, optionally
+     * filtered by availability. Devices are sorted by ID; if a limit is given,
+     * the response holds the cursor of the next page, if any, in the "next"
+     * field.
      *
+     * @param available availability, to get only available or unavailable devices
+     * @param limit     maximum number of devices to return; 0 for no limit
+     * @param after     cursor returned with the previous page
      * @return 200 OK with a collection of devices
      * @onos.rsModel DevicesGet
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getDevices() {
-        Iterable<Device> devices = get(DeviceService.class).getDevices();
-        return ok(encodeArray(Device.class, "devices", devices)).build();
+    public Response getDevices(@QueryParam("available") Boolean available,
+                               @QueryParam(JsonArrayStream.LIMIT) @DefaultValue("0") int limit,
+                               @QueryParam(JsonArrayStream.AFTER) String after) {
+        DeviceService service = get(DeviceService.class);
+        Iterator<Device> devices = StreamSupport.stream(service.getDevices().spliterator(), false)
+                .filter(device -> after == null || device.id().toString().compareTo(after) > 0)
+                .filter(device -> available == null || service.isAvailable(device.id()) == available)
+                .sorted(Comparator.comparing(device -> device.id().toString()))
+                .iterator();
+        return ok(new JsonArrayStream<>(this, codec(Device.class), "devices", devices, limit,
+                                        device -> device.id().toString())).build();
     }
 
     /**
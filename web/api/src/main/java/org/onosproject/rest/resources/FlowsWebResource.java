@@ -34,6 +34,7 @@ import org.onosproject.rest.AbstractWebResource;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -48,7 +49,10 @@ import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.onlab.util.Tools.nullIsIllegal;
@@ -74,28 +78,64 @@ public class FlowsWebResource extends AbstractWebResource {
     private static final String FLOW_ID = "flowId";
 
     /**
-     * Gets all flow entries. Returns array of all flow rules in the system.
+     * Gets all flow entries. Returns array of all flow rules in the system,
+     * optionally filtered by device, application and state. Flows are sorted
+     * by device and flow ID; if a limit is given, the response holds the
+     * cursor of the next page, if any, in the "next" field.
      *
+     * @param deviceId device identifier, to get only the flows of a device
+     * @param appId    application name, to get only the flows of an application
+     * @param state    flow entry state, to get only the flows in that state
+     * @param limit    maximum number of flows to return; 0 for no limit
+     * @param after    cursor returned with the previous page
      * @return 200 OK with a collection of flows
      * @onos.rsModel FlowEntries
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getFlows() {
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
+    public Response getFlows(@QueryParam(DEVICE_ID) String deviceId,
+                             @QueryParam("appId") String appId,
+                             @QueryParam("state") String state,
+                             @QueryParam(JsonArrayStream.LIMIT) @DefaultValue("0") int limit,
+                             @QueryParam(JsonArrayStream.AFTER) String after) {
         FlowRuleService service = get(FlowRuleService.class);
-        Iterable<Device> devices = get(DeviceService.class).getDevices();
-        for (Device device : devices) {
-            Iterable<FlowEntry> flowEntries = service.getFlowEntries(device.id());
-            if (flowEntries != null) {
-                for (FlowEntry entry : flowEntries) {
-                    flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-                }
-            }
+        Stream<DeviceId> deviceIds = deviceId != null ?
+                Stream.of(DeviceId.deviceId(deviceId)) :
+                StreamSupport.stream(get(DeviceService.class).getDevices().spliterator(), false)
+                        .map(Device::id);
+
+        Predicate<FlowEntry> filter = flow -> true;
+        if (appId != null) {
+            ApplicationId app = nullIsNotFound(get(ApplicationService.class).getId(appId),
+                                               APP_ID_NOT_FOUND);
+            filter = filter.and(flow -> flow.appId() == app.id());
+        }
+        if (state != null) {
+            FlowEntry.FlowEntryState flowState = FlowEntry.FlowEntryState.valueOf(state.toUpperCase());
+            filter = filter.and(flow -> flow.state() == flowState);
         }
 
-        return ok(root).build();
+        // Cursor is <deviceId>/<flowId>, flow IDs have no slash.
+        String afterDevice = after == null ? null : after.substring(0, Math.max(0, after.lastIndexOf('/')));
+        long afterFlow = after == null ? 0 : Long.parseLong(after.substring(after.lastIndexOf('/') + 1));
+
+        Stream<FlowEntry> flows = deviceIds
+                .filter(id -> afterDevice == null || id.toString().compareTo(afterDevice) >= 0)
+                .sorted(Comparator.comparing(DeviceId::toString))
+                .flatMap(id -> {
+                    Iterable<FlowEntry> entries = service.getFlowEntries(id);
+                    if (entries == null) {
+                        return Stream.empty();
+                    }
+                    boolean resume = id.toString().equals(afterDevice);
+                    return StreamSupport.stream(entries.spliterator(), false)
+                            .filter(flow -> !resume || flow.id().value() > afterFlow)
+                            .sorted(Comparator.comparingLong(flow -> flow.id().value()));
+                })
+                .filter(filter);
+
+        return ok(new JsonArrayStream<>(this, codec(FlowEntry.class), FLOWS, flows.iterator(), limit,
+                                        flow -> flow.deviceId() + "/" + flow.id().value())).build();
     }
 
      /**
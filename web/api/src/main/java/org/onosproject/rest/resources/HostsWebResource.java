@@ -24,6 +24,7 @@ import org.onlab.packet.MacAddress;
 import org.onlab.packet.VlanId;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultAnnotations;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.Host;
 import org.onosproject.net.HostId;
 import org.onosproject.net.HostLocation;
@@ -39,11 +40,13 @@ import org.onosproject.rest.AbstractWebResource;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -52,10 +55,12 @@ import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.StreamSupport;
 
 import static org.onlab.util.Tools.nullIsNotFound;
 import static org.onlab.util.Tools.readTreeFromStream;
@@ -75,17 +80,31 @@ public class HostsWebResource extends AbstractWebResource {
 
     /**
      * Get all end-station hosts.
-     * Returns array of all known end-station hosts.
+     * Returns array of all known end-station hosts, optionally filtered by
+     * the device they are attached to. Hosts are sorted by ID; if a limit is
+     * given, the response holds the cursor of the next page, if any, in the
+     * "next" field.
      *
+     * @param deviceId device identifier, to get only the hosts attached to a device
+     * @param limit    maximum number of hosts to return; 0 for no limit
+     * @param after    cursor returned with the previous page
      * @return 200 OK with array of all known end-station hosts.
      * @onos.rsModel Hosts
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getHosts() {
-        final Iterable<Host> hosts = get(HostService.class).getHosts();
-        final ObjectNode root = encodeArray(Host.class, "hosts", hosts);
-        return ok(root).build();
+    public Response getHosts(@QueryParam("deviceId") String deviceId,
+                             @QueryParam(JsonArrayStream.LIMIT) @DefaultValue("0") int limit,
+                             @QueryParam(JsonArrayStream.AFTER) String after) {
+        final Iterable<Host> hosts = deviceId != null ?
+                get(HostService.class).getConnectedHosts(DeviceId.deviceId(deviceId)) :
+                get(HostService.class).getHosts();
+        final Iterator<Host> sortedHosts = StreamSupport.stream(hosts.spliterator(), false)
+                .filter(host -> after == null || host.id().toString().compareTo(after) > 0)
+                .sorted(Comparator.comparing(host -> host.id().toString()))
+                .iterator();
+        return ok(new JsonArrayStream<>(this, codec(Host.class), "hosts", sortedHosts, limit,
+                                        host -> host.id().toString())).build();
     }
 
     /**
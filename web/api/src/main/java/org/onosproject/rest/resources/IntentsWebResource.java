@@ -38,11 +38,13 @@ import org.slf4j.Logger;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -50,11 +52,15 @@ import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.StreamSupport;
 
 import static org.onlab.util.Tools.nullIsNotFound;
 import static org.onlab.util.Tools.readTreeFromStream;
@@ -91,17 +97,46 @@ public class IntentsWebResource extends AbstractWebResource {
 
     /**
      * Gets all intents.
-     * Returns array containing all the intents in the system.
+     * Returns array containing all the intents in the system, optionally
+     * filtered by application and state. Intents are sorted by application
+     * name and key; if a limit is given, the response holds the cursor of the
+     * next page, if any, in the "next" field.
      *
+     * @param appId application name, to get only the intents of an application
+     * @param state intent state, to get only the intents in that state
+     * @param limit maximum number of intents to return; 0 for no limit
+     * @param after cursor returned with the previous page
      * @return 200 OK with array of all the intents in the system
      * @onos.rsModel Intents
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getIntents() {
-        final Iterable<Intent> intents = get(IntentService.class).getIntents();
-        final ObjectNode root = encodeArray(Intent.class, "intents", intents);
-        return ok(root).build();
+    public Response getIntents(@QueryParam(APP_ID) String appId,
+                               @QueryParam("state") String state,
+                               @QueryParam(JsonArrayStream.LIMIT) @DefaultValue("0") int limit,
+                               @QueryParam(JsonArrayStream.AFTER) String after) {
+        final IntentService service = get(IntentService.class);
+        Predicate<Intent> filter = intent -> after == null || cursor(intent).compareTo(after) > 0;
+        if (appId != null) {
+            final ApplicationId app = nullIsNotFound(get(CoreService.class).getAppId(appId),
+                                                     APP_ID_NOT_FOUND);
+            filter = filter.and(intent -> intent.appId().equals(app));
+        }
+        if (state != null) {
+            final IntentState intentState = IntentState.valueOf(state.toUpperCase());
+            filter = filter.and(intent -> service.getIntentState(intent.key()) == intentState);
+        }
+        final Iterator<Intent> intents = StreamSupport.stream(service.getIntents().spliterator(), false)
+                .filter(filter)
+                .sorted(Comparator.comparing(IntentsWebResource::cursor))
+                .iterator();
+        return ok(new JsonArrayStream<>(this, codec(Intent.class), "intents", intents, limit,
+                                        IntentsWebResource::cursor)).build();
+    }
+
+    // Intent keys are only unique within an application.
+    private static String cursor(Intent intent) {
+        return intent.appId().name() + "/" + intent.key();
     }
 
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.rest.resources;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.onosproject.codec.CodecContext;
+import org.onosproject.codec.JsonCodec;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * JSON object wrapping the array encoding of a collection of items, written
+ * to the response while items are encoded one at a time, instead of building
+ * the whole JSON tree in memory.
+ * <p>
+ * If a positive limit is given and more items are available, at most limit
+ * items are written, and the object holds the cursor of the last written item
+ * in the {@value #NEXT} field, to be passed back as the {@value #AFTER} query
+ * parameter to get the next page.
+ *
+ * @param <T> item type
+ */
+final class JsonArrayStream<T> implements StreamingOutput {
+
+    static final String LIMIT = "limit";
+    static final String AFTER = "after";
+    static final String NEXT = "next";
+
+    private final CodecContext context;
+    private final JsonCodec<T> codec;
+    private final String field;
+    private final Iterator<T> items;
+    private final int limit;
+    private final Function<? super T, String> cursor;
+
+    /**
+     * Creates a new JSON array stream.
+     *
+     * @param context codec context
+     * @param codec   item codec
+     * @param field   field holding the array
+     * @param items   items, in cursor order
+     * @param limit   maximum number of items; 0 or less for no limit
+     * @param cursor  function returning the cursor of an item
+     */
+    JsonArrayStream(CodecContext context, JsonCodec<T> codec, String field,
+                    Iterator<T> items, int limit, Function<? super T, String> cursor) {
+        this.context = context;
+        this.codec = codec;
+        this.field = field;
+        this.items = items;
+        this.limit = limit;
+        this.cursor = cursor;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try (JsonGenerator generator = context.mapper().getFactory().createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(field);
+            int count = 0;
+            T last = null;
+            while (items.hasNext() && (limit <= 0 || count < limit)) {
+                last = items.next();
+                context.mapper().writeTree(generator, codec.encode(last, context));
+                count++;
+            }
+            generator.writeEndArray();
+            if (limit > 0 && last != null && items.hasNext()) {
+                generator.writeStringField(NEXT, cursor.apply(last));
+            }
+            generator.writeEndObject();
+        }
+    }
+}
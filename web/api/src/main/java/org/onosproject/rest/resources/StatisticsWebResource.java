@@ -15,10 +15,13 @@
  */
 package org.onosproject.rest.resources;
 
+import java.util.List;
+import java.util.Locale;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.stream.StreamSupport;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -39,10 +42,14 @@ import org.onosproject.net.PortNumber;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.device.PortStatistics;
 import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.net.flow.TableStatisticsEntry;
 import org.onosproject.net.link.LinkService;
 import org.onosproject.net.statistic.Load;
+import org.onosproject.net.statistic.RateSample;
+import org.onosproject.net.statistic.StatisticHistoryService;
+import org.onosproject.net.statistic.StatisticHistoryService.Resolution;
 import org.onosproject.net.statistic.StatisticService;
 import org.onosproject.rest.AbstractWebResource;
 
@@ -356,4 +363,70 @@ public class StatisticsWebResource  extends AbstractWebResource {
 
         return ok(root).build();
     }
+
+    /**
+     * Gets the rate history of a specified device and port.
+     *
+     * @onos.rsModel StatisticsHistory
+     * @param deviceId   device ID
+     * @param port       port
+     * @param resolution resolution of the samples: raw, minute or ten_minutes
+     * @return 200 OK with JSON encoded array of rate samples, oldest first
+     */
+    @GET
+    @Path("history/ports/{deviceId}/{port}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getPortHistory(@PathParam("deviceId") String deviceId,
+                                   @PathParam("port") String port,
+                                   @QueryParam("resolution") @DefaultValue("raw") String resolution) {
+        final ConnectPoint connectPoint = new ConnectPoint(deviceId(deviceId), portNumber(port));
+        final List<RateSample> samples = get(StatisticHistoryService.class)
+                .portHistory(connectPoint, resolution(resolution));
+        final ObjectNode root = mapper().createObjectNode();
+        root.put("device", deviceId);
+        root.put("port", port);
+        encodeSamples(root, resolution, samples);
+        return ok(root).build();
+    }
+
+    /**
+     * Gets the rate history of a specified flow.
+     *
+     * @onos.rsModel StatisticsHistory
+     * @param deviceId   device ID
+     * @param flowId     flow rule identifier
+     * @param resolution resolution of the samples: raw, minute or ten_minutes
+     * @return 200 OK with JSON encoded array of rate samples, oldest first
+     */
+    @GET
+    @Path("history/flows/{deviceId}/{flowId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getFlowHistory(@PathParam("deviceId") String deviceId,
+                                   @PathParam("flowId") long flowId,
+                                   @QueryParam("resolution") @DefaultValue("raw") String resolution) {
+        final List<RateSample> samples = get(StatisticHistoryService.class)
+                .flowHistory(deviceId(deviceId), FlowId.valueOf(flowId), resolution(resolution));
+        final ObjectNode root = mapper().createObjectNode();
+        root.put("device", deviceId);
+        root.put("flowId", Long.toString(flowId));
+        encodeSamples(root, resolution, samples);
+        return ok(root).build();
+    }
+
+    private static Resolution resolution(String resolution) {
+        return Resolution.valueOf(resolution.toUpperCase(Locale.ROOT));
+    }
+
+    private void encodeSamples(ObjectNode root, String resolution, List<RateSample> samples) {
+        root.put("resolution", resolution.toLowerCase(Locale.ROOT));
+        final ArrayNode samplesNode = root.putArray("samples");
+        for (final RateSample sample : samples) {
+            samplesNode.addObject()
+                    .put("time", sample.time())
+                    .put("bytesSentRate", sample.bytesSentRate())
+                    .put("packetsSentRate", sample.packetsSentRate())
+                    .put("bytesReceivedRate", sample.bytesReceivedRate())
+                    .put("packetsReceivedRate", sample.packetsReceivedRate());
+        }
+    }
 }
@@ -51,6 +51,7 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
@@ -325,6 +326,54 @@ public class DevicesResourceTest extends ResourceTest {
         assertThat(jsonDevices, hasDevice(device3));
     }
 
+    /**
+     * Tests a paginated rest api GET of the available devices, resuming after
+     * a cursor.
+     */
+    @Test
+    public void testDevicesPage() {
+        Device device1 = device("dev1");
+        Device device2 = device("dev2");
+        Device device3 = device("dev3");
+        Device device4 = device("dev4");
+
+        reset(mockDeviceService);
+        expect(mockDeviceService.isAvailable(did("dev2"))).andReturn(false).anyTimes();
+        expect(mockDeviceService.isAvailable(isA(DeviceId.class))).andReturn(true).anyTimes();
+        expect(mockDeviceService.getRole(isA(DeviceId.class)))
+                .andReturn(MastershipRole.MASTER)
+                .anyTimes();
+        expect(mockDeviceService.getLastUpdatedInstant(isA(DeviceId.class)))
+                .andReturn(0L)
+                .anyTimes();
+        expect(mockDeviceService.localStatus(isA(DeviceId.class)))
+                .andReturn("")
+                .anyTimes();
+        expect(mockDeviceService.getDevices())
+                .andReturn(ImmutableList.of(device4, device2, device3, device1))
+                .anyTimes();
+        replay(mockDeviceService);
+        expect(mockDriverService.getDriver(isA(DeviceId.class)))
+                .andReturn(driver)
+                .anyTimes();
+        replay(mockDriverService);
+
+        WebTarget wt = target();
+        String response = wt.path("devices")
+                .queryParam("available", true)
+                .queryParam("limit", 1)
+                .queryParam("after", did("dev1").toString())
+                .request().get(String.class);
+        JsonObject result = Json.parse(response).asObject();
+        assertThat(result, notNullValue());
+
+        assertThat(result.names(), hasSize(2));
+        JsonArray jsonDevices = result.get("devices").asArray();
+        assertThat(jsonDevices.size(), is(1));
+        assertThat(jsonDevices, hasDevice(device3));
+        assertThat(result.get("next").asString(), is(did("dev3").toString()));
+    }
+
     /**
      * Tests the result of a rest api GET for a single device.
      */
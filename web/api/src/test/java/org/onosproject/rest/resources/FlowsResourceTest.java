@@ -656,6 +656,30 @@ public class FlowsResourceTest extends ResourceTest {
         assertThat(jsonFlows, hasFlow(flow4));
     }
 
+    /**
+     * Tests the result of a paginated rest api GET, resuming after a cursor.
+     */
+    @Test
+    public void testFlowsPage() {
+        setupMockFlows();
+        replay(mockFlowService);
+        replay(mockDeviceService);
+        final WebTarget wt = target();
+        final String response = wt.path("flows")
+                .queryParam("limit", 2)
+                .queryParam("after", deviceId1 + "/" + flow1.id().value())
+                .request().get(String.class);
+        final JsonObject result = Json.parse(response).asObject();
+        assertThat(result, notNullValue());
+
+        assertThat(result.names(), hasSize(2));
+        final JsonArray jsonFlows = result.get("flows").asArray();
+        assertThat(jsonFlows.size(), is(2));
+        assertThat(jsonFlows, hasFlow(flow2));
+        assertThat(jsonFlows, hasFlow(flow3));
+        assertThat(result.get("next").asString(), is(deviceId2 + "/" + flow3.id().value()));
+    }
+
     /**
      * Tests the result of a rest api GET for a device.
      */
@@ -330,6 +330,42 @@ public class HostResourceTest extends ResourceTest {
         assertThat(hosts, hasHost(host2));
     }
 
+    /**
+     * Tests a paginated rest api GET of the hosts of a device, resuming after
+     * a cursor.
+     */
+    @Test
+    public void testHostsPage() {
+        final ProviderId pid = new ProviderId("of", "foo");
+        final DeviceId deviceId = DeviceId.deviceId("1");
+        final Set<Host> connected = new HashSet<>();
+        for (int i = 1; i <= 3; i++) {
+            connected.add(new DefaultHost(pid, HostId.hostId(valueOf(i), vlanId((short) 1)),
+                                          valueOf(i), vlanId((short) 1),
+                                          new HostLocation(deviceId, portNumber(i), 1),
+                                          ImmutableSet.of()));
+        }
+        expect(mockHostService.getConnectedHosts(deviceId)).andReturn(connected).once();
+        replay(mockHostService);
+        final HostId after = HostId.hostId(valueOf(1), vlanId((short) 1));
+        final HostId expected = HostId.hostId(valueOf(2), vlanId((short) 1));
+
+        WebTarget wt = target();
+        String response = wt.path("hosts")
+                .queryParam("deviceId", deviceId.toString())
+                .queryParam("limit", 1)
+                .queryParam("after", after.toString())
+                .request().get(String.class);
+        final JsonObject result = Json.parse(response).asObject();
+        assertThat(result, notNullValue());
+
+        assertThat(result.names(), hasSize(2));
+        final JsonArray jsonHosts = result.get("hosts").asArray();
+        assertThat(jsonHosts.size(), is(1));
+        assertThat(jsonHosts.get(0).asObject().get("id").asString(), is(expected.toString()));
+        assertThat(result.get("next").asString(), is(expected.toString()));
+    }
+
     /**
      * Tests fetch of one host by Id.
      */
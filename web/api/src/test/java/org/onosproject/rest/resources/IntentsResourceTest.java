@@ -797,6 +797,85 @@ public class IntentsResourceTest extends ResourceTest {
         assertThat(jsonIntents, hasIntent(intent2));
     }
 
+    /**
+     * Tests a paginated rest api GET of intents with the same key in several
+     * applications, resuming after a cursor.
+     */
+    @Test
+    public void testIntentsPage() {
+        replay(mockIntentService);
+        final ApplicationId app1 = new DefaultApplicationId(1, "app1");
+        final ApplicationId app2 = new DefaultApplicationId(2, "app2");
+        intents.add(new KeyedIntent(app2, "k"));
+        intents.add(new KeyedIntent(app1, "k"));
+        intents.add(new KeyedIntent(app1, "j"));
+        intents.add(new KeyedIntent(app2, "l"));
+
+        final WebTarget wt = target();
+        String response = wt.path("intents")
+                .queryParam("limit", 2)
+                .queryParam("after", "app1/j")
+                .request().get(String.class);
+        JsonObject result = Json.parse(response).asObject();
+        assertThat(result.names(), hasSize(2));
+        JsonArray jsonIntents = result.get("intents").asArray();
+        assertThat(jsonIntents.size(), is(2));
+        assertIntent(jsonIntents.get(0).asObject(), app1, "k");
+        assertIntent(jsonIntents.get(1).asObject(), app2, "k");
+        assertThat(result.get("next").asString(), is("app2/k"));
+
+        // The intent with the same key in the other application is not skipped.
+        response = wt.path("intents")
+                .queryParam("limit", 2)
+                .queryParam("after", "app1/k")
+                .request().get(String.class);
+        result = Json.parse(response).asObject();
+        jsonIntents = result.get("intents").asArray();
+        assertThat(jsonIntents.size(), is(2));
+        assertIntent(jsonIntents.get(0).asObject(), app2, "k");
+        assertIntent(jsonIntents.get(1).asObject(), app2, "l");
+        assertThat(result.get("next"), nullValue());
+    }
+
+    /**
+     * Tests a rest api GET of the intents of an application.
+     */
+    @Test
+    public void testIntentsByApp() {
+        replay(mockIntentService);
+        final ApplicationId app1 = new DefaultApplicationId(1, "app1");
+        final ApplicationId app2 = new DefaultApplicationId(2, "app2");
+        expect(mockCoreService.getAppId("app2")).andReturn(app2).anyTimes();
+        replay(mockCoreService);
+        intents.add(new KeyedIntent(app1, "k"));
+        intents.add(new KeyedIntent(app2, "l"));
+        intents.add(new KeyedIntent(app2, "k"));
+
+        final WebTarget wt = target();
+        final String response = wt.path("intents")
+                .queryParam("appId", "app2")
+                .request().get(String.class);
+        final JsonArray jsonIntents = Json.parse(response).asObject().get("intents").asArray();
+        assertThat(jsonIntents.size(), is(2));
+        assertIntent(jsonIntents.get(0).asObject(), app2, "k");
+        assertIntent(jsonIntents.get(1).asObject(), app2, "l");
+    }
+
+    private static void assertIntent(JsonObject jsonIntent, ApplicationId appId, String key) {
+        assertThat(jsonIntent.get("appId").asString(), is(appId.name()));
+        assertThat(jsonIntent.get("key").asString(), is(key));
+    }
+
+    /**
+     * Intent with a given key.
+     */
+    private static class KeyedIntent extends Intent {
+        KeyedIntent(ApplicationId appId, String key) {
+            super(appId, Key.of(key, appId), Collections.emptyList(),
+                  Intent.DEFAULT_INTENT_PRIORITY, null);
+        }
+    }
+
     /**
      * Tests the result of a rest api GET for a single intent.
      */
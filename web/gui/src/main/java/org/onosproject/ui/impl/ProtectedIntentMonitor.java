@@ -134,6 +134,7 @@ public class ProtectedIntentMonitor extends AbstractTopoMonitor {
      */
     public synchronized void monitor(Intent intent) {
         log.debug("monitor intent: {}", intent.id());
+        msgHandler.resetHighlights();
         selectedIntent = intent;
         mode = SELECTED_INTENT;
         scheduleTask();
@@ -146,6 +147,7 @@ public class ProtectedIntentMonitor extends AbstractTopoMonitor {
     public synchronized void stopMonitoring() {
         log.debug("STOP monitoring");
         if (mode != IDLE) {
+            msgHandler.resetHighlights();
             sendClearAll();
         }
     }
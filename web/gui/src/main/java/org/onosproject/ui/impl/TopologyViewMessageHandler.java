@@ -63,6 +63,7 @@ import org.onosproject.ui.JsonUtils;
 import org.onosproject.ui.RequestHandler;
 import org.onosproject.ui.UiConnection;
 import org.onosproject.ui.impl.TrafficMonitorBase.Mode;
+import org.onosproject.ui.impl.topo.util.HighlightsDelta;
 import org.onosproject.ui.topo.Highlights;
 import org.onosproject.ui.topo.NodeSelection;
 import org.onosproject.ui.topo.PropertyPanel;
@@ -91,7 +92,6 @@ import static org.onosproject.net.host.HostEvent.Type.HOST_ADDED;
 import static org.onosproject.net.link.LinkEvent.Type.LINK_ADDED;
 import static org.onosproject.ui.JsonUtils.envelope;
 import static org.onosproject.ui.JsonUtils.string;
-import static org.onosproject.ui.topo.TopoJson.highlightsMessage;
 import static org.onosproject.ui.topo.TopoJson.json;
 
 /**
@@ -125,10 +125,12 @@ public class TopologyViewMessageHandler extends TopologyViewMessageHandlerBase {
     private static final String TOPO_STOP = "topoStop";
     private static final String SEL_PROTECTED_INTENT = "selectProtectedIntent";
     private static final String CANCEL_PROTECTED_INTENT_HIGHLIGHT = "cancelProtectedIntentHighlight";
+    private static final String TOPO_HIGHLIGHTS_RESYNC = "topoHighlightsResync";
 
     // outgoing event types
     private static final String SHOW_SUMMARY = "showSummary";
     private static final String SHOW_DETAILS = "showDetails";
+    private static final String SHOW_HIGHLIGHTS = "showHighlights";
     private static final String SPRITE_LIST_RESPONSE = "spriteListResponse";
     private static final String SPRITE_DATA_RESPONSE = "spriteDataResponse";
     private static final String UPDATE_INSTANCE = "updateInstance";
@@ -201,6 +203,7 @@ public class TopologyViewMessageHandler extends TopologyViewMessageHandlerBase {
 
     private TopoOverlayCache overlayCache;
     private TrafficMonitor traffic;
+    private final HighlightsDelta highlightsDelta = new HighlightsDelta();
     private ProtectedIntentMonitor protectedIntentMonitor;
 
     private TimerTask summaryTask = null;
@@ -255,7 +258,8 @@ public class TopologyViewMessageHandler extends TopologyViewMessageHandlerBase {
                 new SelProtectedIntent(),
 
                 new CancelTraffic(),
-                new CancelProtectedIntentHighlight()
+                new CancelProtectedIntentHighlight(),
+                new TopoHighlightsResync()
         );
     }
 
@@ -278,6 +282,7 @@ public class TopologyViewMessageHandler extends TopologyViewMessageHandlerBase {
         @Override
         public void process(ObjectNode payload) {
             addListeners();
+            resetHighlights();
             sendAllInstances(null);
             sendAllDevices();
             sendAllLinks();
@@ -296,6 +301,7 @@ public class TopologyViewMessageHandler extends TopologyViewMessageHandlerBase {
             String deact = string(payload, DEACTIVATE);
             String act = string(payload, ACTIVATE);
             overlayCache.switchOverlay(deact, act);
+            resetHighlights();
         }
     }
 
@@ -740,12 +746,36 @@ public class TopologyViewMessageHandler extends TopologyViewMessageHandlerBase {
         }
     }
 
+    // The client no longer shows the highlights last sent, e.g. since an
+    // overlay sent its own highlights
+    private final class TopoHighlightsResync extends RequestHandler {
+        private TopoHighlightsResync() {
+            super(TOPO_HIGHLIGHTS_RESYNC);
+        }
+
+        @Override
+        public void process(ObjectNode payload) {
+            resetHighlights();
+        }
+    }
+
     //=======================================================================
 
-    // Converts highlights to JSON format and sends the message to the client
+    // Converts highlights to JSON format and sends the message to the client,
+    // as a delta of the previous highlights where possible; nothing is sent
+    // if the highlights did not change
     @Override
     public void sendHighlights(Highlights highlights) {
-        sendMessage(highlightsMessage(highlights));
+        ObjectNode payload = highlightsDelta.encode(highlights);
+        if (payload != null) {
+            sendMessage(envelope(SHOW_HIGHLIGHTS, payload));
+        }
+    }
+
+    // Sends the next highlights in full
+    @Override
+    public void resetHighlights() {
+        highlightsDelta.reset();
     }
 
     // Subscribes for summary messages.
@@ -60,9 +60,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.onosproject.net.DefaultEdgeLink.createEdgeLink;
@@ -306,6 +309,11 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
     private final Timer timer;
     private TimerTask trafficTask = null;
 
+    // Traffic on the whole topology, by type of statistics, shared by the
+    // monitors of all sessions.
+    private static final Map<TrafficLink.StatsType, SharedTraffic> SHARED_TRAFFIC =
+            new ConcurrentHashMap<>();
+
     /**
      * Constructs the monitor, initializing the task period and
      * services bundle reference.
@@ -342,6 +350,7 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
      */
     public synchronized void monitor(Mode mode) {
         this.mode = mode;
+        msgHandler.resetHighlights();
 
         switch (mode) {
 
@@ -395,6 +404,7 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
     public synchronized void monitor(Mode mode, NodeSelection nodeSelection) {
         log.debug("monitor: {} -- {}", mode, nodeSelection);
         this.mode = mode;
+        msgHandler.resetHighlights();
         this.selectedNodes = nodeSelection;
 
         switch (mode) {
@@ -436,6 +446,7 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
      */
     public synchronized void monitor(Intent intent) {
         log.debug("monitor intent: {}", intent.id());
+        msgHandler.resetHighlights();
         selectedNodes = null;
         selectedIntents = new IntentSelection(intent);
         mode = SELECTED_INTENT;
@@ -523,6 +534,7 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
     public synchronized void stopMonitoring() {
         log.debug("STOP monitoring");
         if (mode != IDLE) {
+            msgHandler.resetHighlights();
             clearAll();
         }
     }
@@ -556,11 +568,23 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
     /**
      * Generates a set of "traffic links" encapsulating information about the
      * traffic on each link (that is deemed to have traffic).
+     * <p>
+     * The traffic on the whole topology does not depend on the session, hence
+     * it is computed once per traffic period and shared by the monitors of
+     * all sessions. The returned set must not be modified.
      *
      * @param type the type of statistics to be displayed
      * @return the set of links with traffic
      */
     protected Set<TrafficLink> computeLinksWithTraffic(TrafficLink.StatsType type) {
+        SharedTraffic shared = SHARED_TRAFFIC.computeIfAbsent(type, t -> new SharedTraffic());
+        // Consider traffic computed in the last half period as current, so
+        // that sessions with unaligned timers still share computations.
+        return shared.get(trafficPeriod / 2, () -> computeTopologyTraffic(type));
+    }
+
+    // Computes the links with traffic over the whole topology.
+    private Set<TrafficLink> computeTopologyTraffic(TrafficLink.StatsType type) {
         TrafficLinkMap linkMap = new TrafficLinkMap();
         compileLinks(linkMap);
         addEdgeLinks(linkMap);
@@ -581,7 +605,7 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
                 linksWithTraffic.add(tlink);
             }
         }
-        return linksWithTraffic;
+        return Collections.unmodifiableSet(linksWithTraffic);
     }
 
     /**
@@ -688,6 +712,24 @@ public abstract class TrafficMonitorBase extends AbstractTopoMonitor {
     }
 
 
+    // Links with traffic computed at a given time; concurrent requests for
+    // a stale value wait for a single computation.
+    private static final class SharedTraffic {
+        private Set<TrafficLink> links;
+        private long computedAt;
+
+        private synchronized Set<TrafficLink> get(long maxAgeMs,
+                                                  Supplier<Set<TrafficLink>> compute) {
+            long now = System.currentTimeMillis();
+            if (links == null || now - computedAt >= maxAgeMs) {
+                links = compute.get();
+                computedAt = System.currentTimeMillis();
+            }
+            return links;
+        }
+    }
+
+
     // =======================================================================
     // === Background Task
 
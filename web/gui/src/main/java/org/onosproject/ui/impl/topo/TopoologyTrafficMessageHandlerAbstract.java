@@ -23,4 +23,12 @@ import org.onosproject.ui.topo.Highlights;
  */
 public abstract class TopoologyTrafficMessageHandlerAbstract extends UiMessageHandler {
     public abstract void sendHighlights(Highlights highlights);
+
+    /**
+     * Invoked when the monitored traffic changes, e.g. on a new monitoring
+     * mode or selection, so that the next highlights are sent in full.
+     * Does nothing by default.
+     */
+    public void resetHighlights() {
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ *  Copyright 2019-present Open Networking Foundation
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.onosproject.ui.impl.topo.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.onosproject.ui.topo.Highlights;
+import org.onosproject.ui.topo.TopoJson;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes the highlights sent to a topology view client as deltas of the
+ * previously sent highlights.
+ * <p>
+ * A delta payload is flagged with {@code "delta": true}, lists only the
+ * devices, hosts and links whose highlighting changed, and the IDs of the
+ * elements no longer highlighted in {@code "removedDevices"},
+ * {@code "removedHosts"} and {@code "removedLinks"}. Full payloads are sent
+ * first, whenever elements are subdued or delayed, to clear all highlights,
+ * and periodically, so that a client catches up with elements it added to
+ * its view since.
+ * <p>
+ * Payloads are numbered in {@code "seq"}, and a delta payload gives in
+ * {@code "base"} the number of the payload it applies to. A client whose
+ * highlights were replaced in the meantime, e.g. by an overlay, asks for a
+ * full payload instead of applying the delta.
+ */
+public class HighlightsDelta {
+
+    /**
+     * Number of payloads after which a full payload is sent.
+     */
+    static final int FULL_PERIOD = 12;
+
+    static final String DELTA = "delta";
+    static final String REMOVED_DEVICES = "removedDevices";
+    static final String REMOVED_HOSTS = "removedHosts";
+    static final String REMOVED_LINKS = "removedLinks";
+    static final String SEQ = "seq";
+    static final String BASE = "base";
+
+    private static final String DEVICES = "devices";
+    private static final String HOSTS = "hosts";
+    private static final String LINKS = "links";
+    private static final String SUBDUE = "subdue";
+    private static final String DELAY = "delay";
+    private static final String ID = "id";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private Map<String, JsonNode> devices;
+    private Map<String, JsonNode> hosts;
+    private Map<String, JsonNode> links;
+    private boolean lastFull;
+    private int sinceFull;
+    private long seq;
+
+    /**
+     * Returns the payload to send to the client for the given highlights,
+     * either full or delta, and records the highlights as sent.
+     *
+     * @param highlights highlights to send
+     * @return payload to send, or null if the client already shows the
+     * given highlights
+     */
+    public synchronized ObjectNode encode(Highlights highlights) {
+        ObjectNode full = TopoJson.json(highlights);
+        Map<String, JsonNode> newDevices = index(full.get(DEVICES));
+        Map<String, JsonNode> newHosts = index(full.get(HOSTS));
+        Map<String, JsonNode> newLinks = index(full.get(LINKS));
+
+        boolean clear = newDevices.isEmpty() && newHosts.isEmpty() && newLinks.isEmpty();
+        boolean needFull = devices == null || lastFull
+                || full.has(SUBDUE) || full.has(DELAY)
+                || (clear && !(devices.isEmpty() && hosts.isEmpty() && links.isEmpty()))
+                || ++sinceFull >= FULL_PERIOD;
+
+        ObjectNode payload = null;
+        if (needFull) {
+            payload = full;
+            sinceFull = 0;
+        } else {
+            ObjectNode delta = MAPPER.createObjectNode();
+            delta.put(DELTA, true);
+            boolean changed = diff(delta, DEVICES, REMOVED_DEVICES, devices, newDevices);
+            changed |= diff(delta, HOSTS, REMOVED_HOSTS, hosts, newHosts);
+            changed |= diff(delta, LINKS, REMOVED_LINKS, links, newLinks);
+            if (changed) {
+                delta.put(BASE, seq);
+                payload = delta;
+            }
+        }
+        if (payload != null) {
+            payload.put(SEQ, ++seq);
+        }
+
+        // A full payload with subdued or delayed elements cannot be followed
+        // by a delta, since the client resets those on full payloads only.
+        lastFull = full.has(SUBDUE) || full.has(DELAY);
+        devices = newDevices;
+        hosts = newHosts;
+        links = newLinks;
+        return payload;
+    }
+
+    /**
+     * Forgets the highlights sent, so that the next payload is a full one.
+     * To be called whenever the client may have reset its highlights.
+     */
+    public synchronized void reset() {
+        devices = null;
+        hosts = null;
+        links = null;
+        sinceFull = 0;
+    }
+
+    private static Map<String, JsonNode> index(JsonNode elements) {
+        Map<String, JsonNode> index = new HashMap<>();
+        elements.forEach(e -> index.put(e.get(ID).asText(), e));
+        return index;
+    }
+
+    // Adds changed and removed elements to the delta payload; returns true
+    // if there is any.
+    private static boolean diff(ObjectNode delta, String field, String removedField,
+                                Map<String, JsonNode> previous, Map<String, JsonNode> current) {
+        ArrayNode changed = delta.putArray(field);
+        ArrayNode removed = delta.putArray(removedField);
+        current.forEach((id, node) -> {
+            if (!node.equals(previous.get(id))) {
+                changed.add(node);
+            }
+        });
+        previous.keySet().stream()
+                .filter(id -> !current.containsKey(id))
+                .forEach(removed::add);
+        return changed.size() > 0 || removed.size() > 0;
+    }
+}
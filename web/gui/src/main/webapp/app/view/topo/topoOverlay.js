@@ -35,7 +35,8 @@
     // internal state
     var overlays = {},
         current = null,
-        reset = true;
+        reset = true,
+        hiliteSeq = null;   // number of the last highlights sent as deltas
 
     // function to be replaced by the localization bundle function
     var topoLion = function (x) {
@@ -337,9 +338,85 @@
         }
     }
 
+    // Applies a delta of the previously shown highlights: only the listed
+    // elements changed, and the removed ones are no longer highlighted.
+    function _showHighlightsDelta(data) {
+        api.clearNodeDeco();
+
+        function clearNode(id) {
+            var ndata = api.findNodeById(id);
+            if (ndata) {
+                ndata.badge = null;
+            }
+        }
+
+        function clearLink(id) {
+            var ldata = api.findLinkById(id);
+            if (ldata && ldata.el && !ldata.el.empty()) {
+                if (ldata.hiliteCss) {
+                    ldata.el.classed(ldata.hiliteCss, false);
+                    ldata.hiliteCss = null;
+                }
+                ldata.el.style('stroke-width', null);
+                ldata.label = '';
+            }
+        }
+
+        data.removedDevices.forEach(clearNode);
+        data.removedHosts.forEach(clearNode);
+        data.removedLinks.forEach(clearLink);
+
+        data.devices.concat(data.hosts).forEach(function (n) {
+            var ndata = api.findNodeById(n.id);
+            if (ndata) {
+                ndata.badge = n.badge || null;
+            }
+        });
+
+        data.links.forEach(function (link) {
+            var ldata;
+            clearLink(link.id);
+            ldata = api.findLinkById(link.id);
+            if (ldata && ldata.el && !ldata.el.empty()) {
+                ldata.el.classed(link.css, true);
+                ldata.hiliteCss = link.css;
+                ldata.label = link.label;
+            } else {
+                $log.warn('HILITE: no link element:', link.id);
+            }
+        });
+
+        api.updateNodes();
+        api.updateLinks();
+    }
+
+    // Asks the server for full highlights, since the ones shown are not
+    // those the next delta would apply to.
+    function resyncHighlights() {
+        hiliteSeq = null;
+        wss.sendEvent('topoHighlightsResync');
+    }
+
     function _showHighlights(data) {
         var less;
 
+        if (data.delta) {
+            if (data.base !== hiliteSeq) {
+                resyncHighlights();
+                return;
+            }
+            _showHighlightsDelta(data);
+            hiliteSeq = data.seq;
+            return;
+        }
+
+        if (data.seq !== undefined) {
+            hiliteSeq = data.seq;
+        } else if (hiliteSeq !== null) {
+            // highlights sent by an overlay replace those sent as deltas
+            resyncHighlights();
+        }
+
         /*
            API to topoForce
              clearLinkTrafficStyle()
@@ -406,6 +483,7 @@
                     api.unsupLink(ldata.key, less);
                 }
                 ldata.el.classed(link.css, true);
+                ldata.hiliteCss = link.css;
                 ldata.label = link.label;
 
             } else {
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.onosproject.ui.impl.topo.util;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+import org.onosproject.ui.impl.AbstractUiImplTest;
+import org.onosproject.ui.topo.Highlights;
+import org.onosproject.ui.topo.LinkHighlight;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.ui.topo.LinkHighlight.Flavor.PRIMARY_HIGHLIGHT;
+
+/**
+ * Unit tests for {@link HighlightsDelta}.
+ */
+public class HighlightsDeltaTest extends AbstractUiImplTest {
+
+    private static final String L1 = "1/1-2/2";
+    private static final String L2 = "1/2-3/1";
+
+    private final HighlightsDelta delta = new HighlightsDelta();
+
+    private static Highlights links(String... idsAndLabels) {
+        Highlights highlights = new Highlights();
+        for (int i = 0; i < idsAndLabels.length; i += 2) {
+            highlights.add(new LinkHighlight(idsAndLabels[i], PRIMARY_HIGHLIGHT)
+                                   .setLabel(idsAndLabels[i + 1]));
+        }
+        return highlights;
+    }
+
+    @Test
+    public void deltas() {
+        title("deltas");
+        ObjectNode full = delta.encode(links(L1, "1 Mbps", L2, "2 Mbps"));
+        assertFalse(full.has(HighlightsDelta.DELTA));
+        assertEquals(2, full.get("links").size());
+
+        assertNull(delta.encode(links(L1, "1 Mbps", L2, "2 Mbps")));
+
+        ObjectNode changed = delta.encode(links(L1, "5 Mbps"));
+        print(changed);
+        assertTrue(changed.get(HighlightsDelta.DELTA).asBoolean());
+        assertEquals(1, changed.get("links").size());
+        assertEquals(L1, changed.get("links").get(0).get("id").asText());
+        assertEquals(1, changed.get(HighlightsDelta.REMOVED_LINKS).size());
+        assertEquals(L2, changed.get(HighlightsDelta.REMOVED_LINKS).get(0).asText());
+    }
+
+    @Test
+    public void fullPayloads() {
+        title("fullPayloads");
+        delta.encode(links(L1, "1 Mbps"));
+
+        Highlights subdued = links(L1, "1 Mbps");
+        subdued.subdueAllElse(Highlights.Amount.MINIMALLY);
+        assertFalse(delta.encode(subdued).has(HighlightsDelta.DELTA));
+        // The client unsubdues only on full payloads
+        assertFalse(delta.encode(links(L1, "1 Mbps")).has(HighlightsDelta.DELTA));
+
+        delta.reset();
+        assertFalse(delta.encode(links(L1, "1 Mbps")).has(HighlightsDelta.DELTA));
+
+        int full = 0;
+        for (int i = 0; i < HighlightsDelta.FULL_PERIOD; i++) {
+            ObjectNode payload = delta.encode(links(L1, i + " Mbps"));
+            if (!payload.has(HighlightsDelta.DELTA)) {
+                full++;
+            }
+        }
+        assertEquals(1, full);
+    }
+
+    @Test
+    public void clear() {
+        title("clear");
+        delta.encode(links(L1, "1 Mbps", L2, "2 Mbps"));
+        delta.encode(links(L1, "2 Mbps", L2, "2 Mbps"));
+
+        ObjectNode cleared = delta.encode(new Highlights());
+        assertFalse(cleared.has(HighlightsDelta.DELTA));
+        assertEquals(0, cleared.get("links").size());
+        assertNull(delta.encode(new Highlights()));
+    }
+
+    @Test
+    public void sequence() {
+        title("sequence");
+        ObjectNode full = delta.encode(links(L1, "1 Mbps"));
+        long seq = full.get(HighlightsDelta.SEQ).asLong();
+        assertFalse(full.has(HighlightsDelta.BASE));
+
+        ObjectNode changed = delta.encode(links(L1, "2 Mbps"));
+        assertEquals(seq, changed.get(HighlightsDelta.BASE).asLong());
+        assertEquals(seq + 1, changed.get(HighlightsDelta.SEQ).asLong());
+
+        // Numbering goes on after a reset, so that older deltas are ignored
+        delta.reset();
+        full = delta.encode(links(L1, "2 Mbps"));
+        assertFalse(full.has(HighlightsDelta.DELTA));
+        assertEquals(seq + 2, full.get(HighlightsDelta.SEQ).asLong());
+    }
+}